@@ -1,5 +1,7 @@
 package it.rotaliano.jdbc.salesforce;
 
+import java.io.File;
+
 /**
  * Central configuration for the Salesforce JDBC driver.
  * All values can be overridden via system properties (e.g. {@code -Dsalesforce.jdbc.batchSize=200}).
@@ -16,6 +18,30 @@ public class DriverConfiguration {
     public static final String PROP_READ_TIMEOUT      = PROP_PREFIX + "readTimeout";
     public static final String PROP_MAX_RETRIES       = PROP_PREFIX + "maxRetries";
     public static final String PROP_CACHE_SIZE        = PROP_PREFIX + "cacheSize";
+    public static final String PROP_DML_BATCH_SIZE    = PROP_PREFIX + "dmlBatchSize";
+    public static final String PROP_PREFETCH_DEPTH    = PROP_PREFIX + "prefetchDepth";
+    public static final String PROP_PREFETCH_THREADS  = PROP_PREFIX + "prefetchThreads";
+    public static final String PROP_PREFETCH_IDLE_TIMEOUT = PROP_PREFIX + "prefetchIdleTimeout";
+    public static final String PROP_CACHE_OFFHEAP_MB  = PROP_PREFIX + "cacheOffHeapMb";
+    public static final String PROP_CACHE_DISK_MB     = PROP_PREFIX + "cacheDiskMb";
+    public static final String PROP_CACHE_DISK_PATH   = PROP_PREFIX + "cacheDiskPath";
+    public static final String PROP_CACHE_DISK_PERSISTENT = PROP_PREFIX + "cacheDiskPersistent";
+    public static final String PROP_CACHE_REFRESH_THREADS = PROP_PREFIX + "cacheRefreshThreads";
+    public static final String PROP_DESCRIBE_CACHE_TTL    = PROP_PREFIX + "describeCacheTtl";
+    public static final String PROP_DESCRIBE_CACHE_PATH   = PROP_PREFIX + "describeCachePath";
+    public static final String PROP_DESCRIBE_CACHE_STORE  = PROP_PREFIX + "describeCacheStore";
+    public static final String PROP_DESCRIBE_THREADS      = PROP_PREFIX + "describeThreads";
+    public static final String PROP_DESCRIBE_RETRIES      = PROP_PREFIX + "describeRetries";
+    public static final String PROP_VALIDATION_INTERVAL   = PROP_PREFIX + "validationInterval";
+    public static final String PROP_POOL_MAX_SIZE         = PROP_PREFIX + "poolMaxSize";
+    public static final String PROP_POOL_ACQUIRE_TIMEOUT  = PROP_PREFIX + "poolAcquireTimeout";
+    public static final String PROP_BULK_QUERY_THRESHOLD  = PROP_PREFIX + "bulkQueryThreshold";
+    public static final String PROP_BULK_POLL_INTERVAL    = PROP_PREFIX + "bulkPollInterval";
+    public static final String PROP_BULK_MAX_WAIT         = PROP_PREFIX + "bulkMaxWait";
+    public static final String PROP_BULK_MAX_RECORDS      = PROP_PREFIX + "bulkMaxRecords";
+    public static final String PROP_BULK_INGEST_THRESHOLD = PROP_PREFIX + "bulkIngestThreshold";
+    public static final String PROP_BULK_INGEST_JOB_SIZE  = PROP_PREFIX + "bulkIngestJobSize";
+    public static final String PROP_STATEMENT_CACHE_SIZE  = PROP_PREFIX + "statementCacheSize";
 
     // Default values
     private static final int    DEFAULT_BATCH_SIZE        = 100;
@@ -24,6 +50,32 @@ public class DriverConfiguration {
     private static final long   DEFAULT_READ_TIMEOUT      = 30_000L;
     private static final int    DEFAULT_MAX_RETRIES       = 5;
     private static final int    DEFAULT_CACHE_SIZE        = 100;
+    private static final int    DEFAULT_DML_BATCH_SIZE    = 200;
+    private static final int    DEFAULT_PREFETCH_DEPTH    = 0;
+    private static final int    DEFAULT_PREFETCH_THREADS  = 4;
+    private static final long   DEFAULT_PREFETCH_IDLE_TIMEOUT = 600_000L;
+    private static final long   DEFAULT_CACHE_OFFHEAP_MB  = 0L;
+    private static final long   DEFAULT_CACHE_DISK_MB     = 0L;
+    private static final String DEFAULT_CACHE_DISK_PATH   =
+        System.getProperty("java.io.tmpdir") + File.separator + "salesforce-jdbc-cache";
+    private static final boolean DEFAULT_CACHE_DISK_PERSISTENT = true;
+    private static final int    DEFAULT_CACHE_REFRESH_THREADS = 2;
+    private static final long   DEFAULT_DESCRIBE_CACHE_TTL    = 86_400L;
+    private static final int    DEFAULT_DESCRIBE_THREADS      = 4;
+    private static final int    DEFAULT_DESCRIBE_RETRIES      = 2;
+    private static final long   DEFAULT_VALIDATION_INTERVAL   = 30_000L;
+    private static final int    DEFAULT_POOL_MAX_SIZE         = 10;
+    private static final long   DEFAULT_POOL_ACQUIRE_TIMEOUT  = 30_000L;
+    private static final int    DEFAULT_BULK_QUERY_THRESHOLD  = 0;
+    private static final long   DEFAULT_BULK_POLL_INTERVAL    = 1_000L;
+    private static final long   DEFAULT_BULK_MAX_WAIT         = 3_600_000L;
+    private static final int    DEFAULT_BULK_MAX_RECORDS      = 50_000;
+    private static final int    DEFAULT_BULK_INGEST_THRESHOLD = 0;
+    private static final int    DEFAULT_BULK_INGEST_JOB_SIZE  = 100_000;
+    private static final int    DEFAULT_STATEMENT_CACHE_SIZE  = 1_000;
+
+    /** Maximum number of records accepted by a single SOAP create/update/delete call. */
+    public static final int MAX_DML_BATCH_SIZE = 200;
 
     private DriverConfiguration() {}
 
@@ -63,12 +115,206 @@ public class DriverConfiguration {
     }
 
     /**
-     * Maximum number of entries held in the query result cache (heap).
+     * Maximum number of entries held in the heap tier of the query result cache. Limits in MB apply to the
+     * off-heap tier ({@link #getCacheOffHeapMb()}).
      */
     public static int getCacheSize() {
         return getInt(PROP_CACHE_SIZE, DEFAULT_CACHE_SIZE);
     }
 
+    /**
+     * Size in MB of the off-heap tier of the query result cache. {@code 0} disables the tier.
+     */
+    public static long getCacheOffHeapMb() {
+        return Math.max(0L, getLong(PROP_CACHE_OFFHEAP_MB, DEFAULT_CACHE_OFFHEAP_MB));
+    }
+
+    /**
+     * Size in MB of the local disk tier of the query result cache. {@code 0} disables the tier.
+     */
+    public static long getCacheDiskMb() {
+        return Math.max(0L, getLong(PROP_CACHE_DISK_MB, DEFAULT_CACHE_DISK_MB));
+    }
+
+    /**
+     * Directory holding the disk tier of the query result cache.
+     */
+    public static String getCacheDiskPath() {
+        return getString(PROP_CACHE_DISK_PATH, DEFAULT_CACHE_DISK_PATH);
+    }
+
+    /**
+     * Whether the disk tier of the query result cache is kept across restarts.
+     */
+    public static boolean isCacheDiskPersistent() {
+        return getBoolean(PROP_CACHE_DISK_PERSISTENT, DEFAULT_CACHE_DISK_PERSISTENT);
+    }
+
+    /**
+     * Maximum number of records sent in a single create/update/delete call by {@code executeBatch()}.
+     * Values are clamped to the range {@code 1..200}, the Salesforce SOAP API limit.
+     */
+    public static int getDmlBatchSize() {
+        int value = getInt(PROP_DML_BATCH_SIZE, DEFAULT_DML_BATCH_SIZE);
+        return Math.max(1, Math.min(value, MAX_DML_BATCH_SIZE));
+    }
+
+    /**
+     * Number of {@code queryMore} batches fetched ahead in the background for streaming (non-cached) queries.
+     * {@code 0} disables read-ahead.
+     */
+    public static int getPrefetchDepth() {
+        return Math.max(0, getInt(PROP_PREFETCH_DEPTH, DEFAULT_PREFETCH_DEPTH));
+    }
+
+    /**
+     * Maximum number of background threads shared by all read-ahead streaming queries.
+     * Queries started while all threads are busy are streamed synchronously.
+     */
+    public static int getPrefetchThreads() {
+        return Math.max(1, getInt(PROP_PREFETCH_THREADS, DEFAULT_PREFETCH_THREADS));
+    }
+
+    /**
+     * Time in milliseconds a read-ahead thread waits for the consumer to take a buffered batch. After it, the
+     * thread stops, so a result set abandoned without being closed does not hold it forever.
+     */
+    public static long getPrefetchIdleTimeout() {
+        return Math.max(1L, getLong(PROP_PREFETCH_IDLE_TIMEOUT, DEFAULT_PREFETCH_IDLE_TIMEOUT));
+    }
+
+    /**
+     * Maximum number of background threads refreshing stale cached results
+     * (see the {@code STALE} window of the cache hint).
+     */
+    public static int getCacheRefreshThreads() {
+        return Math.max(1, getInt(PROP_CACHE_REFRESH_THREADS, DEFAULT_CACHE_REFRESH_THREADS));
+    }
+
+    /**
+     * Time in seconds after which cached describe metadata is refreshed in the background.
+     * Expired entries keep being served until the refresh completes. {@code 0} never refreshes them.
+     */
+    public static long getDescribeCacheTtl() {
+        return Math.max(0L, getLong(PROP_DESCRIBE_CACHE_TTL, DEFAULT_DESCRIBE_CACHE_TTL));
+    }
+
+    /**
+     * Directory where describe metadata is persisted across restarts, or {@code null} (the default)
+     * to keep it in memory only.
+     */
+    public static String getDescribeCachePath() {
+        return getString(PROP_DESCRIBE_CACHE_PATH, null);
+    }
+
+    /**
+     * Fully qualified name of a custom {@code DescribeCacheStore} implementation with a public no-arg
+     * constructor, or {@code null} (the default). Takes precedence over {@link #getDescribeCachePath()}.
+     */
+    public static String getDescribeCacheStore() {
+        return getString(PROP_DESCRIBE_CACHE_STORE, null);
+    }
+
+    /**
+     * Maximum number of {@code describeSObjects} batches sent concurrently when describing all the
+     * objects of an org. {@code 1} sends them one at a time.
+     */
+    public static int getDescribeThreads() {
+        return Math.max(1, getInt(PROP_DESCRIBE_THREADS, DEFAULT_DESCRIBE_THREADS));
+    }
+
+    /**
+     * Number of times a {@code describeSObjects} batch failing with a connection error is retried.
+     */
+    public static int getDescribeRetries() {
+        return Math.max(0, getInt(PROP_DESCRIBE_RETRIES, DEFAULT_DESCRIBE_RETRIES));
+    }
+
+    /**
+     * Minimum time in milliseconds between two server round trips made by {@code Connection.isValid()}.
+     * Within this interval a connection that was valid is assumed to still be valid.
+     */
+    public static long getValidationInterval() {
+        return Math.max(0L, getLong(PROP_VALIDATION_INTERVAL, DEFAULT_VALIDATION_INTERVAL));
+    }
+
+    /**
+     * Default maximum number of connections per credential set held by a {@code ForceDataSource}.
+     */
+    public static int getPoolMaxSize() {
+        return Math.max(1, getInt(PROP_POOL_MAX_SIZE, DEFAULT_POOL_MAX_SIZE));
+    }
+
+    /**
+     * Default time in milliseconds a {@code ForceDataSource} waits for a free pooled connection.
+     */
+    public static long getPoolAcquireTimeout() {
+        return Math.max(0L, getLong(PROP_POOL_ACQUIRE_TIMEOUT, DEFAULT_POOL_ACQUIRE_TIMEOUT));
+    }
+
+    /**
+     * Number of result rows above which a SELECT switches from SOAP paging to a Bulk API 2.0 query job.
+     * {@code 0} (the default) disables the switch; the {@code BULK} statement hint forces it. When enabled,
+     * every SELECT that could exceed the threshold first runs a {@code SELECT COUNT()} of the same query, an
+     * extra API call returning no records, to choose the API before any row is fetched.
+     */
+    public static int getBulkQueryThreshold() {
+        return Math.max(0, getInt(PROP_BULK_QUERY_THRESHOLD, DEFAULT_BULK_QUERY_THRESHOLD));
+    }
+
+    /**
+     * Time in milliseconds between two status requests while waiting for a Bulk API 2.0 job.
+     */
+    public static long getBulkPollInterval() {
+        return Math.max(10L, getLong(PROP_BULK_POLL_INTERVAL, DEFAULT_BULK_POLL_INTERVAL));
+    }
+
+    /**
+     * Maximum time in milliseconds spent waiting for a Bulk API 2.0 job to finish before the statement fails.
+     * The job itself is left running in Salesforce.
+     */
+    public static long getBulkMaxWait() {
+        return Math.max(0L, getLong(PROP_BULK_MAX_WAIT, DEFAULT_BULK_MAX_WAIT));
+    }
+
+    /**
+     * Maximum number of rows fetched by a single Bulk API 2.0 result request.
+     */
+    public static int getBulkMaxRecords() {
+        return Math.max(1, getInt(PROP_BULK_MAX_RECORDS, DEFAULT_BULK_MAX_RECORDS));
+    }
+
+    /**
+     * Number of records above which an INSERT, UPDATE or DELETE runs as Bulk API 2.0 ingest jobs instead of
+     * SOAP calls. {@code 0} (the default) disables bulk ingest.
+     */
+    public static int getBulkIngestThreshold() {
+        return Math.max(0, getInt(PROP_BULK_INGEST_THRESHOLD, DEFAULT_BULK_INGEST_THRESHOLD));
+    }
+
+    /**
+     * Maximum number of records uploaded to a single Bulk API 2.0 ingest job.
+     */
+    public static int getBulkIngestJobSize() {
+        return Math.max(1, getInt(PROP_BULK_INGEST_JOB_SIZE, DEFAULT_BULK_INGEST_JOB_SIZE));
+    }
+
+    /**
+     * Whether a DML operation on the given number of records runs as Bulk API 2.0 ingest jobs.
+     */
+    public static boolean isBulkIngest(int recordCount) {
+        int threshold = getBulkIngestThreshold();
+        return threshold > 0 && recordCount > threshold;
+    }
+
+    /**
+     * Maximum number of distinct SQL statements whose parse and analysis are kept for reuse.
+     * {@code 0} disables the statement cache.
+     */
+    public static int getStatementCacheSize() {
+        return Math.max(0, getInt(PROP_STATEMENT_CACHE_SIZE, DEFAULT_STATEMENT_CACHE_SIZE));
+    }
+
     // --- helpers ---
 
     private static String getString(String key, String defaultValue) {
@@ -76,6 +322,11 @@ public class DriverConfiguration {
         return (value != null && !value.isBlank()) ? value : defaultValue;
     }
 
+    private static boolean getBoolean(String key, boolean defaultValue) {
+        String value = System.getProperty(key);
+        return (value != null && !value.isBlank()) ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
+
     private static int getInt(String key, int defaultValue) {
         String value = System.getProperty(key);
         if (value == null || value.isBlank()) {
@@ -3,7 +3,9 @@ package it.rotaliano.jdbc.salesforce;
 import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
 import it.rotaliano.jdbc.salesforce.connection.ForceConnectionInfo;
 import it.rotaliano.jdbc.salesforce.connection.ForceService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.RestPartnerService;
 import it.rotaliano.jdbc.salesforce.exceptions.SalesforceRuntimeException;
 import it.rotaliano.jdbc.salesforce.utils.Constants;
 import com.sforce.soap.partner.PartnerConnection;
@@ -95,20 +97,32 @@ public class ForceDriver implements Driver {
             log.warn("The JDBC URL prefix '{}' is deprecated. Please use '{}' instead.", LEGACY_URL, ACCEPTABLE_URL);
         }
         try {
-            ForceConnectionInfo connectionInfo = ForceDriver.parseConnectionUrl(url, properties);
-            PartnerConnection partnerConnection = ForceService.createPartnerConnection(connectionInfo);
-
-            String orgId = null;
-            if (connectionInfo.getSessionId() != null) {
-                orgId = ForceService.getOrgId(connectionInfo.getSessionId(), connectionInfo.isSandbox());
-            }
-            PartnerService partnerService = new PartnerService(partnerConnection, orgId);
-            return new ForceConnection(partnerConnection, partnerService);
+            return openConnection(ForceDriver.parseConnectionUrl(url, properties));
         } catch (ConnectionException | IOException e) {
             throw new SQLException(e);
         }
     }
 
+    /**
+     * Opens a new connection, logging in unless the connection info carries a session id.
+     *
+     * @param connectionInfo the parsed connection settings
+     * @return the new connection
+     * @throws ConnectionException if the login fails
+     */
+    public static ForceConnection openConnection(ForceConnectionInfo connectionInfo) throws ConnectionException {
+        PartnerConnection partnerConnection = ForceService.createPartnerConnection(connectionInfo);
+
+        String orgId = null;
+        if (connectionInfo.getSessionId() != null) {
+            orgId = ForceService.getOrgId(connectionInfo.getSessionId(), connectionInfo.isSandbox());
+        }
+        IPartnerService partnerService = ForceService.REST_TRANSPORT.equals(connectionInfo.getTransport())
+            ? new RestPartnerService(partnerConnection, orgId)
+            : new PartnerService(partnerConnection, orgId);
+        return new ForceConnection(partnerConnection, partnerService);
+    }
+
     public static ForceConnectionInfo parseConnectionUrl(String url) throws IOException {
         return parseConnectionUrl(url, new Properties());
     }
@@ -134,6 +148,7 @@ public class ForceDriver implements Driver {
         info.setReadTimeout(resolveIntProperty(properties, "readTimeout", info.getReadTimeout()));
         info.setConnectionTimeout(resolveIntProperty(properties, "connectionTimeout", info.getConnectionTimeout()));
         info.setApiVersion(resolveStringProperty(properties, "api", ForceService.DEFAULT_API_VERSION));
+        info.setTransport(resolveTransportProperty(properties));
         info.setLoginDomain(resolveStringProperty(properties, LOGIN_DOMAIN, ForceService.DEFAULT_LOGIN_DOMAIN));
         info.setClientId(resolveStringProperty(properties, "clientId", resolveStringProperty(properties, "client_id", null)));
         info.setClientSecret(resolveStringProperty(properties, "clientSecret", resolveStringProperty(properties, "client_secret", null)));
@@ -157,6 +172,15 @@ public class ForceDriver implements Driver {
         return false;
     }
 
+    private static String resolveTransportProperty(Properties properties) {
+        String transport = resolveStringProperty(properties, "transport", ForceService.SOAP_TRANSPORT).toLowerCase();
+        if (!ForceService.SOAP_TRANSPORT.equals(transport) && !ForceService.REST_TRANSPORT.equals(transport)) {
+            log.warn("[ForceDriver] ignored invalid transport={}, using {}", transport, ForceService.SOAP_TRANSPORT);
+            return ForceService.SOAP_TRANSPORT;
+        }
+        return transport;
+    }
+
     private static boolean resolveBooleanProperty(Properties properties, String propertyName, boolean defaultValue) {
         String boolValue = properties.getProperty(propertyName);
         if (boolValue != null) {
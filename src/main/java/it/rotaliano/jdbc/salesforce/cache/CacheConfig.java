@@ -1,14 +1,31 @@
 package it.rotaliano.jdbc.salesforce.cache;
 
 import it.rotaliano.jdbc.salesforce.DriverConfiguration;
-import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import java.io.File;
+import lombok.extern.slf4j.Slf4j;
 import org.ehcache.Cache;
 import org.ehcache.CacheManager;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
 
+/**
+ * Holds the query result cache.
+ *
+ * <p>The {@code DataCache} always has a heap tier, sized in entries ({@link DriverConfiguration#getCacheSize()}),
+ * and optional off-heap and disk tiers sized in MB. A limit in bytes is set on the off-heap tier, where the
+ * serialized size of the results is known, rather than by walking their object graphs on the heap.
+ * Results moved to the lower tiers are stored with {@link CacheEntrySerializer}. If the configured tiers
+ * are rejected by Ehcache (e.g. a lower tier not larger than the one above it), the cache falls back to the
+ * heap tier sized in entries. Entries expire according to the {@code TTL} cache hint of the query that
+ * loaded them (see {@link CacheEntryExpiry}).
+ */
+@Slf4j
 public class CacheConfig {
+    private static final String DATA_CACHE = "DataCache";
+
     private final CacheManager cacheManager;
 
     private static final CacheConfig INSTANCE;
@@ -21,16 +38,63 @@ public class CacheConfig {
     }
 
     private CacheConfig() {
-        cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build();
-        cacheManager.init();
+        long diskMb = DriverConfiguration.getCacheDiskMb();
+        CacheManagerBuilder<CacheManager> builder = CacheManagerBuilder.newCacheManagerBuilder();
+        CacheManager manager = null;
+        if (diskMb > 0) {
+            try {
+                manager = builder.with(CacheManagerBuilder.persistence(new File(DriverConfiguration.getCacheDiskPath())))
+                        .build(true);
+            } catch (RuntimeException e) {
+                log.warn("Failed to open the query cache directory, the disk tier is disabled", e);
+                diskMb = 0;
+            }
+        }
+        if (manager == null) {
+            manager = builder.build(true);
+        }
+        cacheManager = manager;
+
+        try {
+            cacheManager.createCache(DATA_CACHE, dataCacheConfiguration(diskMb));
+        } catch (RuntimeException e) {
+            log.warn("Invalid query cache tiers, using a heap cache of {} entries", DriverConfiguration.getCacheSize(), e);
+            cacheManager.removeCache(DATA_CACHE);
+            cacheManager.createCache(DATA_CACHE,
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, CacheEntry.class,
+                            ResourcePoolsBuilder.heap(DriverConfiguration.getCacheSize()))
+                            .withExpiry(new CacheEntryExpiry()));
+        }
+
+        if (diskMb > 0 && DriverConfiguration.isCacheDiskPersistent()) {
+            // The disk tier is only readable after a restart if the manager was closed cleanly
+            Runtime.getRuntime().addShutdownHook(new Thread(cacheManager::close, "salesforce-jdbc-cache-shutdown"));
+        }
+    }
+
+    private static CacheConfigurationBuilder<String, CacheEntry> dataCacheConfiguration(long diskMb) {
+        long offHeapMb = DriverConfiguration.getCacheOffHeapMb();
+
+        ResourcePoolsBuilder pools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+                .heap(DriverConfiguration.getCacheSize(), EntryUnit.ENTRIES);
+        if (offHeapMb > 0) {
+            pools = pools.offheap(offHeapMb, MemoryUnit.MB);
+        }
+        if (diskMb > 0) {
+            pools = pools.disk(diskMb, MemoryUnit.MB, DriverConfiguration.isCacheDiskPersistent());
+        }
 
-        cacheManager.createCache("DataCache",
-                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, CachedResultSet.class,
-                        ResourcePoolsBuilder.heap(DriverConfiguration.getCacheSize())));
+        CacheConfigurationBuilder<String, CacheEntry> configuration =
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, CacheEntry.class, pools)
+                        .withExpiry(new CacheEntryExpiry());
+        if (offHeapMb > 0 || diskMb > 0) {
+            configuration = configuration.withValueSerializer(CacheEntrySerializer.class);
+        }
+        return configuration;
     }
 
-    public Cache<String, CachedResultSet> getDataCache() {
-        return cacheManager.getCache("DataCache", String.class, CachedResultSet.class);
+    public Cache<String, CacheEntry> getDataCache() {
+        return cacheManager.getCache(DATA_CACHE, String.class, CacheEntry.class);
     }
 
 }
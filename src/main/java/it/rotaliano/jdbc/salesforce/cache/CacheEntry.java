@@ -0,0 +1,83 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * A query result held in the {@code DataCache}, with the time it was loaded from Salesforce.
+ *
+ * <p>Freshness is decided by the reading query (its {@code TTL} hint), while {@link #getRetainMillis()}
+ * tells the cache how long the entry may be kept at all, i.e. the TTL plus the stale-while-revalidate
+ * window of the query that loaded it.
+ *
+ * <p>The rows are held once, in the shareable form of {@link CachedResultSet#share()}; every reader gets its own
+ * cursor over them from {@link #openResultSet()}.
+ *
+ * <p>The entry is tagged with the lower-cased names of the objects its query reads, so that
+ * {@link CacheInvalidator} can drop it when the driver changes one of them.
+ */
+@Getter
+public final class CacheEntry {
+
+    private final CachedResultSet resultSet;
+    private final long loadedAt;
+    private final long retainMillis;
+    private final Set<String> objectNames;
+
+    private CacheEntry(CachedResultSet resultSet, long loadedAt, long retainMillis, Set<String> objectNames) {
+        this.resultSet = resultSet.share();
+        this.loadedAt = loadedAt;
+        this.retainMillis = retainMillis;
+        this.objectNames = Set.copyOf(objectNames);
+    }
+
+    /**
+     * Creates an entry for a result just loaded from Salesforce.
+     *
+     * @param resultSet the materialized query result
+     * @param ttlMillis the time to live of the result, {@code 0} for no expiry
+     * @param staleMillis how long after the TTL the result may still be served while it is refreshed
+     * @return the cache entry
+     */
+    public static CacheEntry of(CachedResultSet resultSet, long ttlMillis, long staleMillis) {
+        return of(resultSet, ttlMillis, staleMillis, Set.of());
+    }
+
+    /**
+     * Creates an entry for a result just loaded from Salesforce, tagged with the objects its query reads.
+     *
+     * @param resultSet the materialized query result
+     * @param ttlMillis the time to live of the result, {@code 0} for no expiry
+     * @param staleMillis how long after the TTL the result may still be served while it is refreshed
+     * @param objectNames the lower-cased names of the objects read by the query
+     * @return the cache entry
+     */
+    public static CacheEntry of(CachedResultSet resultSet, long ttlMillis, long staleMillis, Set<String> objectNames) {
+        return new CacheEntry(resultSet, System.currentTimeMillis(), ttlMillis > 0 ? ttlMillis + staleMillis : 0,
+            objectNames);
+    }
+
+    /**
+     * Recreates an entry read back from a serialized cache tier.
+     */
+    static CacheEntry restore(CachedResultSet resultSet, long loadedAt, long retainMillis, Set<String> objectNames) {
+        return new CacheEntry(resultSet, loadedAt, retainMillis, objectNames);
+    }
+
+    /**
+     * Returns a new cursor over the cached rows, positioned before the first row.
+     *
+     * @throws IllegalStateException if the cached result streams its rows from Salesforce
+     */
+    public CachedResultSet openResultSet() {
+        return resultSet.cursor();
+    }
+
+    /**
+     * Returns the time elapsed since the result was loaded.
+     */
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - loadedAt;
+    }
+}
@@ -0,0 +1,27 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.ehcache.expiry.ExpiryPolicy;
+
+/**
+ * Expires {@code DataCache} entries once their TTL and stale-while-revalidate window have elapsed.
+ * Entries loaded without a TTL never expire and are only evicted by size.
+ */
+class CacheEntryExpiry implements ExpiryPolicy<String, CacheEntry> {
+
+    @Override
+    public Duration getExpiryForCreation(String key, CacheEntry value) {
+        return value.getRetainMillis() > 0 ? Duration.ofMillis(value.getRetainMillis()) : ExpiryPolicy.INFINITE;
+    }
+
+    @Override
+    public Duration getExpiryForAccess(String key, Supplier<? extends CacheEntry> value) {
+        return null;
+    }
+
+    @Override
+    public Duration getExpiryForUpdate(String key, Supplier<? extends CacheEntry> oldValue, CacheEntry newValue) {
+        return getExpiryForCreation(key, newValue);
+    }
+}
@@ -0,0 +1,85 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+/**
+ * Ehcache serializer storing {@link CacheEntry} values in the off-heap and disk tiers. The result set is
+ * written in its compact binary form ({@link CachedResultSet#writeTo}) instead of Java serialization.
+ *
+ * <p>The entry starts with the version of its form. An entry of another version, e.g. one written to the disk
+ * tier by an older driver, is rejected with a {@link SerializerException}, which the cache handles as a miss.
+ */
+public class CacheEntrySerializer implements Serializer<CacheEntry> {
+
+    /**
+     * Version of the entry form, written as its first byte. The entries written before the version was added
+     * start with their load time, whose first byte is 0, so they are rejected as version 0.
+     */
+    private static final int ENTRY_FORMAT_VERSION = 1;
+
+    /**
+     * Constructor required by Ehcache for serializers configured by class.
+     *
+     * @param classLoader the class loader of the cache, unused
+     */
+    public CacheEntrySerializer(ClassLoader classLoader) {
+        // stateless
+    }
+
+    @Override
+    public ByteBuffer serialize(CacheEntry object) throws SerializerException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ENTRY_FORMAT_VERSION);
+            out.writeLong(object.getLoadedAt());
+            out.writeLong(object.getRetainMillis());
+            object.getResultSet().writeTo(out);
+            out.writeInt(object.getObjectNames().size());
+            for (String objectName : object.getObjectNames()) {
+                out.writeUTF(objectName);
+            }
+        } catch (IOException | IllegalStateException e) {
+            throw new SerializerException("Failed to serialize cached result set", e);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    @Override
+    public CacheEntry read(ByteBuffer binary) throws SerializerException {
+        ByteBuffer buffer = binary.duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = in.readUnsignedByte();
+            if (version != ENTRY_FORMAT_VERSION) {
+                throw new SerializerException("Unknown cache entry format version " + version);
+            }
+            long loadedAt = in.readLong();
+            long retainMillis = in.readLong();
+            CachedResultSet resultSet = CachedResultSet.readFrom(in);
+            int count = in.readInt();
+            Set<String> objectNames = new HashSet<>(count);
+            for (int i = 0; i < count; i++) {
+                objectNames.add(in.readUTF());
+            }
+            return CacheEntry.restore(resultSet, loadedAt, retainMillis, objectNames);
+        } catch (IOException e) {
+            throw new SerializerException("Failed to read cached result set", e);
+        }
+    }
+
+    @Override
+    public boolean equals(CacheEntry object, ByteBuffer binary) throws SerializerException {
+        return serialize(object).equals(binary.duplicate());
+    }
+}
@@ -0,0 +1,113 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.ehcache.Cache;
+
+/**
+ * Invalidates the cached results reading an object when the driver changes its records.
+ *
+ * <p>Every {@link CacheEntry} is tagged with the objects its query reads. When an INSERT, UPDATE or DELETE run
+ * through the driver changes records of an object, the entries tagged with it are evicted from the data cache
+ * and the time of the change is recorded. An entry loaded before the last change of one of its objects is no
+ * longer {@link #isCurrent(CacheEntry) current} even if it was not evicted, e.g. it was kept across a restart,
+ * dropped from the bounded index of this class, or its query was still running when the change happened.
+ *
+ * <p>Only the changes made through the driver in this JVM are seen: changes made by other clients, and the
+ * changes that triggers, workflows or roll-up summary fields make to other objects, are not.
+ */
+@Slf4j
+public final class CacheInvalidator {
+
+    private static final int MAX_KEYS_PER_OBJECT = 4096;
+    private static final CacheInvalidator INSTANCE = new CacheInvalidator(CacheConfig.getInstance().getDataCache());
+
+    private final Cache<String, CacheEntry> dataCache;
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> keysByObject = new HashMap<>();
+
+    CacheInvalidator(Cache<String, CacheEntry> dataCache) {
+        this.dataCache = dataCache;
+    }
+
+    public static CacheInvalidator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Indexes a cached result under the objects it reads, so a change to one of them evicts it. Only the last
+     * {@value #MAX_KEYS_PER_OBJECT} results of an object are indexed; the older ones are still rejected by
+     * {@link #isCurrent(CacheEntry)} after a change.
+     *
+     * @param cacheKey the key of the result in the data cache
+     * @param entry the cached result
+     */
+    public void register(String cacheKey, CacheEntry entry) {
+        synchronized (keysByObject) {
+            for (String objectName : entry.getObjectNames()) {
+                Set<String> keys = keysByObject.computeIfAbsent(objectName, o -> new LinkedHashSet<>());
+                keys.remove(cacheKey);
+                keys.add(cacheKey);
+                if (keys.size() > MAX_KEYS_PER_OBJECT) {
+                    keys.remove(keys.iterator().next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a cached result was loaded after the last change of every object it reads.
+     */
+    public boolean isCurrent(CacheEntry entry) {
+        for (String objectName : entry.getObjectNames()) {
+            Long changed = changedAt.get(objectName);
+            if (changed != null && entry.getLoadedAt() <= changed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether one of the objects was changed at or after a time, e.g. while the query reading them ran.
+     *
+     * @param objectNames the lower-cased names of the objects
+     * @param time the time in milliseconds since the epoch
+     */
+    public boolean changedSince(Set<String> objectNames, long time) {
+        for (String objectName : objectNames) {
+            Long changed = changedAt.get(objectName);
+            if (changed != null && changed >= time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a change to the records of some objects and evicts the cached results reading them.
+     *
+     * @param objectNames the names of the changed objects, in any case
+     */
+    public void invalidate(Collection<String> objectNames) {
+        long now = System.currentTimeMillis();
+        for (String name : objectNames) {
+            String objectName = name.toLowerCase(Locale.ROOT);
+            changedAt.merge(objectName, now, Math::max);
+            Set<String> keys;
+            synchronized (keysByObject) {
+                keys = keysByObject.remove(objectName);
+            }
+            if (keys != null) {
+                keys.forEach(dataCache::remove);
+                log.debug("{} cached results evicted after a change to {}", keys.size(), name);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import java.io.IOException;
+
+/**
+ * Persistent storage for describe metadata, shared across JVM restarts.
+ *
+ * <p>Entries are opaque payloads grouped by scope, one scope per org and API version. Implementations
+ * must be thread-safe; a custom implementation can be configured with
+ * {@link it.rotaliano.jdbc.salesforce.DriverConfiguration#PROP_DESCRIBE_CACHE_STORE}.
+ */
+public interface DescribeCacheStore {
+
+    /**
+     * A stored payload and the time it was loaded from Salesforce.
+     *
+     * @param storedAt the load time, in epoch milliseconds
+     * @param data the encoded describe metadata
+     */
+    record Entry(long storedAt, byte[] data) {
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param scope the org and API version the entry belongs to
+     * @param key the entry key
+     * @return the entry, or {@code null} if it is not stored
+     * @throws IOException if the entry cannot be read
+     */
+    Entry read(String scope, String key) throws IOException;
+
+    /**
+     * Stores an entry, replacing any previous entry with the same key.
+     *
+     * @param scope the org and API version the entry belongs to
+     * @param key the entry key
+     * @param entry the entry to store
+     * @throws IOException if the entry cannot be written
+     */
+    void write(String scope, String key, Entry entry) throws IOException;
+
+    /**
+     * Removes all the entries of a scope.
+     *
+     * @param scope the org and API version to clear
+     * @throws IOException if the entries cannot be removed
+     */
+    void clear(String scope) throws IOException;
+}
@@ -0,0 +1,93 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * {@link DescribeCacheStore} keeping one file per entry, in one sub-directory per scope.
+ *
+ * <p>Files are replaced atomically, so concurrent drivers sharing the directory never read a partially
+ * written entry. Files written with a different format version are treated as missing.
+ */
+public class FileDescribeCacheStore implements DescribeCacheStore {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".describe";
+
+    private final Path directory;
+
+    public FileDescribeCacheStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Entry read(String scope, String key) throws IOException {
+        Path file = file(scope, key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long storedAt = in.readLong();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new Entry(storedAt, data);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void write(String scope, String key, Entry entry) throws IOException {
+        Path file = file(scope, key);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(entry.storedAt());
+                out.writeInt(entry.data().length);
+                out.write(entry.data());
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void clear(String scope) throws IOException {
+        Path scopeDirectory = directory.resolve(encode(scope));
+        if (!Files.isDirectory(scopeDirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(scopeDirectory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path file(String scope, String key) {
+        return directory.resolve(encode(scope)).resolve(encode(key.toLowerCase(Locale.ROOT)) + SUFFIX);
+    }
+
+    private static String encode(String name) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8);
+    }
+}
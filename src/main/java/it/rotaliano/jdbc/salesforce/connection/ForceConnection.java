@@ -1,7 +1,8 @@
 package it.rotaliano.jdbc.salesforce.connection;
 
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
 import it.rotaliano.jdbc.salesforce.ForceDriver;
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.metadata.ForceDatabaseMetaData;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
 import com.sforce.soap.partner.PartnerConnection;
@@ -62,17 +63,22 @@ public class ForceConnection implements Connection {
     private final DatabaseMetaData metadata;
 
     @Getter
-    private final PartnerService partnerService;
+    private final IPartnerService partnerService;
 
     private final Properties clientInfo = new Properties();
 
+    /*
+     * Time of the last successful server round trip made by isValid, or of the creation of the connection.
+     */
+    private volatile long lastValidatedAt = System.currentTimeMillis();
+
     /**
      * Creates a new Salesforce JDBC connection wrapper.
      *
      * @param partnerConnection the underlying Salesforce partner connection
      * @param partnerService the service used to perform query execution and metadata access
      */
-    public ForceConnection(PartnerConnection partnerConnection, PartnerService partnerService) {
+    public ForceConnection(PartnerConnection partnerConnection, IPartnerService partnerService) {
         this.partnerConnection = partnerConnection;
         this.partnerService = partnerService;
         this.metadata = new ForceDatabaseMetaData(this, partnerService);
@@ -629,15 +635,27 @@ public class ForceConnection implements Connection {
     /**
      * Checks whether this connection is valid.
      *
-     * <p>This implementation currently always returns {@code true}.
+     * <p>The session is probed with a {@code getServerTimestamp} call, at most once every
+     * {@link DriverConfiguration#getValidationInterval()} milliseconds; within that interval the result of
+     * the last successful probe is reused. The probe is bound by the read timeout of the connection.
      *
-     * @param timeout timeout in seconds
-     * @return always {@code true}
+     * @param timeout timeout in seconds, ignored
+     * @return {@code true} if the last probe, possibly made by this call, succeeded
      */
     @Override
     public boolean isValid(int timeout) {
-        log.trace("[Conn] isValid NOT_IMPLEMENTED");
-        return true;
+        long now = System.currentTimeMillis();
+        if (now - lastValidatedAt < DriverConfiguration.getValidationInterval()) {
+            return true;
+        }
+        try {
+            getPartnerConnection().getServerTimestamp();
+            lastValidatedAt = now;
+            return true;
+        } catch (ConnectionException e) {
+            log.debug("[Conn] isValid probe failed", e);
+            return false;
+        }
     }
 
     /**
@@ -21,4 +21,5 @@ public class ForceConnectionInfo {
     private int readTimeout = 30 * 1000;
     private String clientId;
     private String clientSecret;
+    private String transport = ForceService.SOAP_TRANSPORT;
 }
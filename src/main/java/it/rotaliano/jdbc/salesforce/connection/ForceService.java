@@ -4,6 +4,7 @@ import it.rotaliano.jdbc.salesforce.DriverConfiguration;
 import it.rotaliano.jdbc.salesforce.oauth.BadOAuthTokenException;
 import it.rotaliano.jdbc.salesforce.oauth.ForceOAuthClient;
 import it.rotaliano.jdbc.salesforce.oauth.ForceUserInfo;
+import com.sforce.soap.partner.CallOptions_element;
 import com.sforce.soap.partner.Connector;
 import com.sforce.soap.partner.PartnerConnection;
 import com.sforce.soap.partner.QueryResult;
@@ -29,6 +30,8 @@ public class ForceService {
     public static final String DEFAULT_LOGIN_DOMAIN = "login.salesforce.com";
     private static final String SANDBOX_LOGIN_DOMAIN = "test.salesforce.com";
     public static String DEFAULT_API_VERSION = DriverConfiguration.getApiVersion();
+    public static final String SOAP_TRANSPORT = "soap";
+    public static final String REST_TRANSPORT = "rest";
 
     // Thread-safe cache using ConcurrentHashMap
     private static final Map<String, ForceUserInfo> userInfoCache = new ConcurrentHashMap<>();
@@ -81,6 +84,34 @@ public class ForceService {
         return partnerConnection;
     }
 
+    /**
+     * Creates a connection sharing the authenticated session of an existing one, without logging in again.
+     * The new connection renews the session on its own if it expires.
+     *
+     * @param template a connection holding an authenticated session
+     * @return a new connection using the same session and endpoints
+     * @throws ConnectionException if the connection cannot be created
+     */
+    public static PartnerConnection createSharedPartnerConnection(PartnerConnection template) throws ConnectionException {
+        ConnectorConfig session = template.getConfig();
+        ConnectorConfig partnerConfig = new ConnectorConfig();
+        partnerConfig.setReadTimeout(session.getReadTimeout());
+        partnerConfig.setConnectionTimeout(session.getConnectionTimeout());
+        partnerConfig.setSessionRenewer(session.getSessionRenewer());
+        partnerConfig.setUsername(session.getUsername());
+        partnerConfig.setPassword(session.getPassword());
+        partnerConfig.setAuthEndpoint(session.getAuthEndpoint());
+        partnerConfig.setServiceEndpoint(session.getServiceEndpoint());
+        partnerConfig.setSessionId(session.getSessionId());
+
+        PartnerConnection connection = Connector.newConnection(partnerConfig);
+        CallOptions_element callOptions = template.getCallOptions();
+        if (callOptions != null) {
+            connection.setCallOptions(callOptions.getClient(), callOptions.getDefaultNamespace());
+        }
+        return connection;
+    }
+
     private static PartnerConnection createConnection(ForceConnectionInfo info) throws ConnectionException {
         ConnectorConfig partnerConfig = convertForceConnectionInfo(info);
         final String sessionId = info.getSessionId();
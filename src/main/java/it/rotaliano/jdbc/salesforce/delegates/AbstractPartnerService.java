@@ -0,0 +1,592 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.connection.ForceService;
+import it.rotaliano.jdbc.salesforce.metadata.Column;
+import it.rotaliano.jdbc.salesforce.metadata.Table;
+import it.rotaliano.jdbc.salesforce.utils.DaemonExecutors;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import it.rotaliano.jdbc.salesforce.utils.PatternToRegexUtils;
+import com.sforce.soap.partner.DeleteResult;
+import com.sforce.soap.partner.DescribeGlobalSObjectResult;
+import com.sforce.soap.partner.DescribeSObjectResult;
+import com.sforce.soap.partner.Field;
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.soap.partner.SaveResult;
+import com.sforce.ws.ConnectionException;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Transport independent part of an {@link IPartnerService}: describe caching, table metadata and the Bulk API
+ * paths for large queries and DML.
+ *
+ * <p>Subclasses implement the calls of a specific Salesforce API ({@link PartnerService} for SOAP,
+ * {@link RestPartnerService} for REST). Both share the session of the {@link PartnerConnection}.
+ */
+@Slf4j
+public abstract class AbstractPartnerService implements IPartnerService {
+
+    private static final Pattern API_VERSION_IN_ENDPOINT = Pattern.compile("/services/Soap/u/([0-9.]+)");
+    private static final long DESCRIBE_RETRY_DELAY_MILLIS = 500L;
+    private static final ExecutorService describeExecutor = createDescribeExecutor();
+
+    protected final PartnerConnection partnerConnection;
+    private final String orgId;
+    final DescribeCache describeCache;
+    private String cacheScope;
+    private RestClient restClient;
+    private BulkApiClient bulkApiClient;
+
+    AbstractPartnerService(PartnerConnection partnerConnection, String orgId, DescribeCache describeCache) {
+        this.partnerConnection = partnerConnection;
+        this.orgId = orgId;
+        this.describeCache = describeCache;
+    }
+
+    @Override
+    public String getOrgId() {
+        return orgId;
+    }
+
+    @Override
+    public List<Table> getTables() throws ConnectionException {
+        Map<String, DescribeSObjectResult> sObjects = getSObjectsDescription();
+        return sObjects.values().stream()
+            .map(this::convertToTable)
+            .toList();
+    }
+
+    @Override
+    public List<Table> getTables(String tablePattern) throws ConnectionException {
+        final DescribeSObjectResult sObject = describeSObject(tablePattern);
+        if (sObject != null) {
+            return List.of(convertToTable(sObject));
+        } else {
+            final Pattern pattern = PatternToRegexUtils.toRegEx(tablePattern);
+            Map<String, DescribeSObjectResult> sObjects = getSObjectsDescription();
+            return sObjects.values().stream()
+                .filter(o -> pattern.matcher(o.getName()).find())
+                .map(this::convertToTable)
+                .toList();
+        }
+    }
+
+    @Override
+    public void cleanupGlobalCache() {
+        describeCache.clear(getCacheScope());
+    }
+
+    @Override
+    public long getDescribeVersion() {
+        return describeCache.version(getCacheScope());
+    }
+
+    private Table convertToTable(DescribeSObjectResult so) {
+        log.trace("[PartnerService] convertToTable {}", so.getName());
+        List<Field> fields = Arrays.asList(so.getFields());
+        List<Column> columns = fields.stream()
+            .map(this::convertToColumn)
+            .toList();
+        return new Table(so.getName(), null, columns);
+    }
+
+    private Column convertToColumn(Field field) {
+        Column column = new Column(field.getName(), getType(field));
+        column.setNillable(field.isNillable());
+        column.setCalculated(field.isCalculated() || field.isAutoNumber());
+        column.setLength(field.getLength());
+        column.setUnique(field.isUnique());
+        column.setIndexed(
+            field.getName().equals("Id") ||
+                field.isAutoNumber() ||
+                (field.isUnique() && field.isExternalId()));
+        String[] referenceTos = field.getReferenceTo();
+        if (referenceTos != null) {
+            for (String referenceTo : referenceTos) {
+                String sObjectType = getSObjectType(referenceTo);
+                if (sObjectType != null) {
+                    column.setReferencedTable(referenceTo);
+                    column.setReferencedColumn("Id");
+                }
+            }
+        }
+        return column;
+    }
+
+    private String getType(Field field) {
+        String s = field.getType().toString();
+        if (s.startsWith("_")) {
+            s = s.substring("_".length());
+        }
+        return s.equalsIgnoreCase("double") ? "decimal" : s;
+    }
+
+    private String getConnectionId() {
+        if (orgId != null) {
+            return orgId;
+        }
+        return this.partnerConnection.getConfig().getUsername();
+    }
+
+    /**
+     * Scope of the describe cache: the org and the API version of the connection.
+     */
+    String getCacheScope() {
+        if (cacheScope != null) {
+            return cacheScope;
+        }
+        cacheScope = getConnectionId() + "@" + getApiVersion();
+        return cacheScope;
+    }
+
+    String getApiVersion() {
+        String endpoint = partnerConnection.getConfig().getServiceEndpoint();
+        if (endpoint != null) {
+            Matcher matcher = API_VERSION_IN_ENDPOINT.matcher(endpoint);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return ForceService.DEFAULT_API_VERSION;
+    }
+
+    RestClient getRestClient() {
+        if (restClient == null) {
+            restClient = new RestClient(partnerConnection, getApiVersion());
+        }
+        return restClient;
+    }
+
+    private BulkApiClient getBulkApiClient() {
+        if (bulkApiClient == null) {
+            bulkApiClient = new BulkApiClient(getRestClient());
+        }
+        return bulkApiClient;
+    }
+
+    List<DescribeGlobalSObjectResult> getDescribeGlobal() throws ConnectionException {
+        return describeCache.describeGlobal(getCacheScope(), () -> loadDescribeGlobal().stream()
+            .filter(DescribeGlobalSObjectResult::isQueryable)
+            .toList());
+    }
+
+    /**
+     * Loads the list of the SObject types of the org.
+     */
+    abstract List<DescribeGlobalSObjectResult> loadDescribeGlobal() throws ConnectionException;
+
+    /**
+     * Describes one batch of SObject types with a single API call.
+     */
+    abstract List<DescribeSObjectResult> describeBatch(List<String> batch) throws ConnectionException;
+
+    /**
+     * Maximum number of SObject types described by a single {@link #describeBatch(List)} call.
+     */
+    int getDescribeBatchSize() {
+        return DriverConfiguration.getBatchSize();
+    }
+
+    private String getSObjectType(String sObject) {
+        try {
+            return getDescribeGlobal().stream()
+                .map(DescribeGlobalSObjectResult::getName)
+                .filter(sObject::equalsIgnoreCase)
+                .findFirst().orElse(null);
+        } catch (ConnectionException e) {
+            return null;
+        }
+    }
+
+    private Map<String, DescribeSObjectResult> getSObjectsDescription() throws ConnectionException {
+        List<String> tableNames = getDescribeGlobal().stream()
+            .filter(DescribeGlobalSObjectResult::isQueryable)
+            .map(DescribeGlobalSObjectResult::getName)
+            .toList();
+        return describeCache.describeSObjects(getCacheScope(), tableNames, this::describeSObjects);
+    }
+
+    /**
+     * Describes the objects in batches, sending up to {@link DriverConfiguration#getDescribeThreads()}
+     * batches concurrently. Each description is passed to the sink as soon as its batch completes.
+     */
+    private void describeSObjects(List<String> names, Consumer<DescribeSObjectResult> sink)
+        throws ConnectionException {
+        List<List<String>> batches = toBatches(names, getDescribeBatchSize());
+        if (batches.size() <= 1 || DriverConfiguration.getDescribeThreads() == 1) {
+            for (List<String> batch : batches) {
+                describeSObjects(batch).forEach(sink);
+            }
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(batches.size());
+        try {
+            for (List<String> batch : batches) {
+                futures.add(describeExecutor.submit(() -> {
+                    describeSObjects(batch).forEach(sink);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("Interrupted while describing SObjects", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConnectionException connectionException) {
+                throw connectionException;
+            }
+            throw new ConnectionException("Failed to describe SObjects", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Describes one batch, retrying connection errors up to {@link DriverConfiguration#getDescribeRetries()}
+     * times.
+     */
+    List<DescribeSObjectResult> describeSObjects(List<String> batch) throws ConnectionException {
+        int retries = DriverConfiguration.getDescribeRetries();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return describeBatch(batch);
+            } catch (ConnectionException e) {
+                if (attempt >= retries) {
+                    throw e;
+                }
+                log.debug("Retrying describeSObjects of {} SObjects after: {}", batch.size(), e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private static void backoff(int attempt) throws ConnectionException {
+        try {
+            Thread.sleep(DESCRIBE_RETRY_DELAY_MILLIS << attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("Interrupted while describing SObjects", e);
+        }
+    }
+
+    private static ExecutorService createDescribeExecutor() {
+        return DaemonExecutors.newQueuingPool("salesforce-jdbc-describe-", DriverConfiguration.getDescribeThreads());
+    }
+
+    static <T> List<List<T>> toBatches(List<T> objects, int batchSize) {
+        List<List<T>> result = new ArrayList<>();
+        for (int fromIndex = 0; fromIndex < objects.size(); fromIndex += batchSize) {
+            int toIndex = Math.min(fromIndex + batchSize, objects.size());
+            result.add(objects.subList(fromIndex, toIndex));
+        }
+        return result;
+    }
+
+    @Override
+    public void query(String soql, FieldDefTree expectedSchema, Consumer<List<ForceResultField>> rowConsumer)
+        throws ConnectionException {
+        QueryResultRowConverter converter = QueryResultRowConverter.forSchema(expectedSchema);
+        if (exceedsBulkQueryThreshold(soql, converter)) {
+            bulkQuery(soql, converter, rowConsumer);
+            return;
+        }
+        query(soql, expectedSchema, converter, rowConsumer);
+    }
+
+    @Override
+    public Map.Entry<List<List<ForceResultField>>, QueryCursor> queryStart(String soql, FieldDefTree expectedSchema)
+        throws ConnectionException {
+        QueryResultRowConverter converter = QueryResultRowConverter.forSchema(expectedSchema);
+        if (exceedsBulkQueryThreshold(soql, converter)) {
+            return bulkQueryStart(soql, converter);
+        }
+        Map.Entry<List<List<ForceResultField>>, String> page = queryStart(soql, expectedSchema, converter);
+        return new AbstractMap.SimpleEntry<>(page.getKey(), QueryCursor.of(page.getValue()));
+    }
+
+    @Override
+    public Map.Entry<List<List<ForceResultField>>, QueryCursor> queryMore(QueryCursor cursor,
+        FieldDefTree expectedSchema) throws ConnectionException {
+        log.trace("[PartnerService] queryMore {}", cursor);
+        QueryResultRowConverter converter = QueryResultRowConverter.forSchema(expectedSchema);
+        if (cursor.isBulk()) {
+            return fetchBulkChunk(cursor.bulkJobId(), cursor.locator(), converter);
+        }
+        Map.Entry<List<List<ForceResultField>>, String> page = queryMore(cursor.locator(), expectedSchema, converter);
+        return new AbstractMap.SimpleEntry<>(page.getKey(), QueryCursor.of(page.getValue()));
+    }
+
+    /**
+     * Runs a query with the API of this service, handing every row to a consumer page by page.
+     */
+    abstract void query(String soql, FieldDefTree expectedSchema, QueryResultRowConverter converter,
+        Consumer<List<ForceResultField>> rowConsumer) throws ConnectionException;
+
+    /**
+     * Starts a query with the API of this service and returns its first page and query locator.
+     */
+    abstract Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter) throws ConnectionException;
+
+    /**
+     * Fetches the next page of a query of this API.
+     */
+    abstract Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator,
+        FieldDefTree expectedSchema, QueryResultRowConverter converter) throws ConnectionException;
+
+    /**
+     * Runs a {@code SELECT COUNT()} query with the API of this service and returns its row count.
+     */
+    abstract int countRows(String countSoql) throws ConnectionException;
+
+    @Override
+    public void bulkQuery(String soql, FieldDefTree expectedSchema, Consumer<List<ForceResultField>> rowConsumer)
+        throws ConnectionException {
+        QueryResultRowConverter converter = QueryResultRowConverter.forSchema(expectedSchema);
+        if (converter == null) {
+            log.debug("[PartnerService] bulk query not supported with sub-queries, running a regular query: {}", soql);
+            query(soql, expectedSchema, converter, rowConsumer);
+            return;
+        }
+        bulkQuery(soql, converter, rowConsumer);
+    }
+
+    @Override
+    public Map.Entry<List<List<ForceResultField>>, QueryCursor> bulkQueryStart(String soql,
+        FieldDefTree expectedSchema) throws ConnectionException {
+        QueryResultRowConverter converter = QueryResultRowConverter.forSchema(expectedSchema);
+        if (converter == null) {
+            log.debug("[PartnerService] bulk query not supported with sub-queries, running a regular query: {}", soql);
+            Map.Entry<List<List<ForceResultField>>, String> page = queryStart(soql, expectedSchema, converter);
+            return new AbstractMap.SimpleEntry<>(page.getKey(), QueryCursor.of(page.getValue()));
+        }
+        return bulkQueryStart(soql, converter);
+    }
+
+    /**
+     * Whether a query should run as a Bulk API job because it returns more rows than the bulk query threshold.
+     * The decision is taken before any row is fetched, with a {@code SELECT COUNT()} of the same query; queries
+     * that cannot be counted that way, or cannot exceed the threshold, stay on the regular API without it.
+     * Queries with sub-queries stay on the regular API, as the CSV results of the Bulk API cannot represent them.
+     */
+    boolean exceedsBulkQueryThreshold(String soql, QueryResultRowConverter converter) throws ConnectionException {
+        int threshold = DriverConfiguration.getBulkQueryThreshold();
+        if (threshold <= 0 || converter == null) {
+            return false;
+        }
+        String countSoql = toCountQuery(soql, threshold);
+        if (countSoql == null) {
+            return false;
+        }
+        int rows = countRows(countSoql);
+        log.debug("[PartnerService] {} rows counted for {}", rows, soql);
+        return rows > threshold;
+    }
+
+    /**
+     * Rewrites a query into the {@code SELECT COUNT()} telling whether it returns more than {@code threshold}
+     * rows; the count is limited to {@code threshold + 1} rows, as the exact size is not needed.
+     *
+     * @return the count query, or {@code null} if the query is not a plain selection of records (aggregates,
+     *     {@code GROUP BY}, {@code OFFSET}, SOQL the parser does not read) or its {@code LIMIT} is within the
+     *     threshold
+     */
+    static String toCountQuery(String soql, int threshold) {
+        PlainSelect select;
+        try {
+            if (!(CCJSqlParserUtil.parse(soql) instanceof PlainSelect plainSelect)) {
+                return null;
+            }
+            select = plainSelect;
+        } catch (JSQLParserException e) {
+            log.debug("[PartnerService] cannot count the rows of {}", soql, e);
+            return null;
+        }
+        if (select.getGroupBy() != null || select.getHaving() != null || select.getOffset() != null
+            || select.getSelectItems().stream().anyMatch(item -> item.getExpression() instanceof Function)) {
+            return null;
+        }
+        Limit limit = select.getLimit();
+        if (limit != null) {
+            if (!(limit.getRowCount() instanceof LongValue rowCount) || rowCount.getValue() <= threshold) {
+                return null;
+            }
+        }
+        select.setSelectItems(List.of(new SelectItem<>(new Function("COUNT"))));
+        select.setOrderByElements(null);
+        select.setLimit(new Limit().withRowCount(new LongValue(threshold + 1L)));
+        return select.toString();
+    }
+
+    void bulkQuery(String soql, QueryResultRowConverter converter,
+        Consumer<List<ForceResultField>> rowConsumer) throws ConnectionException {
+        Map.Entry<List<List<ForceResultField>>, QueryCursor> chunk = bulkQueryStart(soql, converter);
+        chunk.getKey().forEach(rowConsumer);
+        while (chunk.getValue() != null) {
+            chunk = fetchBulkChunk(chunk.getValue().bulkJobId(), chunk.getValue().locator(), converter);
+            chunk.getKey().forEach(rowConsumer);
+        }
+    }
+
+    Map.Entry<List<List<ForceResultField>>, QueryCursor> bulkQueryStart(String soql,
+        QueryResultRowConverter converter) throws ConnectionException {
+        log.debug("[PartnerService] bulk query {}", soql);
+        BulkApiClient client = getBulkApiClient();
+        String jobId = client.createQueryJob(soql);
+        client.awaitQueryJob(jobId);
+        return fetchBulkChunk(jobId, null, converter);
+    }
+
+    /**
+     * Fetches one CSV chunk of a bulk query job. The returned cursor carries the job id, so that
+     * {@link #queryMore(QueryCursor, FieldDefTree)} can continue it like a regular query.
+     */
+    private Map.Entry<List<List<ForceResultField>>, QueryCursor> fetchBulkChunk(String jobId, String locator,
+        QueryResultRowConverter converter) throws ConnectionException {
+        BulkApiClient.QueryResultChunk chunk = getBulkApiClient().fetchQueryResults(jobId, locator);
+        int[] slots = converter.slotsOf(chunk.header());
+        List<List<ForceResultField>> rows = new ArrayList<>(chunk.records().size());
+        for (List<String> rec : chunk.records()) {
+            rows.add(converter.convert(slots, rec));
+        }
+        return new AbstractMap.SimpleEntry<>(rows, QueryCursor.ofBulkJob(jobId, chunk.locator()));
+    }
+
+    @Override
+    public SaveResult[] createRecords(String entityName, List<Map<String, Object>> recordsDefinitions)
+        throws ConnectionException {
+        if (DriverConfiguration.isBulkIngest(recordsDefinitions.size())) {
+            return toSaveResults(new BulkIngest(getBulkApiClient(), entityName, BulkIngest.INSERT)
+                .run(recordsDefinitions));
+        }
+        return insert(entityName, recordsDefinitions);
+    }
+
+    @Override
+    public SaveResult[] saveRecords(String entityName, List<Map<String, Object>> recordsDefinitions)
+        throws ConnectionException {
+        if (DriverConfiguration.isBulkIngest(recordsDefinitions.size())) {
+            return toSaveResults(new BulkIngest(getBulkApiClient(), entityName, BulkIngest.UPDATE)
+                .run(recordsDefinitions));
+        }
+        return update(entityName, recordsDefinitions);
+    }
+
+    @Override
+    public DeleteResult[] deleteRecords(Collection<String> recordsIds) throws ConnectionException {
+        if (DriverConfiguration.isBulkIngest(recordsIds.size())) {
+            return bulkDeleteRecords(new ArrayList<>(recordsIds));
+        }
+        return delete(recordsIds);
+    }
+
+    /**
+     * Creates records below the bulk ingest threshold with the API of this service.
+     */
+    abstract SaveResult[] insert(String entityName, List<Map<String, Object>> recordsDefinitions)
+        throws ConnectionException;
+
+    /**
+     * Updates records below the bulk ingest threshold with the API of this service; {@code null} values clear
+     * their fields.
+     */
+    abstract SaveResult[] update(String entityName, List<Map<String, Object>> recordsDefinitions)
+        throws ConnectionException;
+
+    /**
+     * Deletes records below the bulk ingest threshold with the API of this service.
+     */
+    abstract DeleteResult[] delete(Collection<String> recordsIds) throws ConnectionException;
+
+    /**
+     * Deletes the records with one bulk ingest per SObject type, found from the key prefix of the ids.
+     */
+    private DeleteResult[] bulkDeleteRecords(List<String> ids) throws ConnectionException {
+        Map<String, String> objectsByKeyPrefix = new HashMap<>();
+        for (DescribeGlobalSObjectResult sObject : getDescribeGlobal()) {
+            if (sObject.getKeyPrefix() != null) {
+                objectsByKeyPrefix.put(sObject.getKeyPrefix(), sObject.getName());
+            }
+        }
+        DeleteResult[] results = new DeleteResult[ids.size()];
+        Map<String, List<Integer>> indexesByObject = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            String objectName = id != null && id.length() >= 3 ? objectsByKeyPrefix.get(id.substring(0, 3)) : null;
+            if (objectName == null) {
+                results[i] = toDeleteResult(id, "No SObject type found for id " + id);
+            } else {
+                indexesByObject.computeIfAbsent(objectName, k -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : indexesByObject.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            List<Map<String, Object>> records = new ArrayList<>(indexes.size());
+            indexes.forEach(i -> records.add(Map.of("Id", ids.get(i))));
+            BulkIngest.Outcome outcome = new BulkIngest(getBulkApiClient(), entry.getKey(), BulkIngest.DELETE)
+                .run(records);
+            for (int j = 0; j < indexes.size(); j++) {
+                int index = indexes.get(j);
+                results[index] = toDeleteResult(ids.get(index), outcome.errors()[j]);
+            }
+        }
+        return results;
+    }
+
+    private static SaveResult[] toSaveResults(BulkIngest.Outcome outcome) {
+        SaveResult[] results = new SaveResult[outcome.ids().length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = toSaveResult(outcome.ids()[i], outcome.errors()[i]);
+        }
+        return results;
+    }
+
+    static SaveResult toSaveResult(String id, String error) {
+        SaveResult result = new SaveResult();
+        result.setId(id);
+        result.setSuccess(error == null);
+        result.setErrors(toErrors(error));
+        return result;
+    }
+
+    static DeleteResult toDeleteResult(String id, String error) {
+        DeleteResult result = new DeleteResult();
+        result.setId(id);
+        result.setSuccess(error == null);
+        result.setErrors(toErrors(error));
+        return result;
+    }
+
+    private static com.sforce.soap.partner.Error[] toErrors(String message) {
+        if (message == null) {
+            return new com.sforce.soap.partner.Error[0];
+        }
+        com.sforce.soap.partner.Error error = new com.sforce.soap.partner.Error();
+        error.setMessage(message);
+        return new com.sforce.soap.partner.Error[]{error};
+    }
+}
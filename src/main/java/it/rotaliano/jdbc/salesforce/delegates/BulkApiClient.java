@@ -0,0 +1,192 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.utils.CsvReader;
+import com.sforce.ws.ConnectionException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Minimal client of the Salesforce Bulk API 2.0 REST resources.
+ */
+@Slf4j
+final class BulkApiClient {
+
+    private static final String JOB_COMPLETE = "JobComplete";
+    private static final String JOB_FAILED = "Failed";
+    private static final String JOB_ABORTED = "Aborted";
+    private static final String NO_MORE_RESULTS = "null";
+
+    /**
+     * One chunk of the CSV result of a query job.
+     *
+     * @param header the column names, as returned by the API
+     * @param records the rows of the chunk, one value per column
+     * @param locator the locator of the next chunk, or {@code null} if this is the last one
+     */
+    record QueryResultChunk(List<String> header, List<List<String>> records, String locator) {
+    }
+
+    private final RestClient restClient;
+
+    BulkApiClient(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    /**
+     * Creates a query job for the given SOQL.
+     *
+     * @return the id of the job
+     */
+    String createQueryJob(String soql) throws ConnectionException {
+        String body = "{\"operation\":\"query\",\"query\":" + RestClient.quote(soql) + ",\"lineEnding\":\"LF\"}";
+        String jobId = (String) restClient.requestObject("POST", "/jobs/query", body).get("id");
+        log.debug("[BulkApiClient] created query job {}", jobId);
+        return jobId;
+    }
+
+    /**
+     * Waits for the query job to complete.
+     *
+     * @throws ConnectionException if the job fails, is aborted, or the wait is interrupted or too long
+     */
+    void awaitQueryJob(String jobId) throws ConnectionException {
+        Map<?, ?> job = awaitJob("/jobs/query/" + jobId);
+        String state = (String) job.get("state");
+        if (!JOB_COMPLETE.equals(state)) {
+            throw new ConnectionException("Bulk query job " + jobId + " " + state.toLowerCase()
+                + ": " + job.get("errorMessage"));
+        }
+    }
+
+    /**
+     * Fetches one chunk of the results of a completed query job.
+     *
+     * @param locator the locator returned with the previous chunk, or {@code null} for the first chunk
+     */
+    QueryResultChunk fetchQueryResults(String jobId, String locator) throws ConnectionException {
+        StringBuilder path = new StringBuilder("/jobs/query/").append(jobId)
+            .append("/results?maxRecords=").append(DriverConfiguration.getBulkMaxRecords());
+        if (locator != null) {
+            path.append("&locator=").append(URLEncoder.encode(locator, StandardCharsets.UTF_8));
+        }
+        HttpURLConnection connection = restClient.send("GET", path.toString(), RestClient.CSV, null, null);
+        try (CsvReader reader = new CsvReader(new BufferedReader(
+            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)))) {
+            List<String> header = reader.readRecord();
+            List<List<String>> records = new ArrayList<>();
+            List<String> rec;
+            while ((rec = reader.readRecord()) != null) {
+                records.add(rec);
+            }
+            String next = connection.getHeaderField("Sforce-Locator");
+            return new QueryResultChunk(header != null ? header : List.of(), records,
+                next == null || next.isEmpty() || NO_MORE_RESULTS.equals(next) ? null : next);
+        } catch (IOException e) {
+            throw new ConnectionException("Failed to read the results of bulk query job " + jobId, e);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Creates an ingest job, uploads its CSV records and closes it, so that Salesforce starts processing it.
+     *
+     * @param object the SObject type
+     * @param operation {@code insert}, {@code update} or {@code delete}
+     * @param csv the records, with a header line naming the fields
+     * @return the id of the job
+     */
+    String submitIngestJob(String object, String operation, byte[] csv) throws ConnectionException {
+        String body = "{\"object\":" + RestClient.quote(object) + ",\"operation\":" + RestClient.quote(operation)
+            + ",\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}";
+        String jobId = (String) restClient.requestObject("POST", "/jobs/ingest", body).get("id");
+        restClient.send("PUT", "/jobs/ingest/" + jobId + "/batches", RestClient.JSON, RestClient.CSV, csv).disconnect();
+        // HttpURLConnection cannot send PATCH, the REST API accepts it as a POST override
+        restClient.request("POST", "/jobs/ingest/" + jobId + "?_HttpMethod=PATCH", "{\"state\":\"UploadComplete\"}");
+        log.debug("[BulkApiClient] submitted {} {} job {}", operation, object, jobId);
+        return jobId;
+    }
+
+    /**
+     * Waits until the ingest job is processed.
+     *
+     * @return the final state of the job: {@code JobComplete}, {@code Failed} or {@code Aborted}
+     * @throws ConnectionException if the wait is interrupted or too long
+     */
+    String awaitIngestJob(String jobId) throws ConnectionException {
+        Map<?, ?> job = awaitJob("/jobs/ingest/" + jobId);
+        String state = (String) job.get("state");
+        if (!JOB_COMPLETE.equals(state)) {
+            log.warn("[BulkApiClient] ingest job {} {}: {}", jobId, state, job.get("errorMessage"));
+        }
+        return state;
+    }
+
+    /**
+     * Streams one of the result files of a processed ingest job.
+     *
+     * @param resource {@code successfulResults}, {@code failedResults} or {@code unprocessedrecords}
+     * @param sink receives the header and each record
+     */
+    void fetchIngestResults(String jobId, String resource, BiConsumer<List<String>, List<String>> sink)
+        throws ConnectionException {
+        HttpURLConnection connection = restClient.send("GET", "/jobs/ingest/" + jobId + "/" + resource + "/",
+            RestClient.CSV, null, null);
+        try (CsvReader reader = new CsvReader(new BufferedReader(
+            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)))) {
+            List<String> header = reader.readRecord();
+            List<String> rec;
+            while (header != null && (rec = reader.readRecord()) != null) {
+                sink.accept(header, rec);
+            }
+        } catch (IOException e) {
+            throw new ConnectionException("Failed to read the " + resource + " of bulk ingest job " + jobId, e);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Polls a job every {@link DriverConfiguration#getBulkPollInterval()} milliseconds until it reaches a final
+     * state, and returns its last status.
+     *
+     * @throws ConnectionException if the job is still running after {@link DriverConfiguration#getBulkMaxWait()}
+     *     milliseconds
+     */
+    private Map<?, ?> awaitJob(String jobPath) throws ConnectionException {
+        long pollInterval = DriverConfiguration.getBulkPollInterval();
+        long maxWait = DriverConfiguration.getBulkMaxWait();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWait);
+        while (true) {
+            Map<?, ?> job = restClient.requestObject("GET", jobPath, null);
+            String state = (String) job.get("state");
+            if (JOB_COMPLETE.equals(state) || JOB_FAILED.equals(state) || JOB_ABORTED.equals(state)) {
+                return job;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new ConnectionException("Bulk job " + jobPath + " still " + state + " after " + maxWait
+                    + " ms, see " + DriverConfiguration.PROP_BULK_MAX_WAIT);
+            }
+            log.trace("[BulkApiClient] job {} is {}", jobPath, state);
+            try {
+                Thread.sleep(Math.min(pollInterval, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectionException("Interrupted while waiting for bulk job " + jobPath, e);
+            }
+        }
+    }
+}
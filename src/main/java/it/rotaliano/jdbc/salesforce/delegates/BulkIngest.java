@@ -0,0 +1,340 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import com.sforce.ws.ConnectionException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a DML operation as Bulk API 2.0 ingest jobs.
+ *
+ * <p>The records are written as CSV and split into jobs of {@link DriverConfiguration#getBulkIngestJobSize()}
+ * records. All the jobs are submitted before the first one is awaited, so Salesforce processes them in
+ * parallel. The results of an update or delete are matched back to their records by id. An insert has no id
+ * to match on: its results are matched to the records by the field values they echo. Records with the same
+ * values cannot be told apart, so they are reported by count only, without the ids of the successful ones.
+ *
+ * <p>All the records of an operation share one CSV header, the union of their fields. As in
+ * {@link IPartnerService#saveRecords}, an update only clears the fields a record sets to {@code null}; the
+ * fields a record does not set at all are written as empty values, which leave them unchanged.
+ */
+@Slf4j
+final class BulkIngest {
+
+    static final String INSERT = "insert";
+    static final String UPDATE = "update";
+    static final String DELETE = "delete";
+
+    /** Value that clears a field in an update job; an empty value leaves it unchanged. */
+    private static final String NULL_VALUE = "#N/A";
+    private static final String ID = "sf__Id";
+    private static final String ERROR = "sf__Error";
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+        .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS'Z'");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    /**
+     * Outcome of the operation, one entry per record in input order.
+     *
+     * @param ids the id of each successful record, {@code null} for failed ones and for inserted records that
+     *     cannot be told apart from others
+     * @param errors the error of each failed record, {@code null} for successful ones
+     */
+    record Outcome(String[] ids, String[] errors) {
+    }
+
+    private final BulkApiClient client;
+    private final String object;
+    private final String operation;
+
+    BulkIngest(BulkApiClient client, String object, String operation) {
+        this.client = client;
+        this.object = object;
+        this.operation = operation;
+    }
+
+    /**
+     * Runs the operation on the given records and waits for all its jobs.
+     */
+    Outcome run(List<Map<String, Object>> records) throws ConnectionException {
+        Set<String> fieldSet = new LinkedHashSet<>();
+        records.forEach(rec -> fieldSet.addAll(rec.keySet()));
+        List<String> fields = new ArrayList<>(fieldSet);
+        String idField = INSERT.equals(operation) ? null
+            : fields.stream().filter("Id"::equalsIgnoreCase).findFirst().orElse(null);
+        Outcome outcome = new Outcome(new String[records.size()], new String[records.size()]);
+
+        int jobSize = DriverConfiguration.getBulkIngestJobSize();
+        List<Job> jobs = new ArrayList<>();
+        for (int from = 0; from < records.size(); from += jobSize) {
+            int to = Math.min(from + jobSize, records.size());
+            StringBuilder csv = new StringBuilder();
+            appendLine(csv, fields);
+            for (int i = from; i < to; i++) {
+                appendLine(csv, toCsvValues(records.get(i), fields));
+            }
+            jobs.add(new Job(client.submitIngestJob(object, operation, csv.toString().getBytes(StandardCharsets.UTF_8)),
+                from, to));
+        }
+        for (Job job : jobs) {
+            collect(job, records, fields, idField, outcome);
+        }
+        return outcome;
+    }
+
+    private void collect(Job job, List<Map<String, Object>> records, List<String> fields, String idField,
+        Outcome outcome) throws ConnectionException {
+        String state = client.awaitIngestJob(job.id());
+        Results successful = fetchResults(job, "successfulResults");
+        Results failed = fetchResults(job, "failedResults");
+        boolean[] reported = new boolean[job.to() - job.from()];
+        if (idField != null) {
+            matchById(job, records, idField, successful, outcome.ids(), ID, reported);
+            matchById(job, records, idField, failed, outcome.errors(), ERROR, reported);
+        } else {
+            matchByValues(job, records, fields, successful, failed, outcome, reported);
+        }
+        for (int i = job.from(); i < job.to(); i++) {
+            if (!reported[i - job.from()]) {
+                outcome.errors()[i] = "Record not processed by bulk " + operation + " job " + job.id()
+                    + " (" + state + ")";
+            }
+        }
+    }
+
+    private Results fetchResults(Job job, String resource) throws ConnectionException {
+        List<List<String>> header = new ArrayList<>(1);
+        List<List<String>> rows = new ArrayList<>();
+        client.fetchIngestResults(job.id(), resource, (h, rec) -> {
+            if (header.isEmpty()) {
+                header.add(h);
+            }
+            rows.add(rec);
+        });
+        return new Results(header.isEmpty() ? List.of() : header.get(0), rows);
+    }
+
+    /**
+     * Matches result rows to the records of a job by the id echoed in the results; 15 and 18 character ids of
+     * the same record match.
+     */
+    private static void matchById(Job job, List<Map<String, Object>> records, String idField, Results results,
+        String[] target, String resultField, boolean[] reported) {
+        Map<String, Deque<Integer>> pending = new HashMap<>();
+        for (int i = job.from(); i < job.to(); i++) {
+            Object id = records.get(i).get(idField);
+            pending.computeIfAbsent(idKey(id != null ? toText(id) : ""), k -> new ArrayDeque<>()).add(i);
+        }
+        for (List<String> rec : results.rows()) {
+            Deque<Integer> candidates = pending.get(idKey(value(results.header(), rec, idField)));
+            if (candidates == null || candidates.isEmpty()) {
+                log.debug("[BulkIngest] result of job {} does not match any record: {}", job.id(), rec);
+                continue;
+            }
+            int index = candidates.poll();
+            target[index] = value(results.header(), rec, resultField);
+            reported[index - job.from()] = true;
+        }
+    }
+
+    /**
+     * Matches the results of an insert to its records by the multiset of their field values. A result row echoes
+     * every uploaded field, so a record whose values are unique gets the outcome of the one result echoing them.
+     *
+     * <p>Records with the same values cannot be told apart: they get the outcomes echoing their values by count
+     * only, successful ones without an id. Results echoing values of no record are reported the same way for the
+     * records left without a result when all of them succeeded; otherwise those records get an error telling
+     * their outcome is unknown.
+     */
+    private void matchByValues(Job job, List<Map<String, Object>> records, List<String> fields, Results successful,
+        Results failed, Outcome outcome, boolean[] reported) {
+        Map<List<String>, List<Integer>> recordsByValues = new LinkedHashMap<>();
+        for (int i = job.from(); i < job.to(); i++) {
+            List<String> values = toCsvValues(records.get(i), fields).stream().map(BulkIngest::normalize).toList();
+            recordsByValues.computeIfAbsent(values, k -> new ArrayList<>()).add(i);
+        }
+        Map<List<String>, Tally> tallies = new HashMap<>();
+        Tally unmatched = new Tally();
+        for (List<String> rec : successful.rows()) {
+            tally(recordsByValues, tallies, unmatched, echoed(successful.header(), rec, fields))
+                .ids().add(value(successful.header(), rec, ID));
+        }
+        for (List<String> rec : failed.rows()) {
+            tally(recordsByValues, tallies, unmatched, echoed(failed.header(), rec, fields))
+                .errors().add(value(failed.header(), rec, ERROR));
+        }
+
+        List<Integer> leftover = new ArrayList<>();
+        for (Map.Entry<List<String>, List<Integer>> entry : recordsByValues.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            Tally tally = tallies.getOrDefault(entry.getKey(), new Tally());
+            Iterator<String> ids = tally.ids().iterator();
+            Iterator<String> errors = tally.errors().iterator();
+            for (int i : indexes) {
+                if (ids.hasNext()) {
+                    String id = ids.next();
+                    outcome.ids()[i] = indexes.size() == 1 ? id : null;
+                } else if (errors.hasNext()) {
+                    outcome.errors()[i] = errors.next();
+                } else {
+                    leftover.add(i);
+                    continue;
+                }
+                reported[i - job.from()] = true;
+            }
+        }
+        if (unmatched.ids().isEmpty() && unmatched.errors().isEmpty()) {
+            return;
+        }
+        log.debug("[BulkIngest] {} results of job {} do not echo the values of a record", unmatched.size(), job.id());
+        boolean allSucceeded = unmatched.errors().isEmpty() && unmatched.ids().size() == leftover.size();
+        for (int i : leftover) {
+            if (!allSucceeded) {
+                outcome.errors()[i] = "Outcome of the record unknown: " + unmatched.errors().size() + " of "
+                    + unmatched.size() + " unmatched results of bulk " + operation + " job " + job.id() + " failed";
+            }
+            reported[i - job.from()] = true;
+        }
+    }
+
+    private static Tally tally(Map<List<String>, List<Integer>> recordsByValues, Map<List<String>, Tally> tallies,
+        Tally unmatched, List<String> values) {
+        return recordsByValues.containsKey(values) ? tallies.computeIfAbsent(values, k -> new Tally()) : unmatched;
+    }
+
+    private static List<String> echoed(List<String> header, List<String> rec, List<String> fields) {
+        List<String> values = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            values.add(normalize(value(header, rec, field)));
+        }
+        return values;
+    }
+
+    /**
+     * Normalizes a CSV value for comparison: the results may echo a number or a boolean in another format than
+     * the uploaded one.
+     */
+    private static String normalize(String value) {
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+        if (NUMBER.matcher(value).matches()) {
+            return new BigDecimal(value).stripTrailingZeros().toPlainString();
+        }
+        return value;
+    }
+
+    private static String value(List<String> header, List<String> rec, String field) {
+        for (int i = 0; i < header.size() && i < rec.size(); i++) {
+            if (header.get(i).equalsIgnoreCase(field)) {
+                return rec.get(i);
+            }
+        }
+        return "";
+    }
+
+    private static String idKey(String id) {
+        return id.length() == 18 ? id.substring(0, 15) : id;
+    }
+
+    private List<String> toCsvValues(Map<String, Object> rec, List<String> fields) {
+        List<String> values = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            values.add(toCsvValue(rec, field));
+        }
+        return values;
+    }
+
+    /**
+     * Formats a field of a record; a field the record does not set is left empty, so that an update keeps its
+     * current value.
+     */
+    private String toCsvValue(Map<String, Object> rec, String field) {
+        Object value = rec.get(field);
+        if (value == null) {
+            return UPDATE.equals(operation) && rec.containsKey(field) ? NULL_VALUE : "";
+        }
+        return toText(value);
+    }
+
+    /**
+     * Formats a non-null value as the REST and Bulk APIs expect it, with date-times in UTC.
+     */
+    static String toText(Object value) {
+        if (value instanceof java.sql.Date || value instanceof LocalDate) {
+            return value.toString();
+        }
+        if (value instanceof java.sql.Time time) {
+            return TIME.format(time.toLocalTime());
+        }
+        if (value instanceof LocalTime time) {
+            return TIME.format(time);
+        }
+        if (value instanceof Date date) {
+            return DATE_TIME.format(date.toInstant());
+        }
+        if (value instanceof Calendar calendar) {
+            return DATE_TIME.format(calendar.toInstant());
+        }
+        if (value instanceof Instant instant) {
+            return DATE_TIME.format(instant);
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return DATE_TIME.format(dateTime.toInstant(ZoneOffset.UTC));
+        }
+        return value.toString();
+    }
+
+    private static void appendLine(StringBuilder csv, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            csv.append('"').append(values.get(i).replace("\"", "\"\"")).append('"');
+        }
+        csv.append('\n');
+    }
+
+    private record Job(String id, int from, int to) {
+    }
+
+    private record Results(List<String> header, List<List<String>> rows) {
+    }
+
+    /**
+     * The outcomes of the results echoing the same values.
+     */
+    private record Tally(List<String> ids, List<String> errors) {
+
+        Tally() {
+            this(new ArrayList<>(), new ArrayList<>());
+        }
+
+        int size() {
+            return ids.size() + errors.size();
+        }
+    }
+}
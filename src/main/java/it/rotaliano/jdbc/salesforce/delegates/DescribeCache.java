@@ -0,0 +1,308 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.cache.DescribeCacheStore;
+import it.rotaliano.jdbc.salesforce.cache.FileDescribeCacheStore;
+import it.rotaliano.jdbc.salesforce.utils.DaemonExecutors;
+import com.sforce.soap.partner.DescribeGlobalResult;
+import com.sforce.soap.partner.DescribeGlobalSObjectResult;
+import com.sforce.soap.partner.DescribeSObjectResult;
+import com.sforce.ws.ConnectionException;
+import com.sforce.ws.bind.XMLizable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Describe metadata cache shared by all the {@link PartnerService} instances of an org.
+ *
+ * <p>Entries are grouped by scope (org and API version) and kept in memory; when a
+ * {@link DescribeCacheStore} is configured they are also persisted, so a new JVM reads them back instead
+ * of repeating {@code describeGlobal} and {@code describeSObjects}. Entries older than the TTL are still
+ * served while they are reloaded in the background.
+ *
+ * <p>Each scope has a version, which changes whenever its metadata is refreshed or cleared, so that results
+ * derived from the metadata can tell they are out of date.
+ */
+@Slf4j
+final class DescribeCache {
+
+    /**
+     * Loads describe metadata from Salesforce.
+     *
+     * @param <T> the describe result type
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws ConnectionException;
+    }
+
+    /**
+     * Describes a list of objects, passing each description to the sink as soon as it is available.
+     * Objects that cannot be described are skipped.
+     */
+    @FunctionalInterface
+    interface BatchLoader {
+        void load(List<String> names, Consumer<DescribeSObjectResult> sink) throws ConnectionException;
+    }
+
+    private static final String GLOBAL_KEY = "describeGlobal";
+    private static final String SOBJECT_KEY_PREFIX = "sobject.";
+
+    private static final ExecutorService refreshExecutor = createRefreshExecutor();
+    private static final AtomicLong versions = new AtomicLong();
+    private static final DescribeCache INSTANCE =
+            new DescribeCache(createConfiguredStore(), TimeUnit.SECONDS.toMillis(DriverConfiguration.getDescribeCacheTtl()));
+
+    private final DescribeCacheStore store;
+    private final long ttlMillis;
+    private final Map<String, Scope> scopes = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param store the persistent store, or {@code null} to keep the metadata in memory only
+     * @param ttlMillis the age after which entries are reloaded, {@code 0} to never reload them
+     */
+    DescribeCache(DescribeCacheStore store, long ttlMillis) {
+        this.store = store;
+        this.ttlMillis = ttlMillis;
+    }
+
+    static DescribeCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static ExecutorService createRefreshExecutor() {
+        return DaemonExecutors.newQueuingPool("salesforce-jdbc-describe-refresh-",
+                DriverConfiguration.getCacheRefreshThreads());
+    }
+
+    private static DescribeCacheStore createConfiguredStore() {
+        String storeClass = DriverConfiguration.getDescribeCacheStore();
+        if (storeClass != null) {
+            try {
+                return (DescribeCacheStore) Class.forName(storeClass).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                log.warn("Invalid describe cache store {}, describe metadata is kept in memory only", storeClass, e);
+                return null;
+            }
+        }
+        String path = DriverConfiguration.getDescribeCachePath();
+        return path != null ? new FileDescribeCacheStore(Paths.get(path)) : null;
+    }
+
+    /**
+     * Returns the queryable objects of the org, loading them on a miss.
+     */
+    List<DescribeGlobalSObjectResult> describeGlobal(String scopeKey, Loader<List<DescribeGlobalSObjectResult>> loader)
+            throws ConnectionException {
+        Scope scope = scope(scopeKey);
+        synchronized (scope) {
+            if (scope.global == null) {
+                scope.global = read(scopeKey, GLOBAL_KEY,
+                        data -> Arrays.asList(decode(data, new DescribeGlobalResult()).getSobjects()));
+            }
+            if (scope.global == null) {
+                scope.global = putGlobal(scopeKey, loader.load());
+                return scope.global.value();
+            }
+        }
+        Timed<List<DescribeGlobalSObjectResult>> global = scope.global;
+        if (isExpired(global)) {
+            refreshInBackground(scopeKey + "|" + GLOBAL_KEY, scope, () -> {
+                Timed<List<DescribeGlobalSObjectResult>> reloaded = putGlobal(scopeKey, loader.load());
+                synchronized (scope) {
+                    scope.global = reloaded;
+                }
+            });
+        }
+        return global.value();
+    }
+
+    /**
+     * Returns the description of an object, loading it on a miss. Failed loads are not cached.
+     */
+    DescribeSObjectResult describeSObject(String scopeKey, String name, Loader<DescribeSObjectResult> loader)
+            throws ConnectionException {
+        Scope scope = scope(scopeKey);
+        Timed<DescribeSObjectResult> entry = cached(scopeKey, scope, name);
+        if (entry == null) {
+            DescribeSObjectResult description = loader.load();
+            put(scopeKey, scope, name, description);
+            return description;
+        }
+        if (isExpired(entry)) {
+            refreshInBackground(scopeKey + "|" + SOBJECT_KEY_PREFIX + name.toLowerCase(Locale.ROOT), scope,
+                    () -> put(scopeKey, scope, name, loader.load()));
+        }
+        return entry.value();
+    }
+
+    /**
+     * Returns all the described objects of the scope after making sure the given ones are described.
+     * Missing objects are loaded synchronously; expired ones are reloaded in the background.
+     */
+    Map<String, DescribeSObjectResult> describeSObjects(String scopeKey, List<String> names, BatchLoader loader)
+            throws ConnectionException {
+        Scope scope = scope(scopeKey);
+        List<String> missing = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+        for (String name : names) {
+            Timed<DescribeSObjectResult> entry = cached(scopeKey, scope, name);
+            if (entry == null) {
+                missing.add(name);
+            } else if (isExpired(entry)) {
+                expired.add(name);
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.trace("Describe {} SObjects", missing.size());
+            loader.load(missing, description -> put(scopeKey, scope, description.getName(), description));
+        }
+        if (!expired.isEmpty()) {
+            refreshInBackground(scopeKey + "|" + SOBJECT_KEY_PREFIX + "*", scope,
+                    () -> loader.load(expired, description -> put(scopeKey, scope, description.getName(), description)));
+        }
+        Map<String, DescribeSObjectResult> result = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        scope.sObjects.forEach((name, entry) -> result.put(name, entry.value()));
+        return result;
+    }
+
+    /**
+     * Returns the version of the metadata of the scope.
+     */
+    long version(String scopeKey) {
+        return scope(scopeKey).version;
+    }
+
+    /**
+     * Drops the scope from memory and from the persistent store.
+     */
+    void clear(String scopeKey) {
+        scopes.remove(scopeKey);
+        if (store != null) {
+            try {
+                store.clear(scopeKey);
+            } catch (IOException e) {
+                log.warn("Failed to clear the persisted describe metadata of {}", scopeKey, e);
+            }
+        }
+    }
+
+    private Scope scope(String scopeKey) {
+        return scopes.computeIfAbsent(scopeKey, k -> new Scope());
+    }
+
+    private Timed<DescribeSObjectResult> cached(String scopeKey, Scope scope, String name) {
+        Timed<DescribeSObjectResult> entry = scope.sObjects.get(name);
+        if (entry == null) {
+            entry = read(scopeKey, SOBJECT_KEY_PREFIX + name, data -> decode(data, new DescribeSObjectResult()));
+            if (entry != null) {
+                scope.sObjects.putIfAbsent(name, entry);
+            }
+        }
+        return entry;
+    }
+
+    private Timed<List<DescribeGlobalSObjectResult>> putGlobal(String scopeKey, List<DescribeGlobalSObjectResult> global) {
+        Timed<List<DescribeGlobalSObjectResult>> entry = new Timed<>(global, System.currentTimeMillis());
+        DescribeGlobalResult result = new DescribeGlobalResult();
+        result.setSobjects(global.toArray(new DescribeGlobalSObjectResult[0]));
+        write(scopeKey, GLOBAL_KEY, entry.loadedAt(), result);
+        return entry;
+    }
+
+    private void put(String scopeKey, Scope scope, String name, DescribeSObjectResult description) {
+        Timed<DescribeSObjectResult> entry = new Timed<>(description, System.currentTimeMillis());
+        scope.sObjects.put(name, entry);
+        write(scopeKey, SOBJECT_KEY_PREFIX + name, entry.loadedAt(), description);
+    }
+
+    private boolean isExpired(Timed<?> entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt() >= ttlMillis;
+    }
+
+    private void refreshInBackground(String key, Scope scope, Refresh refresh) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                    scope.version = versions.incrementAndGet();
+                    log.debug("Expired describe metadata {} refreshed", key);
+                } catch (ConnectionException | RuntimeException e) {
+                    log.warn("Failed to refresh expired describe metadata {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private <T> Timed<T> read(String scopeKey, String key, Decoder<T> decoder) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            DescribeCacheStore.Entry stored = store.read(scopeKey, key);
+            return stored != null ? new Timed<>(decoder.decode(stored.data()), stored.storedAt()) : null;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring unreadable describe metadata {} of {}", key, scopeKey, e);
+            return null;
+        }
+    }
+
+    private void write(String scopeKey, String key, long loadedAt, XMLizable value) {
+        if (store == null || value == null) {
+            return;
+        }
+        try {
+            store.write(scopeKey, key, new DescribeCacheStore.Entry(loadedAt, DescribeCodec.encode(value)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to persist describe metadata {} of {}", key, scopeKey, e);
+        }
+    }
+
+    private static <T extends XMLizable> T decode(byte[] data, T target) throws IOException {
+        return DescribeCodec.decode(data, target);
+    }
+
+    @FunctionalInterface
+    private interface Refresh {
+        void run() throws ConnectionException;
+    }
+
+    @FunctionalInterface
+    private interface Decoder<T> {
+        T decode(byte[] data) throws IOException;
+    }
+
+    private record Timed<T>(T value, long loadedAt) {
+    }
+
+    private static final class Scope {
+        private volatile long version = versions.incrementAndGet();
+        private volatile Timed<List<DescribeGlobalSObjectResult>> global;
+        private final Map<String, Timed<DescribeSObjectResult>> sObjects = new ConcurrentSkipListMap<>(CASE_INSENSITIVE_ORDER);
+    }
+}
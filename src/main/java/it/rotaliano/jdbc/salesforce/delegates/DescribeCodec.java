@@ -0,0 +1,68 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import com.sforce.ws.bind.TypeMapper;
+import com.sforce.ws.bind.XMLizable;
+import com.sforce.ws.parser.XmlInputStream;
+import com.sforce.ws.parser.XmlOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.namespace.QName;
+
+/**
+ * Encodes describe results for the persistent describe cache.
+ *
+ * <p>The partner API types are not {@link java.io.Serializable}, so they are written with the same XML
+ * binding used by the SOAP client, wrapped in a root element and gzip compressed.
+ */
+final class DescribeCodec {
+
+    private static final String PARTNER_NS = "urn:partner.soap.sforce.com";
+    private static final String SCHEMA_NS = "http://www.w3.org/2001/XMLSchema";
+    private static final String SCHEMA_INSTANCE_NS = "http://www.w3.org/2001/XMLSchema-instance";
+    private static final String ROOT = "describeCache";
+    private static final QName RESULT = new QName(PARTNER_NS, "result");
+
+    private DescribeCodec() {
+    }
+
+    static byte[] encode(XMLizable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            XmlOutputStream out = new XmlOutputStream(gzip, false);
+            out.startDocument();
+            out.setPrefix("p", PARTNER_NS);
+            out.setPrefix("xsd", SCHEMA_NS);
+            out.setPrefix("xsi", SCHEMA_INSTANCE_NS);
+            out.writeStartTag(PARTNER_NS, ROOT);
+            value.write(RESULT, out, new TypeMapper());
+            out.writeEndTag(PARTNER_NS, ROOT);
+            out.endDocument();
+            out.flush();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to encode describe result", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static <T extends XMLizable> T decode(byte[] data, T target) throws IOException {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            XmlInputStream in = new XmlInputStream();
+            in.setInput(gzip, "UTF-8");
+            // positioned on the root element, as the SOAP client is on the Body before loading a response
+            in.nextTag();
+            in.peekTag();
+            target.load(in, new TypeMapper());
+            return target;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to decode describe result", e);
+        }
+    }
+}
@@ -4,12 +4,14 @@ import it.rotaliano.jdbc.salesforce.metadata.Table;
 import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
 import com.sforce.soap.partner.DeleteResult;
 import com.sforce.soap.partner.DescribeSObjectResult;
+import com.sforce.soap.partner.PartnerConnection;
 import com.sforce.soap.partner.SaveResult;
 import com.sforce.ws.ConnectionException;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Interface for Salesforce Partner API operations.
@@ -20,6 +22,19 @@ import java.util.Map;
  */
 public interface IPartnerService {
 
+    /**
+     * Returns the id of the org, or {@code null} if the connection was opened with a user name and password.
+     */
+    String getOrgId();
+
+    /**
+     * Creates a service of the same kind for another connection to the same org, e.g. one sharing its session.
+     *
+     * @param partnerConnection the connection of the new service
+     * @return the new service
+     */
+    IPartnerService forConnection(PartnerConnection partnerConnection);
+
     /**
      * Gets all queryable tables (SObjects) from Salesforce.
      *
@@ -50,6 +65,12 @@ public interface IPartnerService {
      */
     void cleanupGlobalCache();
 
+    /**
+     * Returns the version of the cached describe metadata, which changes whenever the metadata is refreshed
+     * or cleared. Results derived from the metadata are only valid for the version they were derived from.
+     */
+    long getDescribeVersion();
+
     /**
      * Executes a SOQL query and returns all results.
      *
@@ -60,26 +81,62 @@ public interface IPartnerService {
      */
     List<List<ForceResultField>> query(String soql, FieldDefTree expectedSchema) throws ConnectionException;
 
+    /**
+     * Executes a SOQL query and hands every result row to a consumer as soon as its page is fetched,
+     * without materializing the whole result.
+     *
+     * @param soql the SOQL query string
+     * @param expectedSchema the expected field structure for result mapping
+     * @param rowConsumer receives each row, in result order
+     * @throws ConnectionException if query execution fails
+     */
+    void query(String soql, FieldDefTree expectedSchema, Consumer<List<ForceResultField>> rowConsumer)
+        throws ConnectionException;
+
     /**
      * Starts a SOQL query and returns the first batch of results.
      *
      * @param soql the SOQL query string
      * @param expectedSchema the expected field structure for result mapping
-     * @return entry containing results and query locator (null if done)
+     * @return entry containing results and query cursor (null if done)
      * @throws ConnectionException if query execution fails
      */
-    Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql, FieldDefTree expectedSchema)
+    Map.Entry<List<List<ForceResultField>>, QueryCursor> queryStart(String soql, FieldDefTree expectedSchema)
         throws ConnectionException;
 
     /**
-     * Continues a query using the query locator from a previous call.
+     * Continues a query using the query cursor from a previous call.
      *
-     * @param queryLocator the locator from queryStart or previous queryMore
+     * @param cursor the cursor from queryStart, bulkQueryStart or previous queryMore
      * @param expectedSchema the expected field structure for result mapping
-     * @return entry containing results and next query locator (null if done)
+     * @return entry containing results and next query cursor (null if done)
      * @throws ConnectionException if query execution fails
      */
-    Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator, FieldDefTree expectedSchema)
+    Map.Entry<List<List<ForceResultField>>, QueryCursor> queryMore(QueryCursor cursor, FieldDefTree expectedSchema)
+        throws ConnectionException;
+
+    /**
+     * Executes a SOQL query as a Bulk API 2.0 query job and hands every result row to a consumer as soon as
+     * its CSV chunk is fetched. Queries the Bulk API cannot represent (sub-queries) run through SOAP.
+     *
+     * @param soql the SOQL query string
+     * @param expectedSchema the expected field structure for result mapping
+     * @param rowConsumer receives each row, in result order
+     * @throws ConnectionException if the job fails or query execution fails
+     */
+    void bulkQuery(String soql, FieldDefTree expectedSchema, Consumer<List<ForceResultField>> rowConsumer)
+        throws ConnectionException;
+
+    /**
+     * Starts a SOQL query as a Bulk API 2.0 query job, waits for its completion and returns the first chunk
+     * of results. Further chunks are fetched with {@link #queryMore(QueryCursor, FieldDefTree)}.
+     *
+     * @param soql the SOQL query string
+     * @param expectedSchema the expected field structure for result mapping
+     * @return entry containing results and query cursor (null if done)
+     * @throws ConnectionException if the job fails or query execution fails
+     */
+    Map.Entry<List<List<ForceResultField>>, QueryCursor> bulkQueryStart(String soql, FieldDefTree expectedSchema)
         throws ConnectionException;
 
     /**
@@ -1,16 +1,11 @@
 package it.rotaliano.jdbc.salesforce.delegates;
 
-import static java.lang.String.CASE_INSENSITIVE_ORDER;
-
-import it.rotaliano.jdbc.salesforce.DriverConfiguration;
-import it.rotaliano.jdbc.salesforce.metadata.Column;
-import it.rotaliano.jdbc.salesforce.metadata.Table;
 import it.rotaliano.jdbc.salesforce.oauth.ForceClientException;
 import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
 import it.rotaliano.jdbc.salesforce.utils.IteratorUtils;
-import it.rotaliano.jdbc.salesforce.utils.PatternToRegexUtils;
 import it.rotaliano.jdbc.salesforce.utils.TreeNode;
 import com.sforce.soap.partner.*;
+import com.sforce.soap.partner.fault.ApiFault;
 import com.sforce.soap.partner.fault.InvalidSObjectFault;
 import com.sforce.soap.partner.sobject.SObject;
 import com.sforce.ws.ConnectionException;
@@ -18,64 +13,33 @@ import com.sforce.ws.bind.XmlObject;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.function.Function;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * {@link IPartnerService} on the SOAP Partner API.
+ */
 @Slf4j
-public class PartnerService implements IPartnerService {
-
-
-    private final PartnerConnection partnerConnection;
-    private final String orgId;
-
-    // Thread-safe caches using ConcurrentHashMap
-    private static final Map<String, List<DescribeGlobalSObjectResult>> schemaCache = new ConcurrentHashMap<>();
-    private static final Map<String, Map<String, DescribeSObjectResult>> sObjectsCache = new ConcurrentHashMap<>();
+public class PartnerService extends AbstractPartnerService {
 
     public PartnerService(PartnerConnection partnerConnection, final String orgId) {
-        this.partnerConnection = partnerConnection;
-        this.orgId = orgId;
-        final String connectionId = getConnectionId();
-        sObjectsCache.putIfAbsent(connectionId, new ConcurrentSkipListMap<>(CASE_INSENSITIVE_ORDER));
+        this(partnerConnection, orgId, DescribeCache.getInstance());
     }
 
-    @Override
-    public List<Table> getTables() throws ConnectionException {
-        Map<String, DescribeSObjectResult> sObjects = getSObjectsDescription();
-        return sObjects.values().stream()
-            .map(this::convertToTable)
-            .toList();
+    PartnerService(PartnerConnection partnerConnection, final String orgId, DescribeCache describeCache) {
+        super(partnerConnection, orgId, describeCache);
     }
 
     @Override
-    public List<Table> getTables(String tablePattern) throws ConnectionException {
-        final DescribeSObjectResult sObject = describeSObject(tablePattern);
-        if (sObject != null) {
-            return List.of(convertToTable(sObject));
-        } else {
-            final Pattern pattern = PatternToRegexUtils.toRegEx(tablePattern);
-            Map<String, DescribeSObjectResult> sObjects = getSObjectsDescription();
-            return sObjects.values().stream()
-                .filter(o -> pattern.matcher(o.getName()).find())
-                .map(this::convertToTable)
-                .toList();
-        }
+    public IPartnerService forConnection(PartnerConnection connection) {
+        return new PartnerService(connection, getOrgId());
     }
 
     @Override
     public DescribeSObjectResult describeSObject(String sObjectType) {
         try {
-            final Map<String, DescribeSObjectResult> cache = sObjectsCache.get(getConnectionId());
-            if (!cache.containsKey(sObjectType)) {
-                DescribeSObjectResult description = partnerConnection.describeSObject(sObjectType);
-                cache.put(sObjectType, description);
-                return description;
-            } else {
-                return cache.get(sObjectType);
-            }
+            return describeCache.describeSObject(getCacheScope(), sObjectType,
+                () -> partnerConnection.describeSObject(sObjectType));
         } catch (InvalidSObjectFault e) {
             return null;
         } catch (ConnectionException e) {
@@ -84,121 +48,28 @@ public class PartnerService implements IPartnerService {
     }
 
     @Override
-    public void cleanupGlobalCache() {
-        resetSchemaCache();
-        sObjectsCache.clear();
-    }
-
-    private Table convertToTable(DescribeSObjectResult so) {
-        log.trace("[PartnerService] convertToTable {}", so.getName());
-        List<Field> fields = Arrays.asList(so.getFields());
-        List<Column> columns = fields.stream()
-            .map(this::convertToColumn)
-            .toList();
-        return new Table(so.getName(), null, columns);
-    }
-
-    private Column convertToColumn(Field field) {
-        Column column = new Column(field.getName(), getType(field));
-        column.setNillable(field.isNillable());
-        column.setCalculated(field.isCalculated() || field.isAutoNumber());
-        column.setLength(field.getLength());
-        column.setUnique(field.isUnique());
-        column.setIndexed(
-            field.getName().equals("Id") ||
-                field.isAutoNumber() ||
-                (field.isUnique() && field.isExternalId()));
-        String[] referenceTos = field.getReferenceTo();
-        if (referenceTos != null) {
-            for (String referenceTo : referenceTos) {
-                String sObjectType = getSObjectType(referenceTo);
-                if (sObjectType != null) {
-                    column.setReferencedTable(referenceTo);
-                    column.setReferencedColumn("Id");
-                }
-            }
-        }
-        return column;
-    }
-
-    private String getConnectionId() {
-        if (orgId != null) {
-            return orgId;
-        }
-        return this.partnerConnection.getConfig().getUsername();
+    List<DescribeGlobalSObjectResult> loadDescribeGlobal() throws ConnectionException {
+        return Arrays.asList(partnerConnection.describeGlobal().getSobjects());
     }
 
-    private String getType(Field field) {
-        String s = field.getType().toString();
-        if (s.startsWith("_")) {
-            s = s.substring("_".length());
-        }
-        return s.equalsIgnoreCase("double") ? "decimal" : s;
-    }
-
-    private synchronized void resetSchemaCache() {
-        schemaCache.remove(getConnectionId());
-    }
-
-    private synchronized List<DescribeGlobalSObjectResult> getDescribeGlobal() throws ConnectionException {
-        if (schemaCache.get(getConnectionId()) == null) {
-            final DescribeGlobalResult describeGlobals = partnerConnection.describeGlobal();
-            final List<DescribeGlobalSObjectResult> describeGlobalsResult = Arrays.stream(describeGlobals.getSobjects())
-                .filter(DescribeGlobalSObjectResult::isQueryable)
-                .toList();
-            schemaCache.put(getConnectionId(), describeGlobalsResult);
-        }
-
-        return schemaCache.get(getConnectionId());
-    }
-
-    private String getSObjectType(String sObject) {
-        try {
-            return getDescribeGlobal().stream()
-                .map(DescribeGlobalSObjectResult::getName)
-                .filter(sObject::equalsIgnoreCase)
-                .findFirst().orElse(null);
-        } catch (ConnectionException e) {
-            return null;
-        }
-    }
-
-    private Map<String, DescribeSObjectResult> getSObjectsDescription() throws ConnectionException {
-        List<DescribeGlobalSObjectResult> describeGlobals = getDescribeGlobal();
-        final Map<String, DescribeSObjectResult> cache = sObjectsCache.get(getConnectionId());
-        if (cache.isEmpty()
-            || cache.size() < describeGlobals.size()) {
-            log.trace("Load all SObjects");
-            List<String> tableNames = describeGlobals.stream()
-                .filter(DescribeGlobalSObjectResult::isQueryable)
-                .map(DescribeGlobalSObjectResult::getName)
-                .toList();
-            Map<String, DescribeSObjectResult> sObjectResultMap = toBatches(tableNames).stream()
-                .flatMap(batch -> describeSObjects(batch).stream())
-                .collect(Collectors.toMap(DescribeSObjectResult::getName, Function.identity()));
-            cache.putAll(sObjectResultMap);
-        }
-        return cache;
-    }
-
-    private List<DescribeSObjectResult> describeSObjects(List<String> batch) {
-        DescribeSObjectResult[] result;
+    /**
+     * Describes one batch. A batch rejected by the API (e.g. an object that cannot be described) is split in
+     * halves until the offending objects are isolated and skipped.
+     */
+    @Override
+    List<DescribeSObjectResult> describeBatch(List<String> batch) throws ConnectionException {
         try {
-            result = partnerConnection.describeSObjects(batch.toArray(new String[0]));
-            return Arrays.asList(result);
-        } catch (ConnectionException e) {
-            return List.of();
-        }
-    }
-
-    private <T> List<List<T>> toBatches(List<T> objects) {
-        int batchSize = DriverConfiguration.getBatchSize();
-        List<List<T>> result = new ArrayList<>();
-        for (int fromIndex = 0; fromIndex < objects.size(); fromIndex += batchSize) {
-            int toIndex = Math.min(fromIndex + batchSize, objects.size());
-            result.add(objects.subList(fromIndex, toIndex));
+            return Arrays.asList(partnerConnection.describeSObjects(batch.toArray(new String[0])));
+        } catch (ApiFault e) {
+            if (batch.size() == 1) {
+                log.warn("Skipping SObject {} that cannot be described: {}", batch.get(0), e.getExceptionMessage());
+                return List.of();
+            }
+            int half = batch.size() / 2;
+            List<DescribeSObjectResult> result = new ArrayList<>(describeSObjects(batch.subList(0, half)));
+            result.addAll(describeSObjects(batch.subList(half, batch.size())));
+            return result;
         }
-        return result;
     }
 
     private List<TreeNode<ForceResultField>> extractQueryResultData(QueryResult qr) {
@@ -212,48 +83,78 @@ public class PartnerService implements IPartnerService {
         return removeServiceInfo(rows, null, (String) rootEntityName);
     }
 
+    /**
+     * Converts one page of query results into rows aligned with the expected schema.
+     *
+     * <p>When a {@link QueryResultRowConverter} is available the records are converted in a single pass;
+     * otherwise (sub-queries) they go through the {@link TreeNode} based Cartesian expansion.
+     */
+    private List<List<ForceResultField>> toRows(QueryResult qr, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter) {
+        if (converter == null) {
+            return FieldDefTree.expand(extractQueryResultData(qr), expectedSchema);
+        }
+        SObject[] records = qr.getRecords();
+        if (records == null) {
+            return new ArrayList<>();
+        }
+        List<List<ForceResultField>> rows = new ArrayList<>(records.length);
+        for (SObject rec : records) {
+            rows.add(converter.convert(rec));
+        }
+        return rows;
+    }
+
     @Override
     public List<List<ForceResultField>> query(String soql, FieldDefTree expectedSchema) throws ConnectionException {
+        List<List<ForceResultField>> resultRows = new ArrayList<>();
+        query(soql, expectedSchema, resultRows::add);
+        return resultRows;
+    }
+
+    @Override
+    void query(String soql, FieldDefTree expectedSchema, QueryResultRowConverter converter,
+        Consumer<List<ForceResultField>> rowConsumer) throws ConnectionException {
         log.trace("[PartnerService] query {}", soql);
-        List<TreeNode<ForceResultField>> resultRows = Collections.synchronizedList(new LinkedList<>());
         QueryResult queryResult = null;
         do {
-            queryResult = queryResult == null ? partnerConnection.query(soql)
-                : partnerConnection.queryMore(queryResult.getQueryLocator());
+            if (queryResult == null) {
+                queryResult = partnerConnection.query(soql);
+            } else {
+                queryResult = partnerConnection.queryMore(queryResult.getQueryLocator());
+            }
 
             partnerConnection.setSessionHeader(partnerConnection.getConfig().getSessionId());
-            resultRows.addAll(extractQueryResultData(queryResult));
+            toRows(queryResult, expectedSchema, converter).forEach(rowConsumer);
         } while (!queryResult.isDone());
-
-        return FieldDefTree.expand(resultRows, expectedSchema);
     }
 
     @Override
-    public Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql, FieldDefTree expectedSchema)
-        throws ConnectionException {
+    Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter) throws ConnectionException {
         log.trace("[PartnerService] queryStart {}", soql);
         QueryResult queryResult = partnerConnection.query(soql);
         String queryLocator = queryResult.isDone() ? null : queryResult.getQueryLocator();
-        List<TreeNode<ForceResultField>> resultRows = extractQueryResultData(queryResult);
-        return new AbstractMap.SimpleEntry<>(FieldDefTree.expand(resultRows, expectedSchema), queryLocator);
+        return new AbstractMap.SimpleEntry<>(toRows(queryResult, expectedSchema, converter), queryLocator);
     }
 
     @Override
-    public Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator, FieldDefTree expectedSchema)
-        throws ConnectionException {
-        log.trace("[PartnerService] queryMore {}", queryLocator);
+    Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter) throws ConnectionException {
         QueryResult queryResult = partnerConnection.queryMore(queryLocator);
         queryLocator = queryResult.isDone() ? null : queryResult.getQueryLocator();
-        List<TreeNode<ForceResultField>> resultRows = extractQueryResultData(queryResult);
-        return new AbstractMap.SimpleEntry<>(FieldDefTree.expand(resultRows, expectedSchema),
-            queryLocator
-        );
+        return new AbstractMap.SimpleEntry<>(toRows(queryResult, expectedSchema, converter), queryLocator);
+    }
+
+    @Override
+    int countRows(String countSoql) throws ConnectionException {
+        return partnerConnection.query(countSoql).getSize();
     }
 
     private List<TreeNode<ForceResultField>> removeServiceInfo(List<XmlObject> rows, String parentName,
         String rootEntityName) {
         return rows.stream()
-            .filter(this::isDataObjectType)
+            .filter(PartnerService::isDataObjectType)
             .map(row -> removeServiceInfo(row, parentName, rootEntityName))
             .collect(Collectors.toList());
     }
@@ -318,12 +219,12 @@ public class PartnerService implements IPartnerService {
     private static final List<String> SOAP_RESPONSE_SERVICE_OBJECT_TYPES = Arrays.asList("type", "done", "queryLocator",
         "size");
 
-    private boolean isDataObjectType(XmlObject obj) {
+    static boolean isDataObjectType(XmlObject obj) {
         return !SOAP_RESPONSE_SERVICE_OBJECT_TYPES.contains(obj.getName().getLocalPart());
     }
 
     @Override
-    public SaveResult[] createRecords(String entityName, List<Map<String, Object>> recordsDefinitions)
+    SaveResult[] insert(String entityName, List<Map<String, Object>> recordsDefinitions)
         throws ConnectionException {
         // Create a new sObject of type Contact
         // and fill out its fields.
@@ -343,7 +244,7 @@ public class PartnerService implements IPartnerService {
     }
 
     @Override
-    public SaveResult[] saveRecords(String entityName, List<Map<String, Object>> recordsDefinitions)
+    SaveResult[] update(String entityName, List<Map<String, Object>> recordsDefinitions)
         throws ConnectionException {
         // Create a new sObject of type Contact
         // and fill out its fields.
@@ -367,7 +268,7 @@ public class PartnerService implements IPartnerService {
     }
 
     @Override
-    public DeleteResult[] deleteRecords(Collection<String> recordsIds) throws ConnectionException {
+    DeleteResult[] delete(Collection<String> recordsIds) throws ConnectionException {
         return partnerConnection.delete(recordsIds.toArray(new String[]{}));
     }
 }
@@ -0,0 +1,29 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+/**
+ * The position of a running query between two pages of results: the query locator of the SOAP or REST API,
+ * or the job id and result locator of a Bulk API 2.0 query job. A query with no more pages has no cursor.
+ *
+ * @param bulkJobId the id of the bulk query job, or {@code null} for a query of the regular API
+ * @param locator the locator of the next page
+ */
+public record QueryCursor(String bulkJobId, String locator) {
+
+    /**
+     * Returns the cursor of a query of the regular API, or {@code null} if there is no next page.
+     */
+    public static QueryCursor of(String queryLocator) {
+        return queryLocator == null ? null : new QueryCursor(null, queryLocator);
+    }
+
+    /**
+     * Returns the cursor of a bulk query job, or {@code null} if there is no next chunk.
+     */
+    public static QueryCursor ofBulkJob(String jobId, String locator) {
+        return locator == null ? null : new QueryCursor(jobId, locator);
+    }
+
+    public boolean isBulk() {
+        return bulkJobId != null;
+    }
+}
@@ -0,0 +1,210 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+
+import it.rotaliano.jdbc.salesforce.statement.FieldDef;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import it.rotaliano.jdbc.salesforce.utils.TreeNode;
+import com.sforce.ws.bind.XmlObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converts Partner API records straight into rows aligned with the expected schema.
+ *
+ * <p>The column plan (field name to column slot) is compiled once from the {@link FieldDefTree},
+ * then every {@link XmlObject} record is walked a single time and its values are written into
+ * their slots. Unlike {@link FieldDefTree#expand}, no intermediate {@link TreeNode} per record
+ * and no Cartesian copies are created.
+ *
+ * <p>Only schemas without sub-queries are supported: rows of a sub-query multiply the parent row
+ * and still go through {@link FieldDefTree#expand}. Use {@link #forSchema(FieldDefTree)} to obtain
+ * a converter when applicable.
+ */
+public final class QueryResultRowConverter {
+
+    private final List<FieldDef> columns;
+    private final Map<String, int[]> slotsByName = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+    private final int[] functionSlots;
+
+    private QueryResultRowConverter(List<FieldDef> columns) {
+        this.columns = columns;
+        Map<String, List<Integer>> slots = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        List<Integer> functions = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String fullName = columns.get(i).getFullName();
+            slots.computeIfAbsent(fullName, k -> new ArrayList<>()).add(i);
+            if (FieldDefTree.isFunctionField(fullName)) {
+                functions.add(i);
+            }
+        }
+        slots.forEach((name, list) -> slotsByName.put(name, list.stream().mapToInt(Integer::intValue).toArray()));
+        this.functionSlots = functions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Compiles a converter for the given schema.
+     *
+     * @param schema the expected field structure of the query
+     * @return the converter, or {@code null} if the schema contains sub-queries or no fields
+     */
+    public static QueryResultRowConverter forSchema(FieldDefTree schema) {
+        if (schema == null || schema.getChildrenCount() == 0
+            || !schema.getChildren().stream().allMatch(TreeNode::isLeaf)) {
+            return null;
+        }
+        List<FieldDef> columns = schema.flatten();
+        if (columns.contains(null)) {
+            return null;
+        }
+        return new QueryResultRowConverter(columns);
+    }
+
+    /**
+     * Converts a single Partner API record into a row aligned with the schema.
+     *
+     * @param record the {@code records} element of a query result
+     * @return one field per schema column, with {@code null} values for columns missing in the record
+     */
+    public List<ForceResultField> convert(XmlObject record) {
+        Object[] values = new Object[columns.size()];
+        boolean[] assigned = new boolean[columns.size()];
+        collect(record, null, values, assigned);
+        return toRow(values);
+    }
+
+    /**
+     * Starts a row whose fields are assigned one at a time, e.g. while a JSON record is being parsed.
+     */
+    public RowBuilder newRow() {
+        return new RowBuilder();
+    }
+
+    /**
+     * Resolves the column slot of every field of a CSV header, as returned by the Bulk API.
+     *
+     * @param header the field names, with relationship fields in dotted notation
+     * @return the slot of each header field, {@code -1} for fields not in the schema
+     */
+    public int[] slotsOf(List<String> header) {
+        Object[] values = new Object[columns.size()];
+        boolean[] assigned = new boolean[columns.size()];
+        int[] slots = new int[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            slots[i] = assign(header.get(i), null, values, assigned);
+        }
+        return slots;
+    }
+
+    /**
+     * Converts a CSV record into a row aligned with the schema.
+     *
+     * @param slots the slots of the header fields, from {@link #slotsOf(List)}
+     * @param values the values of the record; empty values are {@code null}, as the Bulk API writes them
+     * @return one field per schema column
+     */
+    public List<ForceResultField> convert(int[] slots, List<String> values) {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < slots.length && i < values.size(); i++) {
+            String value = values.get(i);
+            if (slots[i] >= 0 && !value.isEmpty()) {
+                row[slots[i]] = value;
+            }
+        }
+        return toRow(row);
+    }
+
+    private List<ForceResultField> toRow(Object[] values) {
+        ForceResultField[] row = new ForceResultField[values.length];
+        for (int i = 0; i < values.length; i++) {
+            FieldDef column = columns.get(i);
+            row[i] = new ForceResultField(null, column.getType(), column.getFullName(), values[i]);
+        }
+        return Arrays.asList(row);
+    }
+
+    private void collect(XmlObject node, String parentName, Object[] values, boolean[] assigned) {
+        Iterator<XmlObject> children = node.getChildren();
+        boolean isFirstDataObject = true;
+        while (children.hasNext()) {
+            XmlObject field = children.next();
+            if (!PartnerService.isDataObjectType(field)) {
+                continue;
+            }
+            if (isFirstDataObject) {
+                // Skips the duplicate Id returned by the Partner API, as PartnerService does
+                isFirstDataObject = false;
+                continue;
+            }
+            String localName = field.getName().getLocalPart();
+            String name = parentName != null ? parentName + "." + localName : localName;
+            String xmlType = field.getXmlType() != null ? field.getXmlType().getLocalPart() : null;
+            if ("sObject".equalsIgnoreCase(xmlType)) {
+                collect(field, name, values, assigned);
+            } else if (!"QueryResult".equals(xmlType)) {
+                assign(name, field.getValue(), values, assigned);
+            }
+        }
+    }
+
+    private int assign(String name, Object value, Object[] values, boolean[] assigned) {
+        int slot = freeSlot(slotsByName.get(name), assigned);
+        if (slot < 0) {
+            int firstDot = name.indexOf('.');
+            if (firstDot != -1) {
+                slot = freeSlot(slotsByName.get(name.substring(firstDot + 1)), assigned);
+            }
+        }
+        if (slot < 0 && name.regionMatches(true, 0, "expr", 0, 4)) {
+            slot = freeSlot(functionSlots, assigned);
+        }
+        if (slot >= 0) {
+            values[slot] = value;
+            assigned[slot] = true;
+        }
+        return slot;
+    }
+
+    private static int freeSlot(int[] slots, boolean[] assigned) {
+        if (slots != null) {
+            for (int slot : slots) {
+                if (!assigned[slot]) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Row being filled field by field, see {@link #newRow()}.
+     */
+    public final class RowBuilder {
+
+        private final Object[] values = new Object[columns.size()];
+        private final boolean[] assigned = new boolean[columns.size()];
+
+        private RowBuilder() {
+        }
+
+        /**
+         * Writes a value into the slot of the field; fields not in the schema are ignored.
+         *
+         * @param name the field name, with relationship fields in dotted notation
+         */
+        public void set(String name, Object value) {
+            assign(name, value, values, assigned);
+        }
+
+        /**
+         * Returns the row, with {@code null} values for the columns that were not set.
+         */
+        public List<ForceResultField> build() {
+            return toRow(values);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import it.rotaliano.jdbc.salesforce.oauth.JSONParser;
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.ws.ConnectionException;
+import com.sforce.ws.ConnectorConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * HTTP plumbing for the Salesforce REST resources under {@code /services/data/vXX.X}.
+ *
+ * <p>The instance URL and the session are taken from the {@link PartnerConnection}, so REST calls run with
+ * the same credentials as the SOAP calls; an expired session is renewed through the connection's
+ * {@link com.sforce.ws.SessionRenewer} and the request is retried once.
+ */
+@Slf4j
+final class RestClient {
+
+    static final String JSON = "application/json";
+    static final String CSV = "text/csv";
+
+    private final PartnerConnection partnerConnection;
+    private final String apiVersion;
+
+    RestClient(PartnerConnection partnerConnection, String apiVersion) {
+        this.partnerConnection = partnerConnection;
+        this.apiVersion = apiVersion.contains(".") ? apiVersion : apiVersion + ".0";
+    }
+
+    /**
+     * Version segment of the REST resources, e.g. {@code v64.0}, as used by the URLs of composite requests.
+     */
+    String getVersion() {
+        return "v" + apiVersion;
+    }
+
+    /**
+     * Path of the REST resources, e.g. {@code /services/data/v64.0}.
+     */
+    String getDataPath() {
+        return "/services/data/" + getVersion();
+    }
+
+    /**
+     * Sends a JSON request and returns the JSON object of the response.
+     *
+     * @param json the request body, or {@code null}
+     */
+    Map<?, ?> requestObject(String method, String path, String json) throws ConnectionException {
+        String response = request(method, path, json);
+        try {
+            if (new JSONParser(response).parse() instanceof Map<?, ?> map) {
+                return map;
+            }
+        } catch (RuntimeException e) {
+            throw new ConnectionException("Invalid REST API response: " + response, e);
+        }
+        throw new ConnectionException("REST API response is not a JSON object: " + response);
+    }
+
+    /**
+     * Sends a JSON request and returns the body of the response.
+     *
+     * @param json the request body, or {@code null}
+     */
+    String request(String method, String path, String json) throws ConnectionException {
+        HttpURLConnection connection = send(method, path, JSON, JSON,
+            json != null ? json.getBytes(StandardCharsets.UTF_8) : null);
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ConnectionException("REST API request failed: " + method + " " + path, e);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Sends a request and returns the connection positioned on a successful response; the caller reads the
+     * response and disconnects.
+     *
+     * @param path the path of the resource, relative to {@link #getDataPath()} unless it starts with it
+     * @param body the request body, or {@code null}
+     */
+    HttpURLConnection send(String method, String path, String accept, String contentType, byte[] body)
+        throws ConnectionException {
+        ConnectorConfig config = partnerConnection.getConfig();
+        boolean renewed = false;
+        while (true) {
+            try {
+                HttpURLConnection connection = open(config, path);
+                connection.setRequestMethod(method);
+                connection.setRequestProperty("Authorization", "Bearer " + config.getSessionId());
+                connection.setRequestProperty("Accept", accept);
+                connection.setRequestProperty("Accept-Encoding", "identity");
+                if (body != null) {
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", contentType + "; charset=UTF-8");
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(body);
+                    }
+                }
+                int status = connection.getResponseCode();
+                if (status >= 200 && status < 300) {
+                    return connection;
+                }
+                String error = readError(connection);
+                connection.disconnect();
+                if (status == HttpURLConnection.HTTP_UNAUTHORIZED && !renewed && config.getSessionRenewer() != null) {
+                    log.debug("[RestClient] session expired, renewing");
+                    config.getSessionRenewer().renewSession(config);
+                    partnerConnection.setSessionHeader(config.getSessionId());
+                    renewed = true;
+                    continue;
+                }
+                throw new RestApiException("REST API request " + method + " " + path
+                    + " failed with status " + status + ": " + error, status);
+            } catch (IOException e) {
+                throw new ConnectionException("REST API request failed: " + method + " " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Error response of the REST API.
+     */
+    static final class RestApiException extends ConnectionException {
+
+        private final int status;
+
+        RestApiException(String message, int status) {
+            super(message);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Quotes a string as a JSON string literal.
+     */
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private HttpURLConnection open(ConnectorConfig config, String path) throws IOException {
+        URI endpoint = URI.create(config.getServiceEndpoint());
+        URL url = new URL(endpoint.getScheme() + "://" + endpoint.getRawAuthority()
+            + (path.startsWith(getDataPath()) ? "" : getDataPath()) + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(config.getConnectionTimeout());
+        connection.setReadTimeout(config.getReadTimeout());
+        return connection;
+    }
+
+    private static String readError(HttpURLConnection connection) {
+        try (InputStream in = connection.getErrorStream()) {
+            return in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.oauth.ForceClientException;
+import it.rotaliano.jdbc.salesforce.oauth.JSONParser;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import it.rotaliano.jdbc.salesforce.utils.JsonReader;
+import it.rotaliano.jdbc.salesforce.utils.TreeNode;
+import com.sforce.soap.partner.ChildRelationship;
+import com.sforce.soap.partner.DeleteResult;
+import com.sforce.soap.partner.DescribeGlobalSObjectResult;
+import com.sforce.soap.partner.DescribeSObjectResult;
+import com.sforce.soap.partner.Field;
+import com.sforce.soap.partner.FieldType;
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.soap.partner.PicklistEntry;
+import com.sforce.soap.partner.SaveResult;
+import com.sforce.soap.partner.SoapType;
+import com.sforce.ws.ConnectionException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@link IPartnerService} on the Salesforce REST API, selected with the {@code transport=rest} connection
+ * property.
+ *
+ * <p>Queries use the {@code query} resource. Its JSON pages are read with a streaming {@link JsonReader} and
+ * each record is bound straight into a driver row, with no intermediate document. Describes use the
+ * {@code sobjects} resources, and batches of them are sent as composite batch requests. DML uses the
+ * sObject Collections resources. The Bulk API paths for large queries and DML are the same as for SOAP.
+ */
+@Slf4j
+public class RestPartnerService extends AbstractPartnerService {
+
+    /** Maximum number of records of an sObject Collections request. */
+    private static final int MAX_COLLECTION_SIZE = 200;
+    /** Maximum number of subrequests of a composite batch request. */
+    private static final int MAX_BATCH_REQUESTS = 25;
+    private static final String ATTRIBUTES = "attributes";
+    private static final String RECORDS = "records";
+
+    /**
+     * One page of query results.
+     *
+     * @param nextRecordsUrl the path of the next page, or {@code null} if this is the last one
+     */
+    private record QueryPage(List<List<ForceResultField>> rows, String nextRecordsUrl) {
+    }
+
+    public RestPartnerService(PartnerConnection partnerConnection, String orgId) {
+        this(partnerConnection, orgId, DescribeCache.getInstance());
+    }
+
+    RestPartnerService(PartnerConnection partnerConnection, String orgId, DescribeCache describeCache) {
+        super(partnerConnection, orgId, describeCache);
+    }
+
+    @Override
+    public IPartnerService forConnection(PartnerConnection connection) {
+        return new RestPartnerService(connection, getOrgId());
+    }
+
+    /**
+     * The describes built from the REST API are cached apart from the SOAP ones of the same org.
+     */
+    @Override
+    String getCacheScope() {
+        return super.getCacheScope() + "/rest";
+    }
+
+    @Override
+    public DescribeSObjectResult describeSObject(String sObjectType) {
+        try {
+            return describeCache.describeSObject(getCacheScope(), sObjectType, () -> toDescribeSObjectResult(
+                getRestClient().requestObject("GET", "/sobjects/" + encode(sObjectType) + "/describe", null)));
+        } catch (RestClient.RestApiException e) {
+            if (e.getStatus() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            throw new ForceClientException("Connection Error", e);
+        } catch (ConnectionException e) {
+            throw new ForceClientException("Connection Error", e);
+        }
+    }
+
+    @Override
+    List<DescribeGlobalSObjectResult> loadDescribeGlobal() throws ConnectionException {
+        List<DescribeGlobalSObjectResult> result = new ArrayList<>();
+        for (Object item : list(getRestClient().requestObject("GET", "/sobjects", null), "sobjects")) {
+            Map<?, ?> json = (Map<?, ?>) item;
+            DescribeGlobalSObjectResult sObject = new DescribeGlobalSObjectResult();
+            sObject.setName(string(json, "name"));
+            sObject.setLabel(string(json, "label"));
+            sObject.setKeyPrefix(string(json, "keyPrefix"));
+            sObject.setQueryable(bool(json, "queryable"));
+            sObject.setCustom(bool(json, "custom"));
+            sObject.setCreateable(bool(json, "createable"));
+            sObject.setUpdateable(bool(json, "updateable"));
+            sObject.setDeletable(bool(json, "deletable"));
+            result.add(sObject);
+        }
+        return result;
+    }
+
+    @Override
+    int getDescribeBatchSize() {
+        return Math.min(DriverConfiguration.getBatchSize(), MAX_BATCH_REQUESTS);
+    }
+
+    /**
+     * Describes one batch with a composite batch request. Objects whose describe fails are skipped.
+     */
+    @Override
+    List<DescribeSObjectResult> describeBatch(List<String> batch) throws ConnectionException {
+        RestClient client = getRestClient();
+        StringBuilder body = new StringBuilder("{\"batchRequests\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            body.append(i > 0 ? "," : "").append("{\"method\":\"GET\",\"url\":")
+                .append(RestClient.quote(client.getVersion() + "/sobjects/" + encode(batch.get(i)) + "/describe"))
+                .append('}');
+        }
+        List<?> results = list(client.requestObject("POST", "/composite/batch", body.append("]}").toString()),
+            "results");
+        List<DescribeSObjectResult> descriptions = new ArrayList<>(batch.size());
+        for (int i = 0; i < results.size() && i < batch.size(); i++) {
+            Map<?, ?> result = (Map<?, ?>) results.get(i);
+            if (integer(result, "statusCode") == HttpURLConnection.HTTP_OK
+                && result.get("result") instanceof Map<?, ?> description) {
+                descriptions.add(toDescribeSObjectResult(description));
+            } else {
+                log.warn("Skipping SObject {} that cannot be described: {}", batch.get(i), result.get("result"));
+            }
+        }
+        return descriptions;
+    }
+
+    private static DescribeSObjectResult toDescribeSObjectResult(Map<?, ?> json) {
+        DescribeSObjectResult result = new DescribeSObjectResult();
+        result.setName(string(json, "name"));
+        result.setLabel(string(json, "label"));
+        result.setKeyPrefix(string(json, "keyPrefix"));
+        result.setQueryable(bool(json, "queryable"));
+        result.setCustom(bool(json, "custom"));
+        result.setCreateable(bool(json, "createable"));
+        result.setUpdateable(bool(json, "updateable"));
+        result.setDeletable(bool(json, "deletable"));
+        result.setFields(list(json, "fields").stream()
+            .map(field -> toField((Map<?, ?>) field))
+            .toArray(Field[]::new));
+        result.setChildRelationships(list(json, "childRelationships").stream()
+            .map(relationship -> toChildRelationship((Map<?, ?>) relationship))
+            .toArray(ChildRelationship[]::new));
+        return result;
+    }
+
+    /**
+     * Converts a field of a REST describe, whose properties have the names of the SOAP {@link Field} ones.
+     * Every property is filled except {@code filteredLookupInfo}, which stays {@code null}. A
+     * {@code defaultValue} is kept as the JSON scalar, where SOAP returns the typed XML value.
+     */
+    private static Field toField(Map<?, ?> json) {
+        Field field = new Field();
+        field.setName(string(json, "name"));
+        field.setLabel(string(json, "label"));
+        field.setType(toFieldType(string(json, "type")));
+        field.setSoapType(toSoapType(string(json, "soapType")));
+        field.setExtraTypeInfo(string(json, "extraTypeInfo"));
+        field.setLength(integer(json, "length"));
+        field.setByteLength(integer(json, "byteLength"));
+        field.setDigits(integer(json, "digits"));
+        field.setPrecision(integer(json, "precision"));
+        field.setScale(integer(json, "scale"));
+        field.setNillable(bool(json, "nillable"));
+        field.setUnique(bool(json, "unique"));
+        field.setExternalId(bool(json, "externalId"));
+        field.setIdLookup(bool(json, "idLookup"));
+        field.setNameField(bool(json, "nameField"));
+        field.setAutoNumber(bool(json, "autoNumber"));
+        field.setCalculated(bool(json, "calculated"));
+        field.setCalculatedFormula(string(json, "calculatedFormula"));
+        field.setFormulaTreatNullNumberAsZero(bool(json, "formulaTreatNullNumberAsZero"));
+        field.setCustom(bool(json, "custom"));
+        field.setCreateable(bool(json, "createable"));
+        field.setUpdateable(bool(json, "updateable"));
+        field.setDefaultedOnCreate(bool(json, "defaultedOnCreate"));
+        field.setDefaultValue(json.get("defaultValue"));
+        field.setDefaultValueFormula(string(json, "defaultValueFormula"));
+        field.setAggregatable(bool(json, "aggregatable"));
+        field.setFilterable(bool(json, "filterable"));
+        field.setGroupable(bool(json, "groupable"));
+        field.setSortable(bool(json, "sortable"));
+        field.setSearchPrefilterable(bool(json, "searchPrefilterable"));
+        field.setQueryByDistance(bool(json, "queryByDistance"));
+        field.setCaseSensitive(bool(json, "caseSensitive"));
+        field.setHtmlFormatted(bool(json, "htmlFormatted"));
+        field.setEncrypted(bool(json, "encrypted"));
+        field.setMask(string(json, "mask"));
+        field.setMaskType(string(json, "maskType"));
+        field.setHighScaleNumber(bool(json, "highScaleNumber"));
+        field.setDisplayLocationInDecimal(bool(json, "displayLocationInDecimal"));
+        field.setInlineHelpText(string(json, "inlineHelpText"));
+        field.setCompoundFieldName(string(json, "compoundFieldName"));
+        field.setPermissionable(bool(json, "permissionable"));
+        field.setDeprecatedAndHidden(bool(json, "deprecatedAndHidden"));
+        field.setAiPredictionField(bool(json, "aiPredictionField"));
+        field.setDataTranslationEnabled(bool(json, "dataTranslationEnabled"));
+        field.setDependentPicklist(bool(json, "dependentPicklist"));
+        field.setControllerName(string(json, "controllerName"));
+        field.setRestrictedPicklist(bool(json, "restrictedPicklist"));
+        field.setPicklistValues(list(json, "picklistValues").stream()
+            .map(entry -> toPicklistEntry((Map<?, ?>) entry))
+            .toArray(PicklistEntry[]::new));
+        field.setRelationshipName(string(json, "relationshipName"));
+        field.setRelationshipOrder(integer(json, "relationshipOrder"));
+        field.setReferenceTo(list(json, "referenceTo").stream().map(String::valueOf).toArray(String[]::new));
+        field.setReferenceTargetField(string(json, "referenceTargetField"));
+        field.setPolymorphicForeignKey(bool(json, "polymorphicForeignKey"));
+        field.setNamePointing(bool(json, "namePointing"));
+        field.setCascadeDelete(bool(json, "cascadeDelete"));
+        field.setRestrictedDelete(bool(json, "restrictedDelete"));
+        field.setWriteRequiresMasterRead(bool(json, "writeRequiresMasterRead"));
+        return field;
+    }
+
+    private static PicklistEntry toPicklistEntry(Map<?, ?> json) {
+        PicklistEntry entry = new PicklistEntry();
+        entry.setActive(bool(json, "active"));
+        entry.setDefaultValue(bool(json, "defaultValue"));
+        entry.setLabel(string(json, "label"));
+        entry.setValue(string(json, "value"));
+        String validFor = string(json, "validFor");
+        if (validFor != null) {
+            entry.setValidFor(Base64.getDecoder().decode(validFor));
+        }
+        return entry;
+    }
+
+    private static ChildRelationship toChildRelationship(Map<?, ?> json) {
+        ChildRelationship relationship = new ChildRelationship();
+        relationship.setChildSObject(string(json, "childSObject"));
+        relationship.setField(string(json, "field"));
+        relationship.setRelationshipName(string(json, "relationshipName"));
+        relationship.setCascadeDelete(bool(json, "cascadeDelete"));
+        return relationship;
+    }
+
+    /**
+     * Resolves a REST field type; the constants of Java keywords such as {@code double} start with {@code _}.
+     */
+    private static FieldType toFieldType(String type) {
+        if (type != null) {
+            for (String name : new String[]{type, "_" + type}) {
+                try {
+                    return FieldType.valueOf(name);
+                } catch (IllegalArgumentException ignored) {
+                    // try the next spelling
+                }
+            }
+        }
+        return FieldType.anyType;
+    }
+
+    /**
+     * Resolves a REST SOAP type such as {@code xsd:string} or {@code tns:ID}, dropping the namespace prefix.
+     */
+    private static SoapType toSoapType(String type) {
+        if (type != null) {
+            String localName = type.substring(type.indexOf(':') + 1);
+            for (String name : new String[]{localName, "_" + localName}) {
+                try {
+                    return SoapType.valueOf(name);
+                } catch (IllegalArgumentException ignored) {
+                    // try the next spelling
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<List<ForceResultField>> query(String soql, FieldDefTree expectedSchema) throws ConnectionException {
+        List<List<ForceResultField>> resultRows = new ArrayList<>();
+        query(soql, expectedSchema, resultRows::add);
+        return resultRows;
+    }
+
+    @Override
+    void query(String soql, FieldDefTree expectedSchema, QueryResultRowConverter converter,
+        Consumer<List<ForceResultField>> rowConsumer) throws ConnectionException {
+        log.trace("[RestPartnerService] query {}", soql);
+        QueryPage page = fetchPage(toQueryPath(soql), expectedSchema, converter);
+        page.rows().forEach(rowConsumer);
+        while (page.nextRecordsUrl() != null) {
+            page = fetchPage(page.nextRecordsUrl(), expectedSchema, converter);
+            page.rows().forEach(rowConsumer);
+        }
+    }
+
+    @Override
+    Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter) throws ConnectionException {
+        log.trace("[RestPartnerService] queryStart {}", soql);
+        QueryPage page = fetchPage(toQueryPath(soql), expectedSchema, converter);
+        return new AbstractMap.SimpleEntry<>(page.rows(), page.nextRecordsUrl());
+    }
+
+    /**
+     * Fetches the next page of a query; the query locator is the {@code nextRecordsUrl} of the previous page.
+     */
+    @Override
+    Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter) throws ConnectionException {
+        QueryPage page = fetchPage(queryLocator, expectedSchema, converter);
+        return new AbstractMap.SimpleEntry<>(page.rows(), page.nextRecordsUrl());
+    }
+
+    /**
+     * Runs a {@code SELECT COUNT()} query; its row count is the {@code totalSize} of the response.
+     */
+    @Override
+    int countRows(String countSoql) throws ConnectionException {
+        String path = toQueryPath(countSoql);
+        HttpURLConnection connection = getRestClient().send("GET", path, RestClient.JSON, null, null);
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)))) {
+            int totalSize = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("totalSize".equals(reader.nextName())) {
+                    totalSize = Integer.parseInt(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return totalSize;
+        } catch (IOException e) {
+            throw new ConnectionException("Failed to read the REST query results of " + path, e);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String toQueryPath(String soql) {
+        return "/query?q=" + encode(soql);
+    }
+
+    /**
+     * Fetches one page of query results, binding every record into a row while the response is read.
+     */
+    private QueryPage fetchPage(String path, FieldDefTree expectedSchema, QueryResultRowConverter converter)
+        throws ConnectionException {
+        HttpURLConnection connection = getRestClient().send("GET", path, RestClient.JSON, null, null);
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)))) {
+            boolean done = true;
+            String nextRecordsUrl = null;
+            List<List<ForceResultField>> rows = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "done" -> done = Boolean.parseBoolean(reader.nextString());
+                    case "nextRecordsUrl" -> nextRecordsUrl = reader.nextString();
+                    case RECORDS -> readRecords(reader, expectedSchema, converter, rows);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new QueryPage(rows, done ? null : nextRecordsUrl);
+        } catch (IOException e) {
+            throw new ConnectionException("Failed to read the REST query results of " + path, e);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Reads the {@code records} array of a page. When a {@link QueryResultRowConverter} is available every
+     * field is written into its column slot as it is parsed; otherwise (sub-queries) the records are read into
+     * the {@link TreeNode} structure expanded by {@link FieldDefTree#expand}, as the SOAP service does.
+     */
+    private static void readRecords(JsonReader reader, FieldDefTree expectedSchema,
+        QueryResultRowConverter converter, List<List<ForceResultField>> rows) throws IOException {
+        if (converter == null) {
+            rows.addAll(FieldDefTree.expand(readTreeRecords(reader, null), expectedSchema));
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            QueryResultRowConverter.RowBuilder row = converter.newRow();
+            readRecord(reader, null, row);
+            rows.add(row.build());
+        }
+        reader.endArray();
+    }
+
+    private static void readRecord(JsonReader reader, String parentName, QueryResultRowConverter.RowBuilder row)
+        throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String localName = reader.nextName();
+            String name = parentName != null ? parentName + "." + localName : localName;
+            JsonReader.Token token = reader.peek();
+            if (ATTRIBUTES.equals(localName) || token == JsonReader.Token.BEGIN_ARRAY) {
+                reader.skipValue();
+            } else if (token == JsonReader.Token.BEGIN_OBJECT) {
+                readRecord(reader, name, row);
+            } else {
+                row.set(name, reader.nextString());
+            }
+        }
+        reader.endObject();
+    }
+
+    private static List<TreeNode<ForceResultField>> readTreeRecords(JsonReader reader, String parentName)
+        throws IOException {
+        List<TreeNode<ForceResultField>> records = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            TreeNode<ForceResultField> rec = new TreeNode<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                readTreeField(reader, reader.nextName(), parentName, rec);
+            }
+            reader.endObject();
+            records.add(rec);
+        }
+        reader.endArray();
+        return records;
+    }
+
+    private static void readTreeField(JsonReader reader, String localName, String parentName,
+        TreeNode<ForceResultField> node) throws IOException {
+        String name = parentName != null ? parentName + "." + localName : localName;
+        JsonReader.Token token = reader.peek();
+        if (ATTRIBUTES.equals(localName) || token == JsonReader.Token.BEGIN_ARRAY) {
+            reader.skipValue();
+        } else if (token == JsonReader.Token.BEGIN_OBJECT) {
+            node.addTreeNode(readTreeObject(reader, localName, name));
+        } else {
+            node.addTreeNode(new TreeNode<>(new ForceResultField(null, null, name, reader.nextString())));
+        }
+    }
+
+    /**
+     * Reads a relationship, whose fields are named after it, or the nested query result of a sub-query, whose
+     * records are named after its relationship only.
+     */
+    private static TreeNode<ForceResultField> readTreeObject(JsonReader reader, String localName, String name)
+        throws IOException {
+        TreeNode<ForceResultField> relationship = new TreeNode<>();
+        List<TreeNode<ForceResultField>> subRecords = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (RECORDS.equals(key) && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                subRecords = readTreeRecords(reader, localName);
+            } else if ("totalSize".equals(key) || "done".equals(key) || "nextRecordsUrl".equals(key)) {
+                reader.skipValue();
+            } else {
+                readTreeField(reader, key, name, relationship);
+            }
+        }
+        reader.endObject();
+        if (subRecords != null) {
+            return new TreeNode<>(subRecords);
+        }
+        return relationship;
+    }
+
+    @Override
+    SaveResult[] insert(String entityName, List<Map<String, Object>> recordsDefinitions)
+        throws ConnectionException {
+        return saveCollections("/composite/sobjects", entityName, recordsDefinitions);
+    }
+
+    @Override
+    SaveResult[] update(String entityName, List<Map<String, Object>> recordsDefinitions)
+        throws ConnectionException {
+        // HttpURLConnection cannot send PATCH, the REST API accepts it as a POST override
+        return saveCollections("/composite/sobjects?_HttpMethod=PATCH", entityName, recordsDefinitions);
+    }
+
+    @Override
+    DeleteResult[] delete(Collection<String> recordsIds) throws ConnectionException {
+        List<DeleteResult> results = new ArrayList<>(recordsIds.size());
+        for (List<String> ids : toBatches(new ArrayList<>(recordsIds), MAX_COLLECTION_SIZE)) {
+            String response = getRestClient().request("DELETE",
+                "/composite/sobjects?allOrNone=false&ids=" + encode(String.join(",", ids)), null);
+            List<?> items = parseList(response);
+            for (int i = 0; i < ids.size(); i++) {
+                Map<?, ?> item = i < items.size() ? (Map<?, ?>) items.get(i) : Map.of();
+                results.add(toDeleteResult(ids.get(i), toError(item)));
+            }
+        }
+        return results.toArray(new DeleteResult[0]);
+    }
+
+    private SaveResult[] saveCollections(String path, String entityName, List<Map<String, Object>> records)
+        throws ConnectionException {
+        List<SaveResult> results = new ArrayList<>(records.size());
+        for (List<Map<String, Object>> chunk : toBatches(records, MAX_COLLECTION_SIZE)) {
+            List<?> items = parseList(getRestClient().request("POST", path, toCollectionJson(entityName, chunk)));
+            for (int i = 0; i < chunk.size(); i++) {
+                Map<?, ?> item = i < items.size() ? (Map<?, ?>) items.get(i) : Map.of();
+                results.add(toSaveResult(string(item, "id"), toError(item)));
+            }
+        }
+        return results.toArray(new SaveResult[0]);
+    }
+
+    /**
+     * Writes the body of an sObject Collections request; {@code null} values clear their fields.
+     */
+    private static String toCollectionJson(String entityName, List<Map<String, Object>> records) {
+        StringBuilder json = new StringBuilder("{\"allOrNone\":false,\"records\":[");
+        for (int i = 0; i < records.size(); i++) {
+            json.append(i > 0 ? "," : "").append("{\"attributes\":{\"type\":").append(RestClient.quote(entityName))
+                .append('}');
+            for (Map.Entry<String, Object> field : records.get(i).entrySet()) {
+                json.append(',').append(RestClient.quote(field.getKey())).append(':').append(toJson(field.getValue()));
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String toJson(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return RestClient.quote(BulkIngest.toText(value));
+    }
+
+    /**
+     * Joins the errors of an sObject Collections result, or returns {@code null} if it succeeded.
+     */
+    private static String toError(Map<?, ?> item) {
+        if (bool(item, "success")) {
+            return null;
+        }
+        List<String> messages = new ArrayList<>();
+        for (Object error : list(item, "errors")) {
+            Map<?, ?> json = (Map<?, ?>) error;
+            messages.add(string(json, "statusCode") + ":" + string(json, "message"));
+        }
+        return messages.isEmpty() ? "Record not processed" : String.join("; ", messages);
+    }
+
+    private static List<?> parseList(String response) throws ConnectionException {
+        try {
+            if (new JSONParser(response).parse() instanceof List<?> list) {
+                return list;
+            }
+        } catch (RuntimeException e) {
+            throw new ConnectionException("Invalid REST API response: " + response, e);
+        }
+        throw new ConnectionException("REST API response is not a JSON array: " + response);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String string(Map<?, ?> json, String key) {
+        Object value = json.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private static boolean bool(Map<?, ?> json, String key) {
+        return Boolean.TRUE.equals(json.get(key));
+    }
+
+    private static int integer(Map<?, ?> json, String key) {
+        return json.get(key) instanceof Number number ? number.intValue() : 0;
+    }
+
+    private static List<?> list(Map<?, ?> json, String key) {
+        return json.get(key) instanceof List<?> list ? list : List.of();
+    }
+}
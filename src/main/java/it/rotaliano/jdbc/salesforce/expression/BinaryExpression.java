@@ -1,10 +1,24 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
 import java.util.Objects;
+import java.util.function.ToIntFunction;
 
 public class BinaryExpression implements Expression {
     public enum Operator {
-        EQUALS, NOT_EQUALS, GREATER_THAN, GREATER_THAN_EQUALS, LESS_THAN, LESS_THAN_EQUALS
+        EQUALS, NOT_EQUALS, GREATER_THAN, GREATER_THAN_EQUALS, LESS_THAN, LESS_THAN_EQUALS;
+
+        /**
+         * Returns the operator giving the same result with the operands swapped.
+         */
+        Operator mirror() {
+            return switch (this) {
+                case GREATER_THAN -> LESS_THAN;
+                case GREATER_THAN_EQUALS -> LESS_THAN_EQUALS;
+                case LESS_THAN -> GREATER_THAN;
+                case LESS_THAN_EQUALS -> GREATER_THAN_EQUALS;
+                default -> this;
+            };
+        }
     }
 
     private final Expression left;
@@ -19,21 +33,75 @@ public class BinaryExpression implements Expression {
 
     @Override
     public Object evaluate(RowContext row) {
-        Object lVal = left.evaluate(row);
-        Object rVal = right.evaluate(row);
+        return compare(op, left.evaluate(row), right.evaluate(row));
+    }
+
+    /**
+     * Compiles the comparison. A comparison with a literal is specialized on the type of the literal: numbers
+     * are compared as {@code double} without boxing, strings and other values directly, and {@code NULL} as
+     * a null check. Any other operand types fall back to the same rules as {@link #evaluate(RowContext)}.
+     */
+    @Override
+    public CompiledExpression compile(ToIntFunction<String> slots) {
+        if (right instanceof LiteralExpression literal) {
+            return compileWithConstant(left.compile(slots), literal.getValue(), false);
+        }
+        if (left instanceof LiteralExpression literal) {
+            return compileWithConstant(right.compile(slots), literal.getValue(), true);
+        }
+        CompiledExpression l = left.compile(slots);
+        CompiledExpression r = right.compile(slots);
+        return CompiledExpression.ofPredicate(values -> compare(op, l.evaluate(values), r.evaluate(values)));
+    }
 
+    private CompiledExpression compileWithConstant(CompiledExpression operand, Object constant, boolean constantOnLeft) {
+        // the operator seen from the operand, for the fast paths that put the operand first
+        Operator operandOp = constantOnLeft ? op.mirror() : op;
+        if (constant == null) {
+            return switch (op) {
+                case EQUALS -> CompiledExpression.ofPredicate(values -> operand.evaluate(values) == null);
+                case NOT_EQUALS -> CompiledExpression.ofPredicate(values -> operand.evaluate(values) != null);
+                default -> CompiledExpression.ofPredicate(values -> {
+                    operand.evaluate(values);
+                    return false;
+                });
+            };
+        }
+        if (constant instanceof Number number) {
+            double d = number.doubleValue();
+            return CompiledExpression.ofPredicate(values -> {
+                Object val = operand.evaluate(values);
+                if (val instanceof Number n) {
+                    return test(operandOp, Double.compare(n.doubleValue(), d));
+                }
+                return constantOnLeft ? compare(op, constant, val) : compare(op, val, constant);
+            });
+        }
+        if (op == Operator.EQUALS) {
+            return CompiledExpression.ofPredicate(values -> constant.equals(operand.evaluate(values)));
+        }
+        if (op == Operator.NOT_EQUALS) {
+            return CompiledExpression.ofPredicate(values -> !constant.equals(operand.evaluate(values)));
+        }
+        if (constant instanceof String string) {
+            return CompiledExpression.ofPredicate(values -> {
+                Object val = operand.evaluate(values);
+                if (val instanceof String s) {
+                    return test(operandOp, s.compareTo(string));
+                }
+                return constantOnLeft ? compare(op, constant, val) : compare(op, val, constant);
+            });
+        }
+        return CompiledExpression.ofPredicate(values -> constantOnLeft
+                ? compare(op, constant, operand.evaluate(values))
+                : compare(op, operand.evaluate(values), constant));
+    }
+
+    static boolean compare(Operator op, Object lVal, Object rVal) {
         if (lVal instanceof Number && rVal instanceof Number) {
             double d1 = ((Number) lVal).doubleValue();
             double d2 = ((Number) rVal).doubleValue();
-            int cmp = Double.compare(d1, d2);
-            switch (op) {
-                case EQUALS: return cmp == 0;
-                case NOT_EQUALS: return cmp != 0;
-                case GREATER_THAN: return cmp > 0;
-                case GREATER_THAN_EQUALS: return cmp >= 0;
-                case LESS_THAN: return cmp < 0;
-                case LESS_THAN_EQUALS: return cmp <= 0;
-            }
+            return test(op, Double.compare(d1, d2));
         }
 
         switch (op) {
@@ -49,12 +117,18 @@ public class BinaryExpression implements Expression {
                 if (lVal instanceof Comparable && lVal.getClass().isInstance(rVal)) {
                     cmp = ((Comparable<Object>) lVal).compareTo(rVal);
                 }
-                switch (op) {
-                    case GREATER_THAN: return cmp > 0;
-                    case GREATER_THAN_EQUALS: return cmp >= 0;
-                    case LESS_THAN: return cmp < 0;
-                    case LESS_THAN_EQUALS: return cmp <= 0;
-                }
+                return test(op, cmp);
+        }
+    }
+
+    private static boolean test(Operator op, int cmp) {
+        switch (op) {
+            case EQUALS: return cmp == 0;
+            case NOT_EQUALS: return cmp != 0;
+            case GREATER_THAN: return cmp > 0;
+            case GREATER_THAN_EQUALS: return cmp >= 0;
+            case LESS_THAN: return cmp < 0;
+            case LESS_THAN_EQUALS: return cmp <= 0;
         }
         return false;
     }
@@ -1,5 +1,7 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
+import java.util.function.ToIntFunction;
+
 public class ColumnExpression implements Expression {
     private final String columnName;
 
@@ -11,4 +13,13 @@ public class ColumnExpression implements Expression {
     public Object evaluate(RowContext row) {
         return row.getValue(columnName);
     }
+
+    @Override
+    public CompiledExpression compile(ToIntFunction<String> slots) {
+        int slot = slots.applyAsInt(columnName);
+        if (slot < 0) {
+            return values -> null;
+        }
+        return values -> CompiledExpression.valueAt(values, slot);
+    }
 }
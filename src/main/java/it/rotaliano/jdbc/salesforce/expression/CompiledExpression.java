@@ -0,0 +1,45 @@
+package it.rotaliano.jdbc.salesforce.expression;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An {@link Expression} compiled for rows of a known layout: the columns are read from the row values by slot
+ * index, resolved once at compile time. See {@link Expression#compile(java.util.function.ToIntFunction)}.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    Object evaluate(List<?> values);
+
+    /**
+     * Evaluates the expression as a condition: {@code NULL} is not satisfied.
+     */
+    default boolean test(List<?> values) {
+        return LogicalExpression.isTruthy(evaluate(values));
+    }
+
+    /**
+     * Returns the value in a slot, or {@code null} if the column was not resolved or the row is shorter.
+     */
+    static Object valueAt(List<?> values, int slot) {
+        return slot >= 0 && slot < values.size() ? values.get(slot) : null;
+    }
+
+    /**
+     * Wraps a condition that is never {@code NULL}, so testing it does not box its result.
+     */
+    static CompiledExpression ofPredicate(Predicate<List<?>> predicate) {
+        return new CompiledExpression() {
+            @Override
+            public Object evaluate(List<?> values) {
+                return predicate.test(values);
+            }
+
+            @Override
+            public boolean test(List<?> values) {
+                return predicate.test(values);
+            }
+        };
+    }
+}
@@ -1,5 +1,22 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
+import java.util.function.ToIntFunction;
+
+/**
+ * A condition or value evaluated on the client side. Implementations are immutable, so one expression is
+ * shared by every execution of a cached statement.
+ */
 public interface Expression {
     Object evaluate(RowContext row);
+
+    /**
+     * Compiles the expression for rows whose column slots are given by {@code slots}, which returns the index
+     * of a column in the row values, or -1 if the row has no such column.
+     *
+     * @param slots resolves a column name to its slot
+     * @return the compiled expression, evaluating to the same value as {@link #evaluate(RowContext)}
+     */
+    default CompiledExpression compile(ToIntFunction<String> slots) {
+        return values -> evaluate(column -> CompiledExpression.valueAt(values, slots.applyAsInt(column)));
+    }
 }
@@ -1,5 +1,7 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
+import java.util.function.ToIntFunction;
+
 public class LiteralExpression implements Expression {
     private final Object value;
 
@@ -11,4 +13,13 @@ public class LiteralExpression implements Expression {
     public Object evaluate(RowContext row) {
         return value;
     }
+
+    @Override
+    public CompiledExpression compile(ToIntFunction<String> slots) {
+        return values -> value;
+    }
+
+    Object getValue() {
+        return value;
+    }
 }
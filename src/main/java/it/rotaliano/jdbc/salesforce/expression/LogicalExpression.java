@@ -1,5 +1,8 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
+import java.util.List;
+import java.util.function.ToIntFunction;
+
 public class LogicalExpression implements Expression {
     public enum Operator {
         AND, OR
@@ -45,6 +48,52 @@ public class LogicalExpression implements Expression {
         }
     }
 
+    @Override
+    public CompiledExpression compile(ToIntFunction<String> slots) {
+        CompiledExpression l = left.compile(slots);
+        CompiledExpression r = right.compile(slots);
+        if (op == Operator.AND) {
+            return new CompiledExpression() {
+                @Override
+                public Object evaluate(List<?> values) {
+                    Object lVal = l.evaluate(values);
+                    if (lVal != null && !isTruthy(lVal)) {
+                        return false;
+                    }
+                    Object rVal = r.evaluate(values);
+                    if (rVal != null && !isTruthy(rVal)) {
+                        return false;
+                    }
+                    return lVal != null && rVal != null ? Boolean.TRUE : null;
+                }
+
+                @Override
+                public boolean test(List<?> values) {
+                    return l.test(values) && r.test(values);
+                }
+            };
+        }
+        return new CompiledExpression() {
+            @Override
+            public Object evaluate(List<?> values) {
+                Object lVal = l.evaluate(values);
+                if (lVal != null && isTruthy(lVal)) {
+                    return true;
+                }
+                Object rVal = r.evaluate(values);
+                if (rVal != null && isTruthy(rVal)) {
+                    return true;
+                }
+                return lVal != null && rVal != null ? Boolean.FALSE : null;
+            }
+
+            @Override
+            public boolean test(List<?> values) {
+                return l.test(values) || r.test(values);
+            }
+        };
+    }
+
     public static boolean isTruthy(Object val) {
         if (val == null) {
             return false;
@@ -1,5 +1,8 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
+import java.util.List;
+import java.util.function.ToIntFunction;
+
 public class NotExpression implements Expression {
     private final Expression operand;
 
@@ -15,4 +18,22 @@ public class NotExpression implements Expression {
         }
         return !LogicalExpression.isTruthy(val);
     }
+
+    @Override
+    public CompiledExpression compile(ToIntFunction<String> slots) {
+        CompiledExpression compiled = operand.compile(slots);
+        return new CompiledExpression() {
+            @Override
+            public Object evaluate(List<?> values) {
+                Object val = compiled.evaluate(values);
+                return val == null ? null : !LogicalExpression.isTruthy(val);
+            }
+
+            @Override
+            public boolean test(List<?> values) {
+                Object val = compiled.evaluate(values);
+                return val != null && !LogicalExpression.isTruthy(val);
+            }
+        };
+    }
 }
@@ -3,27 +3,75 @@ package it.rotaliano.jdbc.salesforce.metadata;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import lombok.Getter;
 
+/**
+ * A row of a result: its values and the names, labels and types of its columns.
+ *
+ * <p>A row created from a {@link RowSchema} holds only its values and shares the columns of the schema, as long
+ * as the columns are put in the order of the schema. A row putting other columns, or created without a
+ * schema, keeps columns of its own; they become a schema of their own the first time a column is looked up
+ * by name or {@link #getSchema()} is called.
+ */
 public class ColumnMap<K, V> implements Serializable {
 
     @Serial
-    private static final long serialVersionUID = 2705233366870541749L;
+    private static final long serialVersionUID = 5173946251029386047L;
 
+    /** The columns of the row, or {@code null} while the row has columns of its own. */
+    private RowSchema<K> schema;
+    private ArrayList<K> columnNames;
+    private ArrayList<K> columnLabels;
+    private ArrayList<TypeInfo> types;
     @Getter
-    private final ArrayList<K> columnNames = new ArrayList<>();
-    @Getter
-    private final ArrayList<K> columnLabels = new ArrayList<>();
-    @Getter
-    private final ArrayList<V> values = new ArrayList<>();
-    @Getter
-    private final ArrayList<TypeInfo> types = new ArrayList<>();
+    private final ArrayList<V> values;
+
+    public ColumnMap() {
+        this((RowSchema<K>) null);
+    }
+
+    /**
+     * Creates an empty row expected to have the columns of the schema.
+     *
+     * @param schema the columns shared with the other rows of the result, or {@code null}
+     */
+    public ColumnMap(RowSchema<K> schema) {
+        this.values = new ArrayList<>(schema != null ? schema.size() : 10);
+        if (schema != null) {
+            this.schema = schema;
+        } else {
+            ownColumns(List.of(), List.of(), List.of());
+        }
+    }
+
+    /**
+     * Creates a row with the columns of the schema and the given values.
+     *
+     * @throws IllegalArgumentException if the number of values differs from the number of columns
+     */
+    public ColumnMap(RowSchema<K> schema, List<V> values) {
+        if (schema.size() != values.size()) {
+            throw new IllegalArgumentException(
+                "Expected " + schema.size() + " values, got " + values.size());
+        }
+        this.schema = schema;
+        this.values = new ArrayList<>(values);
+    }
 
     public V put(K key, K label, V value, TypeInfo typeInfo) {
+        if (schema != null) {
+            if (schema.matches(values.size(), key, label, typeInfo)) {
+                values.add(value);
+                return value;
+            }
+            detach();
+        }
         columnNames.add(key);
         columnLabels.add(label);
-        values.add(value);
         types.add(typeInfo);
+        values.add(value);
         return value;
     }
 
@@ -38,19 +86,13 @@ public class ColumnMap<K, V> implements Serializable {
     }
 
     public V get(K key) {
-        int index = columnNames.indexOf(key);
-        if (index == -1) {
-            index = columnLabels.indexOf(key);
-        }
+        int index = getSchema().indexOf(key);
         return index != -1 ? values.get(index) : null;
     }
 
     public TypeInfo getTypeInfo(K key) {
-        int index = columnNames.indexOf(key);
-        if (index == -1) {
-            index = columnLabels.indexOf(key);
-        }
-        return index != -1 ? types.get(index) : null;
+        int index = getSchema().indexOf(key);
+        return index != -1 ? getSchema().getTypeInfo(index) : null;
     }
 
     /**
@@ -62,10 +104,55 @@ public class ColumnMap<K, V> implements Serializable {
     }
 
     public TypeInfo getTypeInfoByIndex(int index) {
-        return types.get(index - 1);
+        return getTypes().get(index - 1);
     }
 
     public int size() {
-        return columnNames.size();
+        return values.size();
+    }
+
+    /**
+     * Returns the columns of the row, turning the columns of its own into a schema if needed.
+     */
+    public RowSchema<K> getSchema() {
+        if (schema == null || schema.size() != values.size()) {
+            if (schema != null) {
+                detach();
+            }
+            schema = RowSchema.of(columnNames, columnLabels, types);
+            columnNames = null;
+            columnLabels = null;
+            types = null;
+        }
+        return schema;
+    }
+
+    public List<K> getColumnNames() {
+        return schema != null ? prefix(schema.getColumnNames()) : Collections.unmodifiableList(columnNames);
+    }
+
+    public List<K> getColumnLabels() {
+        return schema != null ? prefix(schema.getColumnLabels()) : Collections.unmodifiableList(columnLabels);
+    }
+
+    public List<TypeInfo> getTypes() {
+        return schema != null ? prefix(schema.getTypes()) : Collections.unmodifiableList(types);
+    }
+
+    /** The columns of the schema the row has values for. */
+    private <T> List<T> prefix(List<T> columns) {
+        return columns.size() == values.size() ? columns : columns.subList(0, values.size());
+    }
+
+    /** Copies the columns filled so far out of the schema, before putting a column it does not have. */
+    private void detach() {
+        ownColumns(getColumnNames(), getColumnLabels(), getTypes());
+        schema = null;
+    }
+
+    private void ownColumns(List<K> names, List<K> labels, List<TypeInfo> typeInfos) {
+        columnNames = new ArrayList<>(names);
+        columnLabels = new ArrayList<>(labels);
+        types = new ArrayList<>(typeInfos);
     }
 }
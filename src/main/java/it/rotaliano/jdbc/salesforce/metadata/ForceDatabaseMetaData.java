@@ -9,10 +9,11 @@ import static it.rotaliano.jdbc.salesforce.metadata.TypeInfo.STRING_TYPE_INFO;
 import it.rotaliano.jdbc.salesforce.ForceDriver;
 import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
 import it.rotaliano.jdbc.salesforce.connection.ForceService;
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSetMetaData;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
+import it.rotaliano.jdbc.salesforce.statement.processor.StatementCache;
 import it.rotaliano.jdbc.salesforce.utils.Constants;
 import com.sforce.ws.ConnectionException;
 import com.sforce.ws.ConnectorConfig;
@@ -40,12 +41,12 @@ public class ForceDatabaseMetaData extends AbstractDatabaseMetaData implements S
     public static final String DEFAULT_CATALOG = "rotaliano";
     public static final String DEFAULT_TABLE_TYPE = "TABLE";
 
-    private final transient PartnerService partnerService;
+    private final transient IPartnerService partnerService;
     private transient ForceConnection connection;
     private final Properties connInfo = new Properties();
     private final transient ConcurrentHashMap<String, List<Table>> tableCache = new ConcurrentHashMap<>();
 
-    public ForceDatabaseMetaData(ForceConnection connection, PartnerService partnerService) {
+    public ForceDatabaseMetaData(ForceConnection connection, IPartnerService partnerService) {
         this.connection = connection;
         this.partnerService = partnerService;
         ConnectorConfig connectorConfig = this.connection.getPartnerConnection().getConfig();
@@ -596,6 +597,8 @@ public class ForceDatabaseMetaData extends AbstractDatabaseMetaData implements S
     public void cleanupGlobalCache() throws ConnectionException {
         this.tableCache.clear();
         this.partnerService.cleanupGlobalCache();
+        // parsed statements hold SELECT * expansions and field definitions resolved from the dropped describe
+        StatementCache.getInstance().clear();
     }
 
     public static void main(String[] args) throws SQLException {
@@ -609,7 +612,7 @@ public class ForceDatabaseMetaData extends AbstractDatabaseMetaData implements S
             ForceConnection connection = (ForceConnection) driver.connect(args[0], new Properties());
 
             ForceDatabaseMetaData metaData = new ForceDatabaseMetaData(connection,
-                new PartnerService(connection.getPartnerConnection(),null));
+                connection.getPartnerService());
             ResultSet tables = metaData.getTables("catalog", "", "%", null);
             int count = 0;
             while (tables.next()) {
@@ -0,0 +1,140 @@
+package it.rotaliano.jdbc.salesforce.metadata;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The columns of the rows of a result: names, labels and types, held once and shared by every
+ * {@link ColumnMap} with the same columns.
+ *
+ * <p>Columns are resolved through a hash index, by exact name first, then by exact label, then by name
+ * and by label ignoring case, the first column winning at each step. Instances are immutable.
+ *
+ * @param <K> the type of the column names
+ */
+public final class RowSchema<K> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final List<K> columnNames;
+    private final List<K> columnLabels;
+    private final List<TypeInfo> types;
+    private final Map<Object, Integer> exactIndex;
+    private final Map<String, Integer> foldedIndex;
+
+    private RowSchema(List<K> columnNames, List<K> columnLabels, List<TypeInfo> types) {
+        this.columnNames = columnNames;
+        this.columnLabels = columnLabels;
+        this.types = types;
+        int capacity = columnNames.size() * 4;
+        this.exactIndex = new HashMap<>(capacity);
+        this.foldedIndex = new HashMap<>(capacity);
+        index(columnNames);
+        index(columnLabels);
+    }
+
+    /**
+     * Creates a schema from the column attributes, in column order.
+     *
+     * @throws IllegalArgumentException if the lists are not of the same size
+     */
+    public static <K> RowSchema<K> of(List<K> columnNames, List<K> columnLabels, List<TypeInfo> types) {
+        if (columnNames.size() != columnLabels.size() || columnNames.size() != types.size()) {
+            throw new IllegalArgumentException("Column names, labels and types differ in size");
+        }
+        return new RowSchema<>(
+            Collections.unmodifiableList(new ArrayList<>(columnNames)),
+            Collections.unmodifiableList(new ArrayList<>(columnLabels)),
+            Collections.unmodifiableList(new ArrayList<>(types)));
+    }
+
+    private void index(List<K> keys) {
+        for (int i = 0; i < keys.size(); i++) {
+            K key = keys.get(i);
+            exactIndex.putIfAbsent(key, i);
+            if (key instanceof String s) {
+                foldedIndex.putIfAbsent(s.toLowerCase(Locale.ROOT), i);
+            }
+        }
+    }
+
+    /**
+     * Resolves a column by name or label.
+     *
+     * @return the 0-based column position, or {@code -1} if not found
+     */
+    public int indexOf(Object key) {
+        Integer index = exactIndex.get(key);
+        if (index == null && key instanceof String s) {
+            index = foldedIndex.get(s.toLowerCase(Locale.ROOT));
+        }
+        return index != null ? index : -1;
+    }
+
+    public K getColumnName(int index) {
+        return columnNames.get(index);
+    }
+
+    public K getColumnLabel(int index) {
+        return columnLabels.get(index);
+    }
+
+    public TypeInfo getTypeInfo(int index) {
+        return types.get(index);
+    }
+
+    public List<K> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<K> getColumnLabels() {
+        return columnLabels;
+    }
+
+    public List<TypeInfo> getTypes() {
+        return types;
+    }
+
+    public int size() {
+        return columnNames.size();
+    }
+
+    /**
+     * Whether the column at the given position has the given attributes.
+     */
+    boolean matches(int index, K name, K label, TypeInfo type) {
+        return index < columnNames.size()
+            && Objects.equals(columnNames.get(index), name)
+            && Objects.equals(columnLabels.get(index), label)
+            && Objects.equals(types.get(index), type);
+    }
+
+    /**
+     * Whether both schemas have the same column names and labels, whatever their types.
+     */
+    public boolean sameColumns(RowSchema<?> other) {
+        return this == other
+            || other != null && columnNames.equals(other.columnNames) && columnLabels.equals(other.columnLabels);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof RowSchema<?> other && sameColumns(other) && types.equals(other.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(columnNames, columnLabels, types);
+    }
+}
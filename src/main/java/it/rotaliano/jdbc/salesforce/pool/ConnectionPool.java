@@ -0,0 +1,176 @@
+package it.rotaliano.jdbc.salesforce.pool;
+
+import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
+import it.rotaliano.jdbc.salesforce.connection.ForceService;
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.ws.ConnectionException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool of the connections of one credential set.
+ *
+ * <p>Only the first physical connection logs in; the next ones share its session (see
+ * {@link ForceService#createSharedPartnerConnection}). Idle connections are handed out most recently used
+ * first and validated with the rate-limited {@link ForceConnection#isValid(int)} probe.
+ */
+@Slf4j
+final class ConnectionPool implements ConnectionEventListener {
+
+    /**
+     * Opens a physical connection that logs in.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        ForceConnection connect() throws ConnectionException;
+    }
+
+    private final ConnectionFactory factory;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+    private final Deque<ForcePooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final int maxSize;
+
+    private final Object sessionLock = new Object();
+    private volatile ForceConnection session;
+    private volatile boolean closed;
+
+    ConnectionPool(ConnectionFactory factory, int maxSize, long acquireTimeoutMillis) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Hands out a connection, waiting up to the acquire timeout if all of them are in use.
+     */
+    Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("The data source is closed", "08003");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for one of the " + maxSize + " pooled connections", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a pooled connection", "08001", e);
+        } finally {
+            acquireWaitNanos.add(System.nanoTime() - start);
+        }
+        try {
+            ForcePooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null && !pooled.getPhysicalConnection().isValid(0)) {
+                discard(pooled);
+            }
+            if (pooled == null) {
+                pooled = newPooledConnection();
+                pooled.addConnectionEventListener(this);
+                size.incrementAndGet();
+            }
+            Connection connection = pooled.getConnection();
+            acquired.increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a physical connection outside of the pool, sharing the session of the pool.
+     */
+    ForcePooledConnection newPooledConnection() throws SQLException {
+        try {
+            ForceConnection template = session;
+            if (template == null) {
+                synchronized (sessionLock) {
+                    if (session == null) {
+                        ForceConnection connection = factory.connect();
+                        logins.increment();
+                        created.increment();
+                        session = connection;
+                        return new ForcePooledConnection(connection);
+                    }
+                    template = session;
+                }
+            }
+            PartnerConnection shared = ForceService.createSharedPartnerConnection(template.getPartnerConnection());
+            created.increment();
+            return new ForcePooledConnection(
+                    new ForceConnection(shared, template.getPartnerService().forConnection(shared)));
+        } catch (ConnectionException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public void connectionClosed(ConnectionEvent event) {
+        ForcePooledConnection pooled = (ForcePooledConnection) event.getSource();
+        if (closed) {
+            discard(pooled);
+        } else {
+            idle.offerFirst(pooled);
+        }
+        released.increment();
+        permits.release();
+    }
+
+    @Override
+    public void connectionErrorOccurred(ConnectionEvent event) {
+        discard((ForcePooledConnection) event.getSource());
+        released.increment();
+        permits.release();
+    }
+
+    PoolStats getStats() {
+        int idleCount = idle.size();
+        return new PoolStats(size.get(), idleCount, maxSize - permits.availablePermits(), acquired.sum(),
+                released.sum(), created.sum(), logins.sum(), discarded.sum(),
+                TimeUnit.NANOSECONDS.toMillis(acquireWaitNanos.sum()));
+    }
+
+    /**
+     * Closes the idle connections; connections in use are closed when they are returned.
+     */
+    void close() {
+        closed = true;
+        ForcePooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        session = null;
+    }
+
+    private void discard(ForcePooledConnection pooled) {
+        log.debug("Discarding pooled connection {}", pooled.getPhysicalConnection().getUUID());
+        pooled.removeConnectionEventListener(this);
+        pooled.close();
+        size.decrementAndGet();
+        discarded.increment();
+        if (session == pooled.getPhysicalConnection()) {
+            // the next connection logs in again instead of copying a session that may be gone
+            session = null;
+        }
+    }
+}
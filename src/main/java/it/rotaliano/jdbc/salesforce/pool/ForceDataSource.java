@@ -0,0 +1,149 @@
+package it.rotaliano.jdbc.salesforce.pool;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.ForceDriver;
+import it.rotaliano.jdbc.salesforce.connection.ForceConnectionInfo;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.DataSource;
+import javax.sql.PooledConnection;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Pooling {@link DataSource} for Salesforce.
+ *
+ * <p>Connections are pooled per credential set (the {@link #getUser() user} and {@link #getPassword() password}
+ * of the data source, or the ones passed to {@link #getConnection(String, String)}). Within a pool only the
+ * first connection logs in, the others share its session; closing a connection returns it to the pool.
+ * Pooled connections are validated with the rate-limited {@link Connection#isValid(int)} probe before
+ * being handed out again.
+ *
+ * <p>As a {@link ConnectionPoolDataSource} it hands out unpooled {@link PooledConnection}s, still sharing the
+ * session of their credential set, for use by an external pool manager.
+ */
+@Getter
+@Setter
+public class ForceDataSource implements DataSource, ConnectionPoolDataSource, AutoCloseable {
+
+    /** JDBC URL, as accepted by {@link ForceDriver}. */
+    private String url;
+    private String user;
+    private String password;
+    /** Additional connection properties, as accepted by {@link ForceDriver#connect}. */
+    private Properties properties = new Properties();
+    /** Maximum number of connections per credential set. */
+    private int maxPoolSize = DriverConfiguration.getPoolMaxSize();
+    /** Time in milliseconds {@link #getConnection()} waits for a free connection. */
+    private long acquireTimeoutMillis = DriverConfiguration.getPoolAcquireTimeout();
+    private int loginTimeout;
+    private PrintWriter logWriter;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Credentials, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(user, password);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return pool(username, password).acquire();
+    }
+
+    @Override
+    public PooledConnection getPooledConnection() throws SQLException {
+        return getPooledConnection(user, password);
+    }
+
+    @Override
+    public PooledConnection getPooledConnection(String username, String password) throws SQLException {
+        return pool(username, password).newPooledConnection();
+    }
+
+    /**
+     * Returns the activity of all the pools of this data source.
+     */
+    public PoolStats getPoolStats() {
+        return pools.values().stream()
+            .map(ConnectionPool::getStats)
+            .reduce(PoolStats.EMPTY, PoolStats::plus);
+    }
+
+    /**
+     * Closes the idle connections of all the pools. Connections in use are closed when they are returned,
+     * and no new connection can be obtained afterwards.
+     */
+    @Override
+    public void close() {
+        pools.values().forEach(ConnectionPool::close);
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private ConnectionPool pool(String username, String password) throws SQLException {
+        if (url == null) {
+            throw new SQLException("The url of the data source is not set", "08001");
+        }
+        Credentials credentials = new Credentials(username, password);
+        ConnectionPool pool = pools.get(credentials);
+        if (pool == null) {
+            ForceConnectionInfo info = connectionInfo(credentials);
+            pool = pools.computeIfAbsent(credentials,
+                k -> new ConnectionPool(() -> ForceDriver.openConnection(info), maxPoolSize, acquireTimeoutMillis));
+        }
+        return pool;
+    }
+
+    private ForceConnectionInfo connectionInfo(Credentials credentials) throws SQLException {
+        Properties connectionProperties = new Properties();
+        connectionProperties.putAll(properties);
+        if (credentials.user() != null) {
+            connectionProperties.setProperty("user", credentials.user());
+        }
+        if (credentials.password() != null) {
+            connectionProperties.setProperty("password", credentials.password());
+        }
+        try {
+            return ForceDriver.parseConnectionUrl(url, connectionProperties);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    private record Credentials(String user, String password) {
+
+        @Override
+        public String toString() {
+            return Objects.toString(user) + ":****";
+        }
+    }
+}
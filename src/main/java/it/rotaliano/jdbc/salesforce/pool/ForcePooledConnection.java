@@ -0,0 +1,125 @@
+package it.rotaliano.jdbc.salesforce.pool;
+
+import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+
+/**
+ * A physical {@link ForceConnection} that can be lent out repeatedly.
+ *
+ * <p>Each {@link #getConnection()} returns a new handle delegating to the physical connection; closing the
+ * handle notifies the registered listeners (the pool) instead of closing the physical connection.
+ */
+public class ForcePooledConnection implements PooledConnection {
+
+    private final ForceConnection physicalConnection;
+    private final List<ConnectionEventListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public ForcePooledConnection(ForceConnection physicalConnection) {
+        this.physicalConnection = physicalConnection;
+    }
+
+    /**
+     * Returns the physical connection the handles delegate to.
+     */
+    public ForceConnection getPhysicalConnection() {
+        return physicalConnection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pooled connection is closed", "08003");
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Handle());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        physicalConnection.close();
+    }
+
+    @Override
+    public void addConnectionEventListener(ConnectionEventListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeConnectionEventListener(ConnectionEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Statement pooling is not supported, statement listeners are never notified.
+     */
+    @Override
+    public void addStatementEventListener(StatementEventListener listener) {
+        // NOT Implemented
+    }
+
+    @Override
+    public void removeStatementEventListener(StatementEventListener listener) {
+        // NOT Implemented
+    }
+
+    private void fireConnectionClosed() {
+        ConnectionEvent event = new ConnectionEvent(this);
+        listeners.forEach(listener -> listener.connectionClosed(event));
+    }
+
+    private final class Handle implements InvocationHandler {
+
+        private volatile boolean handleClosed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        physicalConnection.getClientInfo().clear();
+                        fireConnectionClosed();
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physicalConnection.getUUID();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(physicalConnection)) {
+                        return physicalConnection;
+                    }
+                    throw new SQLException("Not a wrapper for " + args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(physicalConnection);
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection is closed", "08003");
+            }
+            try {
+                return method.invoke(physicalConnection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
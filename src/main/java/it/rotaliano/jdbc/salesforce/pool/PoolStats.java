@@ -0,0 +1,26 @@
+package it.rotaliano.jdbc.salesforce.pool;
+
+/**
+ * Snapshot of the activity of a {@link ForceDataSource}.
+ *
+ * @param size the number of open physical connections
+ * @param idle the number of physical connections waiting in the pool
+ * @param active the number of connections currently handed out
+ * @param acquired the number of connections handed out since the pool was created
+ * @param released the number of connections returned to the pool
+ * @param created the number of physical connections opened
+ * @param logins the number of physical connections that required a login, the others shared its session
+ * @param discarded the number of physical connections dropped after failing validation
+ * @param acquireWaitMillis the total time callers waited for a free connection
+ */
+public record PoolStats(int size, int idle, int active, long acquired, long released, long created, long logins,
+        long discarded, long acquireWaitMillis) {
+
+    static final PoolStats EMPTY = new PoolStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    PoolStats plus(PoolStats other) {
+        return new PoolStats(size + other.size, idle + other.idle, active + other.active,
+                acquired + other.acquired, released + other.released, created + other.created,
+                logins + other.logins, discarded + other.discarded, acquireWaitMillis + other.acquireWaitMillis);
+    }
+}
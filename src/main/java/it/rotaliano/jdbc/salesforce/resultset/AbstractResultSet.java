@@ -73,7 +73,7 @@ public abstract class AbstractResultSet implements ResultSet {
     // --- Zero-returning stubs ---
 
     @Override
-    public int findColumn(String columnName) {
+    public int findColumn(String columnName) throws SQLException {
         return 0;
     }
 
@@ -1,8 +1,13 @@
 package it.rotaliano.jdbc.salesforce.resultset;
 
 import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
 import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
 import it.rotaliano.jdbc.salesforce.exceptions.SalesforceRuntimeException;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidClassException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -17,24 +22,26 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.Month;
 import java.time.OffsetDateTime;
+import java.time.Year;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import javax.sql.rowset.RowSetMetaDataImpl;
 import javax.sql.rowset.serial.SerialBlob;
 import lombok.extern.slf4j.Slf4j;
+import it.rotaliano.jdbc.salesforce.expression.CompiledExpression;
 import it.rotaliano.jdbc.salesforce.expression.Expression;
-import it.rotaliano.jdbc.salesforce.expression.LogicalExpression;
-import it.rotaliano.jdbc.salesforce.expression.RowContext;
 
 /**
  * In-memory implementation of {@link ResultSet} that caches all rows.
@@ -47,6 +54,11 @@ import it.rotaliano.jdbc.salesforce.expression.RowContext;
  * <p>Specifically, the cursor position (row index) is shared mutable state that
  * is not synchronized. Concurrent calls to navigation methods ({@code next()},
  * {@code first()}, etc.) or data retrieval methods may result in undefined behavior.
+ * Threads sharing the same rows should each read them through their own {@link #cursor()}
+ * over a result set returned by {@link #share()}.
+ *
+ * <p>Rows sharing the same columns are kept in a {@link ColumnarRowStore}; rows
+ * streamed in batches or appended with {@link #addRow} are kept as {@link ColumnMap}s.
  *
  * @see java.sql.ResultSet
  */
@@ -87,6 +99,9 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /** Version of the binary form written by {@link #writeTo(DataOutput)}. */
+    private static final int BINARY_FORMAT_VERSION = 1;
+
     // Thread-safe DateTimeFormatters (immutable)
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX");
@@ -94,12 +109,21 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
 
     private transient Integer index;
     private List<ColumnMap<String, Object>> rows;
+    private ColumnarRowStore store;
     private ResultSetMetaData metadata;
     private SQLWarning warningsChain;
     private boolean wasNull;
 
     private transient Iterator<List<ColumnMap<String, Object>>> rowSupplier;
     private transient Expression whereFilter;
+    // the filter bound to the columns of the last filtered row
+    private transient CompiledExpression boundFilter;
+    private transient RowSchema<String> boundSchema;
+    // the conversions of the cells of the current row made by the getters, by 0-based column
+    private transient Object decodedSource;
+    private transient int decodedIndex;
+    private transient Decoder<?>[] decoders;
+    private transient Object[] decoded;
 
     public CachedResultSet(List<ColumnMap<String, Object>> rows) {
         this(rows, null, null);
@@ -111,14 +135,11 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
 
     public CachedResultSet(List<ColumnMap<String, Object>> rows, ResultSetMetaData metadata, Expression whereFilter) {
         this.whereFilter = whereFilter;
-        this.rows = new ArrayList<>();
+        this.rows = rows != null ? filter(rows) : new ArrayList<>();
         this.index = -1;
-        if (rows != null) {
-            for (ColumnMap<String, Object> r : rows) {
-                if (evalFilter(r)) {
-                    this.rows.add(r);
-                }
-            }
+        this.store = ColumnarRowStore.of(this.rows);
+        if (this.store != null) {
+            this.rows = Collections.emptyList();
         }
         this.metadata = metadata;
     }
@@ -145,32 +166,322 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
         this.whereFilter = whereFilter;
     }
 
-    private boolean evalFilter(ColumnMap<String, Object> r) {
+    private CachedResultSet(ColumnarRowStore store, ResultSetMetaData metadata) {
+        this(metadata);
+        this.rows = Collections.emptyList();
+        this.store = store;
+    }
+
+    /**
+     * Creates a cursor over the rows of another result set, without copying them.
+     */
+    private CachedResultSet(CachedResultSet source) {
+        this(source.metadata);
+        this.rows = source.rows;
+        this.store = source.store;
+        for (SQLWarning w = source.warningsChain; w != null; w = w.getNextWarning()) {
+            addWarning(w.getMessage());
+        }
+    }
+
+    /**
+     * Returns the rows of this result set in a form that several cursors can read at once; see
+     * {@link #cursor()}. The rows are not copied, but reading them no longer modifies them, and rows can
+     * no longer be added to the returned result set.
+     *
+     * <p>A result set streaming its rows from Salesforce is returned as it is, with its single cursor.
+     *
+     * @return the shareable result set, positioned before the first row
+     */
+    public CachedResultSet share() {
+        if (rowSupplier != null) {
+            return this;
+        }
+        for (ColumnMap<String, Object> row : rows) {
+            // resolve each row's own columns into its schema now, so lookups are read-only afterwards
+            row.getSchema();
+        }
+        CachedResultSet shared = new CachedResultSet(this);
+        shared.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+        return shared;
+    }
+
+    /**
+     * Returns a new result set over the rows of this one, positioned before the first row. Only the position,
+     * the {@code wasNull} state and the warnings belong to the cursor; the rows are shared, so the cursors of
+     * a result set returned by {@link #share()} can be read by several threads at once.
+     *
+     * @return the cursor
+     * @throws IllegalStateException if the result set streams its rows from Salesforce
+     */
+    public CachedResultSet cursor() {
+        if (rowSupplier != null) {
+            throw new IllegalStateException("A streaming result set has a single cursor");
+        }
+        return new CachedResultSet(this);
+    }
+
+    /**
+     * Returns the columns shared by all rows, or {@code null} if there are no rows, the rows have different
+     * columns or the result set streams its rows from Salesforce.
+     */
+    public RowSchema<String> getRowSchema() {
+        if (store != null) {
+            return store.getSchema();
+        }
+        if (rowSupplier != null || rows.isEmpty()) {
+            return null;
+        }
+        RowSchema<String> schema = rows.get(0).getSchema();
+        for (ColumnMap<String, Object> row : rows) {
+            if (!row.getSchema().equals(schema)) {
+                return null;
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Returns a new result set with the rows of this one satisfying a condition, each reduced to some of its
+     * columns. The rows are read without moving the cursor, so a result set returned by {@link #share()} can
+     * be selected from by several threads at once.
+     *
+     * @param condition tested on the values of each row
+     * @param columns the 0-based positions of the columns kept, in their new order
+     * @param schema the columns of the new rows
+     * @param metadata the metadata of the new result set
+     * @return the new result set, positioned before the first row
+     * @throws IllegalStateException if the result set streams its rows from Salesforce
+     */
+    public CachedResultSet select(Predicate<List<Object>> condition, int[] columns, RowSchema<String> schema,
+        ResultSetMetaData metadata) {
+        if (rowSupplier != null) {
+            throw new IllegalStateException("Cannot select from a streaming result set");
+        }
+        List<ColumnMap<String, Object>> selected = new ArrayList<>();
+        List<Object> storedValues = store != null ? new ArrayList<>(store.columnCount()) : null;
+        for (int r = 0; r < rowCount(); r++) {
+            List<Object> values;
+            if (store != null) {
+                storedValues.clear();
+                for (int c = 0; c < store.columnCount(); c++) {
+                    storedValues.add(store.get(r, c));
+                }
+                values = storedValues;
+            } else {
+                values = rows.get(r).getValues();
+            }
+            if (condition.test(values)) {
+                List<Object> kept = new ArrayList<>(columns.length);
+                for (int column : columns) {
+                    kept.add(values.get(column));
+                }
+                selected.add(new ColumnMap<>(schema, kept));
+            }
+        }
+        return new CachedResultSet(selected, metadata);
+    }
+
+    /**
+     * Writes the rows, metadata and warnings of this result set in a compact binary form,
+     * read back by {@link #readFrom(DataInput)}. The cursor position is not written.
+     *
+     * @param out the output to write to
+     * @throws IOException if a value cannot be written
+     * @throws IllegalStateException if the result set streams its rows from Salesforce
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        if (rowSupplier != null) {
+            throw new IllegalStateException("A streaming result set cannot be written");
+        }
+        out.writeByte(BINARY_FORMAT_VERSION);
+        ResultSetCodec.writeMetaData(out, metadata);
+        int warnings = 0;
+        for (SQLWarning w = warningsChain; w != null; w = w.getNextWarning()) {
+            warnings++;
+        }
+        out.writeInt(warnings);
+        for (SQLWarning w = warningsChain; w != null; w = w.getNextWarning()) {
+            ResultSetCodec.writeString(out, w.getMessage());
+        }
+        out.writeBoolean(store != null);
+        if (store != null) {
+            store.writeTo(out);
+        } else {
+            out.writeInt(rows.size());
+            for (ColumnMap<String, Object> row : rows) {
+                ResultSetCodec.writeRow(out, row);
+            }
+        }
+    }
+
+    /**
+     * Reads a result set written by {@link #writeTo(DataOutput)}, positioned before the first row.
+     *
+     * @param in the input to read from
+     * @return the result set
+     * @throws IOException if the input is truncated or was written by an unknown format version
+     */
+    public static CachedResultSet readFrom(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != BINARY_FORMAT_VERSION) {
+            throw new InvalidClassException(CachedResultSet.class.getName(), "Unknown binary format version " + version);
+        }
+        ResultSetMetaData metadata = ResultSetCodec.readMetaData(in);
+        int warnings = in.readInt();
+        List<String> reasons = new ArrayList<>(warnings);
+        for (int i = 0; i < warnings; i++) {
+            reasons.add(ResultSetCodec.readString(in));
+        }
+        CachedResultSet result;
+        if (in.readBoolean()) {
+            result = new CachedResultSet(ColumnarRowStore.readFrom(in), metadata);
+        } else {
+            int size = in.readInt();
+            List<ColumnMap<String, Object>> rows = new ArrayList<>(size);
+            RowSchema<String> schema = null;
+            for (int i = 0; i < size; i++) {
+                ColumnMap<String, Object> row = ResultSetCodec.readRow(in, schema);
+                schema = row.getSchema();
+                rows.add(row);
+            }
+            result = new CachedResultSet(rows, metadata);
+        }
+        reasons.forEach(result::addWarning);
+        return result;
+    }
+
+    /**
+     * Returns the rows of a batch satisfying the client-side WHERE filter, in a new list.
+     *
+     * <p>The filter is bound to the columns of the rows, so it reads the values by index. It is bound
+     * again only when a row comes with other columns.
+     */
+    private List<ColumnMap<String, Object>> filter(List<ColumnMap<String, Object>> batch) {
         if (whereFilter == null) {
-            return true;
+            return new ArrayList<>(batch);
+        }
+        List<ColumnMap<String, Object>> result = new ArrayList<>(batch.size());
+        for (ColumnMap<String, Object> r : batch) {
+            if (bindFilter(r).test(r.getValues())) {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    private CompiledExpression bindFilter(ColumnMap<String, Object> r) {
+        RowSchema<String> schema = r.getSchema();
+        if (boundFilter == null || !schema.sameColumns(boundSchema)) {
+            boundSchema = schema;
+            boundFilter = whereFilter.compile(col -> columnSlot(schema, col));
         }
-        RowContext ctx = col -> {
-            int idx = r.getColumnNames().indexOf(col);
-            if (idx == -1) idx = r.getColumnLabels().indexOf(col);
-            if (idx != -1) return r.getValues().get(idx);
-            for (int k = 0; k < r.size(); k++) {
-                if (r.getColumnNames().get(k).endsWith("." + col)) return r.getValues().get(k);
+        return boundFilter;
+    }
+
+    /**
+     * Returns the slot of a column referenced by the filter: by name, then by label, then by suffix.
+     */
+    private static int columnSlot(RowSchema<String> schema, String col) {
+        int idx = schema.indexOf(col);
+        if (idx == -1) {
+            String suffix = "." + col;
+            List<String> names = schema.getColumnNames();
+            for (int k = 0; k < names.size(); k++) {
+                if (names.get(k) != null && names.get(k).endsWith(suffix)) {
+                    return k;
+                }
             }
+        }
+        return idx;
+    }
+
+    /**
+     * Resolves a column label through the hash index of the columns of the result.
+     *
+     * @throws SQLException if the result has no column with that name or label
+     */
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        RowSchema<String> schema = currentSchema();
+        int column = schema != null ? schema.indexOf(columnLabel) : -1;
+        if (column == -1) {
+            throw new SQLException("Column not found: " + columnLabel, "42S22");
+        }
+        return column + 1;
+    }
+
+    /**
+     * Returns the columns of the current row, or of the first row while positioned before it.
+     */
+    private RowSchema<String> currentSchema() {
+        if (store != null) {
+            return store.getSchema();
+        }
+        if (rows.isEmpty()) {
             return null;
-        };
-        Object filterVal = whereFilter.evaluate(ctx);
-        return LogicalExpression.isTruthy(filterVal);
+        }
+        int row = index >= 0 && index < rows.size() ? index : 0;
+        return rows.get(row).getSchema();
     }
 
     public Object getObject(String columnName) {
-        return rows.get(index).get(columnName);
+        return valueAt(columnOf(columnName));
     }
 
     public Object getObject(int columnIndex) {
-        return rows.get(index).getByIndex(columnIndex);
+        return valueAt(columnIndex - 1);
+    }
+
+    /**
+     * Resolves a column of the current row by name or label.
+     *
+     * @return the 0-based column position, or {@code -1} if not found
+     */
+    private int columnOf(String columnName) {
+        if (store != null) {
+            return store.indexOf(columnName);
+        }
+        return rows.get(index).getSchema().indexOf(columnName);
+    }
+
+    private Object valueAt(int column) {
+        if (column == -1) {
+            return null;
+        }
+        if (store != null) {
+            return store.get(currentRow(), column);
+        }
+        return rows.get(index).getByIndex(column + 1);
+    }
+
+    private TypeInfo typeAt(int column) {
+        if (column == -1) {
+            return null;
+        }
+        if (store != null) {
+            currentRow();
+            return store.getTypeInfo(column);
+        }
+        return rows.get(index).getTypeInfoByIndex(column + 1);
+    }
+
+    private int currentRow() {
+        if (index < 0 || index >= store.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + store.size());
+        }
+        return index;
+    }
+
+    private int rowCount() {
+        return store != null ? store.size() : rows.size();
     }
 
     protected void addRow(ColumnMap<String, Object> row) {
+        if (store != null) {
+            rows = store.toRows();
+            store = null;
+        }
         rows.add(row);
     }
 
@@ -182,7 +493,7 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        if (!rows.isEmpty()) {
+        if (rowCount() > 0) {
             this.index = 0;
             return true;
         } else {
@@ -194,8 +505,8 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        if (!rows.isEmpty()) {
-            this.index = rows.size() - 1;
+        if (rowCount() > 0) {
+            this.index = rowCount() - 1;
             return true;
         } else {
             return false;
@@ -205,13 +516,7 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
     private boolean nextSupplied() {
         if (this.rowSupplier != null) {
             while (this.rowSupplier.hasNext()) {
-                List<ColumnMap<String, Object>> rawBatch = this.rowSupplier.next();
-                List<ColumnMap<String, Object>> filteredBatch = new ArrayList<>();
-                for (ColumnMap<String, Object> r : rawBatch) {
-                    if (evalFilter(r)) {
-                        filteredBatch.add(r);
-                    }
-                }
+                List<ColumnMap<String, Object>> filteredBatch = filter(this.rowSupplier.next());
                 if (!filteredBatch.isEmpty()) {
                     this.rows = filteredBatch;
                     this.index = -1;
@@ -225,9 +530,9 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
     }
 
     public boolean next() {
-        if (!rows.isEmpty()) {
+        if (rowCount() > 0) {
             increaseIndex();
-            if (index < rows.size()) {
+            if (index < rowCount()) {
                 return true;
             }
         }
@@ -238,34 +543,52 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        return !rows.isEmpty() && index == rows.size();
+        return rowCount() > 0 && index == rowCount();
     }
 
     public boolean isBeforeFirst() {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        return !rows.isEmpty() && index == -1;
+        return rowCount() > 0 && index == -1;
     }
 
     public boolean isFirst() {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        return !rows.isEmpty() && index == 0;
+        return rowCount() > 0 && index == 0;
     }
 
     public boolean isLast() {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        return !rows.isEmpty() && index == rows.size() - 1;
+        return rowCount() > 0 && index == rowCount() - 1;
     }
 
     public ResultSetMetaData getMetaData() {
         return metadata != null ? metadata : CachedResultSetMetaData.EMPTY;
     }
 
+    /**
+     * A conversion of the values of a column, memoized per cell of the current row.
+     */
+    private record Decoder<T>(Class<T> type, Function<String, T> conversion) {
+    }
+
+    private static final Decoder<BigDecimal> DECIMAL = new Decoder<>(BigDecimal.class, BigDecimal::new);
+    private static final Decoder<Double> DOUBLE = new Decoder<>(Double.class, Double::parseDouble);
+    private static final Decoder<Float> FLOAT = new Decoder<>(Float.class, Float::parseFloat);
+    private static final Decoder<Long> LONG = new Decoder<>(Long.class, Long::parseLong);
+    private static final Decoder<Byte> BYTE = new Decoder<>(Byte.class, Byte::parseByte);
+    private static final Decoder<Boolean> BOOLEAN = new Decoder<>(Boolean.class, Boolean::parseBoolean);
+    private static final Decoder<byte[]> BASE64 = new Decoder<>(byte[].class, v -> Base64.getDecoder().decode(v));
+    private static final Decoder<java.util.Date> DATE = new Decoder<>(java.util.Date.class, CachedResultSet::decodeDate);
+    private static final Decoder<java.util.Date> DATETIME =
+        new Decoder<>(java.util.Date.class, CachedResultSet::decodeDateTime);
+    private static final Decoder<java.util.Date> TIME = new Decoder<>(java.util.Date.class, CachedResultSet::decodeTime);
+
     /**
      * Static utility for parsing column values with type conversion.
      * Converted from instance inner class to static to eliminate per-call object allocation.
@@ -273,39 +596,62 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
     private static class ColumnValueParser {
 
         @SuppressWarnings("unchecked")
-        static <T> Optional<T> parse(Object value, Function<String, T> conversion, Class<T> clazz) {
+        static <T> T parse(Object value, Function<String, T> conversion, Class<T> clazz) {
             if (value == null) {
-                return Optional.empty();
+                return null;
             }
 
             if (value instanceof String val) {
-                return Optional.ofNullable(conversion.apply(val));
+                return conversion.apply(val);
             }
 
             if (value.getClass().isAssignableFrom(clazz)) {
-                return (Optional<T>) Optional.of(value);
+                return (T) value;
             }
 
             if (Boolean.class.isAssignableFrom(clazz)) {
                 if (value instanceof Number num) {
-                    return (Optional<T>) Optional.of(num.intValue() == 1);
+                    return (T) Boolean.valueOf(num.intValue() == 1);
                 }
             }
 
-            return Optional.ofNullable(conversion.apply(value.toString()));
+            return conversion.apply(value.toString());
         }
     }
 
-    private <T> Optional<T> parseColumn(int columnIndex, Function<String, T> conversion, Class<T> clazz) {
-        Object value = getObject(columnIndex);
-        wasNull = (value == null);
-        return ColumnValueParser.parse(value, conversion, clazz);
-    }
-
-    private <T> Optional<T> parseColumn(String columnName, Function<String, T> conversion, Class<T> clazz) {
-        Object value = getObject(columnName);
+    /**
+     * Converts the value of a cell of the current row, or returns the conversion made by a previous getter call
+     * on the same cell.
+     *
+     * @param column the 0-based column, or {@code -1} for a missing column
+     * @return the converted value, or {@code null} if the value is null
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T decode(int column, Decoder<T> decoder) {
+        Object value = valueAt(column);
         wasNull = (value == null);
-        return ColumnValueParser.parse(value, conversion, clazz);
+        if (value == null) {
+            return null;
+        }
+        Object source = store != null ? store : rows;
+        if (decodedSource != source || decodedIndex != index) {
+            decodedSource = source;
+            decodedIndex = index;
+            if (decoders != null) {
+                Arrays.fill(decoders, null);
+            }
+        }
+        if (decoders == null || column >= decoders.length) {
+            int width = Math.max(column + 1, store != null ? store.columnCount() : rows.get(index).size());
+            decoders = new Decoder<?>[width];
+            decoded = new Object[width];
+        } else if (decoders[column] == decoder) {
+            return (T) decoded[column];
+        }
+        T result = ColumnValueParser.parse(value, decoder.conversion(), decoder.type());
+        decoders[column] = decoder;
+        decoded[column] = result;
+        return result;
     }
 
     public String getString(String columnName) {
@@ -317,13 +663,11 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
     }
 
     public BigDecimal getBigDecimal(int columnIndex) {
-        return parseColumn(columnIndex, BigDecimal::new, BigDecimal.class)
-            .orElse(null);
+        return decode(columnIndex - 1, DECIMAL);
     }
 
     public BigDecimal getBigDecimal(String columnName) {
-        return parseColumn(columnName, BigDecimal::new, BigDecimal.class)
-            .orElse(null);
+        return decode(columnOf(columnName), DECIMAL);
     }
 
     protected java.util.Date parseDate(String dateRepr) {
@@ -331,34 +675,87 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
             wasNull = true;
             return null;
         }
+        wasNull = false;
+        return decodeDate(dateRepr);
+    }
+
+    private static java.util.Date decodeDate(String dateRepr) {
         try {
-            wasNull = false;
-            LocalDate localDate = LocalDate.parse(dateRepr, DATE_FORMATTER);
+            LocalDate localDate = parseIsoDate(dateRepr);
             return java.util.Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
         } catch (DateTimeParseException e) {
             return null;
         }
     }
 
+    /**
+     * Parses a {@code yyyy-MM-dd} date, reading the digits directly when the value has exactly that shape and
+     * falling back to the formatter otherwise.
+     */
+    private static LocalDate parseIsoDate(String s) {
+        LocalDate date = s.length() == 10 ? readIsoDate(s) : null;
+        return date != null ? date : LocalDate.parse(s, DATE_FORMATTER);
+    }
+
+    /**
+     * Reads the {@code yyyy-MM-dd} date at the start of the string.
+     *
+     * @return the date, or {@code null} if the string does not start with a valid date of that shape
+     */
+    private static LocalDate readIsoDate(String s) {
+        if (s.length() < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Returns the value of the decimal digits in the given range, or {@code -1} if a character is not a digit.
+     */
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private Date toSqlDate(java.util.Date date) {
+        return date != null ? new java.sql.Date(date.getTime()) : null;
+    }
+
     public Date getDate(int columnIndex) {
-        return parseColumn(columnIndex, this::parseDate, java.util.Date.class)
-            .map(d -> new java.sql.Date(d.getTime()))
-            .orElse(null);
+        return toSqlDate(decode(columnIndex - 1, DATE));
     }
 
     public Date getDate(String columnName) {
-        return parseColumn(columnName, this::parseDate, java.util.Date.class)
-            .map(d -> new java.sql.Date(d.getTime()))
-            .orElse(null);
+        return toSqlDate(decode(columnOf(columnName), DATE));
     }
 
-    private java.util.Date parseDateTime(String dateRepr) {
-        if (dateRepr == null) {
-            wasNull = true;
-            return null;
+    /**
+     * Parses a {@code yyyy-MM-dd'T'HH:mm:ss.SSSX} date-time. The UTC form sent by Salesforce
+     * ({@code 2021-10-12T00:00:12.000Z}) is read directly; other offsets go through the formatter.
+     */
+    private static java.util.Date decodeDateTime(String dateRepr) {
+        if (dateRepr.length() == 24 && dateRepr.charAt(10) == 'T' && dateRepr.charAt(13) == ':'
+            && dateRepr.charAt(16) == ':' && dateRepr.charAt(19) == '.' && dateRepr.charAt(23) == 'Z') {
+            LocalDate date = readIsoDate(dateRepr);
+            long millisOfDay = millisOfDay(dateRepr, 11);
+            if (date != null && millisOfDay >= 0) {
+                return new java.util.Date(date.toEpochDay() * 86_400_000L + millisOfDay);
+            }
         }
         try {
-            wasNull = false;
             OffsetDateTime odt = OffsetDateTime.parse(dateRepr, DATETIME_FORMATTER);
             return java.util.Date.from(odt.toInstant());
         } catch (DateTimeParseException e) {
@@ -366,131 +763,171 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
         }
     }
 
-    public Timestamp getTimestamp(int columnIndex) {
-        Object value = rows.get(index).getByIndex(columnIndex);
-        wasNull = (value == null);
-        if (value instanceof GregorianCalendar calendar) {
-            return new java.sql.Timestamp(calendar.getTime().getTime());
-        } else if (rows.get(index).getTypeInfoByIndex(columnIndex) == TypeInfo.DATE_TYPE_INFO) {
-            return ColumnValueParser.parse(value, this::parseDate, java.util.Date.class)
-                .map(d -> new java.sql.Timestamp(d.getTime()))
-                .orElse(null);
-        } else {
-            return ColumnValueParser.parse(value, this::parseDateTime, java.util.Date.class)
-                .map(d -> new java.sql.Timestamp(d.getTime()))
-                .orElse(null);
+    /**
+     * Reads the {@code HH:mm:ss.SSS} time starting at the given position.
+     *
+     * @return the milliseconds since midnight, or {@code -1} if the time is not valid
+     */
+    private static long millisOfDay(String s, int from) {
+        int hour = digits(s, from, from + 2);
+        int minute = digits(s, from + 3, from + 5);
+        int second = digits(s, from + 6, from + 8);
+        int millis = digits(s, from + 9, from + 12);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return -1;
         }
+        return ((hour * 60L + minute) * 60 + second) * 1000 + millis;
+    }
+
+    private Timestamp toTimestamp(java.util.Date date) {
+        return date != null ? new java.sql.Timestamp(date.getTime()) : null;
+    }
+
+    public Timestamp getTimestamp(int columnIndex) {
+        return timestampAt(columnIndex - 1);
     }
 
     public Timestamp getTimestamp(String columnName) {
-        Object value = rows.get(index).get(columnName);
+        return timestampAt(columnOf(columnName));
+    }
+
+    private Timestamp timestampAt(int column) {
+        Object value = valueAt(column);
         wasNull = (value == null);
-        if (value instanceof GregorianCalendar cal) {
-            return new java.sql.Timestamp(cal.getTime().getTime());
-        } else if (rows.get(index).getTypeInfo(columnName) == TypeInfo.DATE_TYPE_INFO) {
-            return ColumnValueParser.parse(value, this::parseDate, java.util.Date.class)
-                .map(d -> new java.sql.Timestamp(d.getTime()))
-                .orElse(null);
+        if (value instanceof GregorianCalendar calendar) {
+            return new java.sql.Timestamp(calendar.getTime().getTime());
+        } else if (value == null) {
+            return null;
+        } else if (typeAt(column) == TypeInfo.DATE_TYPE_INFO) {
+            return toTimestamp(decode(column, DATE));
         } else {
-            return ColumnValueParser.parse(value, this::parseDateTime, java.util.Date.class)
-                .map(d -> new java.sql.Timestamp(d.getTime()))
-                .orElse(null);
+            return toTimestamp(decode(column, DATETIME));
         }
     }
 
-    private java.util.Date parseTime(String dateRepr) {
-        if (dateRepr == null) {
-            wasNull = true;
-            return null;
-        }
+    /**
+     * Parses a {@code HH:mm:ss.SSSX} time on the epoch day, in the default time zone; the offset is ignored.
+     */
+    private static java.util.Date decodeTime(String dateRepr) {
         try {
-            wasNull = false;
-            java.time.OffsetTime offsetTime = java.time.OffsetTime.parse(dateRepr, TIME_FORMATTER);
-            LocalTime localTime = offsetTime.toLocalTime();
+            LocalTime localTime;
+            long millisOfDay = dateRepr.length() == 13 && dateRepr.charAt(2) == ':' && dateRepr.charAt(5) == ':'
+                && dateRepr.charAt(8) == '.' && dateRepr.charAt(12) == 'Z' ? millisOfDay(dateRepr, 0) : -1;
+            if (millisOfDay >= 0) {
+                localTime = LocalTime.ofNanoOfDay(millisOfDay * 1_000_000L);
+            } else {
+                localTime = java.time.OffsetTime.parse(dateRepr, TIME_FORMATTER).toLocalTime();
+            }
             return java.util.Date.from(localTime.atDate(LocalDate.EPOCH).atZone(ZoneId.systemDefault()).toInstant());
         } catch (DateTimeParseException e) {
             return null;
         }
     }
 
+    private Time toTime(java.util.Date date) {
+        return date != null ? new Time(date.getTime()) : null;
+    }
+
     public Time getTime(String columnName) {
-        return parseColumn(columnName, this::parseTime, java.util.Date.class)
-            .map(d -> new Time(d.getTime()))
-            .orElse(null);
+        return toTime(decode(columnOf(columnName), TIME));
     }
 
     public Time getTime(int columnIndex) {
-        return parseColumn(columnIndex, this::parseTime, java.util.Date.class)
-            .map(d -> new Time(d.getTime()))
-            .orElse(null);
+        return toTime(decode(columnIndex - 1, TIME));
     }
 
     @Deprecated(since = "1.2")
     public BigDecimal getBigDecimal(int columnIndex, int scale) {
-        return parseColumn(columnIndex, BigDecimal::new, BigDecimal.class)
-            .map(bigDecimal -> bigDecimal.setScale(scale, RoundingMode.HALF_EVEN))
-            .orElse(null);
+        BigDecimal value = getBigDecimal(columnIndex);
+        return value != null ? value.setScale(scale, RoundingMode.HALF_EVEN) : null;
     }
 
     @Deprecated(since = "1.2")
     public BigDecimal getBigDecimal(String columnName, int scale) {
-        return parseColumn(columnName, BigDecimal::new, BigDecimal.class)
-            .map(bigDecimal -> bigDecimal.setScale(scale, RoundingMode.HALF_EVEN))
-            .orElse(null);
+        BigDecimal value = getBigDecimal(columnName);
+        return value != null ? value.setScale(scale, RoundingMode.HALF_EVEN) : null;
     }
 
     public float getFloat(int columnIndex) {
-        return parseColumn(columnIndex, Float::parseFloat, Float.class)
-            .orElse(0f);
+        Float value = decode(columnIndex - 1, FLOAT);
+        return value != null ? value : 0f;
     }
 
     public float getFloat(String columnName) {
-        return parseColumn(columnName, Float::parseFloat, Float.class)
-            .orElse(0f);
+        Float value = decode(columnOf(columnName), FLOAT);
+        return value != null ? value : 0f;
     }
 
     public double getDouble(int columnIndex) {
-        return parseColumn(columnIndex, Double::parseDouble, Double.class)
-            .orElse(0d);
+        return doubleAt(columnIndex - 1);
     }
 
     public double getDouble(String columnName) {
-        return parseColumn(columnName, Double::parseDouble, Double.class)
-            .orElse(0d);
+        return doubleAt(columnOf(columnName));
+    }
+
+    private double doubleAt(int column) {
+        if (isStoredNumeric(column)) {
+            return storedDouble(column);
+        }
+        Double value = decode(column, DOUBLE);
+        return value != null ? value : 0d;
     }
 
     public long getLong(String columnName) {
-        return parseColumn(columnName, Long::parseLong, Long.class)
-            .orElse(0L);
+        return longAt(columnOf(columnName));
     }
 
     public long getLong(int columnIndex) {
-        return parseColumn(columnIndex, Long::parseLong, Long.class)
-            .orElse(0L);
+        return longAt(columnIndex - 1);
+    }
+
+    private long longAt(int column) {
+        if (isStoredLong(column)) {
+            return storedLong(column);
+        }
+        Long value = decode(column, LONG);
+        return value != null ? value : 0L;
     }
 
     public int getInt(String columnName) {
-        return parseColumn(columnName, Double::parseDouble, Double.class)
-            .orElse(0d)
-            .intValue();
+        return (int) doubleAt(columnOf(columnName));
     }
 
     public int getInt(int columnIndex) {
-        return parseColumn(columnIndex, Double::parseDouble, Double.class)
-            .orElse(0d)
-            .intValue();
+        return (int) doubleAt(columnIndex - 1);
     }
 
     public short getShort(String columnName) {
-        return parseColumn(columnName, Double::parseDouble, Double.class)
-            .orElse(0d)
-            .shortValue();
+        return (short) doubleAt(columnOf(columnName));
     }
 
     public short getShort(int columnIndex) {
-        return parseColumn(columnIndex, Double::parseDouble, Double.class)
-            .orElse(0d)
-            .shortValue();
+        return (short) doubleAt(columnIndex - 1);
+    }
+
+    /**
+     * Whether the 0-based column is held in a primitive vector, so that numeric getters can skip
+     * the string parsing. Conversions through {@code double} give the same results as parsing.
+     */
+    private boolean isStoredNumeric(int column) {
+        return store != null && column >= 0 && column < store.columnCount() && store.isNumericColumn(column);
+    }
+
+    private boolean isStoredLong(int column) {
+        return store != null && column >= 0 && column < store.columnCount() && store.isLongColumn(column);
+    }
+
+    private double storedDouble(int column) {
+        int row = currentRow();
+        wasNull = store.isNull(row, column);
+        return wasNull ? 0d : store.getDouble(row, column);
+    }
+
+    private long storedLong(int column) {
+        int row = currentRow();
+        wasNull = store.isNull(row, column);
+        return wasNull ? 0L : store.getLong(row, column);
     }
 
     private Blob createBlob(byte[] data) {
@@ -503,35 +940,31 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
     }
 
     public Blob getBlob(int columnIndex) {
-        return parseColumn(columnIndex, (v) -> Base64.getDecoder().decode(v), byte[].class)
-            .map(this::createBlob)
-            .orElse(null);
+        byte[] data = decode(columnIndex - 1, BASE64);
+        return data != null ? createBlob(data) : null;
     }
 
     public Blob getBlob(String columnName) {
-        return parseColumn(columnName, (v) -> Base64.getDecoder().decode(v), byte[].class)
-            .map(this::createBlob)
-            .orElse(null);
+        byte[] data = decode(columnOf(columnName), BASE64);
+        return data != null ? createBlob(data) : null;
     }
 
     public boolean getBoolean(int columnIndex) {
-        return parseColumn(columnIndex, Boolean::parseBoolean, Boolean.class)
-            .orElse(false);
+        return Boolean.TRUE.equals(decode(columnIndex - 1, BOOLEAN));
     }
 
     public boolean getBoolean(String columnName) {
-        return parseColumn(columnName, Boolean::parseBoolean, Boolean.class)
-            .orElse(false);
+        return Boolean.TRUE.equals(decode(columnOf(columnName), BOOLEAN));
     }
 
     public byte getByte(int columnIndex) {
-        return parseColumn(columnIndex, Byte::parseByte, Byte.class)
-            .orElse((byte) 0);
+        Byte value = decode(columnIndex - 1, BYTE);
+        return value != null ? value : 0;
     }
 
     public byte getByte(String columnName) {
-        return parseColumn(columnName, Byte::parseByte, Byte.class)
-            .orElse((byte) 0);
+        Byte value = decode(columnOf(columnName), BYTE);
+        return value != null ? value : 0;
     }
 
     public byte[] getBytes(int columnIndex) {
@@ -554,7 +987,7 @@ public class CachedResultSet extends AbstractResultSet implements Serializable {
         if (this.rowSupplier != null) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
-        if (!rows.isEmpty()) {
+        if (rowCount() > 0) {
             this.index = -1;
         }
     }
@@ -0,0 +1,624 @@
+package it.rotaliano.jdbc.salesforce.resultset;
+
+import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage of the rows of a {@link CachedResultSet}.
+ *
+ * <p>Column names, labels and types are held once per result, in a {@link RowSchema}. The values of
+ * each column are stored in a vector chosen from its content:
+ * <ul>
+ *   <li>numbers received as plain strings or boxed {@link Long}/{@link Double} in {@code long[]} or
+ *       {@code double[]}, when every value can be rendered back exactly as received;</li>
+ *   <li>{@link Boolean} values in a {@link BitSet};</li>
+ *   <li>strings repeating across rows (picklists, lookup Ids) as {@code int} codes into a dictionary;</li>
+ *   <li>anything else as the original objects.</li>
+ * </ul>
+ * Null values are tracked with a bitmap. {@link #get(int, int)} returns values equal to the ones
+ * received, so the conversions of {@link CachedResultSet} are unchanged; numeric getters can read the
+ * primitive vectors directly.
+ *
+ * <p>Only rows sharing the same columns can be stored; see {@link #of(List)}.
+ */
+final class ColumnarRowStore implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    /** Largest magnitude for which every integer is exactly representable as a double. */
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+
+    private final RowSchema<String> schema;
+    private final Column[] columns;
+    private final int size;
+
+    private ColumnarRowStore(RowSchema<String> schema, Column[] columns, int size) {
+        this.schema = schema;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * Builds the columnar form of the given rows.
+     *
+     * @param rows the rows to store
+     * @return the store, or {@code null} if there are no rows or they do not share the same columns
+     */
+    static ColumnarRowStore of(List<ColumnMap<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+        if (rows.get(0) == null) {
+            return null;
+        }
+        RowSchema<String> schema = rows.get(0).getSchema();
+        for (ColumnMap<String, Object> row : rows) {
+            if (row == null || !schema.equals(row.getSchema())) {
+                return null;
+            }
+        }
+        int columnCount = schema.size();
+        Column[] columns = new Column[columnCount];
+        Object[] values = new Object[rows.size()];
+        for (int c = 0; c < columnCount; c++) {
+            for (int r = 0; r < values.length; r++) {
+                values[r] = rows.get(r).getValues().get(c);
+            }
+            columns[c] = encode(values);
+        }
+        return new ColumnarRowStore(schema, columns, rows.size());
+    }
+
+    int size() {
+        return size;
+    }
+
+    int columnCount() {
+        return columns.length;
+    }
+
+    RowSchema<String> getSchema() {
+        return schema;
+    }
+
+    /**
+     * Resolves a column as {@link ColumnMap#get(Object)} does; see {@link RowSchema#indexOf(Object)}.
+     *
+     * @return the 0-based column position, or {@code -1} if not found
+     */
+    int indexOf(String key) {
+        return schema.indexOf(key);
+    }
+
+    Object get(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    TypeInfo getTypeInfo(int column) {
+        return schema.getTypeInfo(column);
+    }
+
+    boolean isNull(int row, int column) {
+        return columns[column].isNull(row);
+    }
+
+    /** Whether the column is held in a {@code long[]} vector. */
+    boolean isLongColumn(int column) {
+        return columns[column] instanceof LongColumn;
+    }
+
+    /** Whether the column is held in a {@code long[]} or {@code double[]} vector. */
+    boolean isNumericColumn(int column) {
+        return columns[column] instanceof LongColumn || columns[column] instanceof DoubleColumn;
+    }
+
+    long getLong(int row, int column) {
+        return ((LongColumn) columns[column]).values[row];
+    }
+
+    double getDouble(int row, int column) {
+        Column col = columns[column];
+        return col instanceof LongColumn longs ? longs.values[row] : ((DoubleColumn) col).values[row];
+    }
+
+    /** Rebuilds the row at the given position. */
+    ColumnMap<String, Object> toColumnMap(int row) {
+        List<Object> values = new ArrayList<>(columns.length);
+        for (Column column : columns) {
+            values.add(column.get(row));
+        }
+        return new ColumnMap<>(schema, values);
+    }
+
+    /** Rebuilds all rows, e.g. before appending rows with different columns. */
+    List<ColumnMap<String, Object>> toRows() {
+        List<ColumnMap<String, Object>> rows = new ArrayList<>(size);
+        for (int r = 0; r < size; r++) {
+            rows.add(toColumnMap(r));
+        }
+        return rows;
+    }
+
+    /** Writes the store in the binary form read by {@link #readFrom(DataInput)}. */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(columns.length);
+        for (int c = 0; c < columns.length; c++) {
+            ResultSetCodec.writeString(out, schema.getColumnName(c));
+            ResultSetCodec.writeString(out, schema.getColumnLabel(c));
+            ResultSetCodec.writeTypeInfo(out, schema.getTypeInfo(c));
+            columns[c].writeTo(out, size);
+        }
+    }
+
+    static ColumnarRowStore readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        int columnCount = in.readInt();
+        List<String> names = new ArrayList<>(columnCount);
+        List<String> labels = new ArrayList<>(columnCount);
+        List<TypeInfo> types = new ArrayList<>(columnCount);
+        Column[] columns = new Column[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            names.add(ResultSetCodec.readString(in));
+            labels.add(ResultSetCodec.readString(in));
+            types.add(ResultSetCodec.readTypeInfo(in));
+            columns[c] = readColumn(in, size);
+        }
+        return new ColumnarRowStore(RowSchema.of(names, labels, types), columns, size);
+    }
+
+    private static Column readColumn(DataInput in, int size) throws IOException {
+        int tag = in.readUnsignedByte();
+        return switch (tag) {
+            case LongColumn.TAG -> LongColumn.readFrom(in, size);
+            case DoubleColumn.TAG -> DoubleColumn.readFrom(in, size);
+            case BooleanColumn.TAG -> BooleanColumn.readFrom(in);
+            case DictionaryColumn.TAG -> DictionaryColumn.readFrom(in, size);
+            case ObjectColumn.TAG -> ObjectColumn.readFrom(in, size);
+            default -> throw new StreamCorruptedException("Unknown column tag " + tag);
+        };
+    }
+
+    private static Column encode(Object[] values) {
+        boolean allStrings = true;
+        boolean allLongs = true;
+        boolean allDoubles = true;
+        boolean allBooleans = true;
+        boolean anyValue = false;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            anyValue = true;
+            allStrings &= value instanceof String;
+            allLongs &= value instanceof Long;
+            allDoubles &= value instanceof Double;
+            allBooleans &= value instanceof Boolean;
+        }
+        if (!anyValue) {
+            return new ObjectColumn(values.clone());
+        }
+        if (allStrings) {
+            Column numeric = LongColumn.ofStrings(values);
+            if (numeric == null) {
+                numeric = DoubleColumn.ofStrings(values);
+            }
+            return numeric != null ? numeric : DictionaryColumn.ofStrings(values);
+        }
+        if (allLongs) {
+            return LongColumn.ofBoxed(values);
+        }
+        if (allDoubles) {
+            return DoubleColumn.ofBoxed(values);
+        }
+        if (allBooleans) {
+            return BooleanColumn.of(values);
+        }
+        return new ObjectColumn(values.clone());
+    }
+
+    private static BitSet nulls(Object[] values) {
+        BitSet nulls = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls.set(i);
+            }
+        }
+        return nulls;
+    }
+
+    private static Long parseLongExactly(String s) {
+        if (s.isEmpty() || s.length() > 20) {
+            return null;
+        }
+        try {
+            long value = Long.parseLong(s);
+            return Long.toString(value).equals(s) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private interface Column extends Serializable {
+
+        Object get(int row);
+
+        boolean isNull(int row);
+
+        /** Writes the column tag followed by the column content. */
+        void writeTo(DataOutput out, int size) throws IOException;
+    }
+
+    private static final class LongColumn implements Column {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+        static final int TAG = 1;
+
+        private final long[] values;
+        private final BitSet nulls;
+        private final boolean boxed;
+
+        private LongColumn(long[] values, BitSet nulls, boolean boxed) {
+            this.values = values;
+            this.nulls = nulls;
+            this.boxed = boxed;
+        }
+
+        static LongColumn ofStrings(Object[] strings) {
+            long[] values = new long[strings.length];
+            for (int i = 0; i < strings.length; i++) {
+                if (strings[i] != null) {
+                    Long value = parseLongExactly((String) strings[i]);
+                    if (value == null) {
+                        return null;
+                    }
+                    values[i] = value;
+                }
+            }
+            return new LongColumn(values, nulls(strings), false);
+        }
+
+        static LongColumn ofBoxed(Object[] longs) {
+            long[] values = new long[longs.length];
+            for (int i = 0; i < longs.length; i++) {
+                if (longs[i] != null) {
+                    values[i] = (Long) longs[i];
+                }
+            }
+            return new LongColumn(values, nulls(longs), true);
+        }
+
+        @Override
+        public Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return boxed ? Long.valueOf(values[row]) : Long.toString(values[row]);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public void writeTo(DataOutput out, int size) throws IOException {
+            out.writeByte(TAG);
+            out.writeBoolean(boxed);
+            ResultSetCodec.writeBitSet(out, nulls);
+            for (int i = 0; i < size; i++) {
+                if (!nulls.get(i)) {
+                    out.writeLong(values[i]);
+                }
+            }
+        }
+
+        static LongColumn readFrom(DataInput in, int size) throws IOException {
+            boolean boxed = in.readBoolean();
+            BitSet nulls = ResultSetCodec.readBitSet(in);
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                if (!nulls.get(i)) {
+                    values[i] = in.readLong();
+                }
+            }
+            return new LongColumn(values, nulls, boxed);
+        }
+    }
+
+    private static final class DoubleColumn implements Column {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+        static final int TAG = 2;
+
+        private final double[] values;
+        private final BitSet nulls;
+        /** Rows received in integer notation (e.g. {@code "100"} rather than {@code "100.0"}). */
+        private final BitSet integral;
+        private final boolean boxed;
+
+        private DoubleColumn(double[] values, BitSet nulls, BitSet integral, boolean boxed) {
+            this.values = values;
+            this.nulls = nulls;
+            this.integral = integral;
+            this.boxed = boxed;
+        }
+
+        static DoubleColumn ofStrings(Object[] strings) {
+            double[] values = new double[strings.length];
+            BitSet integral = new BitSet(strings.length);
+            for (int i = 0; i < strings.length; i++) {
+                String s = (String) strings[i];
+                if (s == null) {
+                    continue;
+                }
+                Long whole = parseLongExactly(s);
+                if (whole != null && Math.abs(whole) <= MAX_EXACT_DOUBLE_INTEGER) {
+                    values[i] = whole;
+                    integral.set(i);
+                    continue;
+                }
+                try {
+                    values[i] = Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (!Double.toString(values[i]).equals(s)) {
+                    return null;
+                }
+            }
+            return new DoubleColumn(values, nulls(strings), integral, false);
+        }
+
+        static DoubleColumn ofBoxed(Object[] doubles) {
+            double[] values = new double[doubles.length];
+            for (int i = 0; i < doubles.length; i++) {
+                if (doubles[i] != null) {
+                    values[i] = (Double) doubles[i];
+                }
+            }
+            return new DoubleColumn(values, nulls(doubles), new BitSet(), true);
+        }
+
+        @Override
+        public Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (boxed) {
+                return values[row];
+            }
+            return integral.get(row) ? Long.toString((long) values[row]) : Double.toString(values[row]);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public void writeTo(DataOutput out, int size) throws IOException {
+            out.writeByte(TAG);
+            out.writeBoolean(boxed);
+            ResultSetCodec.writeBitSet(out, nulls);
+            ResultSetCodec.writeBitSet(out, integral);
+            for (int i = 0; i < size; i++) {
+                if (!nulls.get(i)) {
+                    out.writeDouble(values[i]);
+                }
+            }
+        }
+
+        static DoubleColumn readFrom(DataInput in, int size) throws IOException {
+            boolean boxed = in.readBoolean();
+            BitSet nulls = ResultSetCodec.readBitSet(in);
+            BitSet integral = ResultSetCodec.readBitSet(in);
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                if (!nulls.get(i)) {
+                    values[i] = in.readDouble();
+                }
+            }
+            return new DoubleColumn(values, nulls, integral, boxed);
+        }
+    }
+
+    private static final class BooleanColumn implements Column {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+        static final int TAG = 3;
+
+        private final BitSet values;
+        private final BitSet nulls;
+
+        private BooleanColumn(BitSet values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        static BooleanColumn of(Object[] booleans) {
+            BitSet values = new BitSet(booleans.length);
+            for (int i = 0; i < booleans.length; i++) {
+                if (Boolean.TRUE.equals(booleans[i])) {
+                    values.set(i);
+                }
+            }
+            return new BooleanColumn(values, nulls(booleans));
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : Boolean.valueOf(values.get(row));
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public void writeTo(DataOutput out, int size) throws IOException {
+            out.writeByte(TAG);
+            ResultSetCodec.writeBitSet(out, values);
+            ResultSetCodec.writeBitSet(out, nulls);
+        }
+
+        static BooleanColumn readFrom(DataInput in) throws IOException {
+            BitSet values = ResultSetCodec.readBitSet(in);
+            return new BooleanColumn(values, ResultSetCodec.readBitSet(in));
+        }
+    }
+
+    private static final class DictionaryColumn implements Column {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+        static final int TAG = 4;
+
+        private final int[] codes;
+        private final String[] dictionary;
+
+        private DictionaryColumn(int[] codes, String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Dictionary-encodes the strings when at most half of them are distinct; unique values
+         * (e.g. record Ids or free text) are kept as they are.
+         */
+        static Column ofStrings(Object[] strings) {
+            Map<String, Integer> codeByValue = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            int[] codes = new int[strings.length];
+            int limit = Math.max(1, strings.length / 2);
+            for (int i = 0; i < strings.length; i++) {
+                String s = (String) strings[i];
+                if (s == null) {
+                    codes[i] = -1;
+                    continue;
+                }
+                Integer code = codeByValue.get(s);
+                if (code == null) {
+                    if (dictionary.size() == limit) {
+                        return new ObjectColumn(strings.clone());
+                    }
+                    code = dictionary.size();
+                    codeByValue.put(s, code);
+                    dictionary.add(s);
+                }
+                codes[i] = code;
+            }
+            return new DictionaryColumn(codes, dictionary.toArray(new String[0]));
+        }
+
+        @Override
+        public Object get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary[code];
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        /**
+         * Codes are written shifted by one (so that null is {@code 0}) in one, two or four bytes,
+         * depending on the dictionary size.
+         */
+        @Override
+        public void writeTo(DataOutput out, int size) throws IOException {
+            out.writeByte(TAG);
+            out.writeInt(dictionary.length);
+            for (String value : dictionary) {
+                ResultSetCodec.writeString(out, value);
+            }
+            for (int i = 0; i < size; i++) {
+                int code = codes[i] + 1;
+                if (dictionary.length < 0xFF) {
+                    out.writeByte(code);
+                } else if (dictionary.length < 0xFFFF) {
+                    out.writeShort(code);
+                } else {
+                    out.writeInt(code);
+                }
+            }
+        }
+
+        static DictionaryColumn readFrom(DataInput in, int size) throws IOException {
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = ResultSetCodec.readString(in);
+            }
+            int[] codes = new int[size];
+            for (int i = 0; i < size; i++) {
+                int code;
+                if (dictionary.length < 0xFF) {
+                    code = in.readUnsignedByte();
+                } else if (dictionary.length < 0xFFFF) {
+                    code = in.readUnsignedShort();
+                } else {
+                    code = in.readInt();
+                }
+                codes[i] = code - 1;
+            }
+            return new DictionaryColumn(codes, dictionary);
+        }
+    }
+
+    private static final class ObjectColumn implements Column {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+        static final int TAG = 5;
+
+        private final Object[] values;
+
+        private ObjectColumn(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        public void writeTo(DataOutput out, int size) throws IOException {
+            out.writeByte(TAG);
+            for (Object value : values) {
+                ResultSetCodec.writeValue(out, value);
+            }
+        }
+
+        static ObjectColumn readFrom(DataInput in, int size) throws IOException {
+            Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ResultSetCodec.readValue(in);
+            }
+            return new ObjectColumn(values);
+        }
+    }
+}
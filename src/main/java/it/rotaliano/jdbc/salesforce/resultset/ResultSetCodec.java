@@ -0,0 +1,277 @@
+package it.rotaliano.jdbc.salesforce.resultset;
+
+import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import javax.sql.rowset.RowSetMetaDataImpl;
+
+/**
+ * Binary encoding of the building blocks of a {@link CachedResultSet}: strings, cell values, rows and
+ * metadata. Used by {@link CachedResultSet#writeTo} and {@link ColumnarRowStore} instead of Java
+ * serialization, which repeats class descriptors and boxes every value.
+ *
+ * <p>Values of types not known to the codec are written with Java serialization.
+ */
+final class ResultSetCodec {
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int LONG = 2;
+    private static final int INTEGER = 3;
+    private static final int DOUBLE = 4;
+    private static final int BOOLEAN = 5;
+    private static final int BIG_DECIMAL = 6;
+    private static final int CALENDAR = 7;
+    private static final int BYTES = 8;
+    private static final int SERIALIZED = 9;
+
+    private ResultSetCodec() {}
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeBitSet(DataOutput out, BitSet bits) throws IOException {
+        byte[] bytes = bits.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static BitSet readBitSet(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return BitSet.valueOf(bytes);
+    }
+
+    static void writeTypeInfo(DataOutput out, TypeInfo type) throws IOException {
+        writeString(out, type != null ? type.name() : null);
+    }
+
+    static TypeInfo readTypeInfo(DataInput in) throws IOException {
+        String name = readString(in);
+        try {
+            return name != null ? TypeInfo.valueOf(name) : null;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidClassException(TypeInfo.class.getName(), "Unknown type " + name);
+        }
+    }
+
+    static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INTEGER);
+            out.writeInt(i);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof BigDecimal bd) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, bd.toString());
+        } else if (value.getClass() == GregorianCalendar.class) {
+            GregorianCalendar calendar = (GregorianCalendar) value;
+            out.writeByte(CALENDAR);
+            writeString(out, calendar.getTimeZone().getID());
+            out.writeLong(calendar.getTimeInMillis());
+            out.writeByte(calendar.getFirstDayOfWeek());
+            out.writeByte(calendar.getMinimalDaysInFirstWeek());
+            out.writeBoolean(calendar.isLenient());
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Serializable) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(value);
+            }
+            out.writeByte(SERIALIZED);
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    static Object readValue(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case CALENDAR: {
+                GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone(readString(in)));
+                calendar.setTimeInMillis(in.readLong());
+                calendar.setFirstDayOfWeek(in.readByte());
+                calendar.setMinimalDaysInFirstWeek(in.readByte());
+                calendar.setLenient(in.readBoolean());
+                return calendar;
+            }
+            case BYTES: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case SERIALIZED: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new InvalidClassException(e.getMessage());
+                }
+            }
+            default:
+                throw new StreamCorruptedException("Unknown value tag " + tag);
+        }
+    }
+
+    static void writeRow(DataOutput out, ColumnMap<String, Object> row) throws IOException {
+        out.writeInt(row.size());
+        for (int i = 0; i < row.size(); i++) {
+            writeString(out, row.getColumnNames().get(i));
+            writeString(out, row.getColumnLabels().get(i));
+            writeTypeInfo(out, row.getTypes().get(i));
+            writeValue(out, row.getValues().get(i));
+        }
+    }
+
+    /**
+     * Reads a row written by {@link #writeRow(DataOutput, ColumnMap)}, sharing the columns of the given schema
+     * when the row has the same ones.
+     */
+    static ColumnMap<String, Object> readRow(DataInput in, RowSchema<String> schema) throws IOException {
+        int size = in.readInt();
+        ColumnMap<String, Object> row = new ColumnMap<>(schema);
+        for (int i = 0; i < size; i++) {
+            String name = readString(in);
+            String label = readString(in);
+            TypeInfo type = readTypeInfo(in);
+            row.put(name, label, readValue(in), type);
+        }
+        return row;
+    }
+
+    /**
+     * Writes the column attributes of the metadata; it is read back as a {@link RowSetMetaDataImpl}.
+     */
+    static void writeMetaData(DataOutput out, ResultSetMetaData metadata) throws IOException {
+        try {
+            if (metadata == null) {
+                out.writeInt(-1);
+                return;
+            }
+            int columnCount = metadata.getColumnCount();
+            out.writeInt(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                writeString(out, metadata.getColumnName(i));
+                writeString(out, metadata.getColumnLabel(i));
+                out.writeInt(metadata.getColumnType(i));
+                writeString(out, metadata.getColumnTypeName(i));
+                out.writeInt(metadata.getPrecision(i));
+                out.writeInt(metadata.getScale(i));
+                out.writeInt(metadata.getColumnDisplaySize(i));
+                out.writeInt(metadata.isNullable(i));
+                writeString(out, metadata.getSchemaName(i));
+                writeString(out, metadata.getCatalogName(i));
+                writeString(out, metadata.getTableName(i));
+                out.writeBoolean(metadata.isAutoIncrement(i));
+                out.writeBoolean(metadata.isCaseSensitive(i));
+                out.writeBoolean(metadata.isSearchable(i));
+                out.writeBoolean(metadata.isCurrency(i));
+                out.writeBoolean(metadata.isSigned(i));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to write result set metadata", e);
+        }
+    }
+
+    static ResultSetMetaData readMetaData(DataInput in) throws IOException {
+        int columnCount = in.readInt();
+        if (columnCount < 0) {
+            return null;
+        }
+        if (columnCount == 0) {
+            return CachedResultSetMetaData.EMPTY;
+        }
+        try {
+            RowSetMetaDataImpl metadata = new RowSetMetaDataImpl();
+            metadata.setColumnCount(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                metadata.setColumnName(i, readString(in));
+                metadata.setColumnLabel(i, readString(in));
+                metadata.setColumnType(i, in.readInt());
+                metadata.setColumnTypeName(i, readString(in));
+                metadata.setPrecision(i, in.readInt());
+                metadata.setScale(i, in.readInt());
+                metadata.setColumnDisplaySize(i, in.readInt());
+                metadata.setNullable(i, in.readInt());
+                metadata.setSchemaName(i, readString(in));
+                metadata.setCatalogName(i, readString(in));
+                metadata.setTableName(i, readString(in));
+                metadata.setAutoIncrement(i, in.readBoolean());
+                metadata.setCaseSensitive(i, in.readBoolean());
+                metadata.setSearchable(i, in.readBoolean());
+                metadata.setCurrency(i, in.readBoolean());
+                metadata.setSigned(i, in.readBoolean());
+            }
+            return metadata;
+        } catch (SQLException e) {
+            throw new IOException("Failed to read result set metadata", e);
+        }
+    }
+}
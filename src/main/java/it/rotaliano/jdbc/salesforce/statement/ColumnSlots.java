@@ -0,0 +1,81 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The label and type of each column of a result, indexed by column name ignoring case, so converting a row
+ * resolves its fields by hash instead of scanning the metadata for each of them. Instances are immutable.
+ */
+final class ColumnSlots {
+
+    /** The slots of a result without metadata: every field keeps its name as label and an unknown type. */
+    static final ColumnSlots NONE = new ColumnSlots(Map.of());
+
+    private record Slot(String label, TypeInfo typeInfo) {
+    }
+
+    private final Map<String, Slot> slots;
+
+    private ColumnSlots(Map<String, Slot> slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Indexes the columns of the metadata, the first column winning when names differ only by case.
+     *
+     * @throws SQLException if the metadata cannot be read
+     */
+    static ColumnSlots of(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Slot> slots = new HashMap<>(metaData.getColumnCount() * 2);
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String name = metaData.getColumnName(i);
+            if (name != null) {
+                slots.putIfAbsent(name.toLowerCase(Locale.ROOT), new Slot(metaData.getColumnLabel(i),
+                    TypeInfo.lookupTypeInfo(metaData.getColumnTypeName(i))));
+            }
+        }
+        return new ColumnSlots(slots);
+    }
+
+    /**
+     * Returns the type of the column with the given name or, failing that, with the name stripped of its
+     * first dotted segment.
+     *
+     * @return the type of the column, or {@link TypeInfo#OTHER_TYPE_INFO} if there is none
+     */
+    TypeInfo typeOf(String name) {
+        if (name == null) {
+            return TypeInfo.OTHER_TYPE_INFO;
+        }
+        Slot slot = find(name);
+        if (slot == null) {
+            String[] prefix = StringUtils.split(name, '.');
+            if (prefix.length > 0) {
+                slot = find(String.join(".", List.of(prefix).subList(1, prefix.length)));
+            }
+        }
+        return slot != null ? slot.typeInfo() : TypeInfo.OTHER_TYPE_INFO;
+    }
+
+    /**
+     * Returns the label of the column with the given name, or the name itself if there is no such column.
+     */
+    String labelOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        Slot slot = find(name);
+        return slot != null ? slot.label() : name;
+    }
+
+    private Slot find(String name) {
+        return slots.isEmpty() ? null : slots.get(name.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,190 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
+import it.rotaliano.jdbc.salesforce.expression.AstBuilder;
+import it.rotaliano.jdbc.salesforce.expression.Expression;
+import it.rotaliano.jdbc.salesforce.metadata.ForceDatabaseMetaData;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement.CacheMode;
+import it.rotaliano.jdbc.salesforce.statement.processor.QueryAnalyzer;
+import it.rotaliano.jdbc.salesforce.statement.processor.SoqlQueryAnalyzer;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+/**
+ * What the SQL of a prepared statement compiles to, reused by every execution of the same SQL.
+ *
+ * <p>The hints and the SOQL template are fixed when the plan is created. The analysis, the field tree,
+ * the result set metadata and the column slots indexing it, the projection of the client-side select items and
+ * the tokenized SOQL templates are derived on first use and kept, so an execution with new parameter values only
+ * renders them into the template. A plan holds nothing about the rows of a particular execution.
+ */
+@Slf4j
+@Getter
+final class CompiledPlan {
+
+    // the rendered SOQL differs per execution only when sub-queries are resolved on the client side
+    private static final int MAX_TEMPLATES = 8;
+
+    /** The SQL as prepared, hints included. */
+    private final String sql;
+    /** The SQL with the hints removed, still holding the {@code ?} placeholders. */
+    private final String soql;
+    private final CacheMode cacheMode;
+    private final long cacheTtlMillis;
+    private final long cacheStaleMillis;
+    private final boolean bulkQuery;
+    private final boolean resolveSubqueriesClientSide;
+
+    @Getter(AccessLevel.NONE)
+    private final IPartnerService partnerService;
+    @Getter(AccessLevel.NONE)
+    private final BiFunction<String, List<Object>, List<Map<String, Object>>> subSelectResolver;
+    @Getter(AccessLevel.NONE)
+    private final Map<SelectItem<?>, Expression> selectExpressions = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, SoqlTemplate> templates = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private QueryAnalyzer queryAnalyzer;
+    @Getter(AccessLevel.NONE)
+    private SoqlQueryAnalyzer soqlQueryAnalyzer;
+    @Getter(AccessLevel.NONE)
+    private FieldDefTree fieldDefinitions;
+    @Getter(AccessLevel.NONE)
+    private ResultSetMetaData metaData;
+    @Getter(AccessLevel.NONE)
+    private volatile ColumnSlots columnSlots;
+    @Getter(AccessLevel.NONE)
+    private volatile SelectProjection projection;
+
+    CompiledPlan(String sql, String soql, CacheMode cacheMode, long cacheTtlMillis, long cacheStaleMillis,
+        boolean bulkQuery, boolean resolveSubqueriesClientSide, IPartnerService partnerService,
+        BiFunction<String, List<Object>, List<Map<String, Object>>> subSelectResolver) {
+        this.sql = sql;
+        this.soql = soql;
+        this.cacheMode = cacheMode;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheStaleMillis = cacheStaleMillis;
+        this.bulkQuery = bulkQuery;
+        this.resolveSubqueriesClientSide = resolveSubqueriesClientSide;
+        this.partnerService = partnerService;
+        this.subSelectResolver = subSelectResolver;
+    }
+
+    synchronized QueryAnalyzer getQueryAnalyzer() {
+        if (queryAnalyzer == null) {
+            queryAnalyzer = new QueryAnalyzer(soql, subSelectResolver, partnerService);
+            queryAnalyzer.setResolveSubqueriesClientSide(resolveSubqueriesClientSide);
+        }
+        return queryAnalyzer;
+    }
+
+    synchronized SoqlQueryAnalyzer getSoqlQueryAnalyzer() {
+        if (soqlQueryAnalyzer == null) {
+            soqlQueryAnalyzer = new SoqlQueryAnalyzer(getQueryAnalyzer());
+        }
+        return soqlQueryAnalyzer;
+    }
+
+    synchronized FieldDefTree getFieldDefinitions() {
+        if (fieldDefinitions == null) {
+            fieldDefinitions = getSoqlQueryAnalyzer().getFieldDefinitions();
+            log.debug("[PrepStat] getFieldDefinitions:\n {}", fieldDefinitions.toTree());
+        }
+        return fieldDefinitions;
+    }
+
+    /**
+     * Returns the metadata of the result, built from the field tree on first use.
+     *
+     * @throws SQLException if the metadata cannot be built
+     */
+    synchronized ResultSetMetaData getMetaData() throws SQLException {
+        if (metaData == null) {
+            RowSetMetaDataImpl result = new RowSetMetaDataImpl();
+            List<FieldDef> resultFieldDefinitions = getFieldDefinitions().flattenInSqlOrder();
+            String tableName = getSoqlQueryAnalyzer().getFromObjectName();
+            int columnsCount = resultFieldDefinitions.size();
+            result.setColumnCount(columnsCount);
+            for (int i = 1; i <= columnsCount; i++) {
+                FieldDef field = resultFieldDefinitions.get(i - 1);
+                result.setAutoIncrement(i, false);
+                result.setColumnName(i, field.getFullName());
+                result.setColumnLabel(i, field.getAlias());
+                String forceTypeName = field.getType();
+                TypeInfo typeInfo = TypeInfo.lookupTypeInfo(forceTypeName);
+                result.setColumnType(i, typeInfo.getSqlDataType());
+                result.setColumnTypeName(i, typeInfo.getTypeName());
+                result.setPrecision(i, typeInfo.getPrecision());
+                result.setSchemaName(i, ForceDatabaseMetaData.DEFAULT_SCHEMA);
+                result.setCatalogName(i, ForceDatabaseMetaData.DEFAULT_CATALOG);
+                result.setTableName(i, tableName);
+                result.setCaseSensitive(i, false);
+            }
+            metaData = result;
+        }
+        return metaData;
+    }
+
+    /**
+     * Returns the label and type of the columns of the metadata by name, indexed on first use.
+     *
+     * @throws SQLException if the metadata cannot be built
+     */
+    ColumnSlots getColumnSlots() throws SQLException {
+        ColumnSlots current = columnSlots;
+        if (current == null) {
+            current = ColumnSlots.of(getMetaData());
+            columnSlots = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the tokenized template of a SOQL string derived from this plan, e.g. the SOQL sent to Salesforce
+     * or the one hashed into the cache key.
+     */
+    SoqlTemplate getTemplate(String soql) {
+        SoqlTemplate template = templates.get(soql);
+        if (template == null) {
+            template = SoqlTemplate.parse(soql);
+            if (templates.size() < MAX_TEMPLATES) {
+                templates.putIfAbsent(soql, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Returns the projection of the client-side select items for rows with the given columns, compiling it when
+     * the statement or the columns changed.
+     */
+    SelectProjection getProjection(Statement statement, RowSchema<String> schema) {
+        SelectProjection current = projection;
+        if (current == null || !current.matches(statement, schema)) {
+            current = SelectProjection.compile(statement, schema, this::getSelectExpression);
+            projection = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the evaluator of a select item computed on the client side, compiling it on first use.
+     */
+    Expression getSelectExpression(SelectItem<?> item) {
+        return selectExpressions.computeIfAbsent(item, i -> AstBuilder.build(i.getExpression()));
+    }
+}
@@ -1,22 +1,32 @@
 package it.rotaliano.jdbc.salesforce.statement;
 
 import com.sforce.ws.ConnectionException;
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
 import it.rotaliano.jdbc.salesforce.ForceDriver;
 import it.rotaliano.jdbc.salesforce.cache.CacheConfig;
+import it.rotaliano.jdbc.salesforce.cache.CacheEntry;
+import it.rotaliano.jdbc.salesforce.cache.CacheInvalidator;
+import it.rotaliano.jdbc.salesforce.cache.SingleFlight;
 import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
 import it.rotaliano.jdbc.salesforce.delegates.ForceResultField;
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.QueryCursor;
 import it.rotaliano.jdbc.salesforce.exceptions.SalesforceRuntimeException;
 import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
 import it.rotaliano.jdbc.salesforce.metadata.ForceDatabaseMetaData;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
 import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import it.rotaliano.jdbc.salesforce.statement.processor.BatchDmlProcessor;
 import it.rotaliano.jdbc.salesforce.statement.processor.QueryAnalyzer;
 import it.rotaliano.jdbc.salesforce.statement.processor.SoqlQueryAnalyzer;
 import it.rotaliano.jdbc.salesforce.statement.processor.StatementContext;
 import it.rotaliano.jdbc.salesforce.statement.processor.StatementProcessor;
 import it.rotaliano.jdbc.salesforce.statement.processor.StatementProcessorFactory;
+import it.rotaliano.jdbc.salesforce.statement.processor.StatementRouter;
+import it.rotaliano.jdbc.salesforce.utils.DaemonExecutors;
 import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import it.rotaliano.jdbc.salesforce.utils.PrefetchingIterator;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -32,6 +42,7 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -40,6 +51,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -48,12 +64,6 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.ehcache.Cache;
-import net.sf.jsqlparser.statement.select.PlainSelect;
-import net.sf.jsqlparser.statement.select.SelectItem;
-import net.sf.jsqlparser.expression.Function;
-import net.sf.jsqlparser.expression.Expression;
-import net.sf.jsqlparser.expression.CaseExpression;
-import it.rotaliano.jdbc.salesforce.statement.processor.utils.EvaluateExpressionVisitor;
 
 
 /**
@@ -67,14 +77,25 @@ import it.rotaliano.jdbc.salesforce.statement.processor.utils.EvaluateExpression
  * cached mode, where the full result is materialized into a {@link CachedResultSet},
  * and non-cached streaming mode, where rows are fetched in batches through the Salesforce API.
  *
- * <p>The statement also acts as an {@link Iterator} of batched result chunks when streaming
- * is used internally for non-cached queries.
+ * <p>In streaming mode every execution pages through its result with its own {@link Iterator} of batched
+ * result chunks, so re-executing the statement does not affect the result sets of previous executions.
+ *
+ * <p>Cached mode is selected with a leading hint:
+ * {@code CACHE GLOBAL|SESSION [TTL <n>[ms|s|m|h]] [STALE <n>[ms|s|m|h]]}, e.g.
+ * {@code CACHE GLOBAL TTL 300s STALE 60s SELECT ...}. Without a unit the amount is in seconds.
+ * A cached result older than the TTL is reloaded; within the {@code STALE} window after the TTL
+ * it is still returned immediately while a background refresh re-runs the query.
+ *
+ * <p>A {@code /*+ BULK *}{@code /} comment runs a {@code SELECT} as a Bulk API 2.0 query job, whose CSV result
+ * chunks are streamed like SOAP pages; see also {@link DriverConfiguration#getBulkQueryThreshold()}.
  */
 @Slf4j
-public class ForcePreparedStatement extends AbstractPreparedStatement implements Iterator<List<ColumnMap<String, Object>>> {
+public class ForcePreparedStatement extends AbstractPreparedStatement {
 
-    private static final Pattern CACHE_HINT = Pattern.compile("(?is)\\A\\s*(CACHE\\s*(GLOBAL|SESSION)).*");
+    private static final Pattern CACHE_HINT = Pattern.compile(
+            "(?is)\\A\\s*(CACHE\\s*(GLOBAL|SESSION)(?:\\s+TTL\\s+(\\d+)(ms|s|m|h)?\\b)?(?:\\s+STALE\\s+(\\d+)(ms|s|m|h)?\\b)?).*");
     private static final Pattern RESOLVE_SUBQUERIES_COMMENT = Pattern.compile("(?i)/\\*\\+\\s*RESOLVE_SUBQUERIES\\s*\\*/");
+    private static final Pattern BULK_COMMENT = Pattern.compile("(?i)/\\*\\+\\s*BULK\\s*\\*/");
 
     /**
      * Cache strategy used for statement execution.
@@ -94,14 +115,18 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         SESSION
     }
 
+    private String preparedSql;
     private String soqlQuery;
     private final ForceConnection connection;
-    private PartnerService partnerService;
+    private IPartnerService partnerService;
     private ResultSetMetaData metadata;
     private int fetchSize;
     private int maxRows;
     private final List<Object> parameters = new ArrayList<>();
+    private final List<BatchDmlProcessor.BatchEntry> batch = new ArrayList<>();
     private CacheMode cacheMode;
+    private long cacheTtlMillis;
+    private long cacheStaleMillis;
     @Setter
     private int updateCount = -1;
     private boolean updateCountReturned = false;
@@ -110,17 +135,30 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
     private boolean resultSetReturned = false;
     private SQLWarning warnings = new SQLWarning();
     private boolean resolveSubqueriesClientSide = false;
-    private boolean neverQueriedMore;
-    private String queryMoreLocator;
+    private boolean bulkQuery = false;
     private int autoGeneratedKeys;
     private int fetchDirection;
-    private FieldDefTree fieldDefinitions;
-    private QueryAnalyzer queryAnalyzer;
-    private SoqlQueryAnalyzer soqlQueryAnalyzer;
-    private final Map<SelectItem<?>, it.rotaliano.jdbc.salesforce.expression.Expression> compiledSelectExpressions = new java.util.concurrent.ConcurrentHashMap<>();
+    private CompiledPlan plan;
+    /** The columns of the last row converted on the calling thread, shared by the next rows with the same columns. */
+    private RowSchema<String> rowSchema;
+    private PrefetchingIterator<List<ColumnMap<String, Object>>> prefetcher;
 
     private static final CacheConfig cacheDb = CacheConfig.getInstance();
-    private static final Cache<String, CachedResultSet> dataCache = cacheDb.getDataCache();
+    private static final Cache<String, CacheEntry> dataCache = cacheDb.getDataCache();
+    private static final ExecutorService prefetchExecutor = createPrefetchExecutor();
+    private static final ExecutorService cacheRefreshExecutor = createCacheRefreshExecutor();
+    private static final Set<String> refreshingCacheKeys = ConcurrentHashMap.newKeySet();
+    private static final SingleFlight<String, CacheEntry> cacheLoads = new SingleFlight<>();
+    private static final CacheInvalidator cacheInvalidator = CacheInvalidator.getInstance();
+
+    private static ExecutorService createPrefetchExecutor() {
+        return DaemonExecutors.newHandOffPool("salesforce-jdbc-prefetch-", DriverConfiguration.getPrefetchThreads());
+    }
+
+    private static ExecutorService createCacheRefreshExecutor() {
+        return DaemonExecutors.newQueuingPool("salesforce-jdbc-cache-refresh-",
+                DriverConfiguration.getCacheRefreshThreads());
+    }
 
     /**
      * Creates a statement bound to the given connection.
@@ -146,6 +184,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      */
     public ForcePreparedStatement(ForceConnection connection, String soql) {
         this(connection);
+        this.preparedSql = soql;
         this.soqlQuery = soql;
     }
 
@@ -169,30 +208,45 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      */
     @Override
     public ResultSet executeQuery() throws SQLException {
-        executeInternal(soqlQuery, Statement.NO_GENERATED_KEYS);
+        executeInternal(preparedSql, Statement.NO_GENERATED_KEYS);
         return this.resultSet;
     }
 
     /**
      * Resets statement execution state and executes the given SOQL using the requested generated keys mode.
      *
+     * <p>The SQL is compiled once: executing it again, e.g. with new parameter values, reuses its hints,
+     * analysis, field definitions and metadata, and only renders the parameters into the SOQL template.
+     *
      * @param soql the query to execute
      * @param autoGeneratedKeys generated keys flag as defined by {@link Statement}
      * @throws SQLException if execution fails
      */
     private void executeInternal(String soql, int autoGeneratedKeys) throws SQLException {
+        cancelPrefetch();
         this.metadata = null;
-        this.queryAnalyzer = null;
-        this.soqlQueryAnalyzer = null;
+        this.rowSchema = null;
         this.resultSet = null;
-        this.fieldDefinitions = null;
         this.autoGeneratedKeys = autoGeneratedKeys;
         this.updateCount = -1;
         this.updateCountReturned = false;
         this.resultSetReturned = false;
-        this.compiledSelectExpressions.clear();
-        soql = detectAndStripResolveSubqueriesHint(soql);
-        setCacheMode(soql);
+        this.preparedSql = soql;
+        if (plan == null || !soql.equals(plan.getSql())) {
+            String template = detectAndStripResolveSubqueriesHint(soql);
+            template = detectAndStripBulkHint(template);
+            setCacheMode(template);
+            this.plan = new CompiledPlan(soql, soqlQuery, cacheMode, cacheTtlMillis, cacheStaleMillis,
+                    bulkQuery, resolveSubqueriesClientSide, partnerService, this::runResolveSubselect);
+        } else {
+            log.trace("[PrepStat] reusing the compiled plan of {}", soql);
+            this.soqlQuery = plan.getSoql();
+            this.cacheMode = plan.getCacheMode();
+            this.cacheTtlMillis = plan.getCacheTtlMillis();
+            this.cacheStaleMillis = plan.getCacheStaleMillis();
+            this.bulkQuery = plan.isBulkQuery();
+            this.resolveSubqueriesClientSide = plan.isResolveSubqueriesClientSide();
+        }
         this.resultSet = cacheMode == CacheMode.NO_CACHE
                 ? query()
                 : loadFromDataCache();
@@ -232,15 +286,6 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         return cacheMode == CacheMode.NO_CACHE;
     }
 
-    /**
-     * Sets the internal flag indicating that the first streaming batch has not been fetched yet.
-     *
-     * @param value the new flag value
-     */
-    public void setNeverQueriedMore(boolean value) {
-        this.neverQueriedMore = value;
-    }
-
     /**
      * Builds the final SOQL string to be sent to Salesforce.
      *
@@ -257,47 +302,112 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
     }
 
     /**
-     * Indicates whether another streaming batch is available.
+     * Returns the source of row batches for a streaming execution of the prepared query.
+     *
+     * <p>When {@link DriverConfiguration#getPrefetchDepth()} is positive, the batches are fetched ahead
+     * on a background thread while the caller consumes the current one. If read-ahead is disabled or
+     * all prefetch threads are busy, the batches are fetched on demand.
      *
-     * @return {@code true} if the initial batch or a subsequent batch can still be fetched
+     * @return the iterator of row batches
      */
-    @Override
-    public boolean hasNext() {
-        return this.neverQueriedMore || this.queryMoreLocator != null;
+    public Iterator<List<ColumnMap<String, Object>>> getBatchSupplier() {
+        cancelPrefetch();
+        CompiledPlan compiledPlan = getPlan();
+        BatchCursor cursor = new BatchCursor(soqlQuery, bulkQuery, compiledPlan, getColumnSlots(compiledPlan));
+        int depth = DriverConfiguration.getPrefetchDepth();
+        if (depth > 0) {
+            try {
+                prefetcher = new PrefetchingIterator<>(cursor, depth,
+                        DriverConfiguration.getPrefetchIdleTimeout(), prefetchExecutor);
+                return prefetcher;
+            } catch (RejectedExecutionException e) {
+                log.debug("[PrepStat] All prefetch threads are busy, streaming synchronously");
+            }
+        }
+        return cursor;
+    }
+
+    private void cancelPrefetch() {
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
     }
 
     /**
-     * Fetches the next batch of rows for a streaming query.
-     *
-     * <p>If streaming has not started yet, this method issues the initial query request.
-     * Otherwise, it continues with the saved query locator until all rows are consumed.
+     * The paging state of one streaming execution: the SOQL sent, the field tree its pages are read with and
+     * the locator of the next page.
      *
-     * @return the next batch converted to a list of column maps, or an empty list if no more data is available
-     * @throws SalesforceRuntimeException if the Salesforce API call fails
+     * <p>The state is not shared with the statement, so a read-ahead thread still fetching a page of a previous
+     * execution, e.g. in a SOAP call that cannot be interrupted, does not interfere with a new execution.
      */
-    @Override
-    public List<ColumnMap<String, Object>> next() {
-        log.info("[DEBUG] next() called with soqlQuery: {}", soqlQuery);
-        try {
-            Map.Entry<List<List<ForceResultField>>, String> resultEntry;
-            if (this.neverQueriedMore) {
-                this.neverQueriedMore = false;
-                resultEntry = partnerService.queryStart(soqlQuery, getRootEntityFieldDefinitions());
-            } else if (this.queryMoreLocator != null) {
-                resultEntry = partnerService.queryMore(this.queryMoreLocator, getRootEntityFieldDefinitions());
-            } else {
-                return Collections.emptyList();
+    private final class BatchCursor implements Iterator<List<ColumnMap<String, Object>>> {
+
+        private final String soql;
+        private final boolean bulk;
+        private final CompiledPlan compiledPlan;
+        private final ColumnSlots columnSlots;
+        private boolean started;
+        private QueryCursor queryCursor;
+        /** The columns of the last row converted by this cursor, shared by the next rows with the same columns. */
+        private RowSchema<String> rowSchema;
+
+        private BatchCursor(String soql, boolean bulk, CompiledPlan compiledPlan, ColumnSlots columnSlots) {
+            this.soql = soql;
+            this.bulk = bulk;
+            this.compiledPlan = compiledPlan;
+            this.columnSlots = columnSlots;
+        }
+
+        /**
+         * Indicates whether another streaming batch is available.
+         *
+         * @return {@code true} if the initial batch or a subsequent batch can still be fetched
+         */
+        @Override
+        public boolean hasNext() {
+            return !started || queryCursor != null;
+        }
+
+        /**
+         * Fetches the next batch of rows.
+         *
+         * <p>The first call issues the initial query request; the next ones continue with the saved query
+         * cursor until all rows are consumed.
+         *
+         * @return the next batch converted to a list of column maps, or an empty list if no more data is available
+         * @throws SalesforceRuntimeException if the Salesforce API call fails
+         */
+        @Override
+        public List<ColumnMap<String, Object>> next() {
+            try {
+                FieldDefTree fieldDefinitions = compiledPlan.getFieldDefinitions();
+                Map.Entry<List<List<ForceResultField>>, QueryCursor> resultEntry;
+                if (!started) {
+                    started = true;
+                    resultEntry = bulk
+                            ? partnerService.bulkQueryStart(soql, fieldDefinitions)
+                            : partnerService.queryStart(soql, fieldDefinitions);
+                } else if (queryCursor != null) {
+                    resultEntry = partnerService.queryMore(queryCursor, fieldDefinitions);
+                } else {
+                    return Collections.emptyList();
+                }
+                queryCursor = resultEntry.getValue();
+                List<ColumnMap<String, Object>> result = Collections.synchronizedList(new LinkedList<>());
+                Optional.ofNullable(resultEntry.getKey())
+                        .orElseGet(Collections::emptyList)
+                        .forEach(rec -> {
+                            ColumnMap<String, Object> row =
+                                    convertToColumnMap(compiledPlan, columnSlots, rowSchema, rec);
+                            rowSchema = row.getSchema();
+                            result.add(row);
+                        });
+                return result;
+            } catch (ConnectionException e) {
+                String errorMsg = String.format("Query execution failed: %s. Query: %s", e.getMessage(), soql);
+                throw new SalesforceRuntimeException(errorMsg, e);
             }
-            this.queryMoreLocator = resultEntry.getValue();
-            List<ColumnMap<String, Object>> result = Collections.synchronizedList(new LinkedList<>());
-            Optional.ofNullable(resultEntry.getKey())
-                    .orElseGet(Collections::emptyList)
-                    .forEach(rec -> result.add(convertToColumnMap(rec)));
-            return result;
-        } catch (ConnectionException e) {
-            String errorMsg = String.format("Query execution failed: %s. Query: %s",
-                e.getMessage(), soqlQuery);
-            throw new SalesforceRuntimeException(errorMsg, e);
         }
     }
 
@@ -342,13 +452,23 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      * Converts a Salesforce record representation into a JDBC-friendly column map.
      *
      * <p>Nested collections are flattened, Salesforce field types are resolved to JDBC types,
-     * and both physical column names and labels are preserved when available.
+     * and both physical column names and labels are preserved when available. Rows with the same columns as
+     * the previous one share its {@link RowSchema} and hold only their values.
      *
      * @param recordFields the raw Salesforce fields for a single record
      * @return the converted row representation
      */
     public ColumnMap<String, Object> convertToColumnMap(List<ForceResultField> recordFields) {
-        ColumnMap<String, Object> columnMap = new ColumnMap<>();
+        CompiledPlan compiledPlan = getPlan();
+        ColumnMap<String, Object> columnMap =
+                convertToColumnMap(compiledPlan, getColumnSlots(compiledPlan), rowSchema, recordFields);
+        rowSchema = columnMap.getSchema();
+        return columnMap;
+    }
+
+    private ColumnMap<String, Object> convertToColumnMap(CompiledPlan compiledPlan, ColumnSlots columnSlots,
+            RowSchema<String> previousSchema, List<ForceResultField> recordFields) {
+        ColumnMap<String, Object> columnMap = new ColumnMap<>(previousSchema);
         // Flatten not only child records, but also Lists of Lists - for Relations - list of subrecords
         recordFields = flatten(recordFields);
         recordFields.stream()
@@ -359,203 +479,48 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
                         typeInfo = TypeInfo.lookupTypeInfo(field.getFieldType());
                     }
                     if (typeInfo == TypeInfo.OTHER_TYPE_INFO) {
-                        typeInfo = findColumnType(field.getName());
+                        typeInfo = columnSlots.typeOf(field.getName());
                     }
-                    String columnLabel = findColumnLabel(field.getName());
+                    String columnLabel = columnSlots.labelOf(field.getName());
                     columnMap.put(field.getFullName(), columnLabel, field.getValue(), typeInfo);
                 });
 
-        evaluateClientSideExpressions(columnMap);
+        RowSchema<String> schema = columnMap.getSchema();
+        evaluateClientSideExpressions(compiledPlan, schema, columnMap);
         return columnMap;
     }
 
-    private void evaluateClientSideExpressions(ColumnMap<String, Object> columnMap) {
+    private void evaluateClientSideExpressions(CompiledPlan compiledPlan, RowSchema<String> schema,
+            ColumnMap<String, Object> columnMap) {
         try {
-            net.sf.jsqlparser.statement.Statement stmt = getSoqlQueryAnalyzer().getSoqlQuery();
-            if (stmt instanceof PlainSelect select) {
-                for (SelectItem<?> item : select.getSelectItems()) {
-                    Expression expr = item.getExpression();
-                    if (expr instanceof Function func && "coalesce".equalsIgnoreCase(func.getName())) {
-                        String alias = item.getAlias() != null ? item.getAlias().getName() : func.toString();
-
-                        // Build a map of column names/labels to values
-                        Map<String, Object> fieldsMap = new java.util.HashMap<>();
-                        for (int i = 0; i < columnMap.size(); i++) {
-                            fieldsMap.put(columnMap.getColumnNames().get(i), columnMap.getValues().get(i));
-                            String name = columnMap.getColumnNames().get(i);
-                            String[] parts = StringUtils.split(name, '.');
-                            if (parts.length > 0) {
-                                fieldsMap.put(parts[parts.length - 1], columnMap.getValues().get(i));
-                            }
-                        }
-
-                        // Evaluate the coalesce parameters
-                        Object coalescedValue = null;
-                        if (func.getParameters() != null) {
-                            for (Expression param : func.getParameters()) {
-                                EvaluateExpressionVisitor visitor = new EvaluateExpressionVisitor(fieldsMap);
-                                param.accept(visitor);
-                                Object val = visitor.getResult();
-                                if (val != null) {
-                                    coalescedValue = val;
-                                    break;
-                                }
-                            }
-                        }
-
-                        // Update the value in columnMap
-                        int idx = -1;
-                        for (int i = 0; i < columnMap.size(); i++) {
-                            String name = columnMap.getColumnNames().get(i);
-                            if (name.equalsIgnoreCase(alias)
-                                    || name.endsWith("." + alias)
-                                    || name.equalsIgnoreCase(func.toString())
-                                    || name.endsWith("." + func.toString())
-                                    || name.equalsIgnoreCase(func.getName())
-                                    || name.endsWith("." + func.getName())) {
-                                idx = i;
-                                break;
-                            }
-                        }
-
-                        if (idx != -1) {
-                            columnMap.getValues().set(idx, coalescedValue);
-                        }
-                    } else if (expr instanceof CaseExpression caseExpr) {
-                        String alias = item.getAlias() != null ? item.getAlias().getName() : "case_expression";
-
-                        // Build a map of column names/labels to values
-                        Map<String, Object> fieldsMap = new java.util.HashMap<>();
-                        for (int i = 0; i < columnMap.size(); i++) {
-                            fieldsMap.put(columnMap.getColumnNames().get(i), columnMap.getValues().get(i));
-                            String name = columnMap.getColumnNames().get(i);
-                            String[] parts = StringUtils.split(name, '.');
-                            if (parts.length > 0) {
-                                fieldsMap.put(parts[parts.length - 1], columnMap.getValues().get(i));
-                            }
-                        }
-
-                        // Evaluate the case expression
-                        EvaluateExpressionVisitor visitor = new EvaluateExpressionVisitor(fieldsMap);
-                        caseExpr.accept(visitor);
-                        Object caseValue = visitor.getResult();
-
-                        // Update the value in columnMap
-                        int idx = -1;
-                        for (int i = 0; i < columnMap.size(); i++) {
-                            String name = columnMap.getColumnNames().get(i);
-                            if (name.equalsIgnoreCase(alias)
-                                    || name.endsWith("." + alias)
-                                    || name.equalsIgnoreCase(caseExpr.toString())
-                                    || name.endsWith("." + caseExpr.toString())) {
-                                idx = i;
-                                break;
-                            }
-                        }
-
-                        if (idx != -1) {
-                            columnMap.getValues().set(idx, caseValue);
-                        }
-                    } else if (SoqlQueryAnalyzer.isLiteral(expr) || SoqlQueryAnalyzer.containsEmulatedFunctions(expr)) {
-                        String alias = item.getAlias() != null ? item.getAlias().getName() : expr.toString();
-
-                        // Create row context
-                        it.rotaliano.jdbc.salesforce.expression.RowContext ctx = colName -> {
-                            // Find value in columnMap
-                            int colIdx = columnMap.getColumnNames().indexOf(colName);
-                            if (colIdx == -1) colIdx = columnMap.getColumnLabels().indexOf(colName);
-                            if (colIdx != -1) {
-                                return columnMap.getValues().get(colIdx);
-                            }
-                            // Support suffix match
-                            for (int k = 0; k < columnMap.size(); k++) {
-                                String name = columnMap.getColumnNames().get(k);
-                                if (name.endsWith("." + colName)) {
-                                    return columnMap.getValues().get(k);
-                                }
-                            }
-                            return null;
-                        };
-
-                        try {
-                            it.rotaliano.jdbc.salesforce.expression.Expression customExpr = compiledSelectExpressions.computeIfAbsent(item, i -> it.rotaliano.jdbc.salesforce.expression.AstBuilder.build(expr));
-                            Object evaluatedValue = customExpr.evaluate(ctx);
-
-                            // Update in columnMap
-                            int idx = -1;
-                            for (int i = 0; i < columnMap.size(); i++) {
-                                String name = columnMap.getColumnNames().get(i);
-                                if (name.equalsIgnoreCase(alias)
-                                        || name.endsWith("." + alias)
-                                        || name.equalsIgnoreCase(expr.toString())
-                                        || name.endsWith("." + expr.toString())) {
-                                    idx = i;
-                                    break;
-                                }
-                            }
-                            if (idx != -1) {
-                                columnMap.getValues().set(idx, evaluatedValue);
-                            }
-                        } catch (Exception e) {
-                            log.error("Failed evaluating client side string function", e);
-                        }
-                    }
-                }
-            }
+            compiledPlan.getProjection(getSoqlQueryAnalyzer().getSoqlQuery(), schema)
+                    .apply(columnMap.getValues());
         } catch (Exception e) {
             log.warn("Failed to evaluate client-side expressions", e);
         }
     }
 
-    private TypeInfo findColumnType(String name) {
-        if (name == null) {
-            return TypeInfo.OTHER_TYPE_INFO;
-        }
-        try {
-            if (metadata != null) {
-                for (int i = 1; i <= metadata.getColumnCount(); i++) {
-                    if (name.equalsIgnoreCase(metadata.getColumnName(i))) {
-                        return TypeInfo.lookupTypeInfo(metadata.getColumnTypeName(i));
-                    }
-                }
-                String[] prefix = StringUtils.split(name, '.');
-                if (prefix.length > 0) {
-                    name = String.join(".", List.of(prefix).subList(1, prefix.length));
-                    for (int i = 1; i <= metadata.getColumnCount(); i++) {
-                        if (name.equalsIgnoreCase(metadata.getColumnName(i))) {
-                            return TypeInfo.lookupTypeInfo(metadata.getColumnTypeName(i));
-                        }
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            // ignore
-        }
-        return TypeInfo.OTHER_TYPE_INFO;
-    }
-
-    private String findColumnLabel(String name) {
-        if (name == null) {
-            return null;
+    /**
+     * Returns the columns the fields of the rows are resolved against: those of the metadata once it was loaded
+     * for the current query, none before.
+     */
+    private ColumnSlots getColumnSlots(CompiledPlan compiledPlan) {
+        if (metadata == null) {
+            return ColumnSlots.NONE;
         }
         try {
-            if (metadata != null) {
-                for (int i = 1; i <= metadata.getColumnCount(); i++) {
-                    if (name.equalsIgnoreCase(metadata.getColumnName(i))) {
-                        return metadata.getColumnLabel(i);
-                    }
-                }
-            }
+            return compiledPlan.getColumnSlots();
         } catch (SQLException e) {
-            // ignore
+            log.warn("[PrepStat] Failed to index the result columns", e);
+            return ColumnSlots.NONE;
         }
-        return name;
     }
 
     /**
      * Detects the cache mode for a query and removes any leading cache hint.
      *
-     * <p>Supported hints are {@code CACHE GLOBAL} and {@code CACHE SESSION}.
+     * <p>Supported hints are {@code CACHE GLOBAL} and {@code CACHE SESSION}, optionally followed by
+     * {@code TTL <n>[ms|s|m|h]} and {@code STALE <n>[ms|s|m|h]}.
      * If no supported hint is present, caching is disabled for the query.
      *
      * @param query the original query string
@@ -564,29 +529,62 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         Matcher matcher = CACHE_HINT.matcher(query);
         if (matcher.matches()) {
             String mode = matcher.group(2);
-            String hint = matcher.group(1);
-            this.soqlQuery = query.replaceFirst(hint, "");
+            this.soqlQuery = query.substring(0, matcher.start(1)) + query.substring(matcher.end(1));
             this.cacheMode = CacheMode.valueOf(mode.toUpperCase());
+            this.cacheTtlMillis = toMillis(matcher.group(3), matcher.group(4));
+            this.cacheStaleMillis = cacheTtlMillis > 0 ? toMillis(matcher.group(5), matcher.group(6)) : 0;
         } else {
             this.soqlQuery = query;
             this.cacheMode = CacheMode.NO_CACHE;
+            this.cacheTtlMillis = 0;
+            this.cacheStaleMillis = 0;
         }
     }
 
+    private static long toMillis(String amount, String unit) {
+        if (amount == null) {
+            return 0;
+        }
+        long value;
+        try {
+            value = Long.parseLong(amount);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE / 2;
+        }
+        TimeUnit timeUnit = unit == null ? TimeUnit.SECONDS : switch (unit.toLowerCase()) {
+            case "ms" -> TimeUnit.MILLISECONDS;
+            case "m" -> TimeUnit.MINUTES;
+            case "h" -> TimeUnit.HOURS;
+            default -> TimeUnit.SECONDS;
+        };
+        return Math.min(timeUnit.toMillis(value), Long.MAX_VALUE / 2);
+    }
+
     /**
      * Computes the cache key for the current prepared query.
      *
-     * <p>Global cache keys depend only on the prepared query text, while session cache keys
-     * are additionally scoped by the connection unique identifier.
-     *
      * @return the hashed cache key
      */
     private String getCacheKey() {
-        String preparedQuery = prepareQuery(soqlQuery);
-        String key = cacheMode == CacheMode.GLOBAL
-                ? preparedQuery
-                : connection.getUUID() + preparedQuery;
-        return sha256(key);
+        return getCacheKey(QueryShape.of(prepareQuery(soqlQuery)));
+    }
+
+    /**
+     * Computes the cache key of a prepared query from its canonical form, so queries differing only in
+     * whitespace, keyword case or the order of their conditions share a cached result.
+     *
+     * <p>Global cache keys depend only on the query, while session cache keys are additionally scoped
+     * by the connection unique identifier.
+     *
+     * @param shape the shape of the prepared query
+     * @return the hashed cache key
+     */
+    private String getCacheKey(QueryShape shape) {
+        return sha256(getCacheScope() + shape.getCanonicalSoql());
+    }
+
+    private String getCacheScope() {
+        return cacheMode == CacheMode.GLOBAL ? "" : connection.getUUID();
     }
 
     private String sha256(final String key) {
@@ -628,17 +626,18 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
     /**
      * Replaces JDBC parameter placeholders with Salesforce-safe SOQL literal values.
      *
+     * <p>The query is split into its literal segments and parameter slots once per plan, see
+     * {@link SoqlTemplate}; a {@code ?} inside a quoted literal is left as is.
+     *
      * @param soql the query containing {@code ?} placeholders
      * @return the query with all known parameters injected
      */
     protected String setParams(String soql) {
         log.trace("[PrepStat] setParams IMPLEMENTED {}", soql);
-        String result = soql;
-        for (Object param : getParameters()) {
-            String paramRepresentation = SoqlParameterConverter.convertToSoqlParam(param);
-            result = result.replaceFirst("\\?", paramRepresentation);
+        if (soql == null) {
+            return null;
         }
-        return result;
+        return getPlan().getTemplate(soql).render(getParameters());
     }
 
     /**
@@ -687,28 +686,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         try {
             log.trace("[PrepStat] loadMetaData IMPLEMENTED");
             if (metadata == null) {
-                RowSetMetaDataImpl result = new RowSetMetaDataImpl();
-                SoqlQueryAnalyzer analyzer = getSoqlQueryAnalyzer();
-                FieldDefTree rootFieldDefinitions = getRootEntityFieldDefinitions();
-                List<FieldDef> resultFieldDefinitions = rootFieldDefinitions.flattenInSqlOrder();
-                int columnsCount = resultFieldDefinitions.size();
-                result.setColumnCount(columnsCount);
-                for (int i = 1; i <= columnsCount; i++) {
-                    FieldDef field = resultFieldDefinitions.get(i - 1);
-                    result.setAutoIncrement(i, false);
-                    result.setColumnName(i, field.getFullName());
-                    result.setColumnLabel(i, field.getAlias());
-                    String forceTypeName = field.getType();
-                    TypeInfo typeInfo = TypeInfo.lookupTypeInfo(forceTypeName);
-                    result.setColumnType(i, typeInfo.getSqlDataType());
-                    result.setColumnTypeName(i, typeInfo.getTypeName());
-                    result.setPrecision(i, typeInfo.getPrecision());
-                    result.setSchemaName(i, ForceDatabaseMetaData.DEFAULT_SCHEMA);
-                    result.setCatalogName(i, ForceDatabaseMetaData.DEFAULT_CATALOG);
-                    result.setTableName(i, analyzer.getFromObjectName());
-                    result.setCaseSensitive(i, false);
-                }
-                metadata = result;
+                metadata = getPlan().getMetaData();
             }
             return metadata;
         } catch (RuntimeException e) {
@@ -732,19 +710,23 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      */
     public FieldDefTree getRootEntityFieldDefinitions() {
         log.trace("[PrepStat] getFieldDefinitions IMPLEMENTED ");
-        if (fieldDefinitions == null) {
-            fieldDefinitions = getSoqlQueryAnalyzer().getFieldDefinitions();
-            log.debug("[PrepStat] getFieldDefinitions:\n {}", fieldDefinitions.toTree());
+        return getPlan().getFieldDefinitions();
+    }
+
+    /**
+     * Returns the plan of the current query. A statement queried without being executed, e.g. to resolve
+     * a sub-select or refresh a cached result, compiles its query as it is.
+     */
+    private CompiledPlan getPlan() {
+        if (plan == null) {
+            plan = new CompiledPlan(null, soqlQuery, cacheMode, cacheTtlMillis, cacheStaleMillis,
+                    bulkQuery, resolveSubqueriesClientSide, partnerService, this::runResolveSubselect);
         }
-        return fieldDefinitions;
+        return plan;
     }
 
     private QueryAnalyzer getQueryAnalyzer() {
-        if (queryAnalyzer == null) {
-            queryAnalyzer = new QueryAnalyzer(soqlQuery, this::runResolveSubselect, partnerService);
-            queryAnalyzer.setResolveSubqueriesClientSide(this.resolveSubqueriesClientSide);
-        }
-        return queryAnalyzer;
+        return getPlan().getQueryAnalyzer();
     }
 
     public boolean isResolveSubqueriesClientSide() {
@@ -762,15 +744,21 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         }
     }
 
+    /**
+     * Indicates whether the statement carries the {@code BULK} hint, running the query as a Bulk API 2.0 job.
+     */
+    public boolean isBulkQuery() {
+        return bulkQuery;
+    }
+
+    private String detectAndStripBulkHint(String soql) {
+        Matcher matcher = BULK_COMMENT.matcher(soql);
+        this.bulkQuery = matcher.find();
+        return bulkQuery ? matcher.replaceAll("") : soql;
+    }
+
     public SoqlQueryAnalyzer getSoqlQueryAnalyzer() {
-        if (soqlQueryAnalyzer == null) {
-            soqlQueryAnalyzer = new SoqlQueryAnalyzer(getQueryAnalyzer());
-            if (soqlQueryAnalyzer.isExpandedStarSyntaxForFields()) {
-                this.soqlQuery = soqlQueryAnalyzer.getSoqlQueryString();
-                log.debug("getSoqlQueryAnalyzer() updated soqlQuery to: {}", this.soqlQuery);
-            }
-        }
-        return soqlQueryAnalyzer;
+        return getPlan().getSoqlQueryAnalyzer();
     }
 
     private List<Map<String, Object>> runResolveSubselect(String soql, List<Object> parameters) {
@@ -806,7 +794,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      */
     @Override
     public ParameterMetaData getParameterMetaData() {
-        return new ParameterMetadataImpl(parameters, soqlQuery);
+        return new ParameterMetadataImpl(parameters, preparedSql);
     }
 
     /**
@@ -826,10 +814,9 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
 
     private ResultSetMetaData loadFromMetaDataCache() throws SQLException {
         String key = getCacheKey();
-        if (dataCache.containsKey(key)) {
-            CachedResultSet value = dataCache.get(key);
-            value.beforeFirst();
-            return value.getMetaData();
+        CacheEntry entry = dataCache.get(key);
+        if (entry != null) {
+            return entry.getResultSet().getMetaData();
         }
 
         ResultSetMetaData value;
@@ -840,29 +827,169 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
     }
 
     /**
-     * Executes the query or loads it from cache and returns a resettable result set.
+     * Executes the query or loads it from cache and returns a new cursor over the cached rows.
+     *
+     * <p>A cached result older than the {@code TTL} of the hint is reloaded, unless it is still within
+     * the {@code STALE} window: it is then returned as is and refreshed in the background.
+     *
+     * <p>Loads are deduplicated across statements and connections: concurrent misses for the same
+     * cache key wait for a single query to Salesforce and share its result.
+     *
+     * <p>On a miss, a plain query is first answered from the fresh cached result of a broader plain query
+     * of the same scope, if any; see {@link QueryShape}.
+     *
+     * <p>A cached result loaded before the driver last changed one of the objects it reads is dropped, and a
+     * result is not cached if one of its objects changed while it was loaded; see {@link CacheInvalidator}.
      *
      * @return the cached or freshly loaded result set
      * @throws SQLException if execution or caching fails
      */
     private synchronized ResultSet loadFromDataCache() throws SQLException {
-        CachedResultSet value;
-        String key = getCacheKey();
-        if (dataCache.containsKey(key)) {
-            value = dataCache.get(key);
-            value.beforeFirst();
-            return value;
+        QueryShape shape = QueryShape.of(prepareQuery(soqlQuery));
+        String key = getCacheKey(shape);
+        CacheEntry entry = dataCache.get(key);
+        if (entry != null && !cacheInvalidator.isCurrent(entry)) {
+            log.debug("[PrepStat] Cached result invalidated by a change to the objects it reads");
+            dataCache.remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            long age = entry.getAgeMillis();
+            boolean fresh = isFresh(entry);
+            if (fresh || age < cacheTtlMillis + cacheStaleMillis) {
+                if (!fresh) {
+                    refreshInBackground(key);
+                }
+                // a result kept across restarts by the data cache is indexed on its first hit
+                SubsumptionIndex.getInstance().register(getCacheScope(), key, shape);
+                cacheInvalidator.register(key, entry);
+                return entry.openResultSet();
+            }
+            log.debug("[PrepStat] Cached result expired after {} ms", age);
         }
 
-        value = query();
-        dataCache.put(key, value);
-        return value;
+        ResultSet subsumed = loadFromBroaderResult(shape);
+        if (subsumed != null) {
+            return subsumed;
+        }
+        entry = cacheLoads.execute(key, () -> {
+            // A load for the same key may have completed between the lookup above and this flight
+            CacheEntry loaded = dataCache.get(key);
+            if (loaded != null && isFresh(loaded) && cacheInvalidator.isCurrent(loaded)) {
+                return loaded;
+            }
+            long startedAt = System.currentTimeMillis();
+            loaded = CacheEntry.of(query(), cacheTtlMillis, cacheStaleMillis, getReadObjectNames());
+            putIfUnchanged(key, loaded, startedAt);
+            return loaded;
+        });
+        SubsumptionIndex.getInstance().register(getCacheScope(), key, shape);
+        return entry.openResultSet();
+    }
+
+    /**
+     * Answers a plain query from the fresh cached result of a broader one, filtering and projecting its rows
+     * on the client side.
+     *
+     * @param shape the shape of the prepared query
+     * @return the answer, or {@code null} if no cached result can answer the query
+     */
+    private ResultSet loadFromBroaderResult(QueryShape shape) {
+        SubsumptionIndex index = SubsumptionIndex.getInstance();
+        String scope = getCacheScope();
+        for (SubsumptionIndex.Candidate candidate : index.candidates(scope, shape)) {
+            CacheEntry broader = dataCache.get(candidate.cacheKey());
+            if (broader == null) {
+                index.remove(scope, candidate);
+                continue;
+            }
+            if (!isFresh(broader) || !cacheInvalidator.isCurrent(broader)) {
+                continue;
+            }
+            try {
+                CachedResultSet answer = shape.answerFrom(candidate.shape(), broader.getResultSet(), loadMetaData());
+                if (answer != null) {
+                    log.debug("[PrepStat] Answered from the cached result of {}", candidate.shape().getCanonicalSoql());
+                    return answer;
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.debug("[PrepStat] Failed to answer from a cached broader result, querying Salesforce", e);
+            }
+        }
+        return null;
+    }
+
+    private boolean isFresh(CacheEntry entry) {
+        return cacheTtlMillis <= 0 || entry.getAgeMillis() < cacheTtlMillis;
+    }
+
+    /**
+     * Returns the objects read by the current query, resolved by its field tree; empty for a statement that
+     * has none, e.g. a DML statement.
+     */
+    private Set<String> getReadObjectNames() {
+        try {
+            if (StatementRouter.isDmlStatement(soqlQuery, getQueryAnalyzer())) {
+                return Set.of();
+            }
+            return getPlan().getFieldDefinitions().getObjectNames();
+        } catch (RuntimeException e) {
+            log.debug("[PrepStat] Failed to resolve the objects read by the query, its cached result is not tagged", e);
+            return Set.of();
+        }
+    }
+
+    /**
+     * Caches a result unless one of the objects it reads was changed by the driver since its query started.
+     */
+    private static void putIfUnchanged(String key, CacheEntry entry, long startedAt) {
+        if (cacheInvalidator.changedSince(entry.getObjectNames(), startedAt)) {
+            log.debug("[PrepStat] Result not cached, the objects it reads changed while it was loaded");
+            return;
+        }
+        dataCache.put(key, entry);
+        cacheInvalidator.register(key, entry);
+    }
+
+    /**
+     * Re-runs the current query on a separate statement and replaces the cached result.
+     * At most one refresh per cache key runs at a time; DML statements are never re-run.
+     */
+    private void refreshInBackground(String key) {
+        if (StatementRouter.isDmlStatement(soqlQuery, getQueryAnalyzer()) || !refreshingCacheKeys.add(key)) {
+            return;
+        }
+        ForcePreparedStatement refresh = new ForcePreparedStatement(connection, soqlQuery);
+        refresh.parameters.addAll(getParameters());
+        refresh.cacheMode = cacheMode;
+        refresh.cacheTtlMillis = cacheTtlMillis;
+        refresh.cacheStaleMillis = cacheStaleMillis;
+        refresh.resolveSubqueriesClientSide = resolveSubqueriesClientSide;
+        refresh.bulkQuery = bulkQuery;
+        try {
+            cacheRefreshExecutor.execute(() -> {
+                try {
+                    long startedAt = System.currentTimeMillis();
+                    CacheEntry refreshed = CacheEntry.of(refresh.query(), refresh.cacheTtlMillis,
+                        refresh.cacheStaleMillis, refresh.getReadObjectNames());
+                    putIfUnchanged(key, refreshed, startedAt);
+                    log.debug("[PrepStat] Stale cached result refreshed");
+                } catch (Exception e) {
+                    log.warn("[PrepStat] Failed to refresh stale cached result", e);
+                } finally {
+                    refresh.close();
+                    refreshingCacheKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingCacheKeys.remove(key);
+        }
     }
 
     /**
      * Reconnects the underlying connection using new credentials.
      *
-     * <p>After reconnecting, the statement refreshes its internal {@link PartnerService} reference
+     * <p>After reconnecting, the statement refreshes its internal {@link IPartnerService} reference
      * so subsequent executions use the updated Salesforce session.
      *
      * @param url the Salesforce JDBC URL
@@ -875,6 +1002,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         log.trace("[PrepStat] RECONNECT IMPLEMENTED newUserName={} url={}", userName, ForceDriver.sanitizeUrl(url));
         boolean updated = connection.updatePartnerConnection(url, userName, userPass);
         this.partnerService = connection.getPartnerService();
+        this.plan = null;
         return updated;
     }
 
@@ -1040,7 +1168,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
     @Override
     public ResultSet executeQuery(String sql) throws SQLException {
         log.trace("[PrepStat] executeQuery IMPLEMENTED {}", sql);
-        this.soqlQuery = sql;
+        this.preparedSql = sql;
         this.resultSet = executeQuery();
         return this.resultSet;
     }
@@ -1060,11 +1188,14 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
     /**
      * Closes this statement.
      *
-     * <p>This implementation clears bound parameters but does not explicitly close the underlying connection.
+     * <p>This implementation clears bound parameters and cancels any background read-ahead,
+     * but does not explicitly close the underlying connection.
      */
     @Override
     public void close() {
+        cancelPrefetch();
         parameters.clear();
+        batch.clear();
     }
 
     /**
@@ -1105,7 +1236,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         log.trace("[PrepStat] execute IMPLEMENTED {}", sql);
         this.updateCount = -1;
         this.updateCountReturned = false;
-        this.soqlQuery = sql;
+        this.preparedSql = sql;
         this.resultSet = executeQuery();
         this.resultSetReturned = false;
         boolean result = this.updateCount < 0;
@@ -1342,7 +1473,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      */
     @Override
     public int executeUpdate() throws SQLException {
-        return executeUpdate(soqlQuery);
+        return executeUpdate(preparedSql);
     }
 
     /**
@@ -1353,6 +1484,51 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
         parameters.clear();
     }
 
+    /**
+     * Adds the currently bound parameters to this statement's batch.
+     *
+     * <p>A snapshot of the parameters is taken, so they can be rebound right after this call.
+     */
+    @Override
+    public void addBatch() {
+        batch.add(new BatchDmlProcessor.BatchEntry(preparedSql, new ArrayList<>(getParameters())));
+    }
+
+    /**
+     * Removes all entries from this statement's batch.
+     */
+    @Override
+    public void clearBatch() {
+        batch.clear();
+    }
+
+    /**
+     * Executes all batched parameter sets.
+     *
+     * <p>Records are grouped by operation and SObject and sent in chunks of up to
+     * {@link it.rotaliano.jdbc.salesforce.DriverConfiguration#getDmlBatchSize()} records per API call.
+     * The batch is cleared once executed, whether it succeeded or not.
+     *
+     * @return the update count of each batch entry
+     * @throws java.sql.BatchUpdateException if an entry is not a DML statement or any record failed;
+     *         its update counts contain {@link Statement#EXECUTE_FAILED} for the failed entries
+     */
+    @Override
+    public int[] executeBatch() throws SQLException {
+        if (batch.isEmpty()) {
+            return new int[0];
+        }
+        List<BatchDmlProcessor.BatchEntry> entries = new ArrayList<>(batch);
+        batch.clear();
+        this.resultSet = null;
+        this.updateCount = -1;
+        this.updateCountReturned = false;
+        this.resultSetReturned = false;
+        int[] updateCounts = BatchDmlProcessor.processBatch(entries, partnerService, this::runResolveSubselect);
+        this.updateCount = Arrays.stream(updateCounts).sum();
+        return updateCounts;
+    }
+
     /**
      * Executes the current query using the current generated keys configuration.
      *
@@ -1361,7 +1537,7 @@ public class ForcePreparedStatement extends AbstractPreparedStatement implements
      */
     @Override
     public boolean execute() throws SQLException {
-        executeInternal(soqlQuery, autoGeneratedKeys);
+        executeInternal(preparedSql, autoGeneratedKeys);
         return true;
     }
 
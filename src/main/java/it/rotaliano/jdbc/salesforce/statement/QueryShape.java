@@ -0,0 +1,389 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.expression.AstBuilder;
+import it.rotaliano.jdbc.salesforce.expression.CompiledExpression;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import it.rotaliano.jdbc.salesforce.statement.processor.StatementCache;
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.BooleanValue;
+import net.sf.jsqlparser.expression.DoubleValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NullValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+/**
+ * The canonical form of a rendered SOQL query, hashed into the key of its cached result, and what is needed to
+ * answer it from the cached result of a broader query.
+ *
+ * <p>The canonical form is the query parsed and printed back: whitespace and keyword case are normalized, the
+ * columns of the WHERE and ORDER BY clauses are lower-cased and the conditions of a top-level {@code AND} are
+ * sorted. The select items and the object keep the case they were written in, as they become the column labels
+ * and the table name of the result; literals are kept as written. A query the parser does not accept is only
+ * whitespace-normalized.
+ *
+ * <p>A <em>plain</em> query selects plain columns of one object, optionally filtered and ordered, and nothing
+ * else. It can be answered from the cached result of another plain query on the same object and in the same
+ * order that selects all its columns with a subset of its conditions; see {@link #answerFrom}.
+ *
+ * <p>Instances are immutable. The shapes of the last {@link DriverConfiguration#getStatementCacheSize()}
+ * distinct queries are kept, so a query executed again is not parsed again.
+ */
+@Slf4j
+final class QueryShape {
+
+    private static final int MAX_SHAPES = DriverConfiguration.getStatementCacheSize();
+    private static final Map<String, QueryShape> SHAPES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryShape> eldest) {
+            return size() > MAX_SHAPES;
+        }
+    };
+
+    private static final Set<Integer> NUMERIC_TYPES = Set.of(Types.TINYINT, Types.SMALLINT, Types.INTEGER,
+        Types.BIGINT, Types.FLOAT, Types.REAL, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL);
+    private static final byte AS_NUMBER = 1;
+    private static final byte AS_BOOLEAN = 2;
+
+    private final String canonicalSoql;
+    /** The object and order of a plain query, or {@code null} if the query is not plain. */
+    private final String family;
+    /** The columns selected by a plain query, as written. */
+    private final List<String> columns;
+    /** The conditions of a plain query, by canonical text. */
+    private final Map<String, Expression> conjuncts;
+
+    private QueryShape(String canonicalSoql, String family, List<String> columns, Map<String, Expression> conjuncts) {
+        this.canonicalSoql = canonicalSoql;
+        this.family = family;
+        this.columns = columns;
+        this.conjuncts = conjuncts;
+    }
+
+    /**
+     * Returns the shape of a rendered SOQL query, parsing it on first use.
+     *
+     * @param soql the SOQL with the parameter values rendered
+     * @return the shape
+     */
+    static QueryShape of(String soql) {
+        QueryShape shape;
+        synchronized (SHAPES) {
+            shape = SHAPES.get(soql);
+        }
+        if (shape == null) {
+            shape = parse(soql);
+            if (MAX_SHAPES > 0) {
+                synchronized (SHAPES) {
+                    SHAPES.put(soql, shape);
+                }
+            }
+        }
+        return shape;
+    }
+
+    static QueryShape parse(String soql) {
+        Statement statement;
+        try {
+            statement = CCJSqlParserUtil.parse(soql, parser -> parser.withBackslashEscapeCharacter(true));
+        } catch (JSQLParserException | RuntimeException e) {
+            log.trace("[QueryShape] not parsed, keyed by its text: {}", soql);
+            return new QueryShape(StatementCache.normalize(soql), null, List.of(), Map.of());
+        }
+        if (!(statement instanceof PlainSelect select)) {
+            return new QueryShape(statement.toString(), null, List.of(), Map.of());
+        }
+
+        ColumnNormalizer normalizer = new ColumnNormalizer();
+        Map<String, Expression> conditions = new TreeMap<>();
+        if (select.getWhere() != null) {
+            select.getWhere().accept(normalizer);
+            List<Expression> parts = new ArrayList<>();
+            flatten(select.getWhere(), parts);
+            for (Expression part : parts) {
+                conditions.putIfAbsent(part.toString(), part);
+            }
+            select.setWhere(conditions.values().stream().reduce(AndExpression::new).orElse(null));
+        }
+        String orderBy = "";
+        if (select.getOrderByElements() != null && !select.getOrderByElements().isEmpty()) {
+            for (OrderByElement element : select.getOrderByElements()) {
+                element.getExpression().accept(normalizer);
+            }
+            orderBy = select.getOrderByElements().stream().map(Object::toString)
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+        }
+        String canonical = select.toString();
+
+        List<String> selected = plainColumns(select);
+        if (selected != null && select.getFromItem() instanceof Table table) {
+            String plain = "SELECT " + select.getSelectItems().stream().map(Object::toString)
+                .collect(Collectors.joining(", "))
+                + " FROM " + table
+                + (select.getWhere() != null ? " WHERE " + select.getWhere() : "")
+                + orderBy;
+            // any clause not rebuilt above, e.g. LIMIT, GROUP BY or a join, makes the query not plain
+            if (plain.equals(canonical)) {
+                String family = table.toString().toLowerCase(Locale.ROOT) + orderBy;
+                return new QueryShape(canonical, family, selected, Collections.unmodifiableMap(conditions));
+            }
+        }
+        return new QueryShape(canonical, null, List.of(), Map.of());
+    }
+
+    private static void flatten(Expression condition, List<Expression> parts) {
+        if (condition instanceof AndExpression and) {
+            flatten(and.getLeftExpression(), parts);
+            flatten(and.getRightExpression(), parts);
+        } else {
+            parts.add(condition);
+        }
+    }
+
+    /**
+     * Returns the names of the selected columns, or {@code null} if an item is not a plain column.
+     */
+    private static List<String> plainColumns(PlainSelect select) {
+        List<String> selected = new ArrayList<>();
+        for (SelectItem<?> item : select.getSelectItems()) {
+            if (!(item.getExpression() instanceof Column column) || item.getAlias() != null) {
+                return null;
+            }
+            selected.add(column.getFullyQualifiedName());
+        }
+        return List.copyOf(selected);
+    }
+
+    String getCanonicalSoql() {
+        return canonicalSoql;
+    }
+
+    /**
+     * The object and order shared by the plain queries that can answer each other, or {@code null} if the query
+     * is not plain.
+     */
+    String getFamily() {
+        return family;
+    }
+
+    boolean isPlain() {
+        return family != null;
+    }
+
+    /**
+     * Returns the conditions of this query missing from a broader one, or {@code null} if the broader one
+     * does not select all the columns of this query or has conditions this query does not have.
+     */
+    List<Expression> residual(QueryShape broader) {
+        if (family == null || !family.equals(broader.family) || !conjuncts.keySet().containsAll(broader.conjuncts.keySet())) {
+            return null;
+        }
+        Set<String> available = broader.columns.stream()
+            .map(c -> c.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toSet());
+        for (String column : columns) {
+            if (!available.contains(column.toLowerCase(Locale.ROOT))) {
+                return null;
+            }
+        }
+        List<Expression> residual = new ArrayList<>();
+        conjuncts.forEach((text, condition) -> {
+            if (!broader.conjuncts.containsKey(text)) {
+                residual.add(condition);
+            }
+        });
+        return residual;
+    }
+
+    /**
+     * Answers this query from the cached result of a broader one: the rows of the result satisfying the
+     * conditions of this query missing from the broader one, reduced to the columns of this query.
+     *
+     * <p>The result must have rows, all with the same columns. The missing conditions must compare a numeric
+     * column with a number, compare a boolean column with {@code TRUE} or {@code FALSE}, or compare a column
+     * with {@code null}: SOQL compares strings ignoring case and has date literals with no client-side form, so
+     * other conditions are left to Salesforce.
+     *
+     * @param broader the shape of the cached query
+     * @param result the cached result, read without moving its cursor
+     * @param metadata the metadata of the answer
+     * @return the answer, or {@code null} if this query cannot be answered from the result
+     */
+    CachedResultSet answerFrom(QueryShape broader, CachedResultSet result, ResultSetMetaData metadata) {
+        List<Expression> residual = residual(broader);
+        RowSchema<String> schema = residual != null ? result.getRowSchema() : null;
+        if (schema == null) {
+            return null;
+        }
+        int[] slots = new int[columns.size()];
+        List<String> names = new ArrayList<>(slots.length);
+        List<String> labels = new ArrayList<>(slots.length);
+        List<TypeInfo> types = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = schema.indexOf(columns.get(i));
+            if (slot == -1) {
+                return null;
+            }
+            slots[i] = slot;
+            names.add(schema.getColumnName(slot));
+            labels.add(schema.getColumnLabel(slot));
+            types.add(schema.getTypeInfo(slot));
+        }
+        Predicate<List<Object>> condition = compile(residual, schema);
+        if (condition == null) {
+            return null;
+        }
+        return result.select(condition, slots, RowSchema.of(names, labels, types), metadata);
+    }
+
+    private static Predicate<List<Object>> compile(List<Expression> residual, RowSchema<String> schema) {
+        byte[] kinds = new byte[schema.size()];
+        List<CompiledExpression> tests = new ArrayList<>(residual.size());
+        for (Expression condition : residual) {
+            if (!bind(condition, schema, kinds)) {
+                return null;
+            }
+            tests.add(AstBuilder.build(condition).compile(schema::indexOf));
+        }
+        return values -> {
+            List<Object> typed = new TypedValues(values, kinds);
+            for (CompiledExpression test : tests) {
+                if (!test.test(typed)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Checks that a condition gives the same result on the client as in SOQL, and records the type its column
+     * is read as.
+     */
+    private static boolean bind(Expression condition, RowSchema<String> schema, byte[] kinds) {
+        if (condition instanceof IsNullExpression isNull) {
+            return slotOf(isNull.getLeftExpression(), schema) != -1;
+        }
+        if (!(condition instanceof EqualsTo || condition instanceof NotEqualsTo
+            || condition instanceof GreaterThan || condition instanceof GreaterThanEquals
+            || condition instanceof MinorThan || condition instanceof MinorThanEquals)) {
+            return false;
+        }
+        BinaryExpression comparison = (BinaryExpression) condition;
+        boolean columnOnLeft = comparison.getLeftExpression() instanceof Column;
+        Expression operand = columnOnLeft ? comparison.getLeftExpression() : comparison.getRightExpression();
+        Expression constant = columnOnLeft ? comparison.getRightExpression() : comparison.getLeftExpression();
+        int slot = slotOf(operand, schema);
+        if (slot == -1) {
+            return false;
+        }
+        boolean equality = condition instanceof EqualsTo || condition instanceof NotEqualsTo;
+        if (constant instanceof NullValue) {
+            return equality;
+        }
+        int sqlType = schema.getTypeInfo(slot).getSqlDataType();
+        if ((constant instanceof LongValue || constant instanceof DoubleValue) && NUMERIC_TYPES.contains(sqlType)) {
+            kinds[slot] = AS_NUMBER;
+            return true;
+        }
+        if (constant instanceof BooleanValue && sqlType == Types.BOOLEAN && equality) {
+            kinds[slot] = AS_BOOLEAN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the slot of an unqualified column, as the expression engine resolves it, or {@code -1}.
+     */
+    private static int slotOf(Expression expression, RowSchema<String> schema) {
+        if (expression instanceof Column column && column.getFullyQualifiedName().equals(column.getColumnName())) {
+            return schema.indexOf(column.getColumnName());
+        }
+        return -1;
+    }
+
+    /**
+     * Lower-cases the columns of a condition or sort key, in place.
+     */
+    private static final class ColumnNormalizer extends ExpressionVisitorAdapter<Expression> {
+
+        @Override
+        public <S> Expression visit(Column column, S context) {
+            column.setColumnName(column.getColumnName().toLowerCase(Locale.ROOT));
+            Table table = column.getTable();
+            if (table != null && table.getName() != null) {
+                table.setName(table.getName().toLowerCase(Locale.ROOT));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The values of a row with the numeric and boolean columns read by the conditions converted from the
+     * strings returned by Salesforce.
+     */
+    private static final class TypedValues extends AbstractList<Object> {
+
+        private final List<Object> values;
+        private final byte[] kinds;
+
+        TypedValues(List<Object> values, byte[] kinds) {
+            this.values = values;
+            this.kinds = kinds;
+        }
+
+        @Override
+        public Object get(int index) {
+            Object value = values.get(index);
+            if (value instanceof String s) {
+                if (kinds[index] == AS_NUMBER) {
+                    return new BigDecimal(s);
+                }
+                if (kinds[index] == AS_BOOLEAN) {
+                    return Boolean.valueOf(s);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import it.rotaliano.jdbc.salesforce.expression.CompiledExpression;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
+import it.rotaliano.jdbc.salesforce.statement.processor.SoqlQueryAnalyzer;
+import it.rotaliano.jdbc.salesforce.statement.processor.utils.EvaluateExpressionVisitor;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.expression.CaseExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The select items of a query computed on the client side ({@code COALESCE}, {@code CASE}, literals and emulated
+ * functions), compiled for one row layout.
+ *
+ * <p>The slots each item reads and the slot it writes are resolved once, so projecting a row only reads and
+ * writes its values by index. The items are applied in select order, each one seeing the values written by
+ * the previous ones.
+ */
+@Slf4j
+final class SelectProjection {
+
+    /**
+     * Computes one select item into the row values.
+     */
+    @FunctionalInterface
+    private interface Step {
+        void apply(List<Object> values);
+    }
+
+    private final Statement statement;
+    private final RowSchema<String> schema;
+    private final List<Step> steps;
+
+    private SelectProjection(Statement statement, RowSchema<String> schema, List<Step> steps) {
+        this.statement = statement;
+        this.schema = schema;
+        this.steps = steps;
+    }
+
+    /**
+     * Compiles the client-side select items of a statement for rows with the given columns.
+     *
+     * @param statement the analyzed statement
+     * @param schema the columns of the rows
+     * @param selectExpressions returns the expression of a literal or emulated function select item
+     * @return the projection
+     */
+    static SelectProjection compile(Statement statement, RowSchema<String> schema,
+        java.util.function.Function<SelectItem<?>, it.rotaliano.jdbc.salesforce.expression.Expression> selectExpressions) {
+        List<String> names = schema.getColumnNames();
+        List<String> labels = schema.getColumnLabels();
+        List<Step> steps = new ArrayList<>();
+        if (statement instanceof PlainSelect select) {
+            Map<String, Integer> fieldSlots = fieldSlots(names);
+            for (SelectItem<?> item : select.getSelectItems()) {
+                Step step = compileItem(item, names, labels, fieldSlots, selectExpressions);
+                if (step != null) {
+                    steps.add(step);
+                }
+            }
+        }
+        return new SelectProjection(statement, schema, steps);
+    }
+
+    private static Step compileItem(SelectItem<?> item, List<String> names, List<String> labels,
+        Map<String, Integer> fieldSlots,
+        java.util.function.Function<SelectItem<?>, it.rotaliano.jdbc.salesforce.expression.Expression> selectExpressions) {
+        Expression expr = item.getExpression();
+        if (expr instanceof Function func && "coalesce".equalsIgnoreCase(func.getName())) {
+            String alias = item.getAlias() != null ? item.getAlias().getName() : func.toString();
+            int output = outputSlot(names, alias, func.toString(), func.getName());
+            if (output == -1) {
+                return null;
+            }
+            List<CompiledExpression> params = new ArrayList<>();
+            if (func.getParameters() != null) {
+                for (Expression param : func.getParameters()) {
+                    params.add(compileParameter(param, fieldSlots));
+                }
+            }
+            return values -> {
+                Object coalescedValue = null;
+                for (CompiledExpression param : params) {
+                    Object val = param.evaluate(values);
+                    if (val != null) {
+                        coalescedValue = val;
+                        break;
+                    }
+                }
+                values.set(output, coalescedValue);
+            };
+        }
+        if (expr instanceof CaseExpression caseExpr) {
+            String alias = item.getAlias() != null ? item.getAlias().getName() : "case_expression";
+            int output = outputSlot(names, alias, caseExpr.toString());
+            if (output == -1) {
+                return null;
+            }
+            return values -> values.set(output, visit(caseExpr, new SlotMap(fieldSlots, values)));
+        }
+        if (SoqlQueryAnalyzer.isLiteral(expr) || SoqlQueryAnalyzer.containsEmulatedFunctions(expr)) {
+            String alias = item.getAlias() != null ? item.getAlias().getName() : expr.toString();
+            int output = outputSlot(names, alias, expr.toString());
+            if (output == -1) {
+                return null;
+            }
+            CompiledExpression compiled;
+            try {
+                compiled = selectExpressions.apply(item).compile(column -> rowSlot(names, labels, column));
+            } catch (Exception e) {
+                log.error("Failed evaluating client side string function", e);
+                return null;
+            }
+            return values -> {
+                try {
+                    values.set(output, compiled.evaluate(values));
+                } catch (Exception e) {
+                    log.error("Failed evaluating client side string function", e);
+                }
+            };
+        }
+        return null;
+    }
+
+    private static CompiledExpression compileParameter(Expression param, Map<String, Integer> fieldSlots) {
+        if (param instanceof Column column) {
+            int slot = fieldSlots.getOrDefault(column.getColumnName(), -1);
+            return values -> CompiledExpression.valueAt(values, slot);
+        }
+        if (SoqlQueryAnalyzer.isLiteral(param)) {
+            Object constant = visit(param, Collections.emptyMap());
+            return values -> constant;
+        }
+        return values -> visit(param, new SlotMap(fieldSlots, values));
+    }
+
+    private static Object visit(Expression expr, Map<String, Object> fields) {
+        EvaluateExpressionVisitor visitor = new EvaluateExpressionVisitor(fields);
+        expr.accept(visitor);
+        return visitor.getResult();
+    }
+
+    /**
+     * Returns the slot of each field name seen by {@link EvaluateExpressionVisitor}: the full column name and
+     * its last segment, the last column winning.
+     */
+    private static Map<String, Integer> fieldSlots(List<String> names) {
+        Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            if (name == null) {
+                continue;
+            }
+            slots.put(name, i);
+            String[] parts = StringUtils.split(name, '.');
+            if (parts.length > 0) {
+                slots.put(parts[parts.length - 1], i);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Returns the slot of the first column named, or suffixed by, one of the candidates.
+     */
+    private static int outputSlot(List<String> names, String... candidates) {
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            if (name == null) {
+                continue;
+            }
+            for (String candidate : candidates) {
+                if (name.equalsIgnoreCase(candidate) || name.endsWith("." + candidate)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of a column referenced by an emulated function: by name, then by label, then by suffix.
+     */
+    private static int rowSlot(List<String> names, List<String> labels, String column) {
+        int slot = names.indexOf(column);
+        if (slot == -1) {
+            slot = labels.indexOf(column);
+        }
+        if (slot == -1) {
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (name != null && name.endsWith("." + column)) {
+                    return i;
+                }
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Indicates whether this projection was compiled for the statement and row columns.
+     */
+    boolean matches(Statement statement, RowSchema<String> schema) {
+        return this.statement == statement && this.schema.sameColumns(schema);
+    }
+
+    /**
+     * Computes the client-side select items into the values of a row.
+     */
+    void apply(List<Object> values) {
+        try {
+            for (Step step : steps) {
+                step.apply(values);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to evaluate client-side expressions", e);
+        }
+    }
+
+    /**
+     * Read-only view of the values of a row by field name, for the expressions left to
+     * {@link EvaluateExpressionVisitor}.
+     */
+    private static final class SlotMap extends AbstractMap<String, Object> {
+
+        private final Map<String, Integer> slots;
+        private final List<?> values;
+
+        SlotMap(Map<String, Integer> slots, List<?> values) {
+            this.slots = slots;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer slot = slots.get(key);
+            return slot != null ? values.get(slot) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return slots.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> fields = new HashMap<>();
+            slots.forEach((name, slot) -> fields.put(name, values.get(slot)));
+            return fields.entrySet();
+        }
+    }
+}
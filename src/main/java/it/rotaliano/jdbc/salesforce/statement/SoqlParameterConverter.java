@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -11,13 +13,28 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Utility class for converting Java parameter values to their SOQL string representations.
+ *
+ * <p>The renderers of {@link #appendSoqlParam(StringBuilder, Object)} append the SOQL literal of a value straight
+ * into the query being built. They are stateless, so a query can be rendered by several threads at once.
  */
 @Slf4j
 public final class SoqlParameterConverter {
 
     public static final String ISO_DATETIME = "yyyy-MM-dd'T'HH:mm:ss'+00:00'";
 
+    // Thread-safe, unlike SimpleDateFormat; see isoDateTimeFormatter() for the time zone
+    private static final DateTimeFormatter ISO_DATETIME_FORMATTER = DateTimeFormatter.ofPattern(ISO_DATETIME);
+
+    /**
+     * Appends the SOQL literal of a parameter value to a query.
+     */
+    @FunctionalInterface
+    private interface ParamRenderer {
+        void render(StringBuilder out, Object value);
+    }
+
     private static final Map<Class<?>, Function<Object, String>> PARAM_CONVERTERS = new HashMap<>();
+    private static final Map<Class<?>, ParamRenderer> PARAM_RENDERERS = new HashMap<>();
 
     static {
         PARAM_CONVERTERS.put(String.class, SoqlParameterConverter::toSoqlStringParam);
@@ -29,14 +46,35 @@ public final class SoqlParameterConverter {
         PARAM_CONVERTERS.put(Integer.class, Object::toString);
         PARAM_CONVERTERS.put(Long.class, Object::toString);
         PARAM_CONVERTERS.put(Short.class, Object::toString);
-        PARAM_CONVERTERS.put(java.util.Date.class, new SimpleDateFormat(ISO_DATETIME)::format);
-        PARAM_CONVERTERS.put(Timestamp.class, new SimpleDateFormat(ISO_DATETIME)::format);
+        PARAM_CONVERTERS.put(java.util.Date.class, p -> isoDateTimeFormatter().format(((java.util.Date) p).toInstant()));
+        PARAM_CONVERTERS.put(Timestamp.class, p -> isoDateTimeFormatter().format(((Timestamp) p).toInstant()));
         PARAM_CONVERTERS.put(null, p -> "NULL");
+
+        PARAM_RENDERERS.put(String.class, (out, p) -> appendStringLiteral(out, (String) p));
+        PARAM_RENDERERS.put(Object.class, (out, p) -> appendStringLiteral(out, p.toString()));
+        PARAM_RENDERERS.put(Boolean.class, (out, p) -> out.append(((Boolean) p).booleanValue()));
+        PARAM_RENDERERS.put(Double.class, (out, p) -> out.append(((Double) p).doubleValue()));
+        PARAM_RENDERERS.put(BigDecimal.class, (out, p) -> out.append(p));
+        PARAM_RENDERERS.put(Float.class, (out, p) -> out.append(((Float) p).floatValue()));
+        PARAM_RENDERERS.put(Integer.class, (out, p) -> out.append(((Integer) p).intValue()));
+        PARAM_RENDERERS.put(Long.class, (out, p) -> out.append(((Long) p).longValue()));
+        PARAM_RENDERERS.put(Short.class, (out, p) -> out.append(((Short) p).shortValue()));
+        PARAM_RENDERERS.put(java.util.Date.class, (out, p) -> isoDateTimeFormatter().formatTo(((java.util.Date) p).toInstant(), out));
+        PARAM_RENDERERS.put(Timestamp.class, (out, p) -> isoDateTimeFormatter().formatTo(((Timestamp) p).toInstant(), out));
+        PARAM_RENDERERS.put(null, (out, p) -> out.append("NULL"));
     }
 
     private SoqlParameterConverter() {
     }
 
+    /**
+     * Returns the formatter of date-time literals in the current default time zone, the one {@code {ts ...}}
+     * values are parsed in, so a date-time parsed and rendered again keeps its wall-clock value.
+     */
+    private static DateTimeFormatter isoDateTimeFormatter() {
+        return ISO_DATETIME_FORMATTER.withZone(ZoneId.systemDefault());
+    }
+
     static String toSoqlStringParam(Object param) {
         return "'" + param.toString()
             .replaceAll("'", "\\\\'")
@@ -51,6 +89,38 @@ public final class SoqlParameterConverter {
         return PARAM_CONVERTERS.get(paramClass).apply(paramValue);
     }
 
+    /**
+     * Appends the SOQL literal of a parameter value to a query.
+     *
+     * <p>Unlike {@link #convertToSoqlParam(Object)}, whose result is meant to go through a regular expression
+     * replacement, the literal is appended as it must appear in the query.
+     *
+     * @param out the query being built
+     * @param paramValue the parameter value, possibly {@code null}
+     */
+    public static void appendSoqlParam(StringBuilder out, Object paramValue) {
+        if (paramValue instanceof String param && param.startsWith("{ts")) {
+            java.util.Date date = convertStringToDate(param);
+            if (date != null) {
+                PARAM_RENDERERS.get(java.util.Date.class).render(out, date);
+                return;
+            }
+        }
+        PARAM_RENDERERS.get(getParamClass(paramValue)).render(out, paramValue);
+    }
+
+    private static void appendStringLiteral(StringBuilder out, String value) {
+        out.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        out.append('\'');
+    }
+
     private static java.util.Date convertStringToDate(String paramValue) {
         if (paramValue == null) {
             return null;
@@ -0,0 +1,100 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A SOQL string split once into its literal segments and {@code ?} parameter slots, so rendering it with a
+ * set of parameter values is a single pass over the segments.
+ *
+ * <p>A {@code ?} inside a quoted literal is part of the literal, not a parameter slot. Instances are immutable
+ * and can be rendered by several threads at once.
+ */
+final class SoqlTemplate {
+
+    private static final int ESTIMATED_PARAMETER_LENGTH = 16;
+
+    private final String soql;
+    private final String[] segments;
+    private final int literalLength;
+
+    private SoqlTemplate(String soql, String[] segments) {
+        this.soql = soql;
+        this.segments = segments;
+        this.literalLength = soql.length() - (segments.length - 1);
+    }
+
+    /**
+     * Splits a SOQL string on the {@code ?} placeholders outside of quoted literals.
+     *
+     * @param soql the SOQL string
+     * @return the template
+     */
+    static SoqlTemplate parse(String soql) {
+        List<String> segments = new ArrayList<>();
+        int length = soql.length();
+        int start = 0;
+        int i = 0;
+        while (i < length) {
+            char c = soql.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(soql, i, c);
+            } else if (c == '?') {
+                segments.add(soql.substring(start, i));
+                start = ++i;
+            } else {
+                i++;
+            }
+        }
+        segments.add(soql.substring(start));
+        return new SoqlTemplate(soql, segments.toArray(new String[0]));
+    }
+
+    private static int skipQuoted(String soql, int start, char quote) {
+        int i = start + 1;
+        while (i < soql.length()) {
+            char c = soql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return soql.length();
+    }
+
+    String getSoql() {
+        return soql;
+    }
+
+    int getParameterCount() {
+        return segments.length - 1;
+    }
+
+    /**
+     * Renders the template with the given parameter values. Slots past the end of the values are kept as
+     * {@code ?}.
+     *
+     * @param parameters the values of the slots, in order
+     * @return the SOQL string with the values rendered as SOQL literals
+     */
+    String render(List<Object> parameters) {
+        int slots = getParameterCount();
+        if (slots == 0) {
+            return soql;
+        }
+        StringBuilder result = new StringBuilder(literalLength + slots * ESTIMATED_PARAMETER_LENGTH);
+        result.append(segments[0]);
+        for (int i = 0; i < slots; i++) {
+            if (i < parameters.size()) {
+                SoqlParameterConverter.appendSoqlParam(result, parameters.get(i));
+            } else {
+                result.append('?');
+            }
+            result.append(segments[i + 1]);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide index of the plain queries with a cached result, by cache scope and {@link QueryShape#getFamily()
+ * family}, so a narrower query of the same family can be answered from one of them.
+ *
+ * <p>The index only points to the results: a result evicted from the data cache is dropped from the index when
+ * a lookup misses it. The index holds at most {@link DriverConfiguration#getStatementCacheSize()} families,
+ * evicting the least recently used one, and the last {@value #MAX_PER_FAMILY} queries of each family.
+ */
+final class SubsumptionIndex {
+
+    private static final int MAX_PER_FAMILY = 16;
+    private static final SubsumptionIndex INSTANCE = new SubsumptionIndex(DriverConfiguration.getStatementCacheSize());
+
+    /**
+     * A plain query with a cached result.
+     *
+     * @param cacheKey the key of the result in the data cache
+     * @param shape the shape of the query
+     */
+    record Candidate(String cacheKey, QueryShape shape) {
+    }
+
+    private final int maxSize;
+    private final Map<String, List<Candidate>> families;
+
+    SubsumptionIndex(int maxSize) {
+        this.maxSize = maxSize;
+        this.families = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Candidate>> eldest) {
+                return size() > SubsumptionIndex.this.maxSize;
+            }
+        };
+    }
+
+    static SubsumptionIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records the cached result of a plain query; other queries are ignored.
+     *
+     * @param scope the cache scope of the result, empty for the global cache
+     * @param cacheKey the key of the result in the data cache
+     * @param shape the shape of the query
+     */
+    void register(String scope, String cacheKey, QueryShape shape) {
+        if (!shape.isPlain() || maxSize == 0) {
+            return;
+        }
+        String family = scope + '\u0000' + shape.getFamily();
+        synchronized (families) {
+            List<Candidate> candidates = families.computeIfAbsent(family, f -> new ArrayList<>());
+            candidates.removeIf(c -> c.cacheKey().equals(cacheKey));
+            candidates.add(new Candidate(cacheKey, shape));
+            if (candidates.size() > MAX_PER_FAMILY) {
+                candidates.remove(0);
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed queries that can answer a plain query, the most recently cached first.
+     *
+     * @param scope the cache scope of the query, empty for the global cache
+     * @param shape the shape of the query
+     * @return the candidates, possibly empty
+     */
+    List<Candidate> candidates(String scope, QueryShape shape) {
+        if (!shape.isPlain()) {
+            return List.of();
+        }
+        List<Candidate> result = new ArrayList<>();
+        synchronized (families) {
+            List<Candidate> candidates = families.get(scope + '\u0000' + shape.getFamily());
+            if (candidates == null) {
+                return result;
+            }
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                Candidate candidate = candidates.get(i);
+                if (candidate.shape() != shape && shape.residual(candidate.shape()) != null) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops a query whose result is no longer cached.
+     */
+    void remove(String scope, Candidate candidate) {
+        String family = scope + '\u0000' + candidate.shape().getFamily();
+        synchronized (families) {
+            List<Candidate> candidates = families.get(family);
+            if (candidates != null && candidates.remove(candidate) && candidates.isEmpty()) {
+                families.remove(family);
+            }
+        }
+    }
+}
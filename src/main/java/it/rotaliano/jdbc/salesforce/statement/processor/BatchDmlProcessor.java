@@ -0,0 +1,254 @@
+package it.rotaliano.jdbc.salesforce.statement.processor;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
+import com.sforce.soap.partner.DeleteResult;
+import com.sforce.soap.partner.IError;
+import com.sforce.soap.partner.SaveResult;
+import com.sforce.ws.ConnectionException;
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes a JDBC batch of DML statements with as few Salesforce API calls as possible.
+ *
+ * <p>Consecutive batch entries with the same operation and target SObject form a run. The runs are
+ * executed in batch order: the entries of a run are expanded into the records they affect only once the
+ * runs before it were sent, so that the WHERE clauses and sub-selects of an entry see the changes of the
+ * entries before it. The records of a run are sent in chunks of {@link DriverConfiguration#getDmlBatchSize()}
+ * records, or as a single Bulk API 2.0 ingest above {@link DriverConfiguration#getBulkIngestThreshold()}
+ * records; a record whose id is already in the chunk starts a new one, as an API call rejects duplicate
+ * ids. The per-record results are mapped back to the batch entries they came from: an entry reports the
+ * number of records it changed, or {@link Statement#EXECUTE_FAILED} if any of its records was rejected.
+ */
+@Slf4j
+public class BatchDmlProcessor {
+
+    /**
+     * A single statement added to the batch together with a snapshot of its parameters.
+     *
+     * @param soql the DML statement
+     * @param parameters the parameters bound when the entry was added
+     */
+    public record BatchEntry(String soql, List<Object> parameters) {
+    }
+
+    private BatchDmlProcessor() {
+    }
+
+    /**
+     * Executes all entries of a batch.
+     *
+     * @param entries the batch entries in the order they were added
+     * @param partnerService the service used to call Salesforce
+     * @param subSelectResolver resolver for sub-selects used to find the affected records
+     * @return the update count of each entry
+     * @throws BatchUpdateException if an entry is not a DML statement or any record failed
+     */
+    public static int[] processBatch(List<BatchEntry> entries, IPartnerService partnerService,
+        BiFunction<String, List<Object>, List<Map<String, Object>>> subSelectResolver) throws BatchUpdateException {
+
+        int[] updateCounts = new int[entries.size()];
+        boolean[] failed = new boolean[entries.size()];
+        List<String> errors = new ArrayList<>();
+
+        Map<String, QueryAnalyzer> analyzers = new HashMap<>();
+        List<Run> runs = new ArrayList<>();
+        Run current = null;
+        for (int i = 0; i < entries.size(); i++) {
+            BatchEntry entry = entries.get(i);
+            QueryAnalyzer analyzer = analyzers.computeIfAbsent(entry.soql(),
+                soql -> new QueryAnalyzer(soql, subSelectResolver, partnerService));
+            StatementTypeEnum type = StatementRouter.getStatementType(entry.soql(), analyzer);
+            if (type != StatementTypeEnum.INSERT && type != StatementTypeEnum.UPDATE
+                && type != StatementTypeEnum.DELETE) {
+                throw new BatchUpdateException(
+                    "Batch entry " + i + " is not an INSERT, UPDATE or DELETE statement: " + entry.soql(),
+                    Arrays.copyOf(updateCounts, i));
+            }
+            String objectName = analyzer.getFromObjectName();
+            if (current == null || current.type != type || !current.objectName.equalsIgnoreCase(objectName)) {
+                current = new Run(type, objectName);
+                runs.add(current);
+            }
+            current.entries.add(i);
+        }
+
+        for (Run run : runs) {
+            for (int i : run.entries) {
+                BatchEntry entry = entries.get(i);
+                run.add(i, collectRecords(run.type, analyzers.get(entry.soql()), entry.parameters()));
+            }
+            // above the bulk ingest threshold the whole run goes to a single bulk operation
+            int chunkSize = DriverConfiguration.isBulkIngest(run.owners.size())
+                ? run.owners.size() : DriverConfiguration.getDmlBatchSize();
+            boolean sent = false;
+            try {
+                int from = 0;
+                while (from < run.owners.size()) {
+                    int to = run.chunkEnd(from, chunkSize);
+                    List<Integer> owners = run.owners.subList(from, to);
+                    try {
+                        sent = true;
+                        String[] chunkErrors = run.send(partnerService, from, to);
+                        for (int j = 0; j < chunkErrors.length; j++) {
+                            int owner = owners.get(j);
+                            if (chunkErrors[j] == null) {
+                                updateCounts[owner]++;
+                            } else {
+                                failed[owner] = true;
+                                errors.add(run.objectName + " failed to " + run.verb()
+                                    + " with error=" + chunkErrors[j]);
+                            }
+                        }
+                    } catch (ConnectionException e) {
+                        log.error("Failed request to {} {} entities with error: {}",
+                            run.verb(), run.objectName, e.getMessage(), e);
+                        owners.forEach(owner -> failed[owner] = true);
+                        errors.add("Failed request to " + run.verb() + " " + run.objectName
+                            + " entities with error: " + e.getMessage());
+                    }
+                    from = to;
+                }
+            } finally {
+                // a chunk whose request failed on the way back may still have changed records
+                if (sent) {
+                    DmlResultHandler.invalidateCache(partnerService, run.objectName,
+                        run.type == StatementTypeEnum.DELETE);
+                }
+            }
+        }
+
+        for (int i = 0; i < failed.length; i++) {
+            if (failed[i]) {
+                updateCounts[i] = Statement.EXECUTE_FAILED;
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BatchUpdateException(String.join("; ", errors), updateCounts);
+        }
+        return updateCounts;
+    }
+
+    private static List<?> collectRecords(StatementTypeEnum type, QueryAnalyzer analyzer, List<Object> parameters) {
+        List<?> records = switch (type) {
+            case INSERT -> new InsertQueryAnalyzer(analyzer).getRecords(parameters);
+            case UPDATE -> new UpdateQueryAnalyzer(analyzer).getRecords(parameters);
+            case DELETE -> new DeleteQueryAnalyzer(analyzer).getRecords(parameters);
+            default -> null;
+        };
+        return records != null ? records : List.of();
+    }
+
+    /**
+     * Consecutive batch entries of a single operation on a single SObject and, once resolved, their records,
+     * each remembering the batch entry it belongs to.
+     */
+    private static final class Run {
+
+        private final StatementTypeEnum type;
+        private final String objectName;
+        private final List<Integer> entries = new ArrayList<>();
+        private final List<Object> records = new ArrayList<>();
+        private final List<Integer> owners = new ArrayList<>();
+
+        private Run(StatementTypeEnum type, String objectName) {
+            this.type = type;
+            this.objectName = objectName;
+        }
+
+        private void add(int owner, List<?> entryRecords) {
+            for (Object rec : entryRecords) {
+                records.add(rec);
+                owners.add(owner);
+            }
+        }
+
+        /**
+         * Returns the end of the chunk starting at {@code from}: at most {@code chunkSize} records, ending before
+         * the first record whose id is already in the chunk.
+         */
+        private int chunkEnd(int from, int chunkSize) {
+            int end = Math.min(from + chunkSize, records.size());
+            if (type == StatementTypeEnum.INSERT) {
+                return end;
+            }
+            Set<String> ids = new HashSet<>();
+            for (int i = from; i < end; i++) {
+                String id = idOf(records.get(i));
+                if (id != null && !ids.add(id)) {
+                    return i;
+                }
+            }
+            return end;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static String idOf(Object rec) {
+            Object id = rec instanceof Map<?, ?> map ? ((Map<String, Object>) map).get("Id") : rec;
+            return id != null ? id.toString() : null;
+        }
+
+        private String verb() {
+            return switch (type) {
+                case INSERT -> "create";
+                case UPDATE -> "update";
+                default -> "delete";
+            };
+        }
+
+        /**
+         * Sends the records in {@code [from, to)} and returns, for each of them, {@code null} on success
+         * or the error message on failure.
+         */
+        @SuppressWarnings("unchecked")
+        private String[] send(IPartnerService partnerService, int from, int to) throws ConnectionException {
+            List<Object> chunk = records.subList(from, to);
+            String[] result = new String[chunk.size()];
+            if (type == StatementTypeEnum.DELETE) {
+                List<String> ids = (List<String>) (List<?>) chunk;
+                DeleteResult[] deleteResults = partnerService.deleteRecords(ids);
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = errorOf(deleteResults, i);
+                }
+            } else {
+                List<Map<String, Object>> maps = (List<Map<String, Object>>) (List<?>) chunk;
+                SaveResult[] saveResults = type == StatementTypeEnum.INSERT
+                    ? partnerService.createRecords(objectName, maps)
+                    : partnerService.saveRecords(objectName, maps);
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = errorOf(saveResults, i);
+                }
+            }
+            return result;
+        }
+
+        private static String errorOf(SaveResult[] results, int i) {
+            if (results == null || i >= results.length) {
+                return "no result returned";
+            }
+            return results[i].isSuccess() ? null : joinErrors(results[i].getErrors());
+        }
+
+        private static String errorOf(DeleteResult[] results, int i) {
+            if (results == null || i >= results.length) {
+                return "no result returned";
+            }
+            return results[i].isSuccess() ? null : joinErrors(results[i].getErrors());
+        }
+
+        private static String joinErrors(IError[] errors) {
+            return errors == null ? "" : Arrays.stream(errors).map(IError::getMessage).collect(Collectors.joining(","));
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
 import it.rotaliano.jdbc.salesforce.resultset.CommandLogCachedResultSet;
 import com.sforce.soap.partner.DeleteResult;
@@ -11,26 +11,36 @@ import java.util.stream.Collectors;
 
 public class DeleteQueryProcessor {
 
-    public static CachedResultSet processQuery(List<Object> parameters, PartnerService partnerService,
+    public static CachedResultSet processQuery(List<Object> parameters, IPartnerService partnerService,
         DeleteQueryAnalyzer deleteQueryAnalyzer) {
 
         String fromObjectName = deleteQueryAnalyzer.getFromObjectName();
+        boolean[] sent = {false};
 
-        CommandLogCachedResultSet resultSet = DmlResultHandler.execute(
-            "delete " + fromObjectName + " entities",
-            rs -> {
-                List<String> recordsToDelete = deleteQueryAnalyzer.getRecords(parameters);
-                DeleteResult[] records = partnerService.deleteRecords(recordsToDelete);
-                for (DeleteResult result : records) {
-                    if (result.isSuccess()) {
-                        rs.setId(result.getId());
-                    } else {
-                        rs.addWarning(fromObjectName + " failed to delete with error="
-                            + Arrays.stream(result.getErrors()).map(IError::getMessage)
-                                .collect(Collectors.joining(",")));
+        CommandLogCachedResultSet resultSet;
+        try {
+            resultSet = DmlResultHandler.execute(
+                "delete " + fromObjectName + " entities",
+                rs -> {
+                    List<String> recordsToDelete = deleteQueryAnalyzer.getRecords(parameters);
+                    sent[0] = true;
+                    DeleteResult[] records = partnerService.deleteRecords(recordsToDelete);
+                    for (DeleteResult result : records) {
+                        if (result.isSuccess()) {
+                            rs.setId(result.getId());
+                        } else {
+                            rs.addWarning(fromObjectName + " failed to delete with error="
+                                + Arrays.stream(result.getErrors()).map(IError::getMessage)
+                                    .collect(Collectors.joining(",")));
+                        }
                     }
-                }
-            });
+                });
+        } finally {
+            // a request that failed on the way back may still have changed records
+            if (sent[0]) {
+                DmlResultHandler.invalidateCache(partnerService, fromObjectName, true);
+            }
+        }
 
         return resultSet;
     }
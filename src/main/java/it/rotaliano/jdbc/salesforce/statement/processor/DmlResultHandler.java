@@ -1,7 +1,13 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
+import it.rotaliano.jdbc.salesforce.cache.CacheInvalidator;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.resultset.CommandLogCachedResultSet;
+import com.sforce.soap.partner.ChildRelationship;
+import com.sforce.soap.partner.DescribeSObjectResult;
 import com.sforce.ws.ConnectionException;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -29,4 +35,33 @@ public class DmlResultHandler {
         }
         return resultSet;
     }
+
+    /**
+     * Evicts the cached results reading an object whose records were changed. A delete also changes the
+     * objects whose records Salesforce deletes with their parent through a cascade-delete relationship.
+     *
+     * @param partnerService the service used to describe the object
+     * @param objectName     the changed object
+     * @param delete         whether the records were deleted
+     */
+    public static void invalidateCache(IPartnerService partnerService, String objectName, boolean delete) {
+        Set<String> objectNames = new LinkedHashSet<>();
+        objectNames.add(objectName);
+        if (delete) {
+            try {
+                DescribeSObjectResult describe = partnerService.describeSObject(objectName);
+                if (describe != null && describe.getChildRelationships() != null) {
+                    for (ChildRelationship relationship : describe.getChildRelationships()) {
+                        if (relationship.isCascadeDelete() && relationship.getChildSObject() != null) {
+                            objectNames.add(relationship.getChildSObject());
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to describe {}, cached results of its cascade-deleted children are kept",
+                    objectName, e);
+            }
+        }
+        CacheInvalidator.getInstance().invalidate(objectNames);
+    }
 }
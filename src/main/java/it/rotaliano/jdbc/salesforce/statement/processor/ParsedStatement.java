@@ -0,0 +1,103 @@
+package it.rotaliano.jdbc.salesforce.statement.processor;
+
+import it.rotaliano.jdbc.salesforce.expression.Expression;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.statement.Statement;
+
+/**
+ * The parse and analysis of a SQL statement, shared by every execution of the same statement text.
+ *
+ * <p>The AST is read-only once the statement is built: callers that need to rewrite it work on a copy
+ * (see {@link QueryAnalyzer#copyQueryData()}). The results of the later analysis steps are kept here as
+ * they are computed, so each of them runs once per distinct statement.
+ *
+ * <p>Everything held here is shared by concurrent executions on every connection, so none of it may change
+ * once kept: the field definition trees are read-only (see {@link FieldDefTree#makeReadOnly()}), the client
+ * side expressions are immutable, and the jsqlparser statements, which cannot be locked, are only read.
+ */
+@Getter
+public final class ParsedStatement {
+
+    /**
+     * The SOQL sent to Salesforce for a statement, with the select items evaluated on the client side.
+     *
+     * @param soql the rewritten SOQL
+     * @param clientSideWhereExpression the WHERE condition evaluated on the client side, or {@code null}
+     */
+    record SoqlRewrite(String soql, Expression clientSideWhereExpression) {
+    }
+
+    /**
+     * The fields selected by a statement, resolved against the describe of one org.
+     *
+     * @param fieldDefinitions the field definition tree
+     * @param statement the AST rewritten while resolving the fields
+     * @param describeVersion the version of the describe metadata the fields were resolved against
+     */
+    record FieldAnalysis(FieldDefTree fieldDefinitions, Statement statement, long describeVersion) {
+    }
+
+    private final String soql;
+    private final Statement statement;
+    private final boolean expandedStarSyntaxForFields;
+    private final JSQLParserException parseError;
+
+    @Getter(AccessLevel.NONE)
+    private volatile SoqlRewrite soqlRewrite;
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentMap<String, FieldAnalysis> fieldAnalyses = new ConcurrentHashMap<>();
+
+    ParsedStatement(String soql, Statement statement, boolean expandedStarSyntaxForFields) {
+        this.soql = soql;
+        this.statement = statement;
+        this.expandedStarSyntaxForFields = expandedStarSyntaxForFields;
+        this.parseError = null;
+    }
+
+    private ParsedStatement(String soql, JSQLParserException parseError) {
+        this.soql = soql;
+        this.statement = null;
+        this.expandedStarSyntaxForFields = false;
+        this.parseError = parseError;
+    }
+
+    /**
+     * Records a statement that could not be parsed, so the failure is not repeated on every execution.
+     */
+    static ParsedStatement failed(String soql, JSQLParserException parseError) {
+        return new ParsedStatement(soql, parseError);
+    }
+
+    SoqlRewrite getSoqlRewrite() {
+        return soqlRewrite;
+    }
+
+    void setSoqlRewrite(SoqlRewrite soqlRewrite) {
+        this.soqlRewrite = soqlRewrite;
+    }
+
+    /**
+     * Returns the field analysis for an org, or {@code null} if there is none or it was resolved against
+     * another version of the describe metadata.
+     */
+    FieldAnalysis getFieldAnalysis(String orgId, long describeVersion) {
+        FieldAnalysis analysis = fieldAnalyses.get(orgId);
+        return analysis != null && analysis.describeVersion() == describeVersion ? analysis : null;
+    }
+
+    /**
+     * Keeps the field analysis for an org, returning the one already kept if another thread got there first
+     * with the same or a later describe version. The field definition tree is made read-only before it is
+     * shared.
+     */
+    FieldAnalysis putFieldAnalysis(String orgId, FieldAnalysis analysis) {
+        analysis.fieldDefinitions().makeReadOnly();
+        return fieldAnalyses.merge(orgId, analysis,
+            (existing, added) -> existing.describeVersion() >= added.describeVersion() ? existing : added);
+    }
+}
@@ -1,6 +1,6 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import com.sforce.soap.partner.DescribeSObjectResult;
 import java.util.Arrays;
 import java.util.List;
@@ -32,13 +32,14 @@ public class QueryAnalyzer {
     private String originalSoql;
     private final BiFunction<String, List<Object>, List<Map<String, Object>>> subSelectResolver;
     private Statement queryData;
-    private final PartnerService partnerService;
+    private final IPartnerService partnerService;
     private boolean expandedStarSyntaxForFields = false;
+    private ParsedStatement parsedStatement;
     @lombok.Setter
     private boolean resolveSubqueriesClientSide = false;
 
     public QueryAnalyzer(String soql,
-        BiFunction<String, List<Object>, List<Map<String, Object>>> subSelectResolver, PartnerService partnerService) {
+        BiFunction<String, List<Object>, List<Map<String, Object>>> subSelectResolver, IPartnerService partnerService) {
         this.originalSoql = soql;
         this.soql = soql;
         this.subSelectResolver = subSelectResolver;
@@ -80,40 +81,67 @@ public class QueryAnalyzer {
 
     protected Statement getQueryData(boolean silentMode) {
         if (queryData == null) {
-            try {
-                queryData = CCJSqlParserUtil.parse(soql,
-        parser -> parser.withBackslashEscapeCharacter(true)
-                );
-                if (queryData instanceof PlainSelect select) {
-                    this.expandedStarSyntaxForFields = false;
-                    log.debug("DEBUG_SELECT_ITEM: '{}'", select.getSelectItem(0).toString());
-                    if ("*".equals(select.getSelectItem(0).toString())) {
-                        select.getSelectItems().clear();
-                        this.expandedStarSyntaxForFields = true;
-                        DescribeSObjectResult describeSObjectResult = describeObject(select.getFromItem().toString());
-                        Arrays.stream(describeSObjectResult.getFields())
-                            .forEach(f -> select.addSelectItem(new Column(null, f.getName())));
-                    }
-                    // Replace count(*) with count(Id) as SOQL doesn't support count(*)
-                    replaceCountStarWithCountId(select);
-                    this.soql = select.toString();
-                    return select;
-                }
-            } catch (JSQLParserException e) {
-                if (!silentMode) {
-                    log.error("Failed request to create entities with error: {}", e.getMessage(), e);
-                }
+            parsedStatement = StatementCache.getInstance().get(soql, this::getOrgId, sql -> parse(sql, partnerService));
+            queryData = parsedStatement.getStatement();
+            if (queryData instanceof PlainSelect) {
+                this.expandedStarSyntaxForFields = parsedStatement.isExpandedStarSyntaxForFields();
+                this.soql = parsedStatement.getSoql();
+            } else if (queryData == null && !silentMode) {
+                JSQLParserException e = parsedStatement.getParseError();
+                log.error("Failed request to create entities with error: {}", e.getMessage(), e);
             }
         }
         return queryData;
     }
 
+    /**
+     * Returns a private copy of the parsed statement, for callers that rewrite it.
+     *
+     * <p>The statement returned by {@link #getQueryData()} is shared by every execution of the same SQL
+     * and must not be changed.
+     */
+    Statement copyQueryData() {
+        try {
+            return CCJSqlParserUtil.parse(soql, parser -> parser.withBackslashEscapeCharacter(true));
+        } catch (JSQLParserException e) {
+            throw new IllegalStateException("Failed to copy the parsed statement: " + soql, e);
+        }
+    }
+
+    /**
+     * Returns the organization the statement runs against, or {@code null} if it is not known.
+     */
+    String getOrgId() {
+        return partnerService != null ? partnerService.getOrgId() : null;
+    }
 
-    private DescribeSObjectResult describeObject(String fromObjectName) {
-        return partnerService.describeSObject(fromObjectName);
+    private static ParsedStatement parse(String soql, IPartnerService partnerService) {
+        Statement statement;
+        try {
+            statement = CCJSqlParserUtil.parse(soql,
+                parser -> parser.withBackslashEscapeCharacter(true)
+            );
+        } catch (JSQLParserException e) {
+            return ParsedStatement.failed(soql, e);
+        }
+        if (statement instanceof PlainSelect select) {
+            boolean expandedStarSyntaxForFields = false;
+            log.debug("DEBUG_SELECT_ITEM: '{}'", select.getSelectItem(0).toString());
+            if ("*".equals(select.getSelectItem(0).toString())) {
+                select.getSelectItems().clear();
+                expandedStarSyntaxForFields = true;
+                DescribeSObjectResult describeSObjectResult = partnerService.describeSObject(select.getFromItem().toString());
+                Arrays.stream(describeSObjectResult.getFields())
+                    .forEach(f -> select.addSelectItem(new Column(null, f.getName())));
+            }
+            // Replace count(*) with count(Id) as SOQL doesn't support count(*)
+            replaceCountStarWithCountId(select);
+            return new ParsedStatement(select.toString(), select, expandedStarSyntaxForFields);
+        }
+        return new ParsedStatement(soql, statement, false);
     }
 
-    private void replaceCountStarWithCountId(PlainSelect select) {
+    private static void replaceCountStarWithCountId(PlainSelect select) {
         for (int i = 0; i < select.getSelectItems().size(); i++) {
             SelectItem<?> item = select.getSelectItems().get(i);
             Expression expr = item.getExpression();
@@ -1,6 +1,5 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
-import it.rotaliano.jdbc.salesforce.delegates.ForceResultField;
 import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
@@ -9,8 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,20 +36,19 @@ public class SelectQueryProcessor {
             it.rotaliano.jdbc.salesforce.expression.Expression whereFilter = stmt.getSoqlQueryAnalyzer().getClientSideWhereExpression();
 
             if (stmt.isNoCacheMode()) {
-                stmt.setNeverQueriedMore(true);
-                return new CachedResultSet(stmt, metaData, whereFilter);
+                return new CachedResultSet(stmt.getBatchSupplier(), metaData, whereFilter);
             }
 
-            List<List<ForceResultField>> forceQueryResult = ctx.getPartnerService()
-                    .query(preparedQuery, stmt.getRootEntityFieldDefinitions());
-
-            if (!forceQueryResult.isEmpty()) {
-                List<ColumnMap<String, Object>> maps = Collections.synchronizedList(new LinkedList<>());
-                forceQueryResult.forEach(rec -> maps.add(stmt.convertToColumnMap(rec)));
-                return new CachedResultSet(maps, metaData, whereFilter);
+            // Rows are converted page by page, so raw API rows never accumulate for the whole result
+            List<ColumnMap<String, Object>> maps = new ArrayList<>();
+            if (stmt.isBulkQuery()) {
+                ctx.getPartnerService().bulkQuery(preparedQuery, stmt.getRootEntityFieldDefinitions(),
+                        rec -> maps.add(stmt.convertToColumnMap(rec)));
             } else {
-                return new CachedResultSet(Collections.emptyList(), metaData, whereFilter);
+                ctx.getPartnerService().query(preparedQuery, stmt.getRootEntityFieldDefinitions(),
+                        rec -> maps.add(stmt.convertToColumnMap(rec)));
             }
+            return new CachedResultSet(maps, metaData, whereFilter);
         } catch (ConnectionException e) {
             throw new SQLException(e);
         }
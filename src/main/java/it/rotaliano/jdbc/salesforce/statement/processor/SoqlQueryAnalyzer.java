@@ -1,5 +1,6 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.statement.processor.utils.SelectSpecVisitor;
 import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
 import lombok.Getter;
@@ -24,12 +25,32 @@ import java.util.List;
 public class SoqlQueryAnalyzer {
 
     private final QueryAnalyzer queryAnalyzer;
+    private final boolean shared;
     private FieldDefTree fieldDefinitions;
+    private Statement soqlQuery;
+    private boolean parameterDependent;
     @Getter
     private it.rotaliano.jdbc.salesforce.expression.Expression clientSideWhereExpression;
 
     public SoqlQueryAnalyzer(QueryAnalyzer queryAnalyzer) {
+        this(queryAnalyzer, true);
+    }
+
+    private SoqlQueryAnalyzer(QueryAnalyzer queryAnalyzer, boolean shared) {
         this.queryAnalyzer = queryAnalyzer;
+        this.shared = shared;
+    }
+
+    /**
+     * Creates an analyzer for a sub-query of a SELECT. Its field definitions and rewritten statement are grafted
+     * into, and changed by, the analysis of the enclosing query, so they are never shared with other statements.
+     *
+     * @param soql the sub-query
+     * @param partnerService the service used to describe the objects
+     * @return the analyzer
+     */
+    public static SoqlQueryAnalyzer forSubQuery(String soql, IPartnerService partnerService) {
+        return new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService), false);
     }
 
     public String getSoqlQueryString() {
@@ -37,6 +58,15 @@ public class SoqlQueryAnalyzer {
     }
 
     public String getSoqlQueryString(List<Object> parameters) {
+        // the rewrite is shared when it does not depend on the parameter values or on sub-query results
+        ParsedStatement parsed = queryAnalyzer.isResolveSubqueriesClientSide() ? null : queryAnalyzer.getParsedStatement();
+        ParsedStatement.SoqlRewrite rewrite = parsed != null ? parsed.getSoqlRewrite() : null;
+        if (rewrite != null) {
+            this.clientSideWhereExpression = rewrite.clientSideWhereExpression();
+            return rewrite.soql();
+        }
+        this.parameterDependent = false;
+        this.clientSideWhereExpression = null;
         try {
             Statement stmt = net.sf.jsqlparser.parser.CCJSqlParserUtil.parse(queryAnalyzer.getSoql());
             if (stmt instanceof PlainSelect select) {
@@ -63,12 +93,15 @@ public class SoqlQueryAnalyzer {
                 // Clear aliases from select items because SOQL does not support AS aliasing
                 stripAliases(select);
                 String res = select.toString();
+                if (parsed != null && !parameterDependent) {
+                    parsed.setSoqlRewrite(new ParsedStatement.SoqlRewrite(res, clientSideWhereExpression));
+                }
                 return res;
             }
         } catch (Exception e) {
             log.warn("Failed to rewrite query, using original", e);
         }
-        return queryAnalyzer.getQueryData().toString();
+        return getSoqlQuery().toString();
     }
 
     private void rewriteCoalesceInWhere(PlainSelect select, List<Object> parameters) {
@@ -116,6 +149,7 @@ public class SoqlQueryAnalyzer {
             if (queryAnalyzer.isResolveSubqueriesClientSide() && in.getRightExpression() instanceof ParenthesedSelect subQuery) {
                 java.util.function.BiFunction<String, List<Object>, List<java.util.Map<String, Object>>> resolver = queryAnalyzer.getSubSelectResolver();
                 if (resolver != null) {
+                    parameterDependent = true;
                     try {
                         String subquerySql = subQuery.getPlainSelect().toString();
                         List<java.util.Map<String, Object>> resolvedRecords = resolver.apply(subquerySql, parameters);
@@ -336,6 +370,7 @@ public class SoqlQueryAnalyzer {
             return null;
         }
         if (expr instanceof JdbcParameter param) {
+            parameterDependent = true;
             if (parameters != null && param.getIndex() - 1 >= 0 && param.getIndex() - 1 < parameters.size()) {
                 return parameters.get(param.getIndex() - 1);
             }
@@ -552,25 +587,55 @@ public class SoqlQueryAnalyzer {
         return false;
     }
 
+    /**
+     * Returns the statement sent to Salesforce. Unless this analyzer is one of a sub-query, the statement is
+     * shared by every execution of the same SQL and must not be changed.
+     */
     public Statement getSoqlQuery() {
-        return queryAnalyzer.getQueryData();
+        return soqlQuery != null ? soqlQuery : queryAnalyzer.getQueryData();
     }
 
+    /**
+     * Returns the fields selected by the statement. Unless this analyzer is one of a sub-query, the tree is
+     * shared by every execution of the same SQL on the org and is read-only.
+     */
     public FieldDefTree getFieldDefinitions() {
         if (fieldDefinitions == null) {
-            fieldDefinitions = new FieldDefTree();
-            String rootEntityName = queryAnalyzer.getFromObjectName();
-            SelectSpecVisitor visitor = new SelectSpecVisitor(rootEntityName,
-                fieldDefinitions,
-                queryAnalyzer.getPartnerService());
-            PlainSelect query = (PlainSelect) queryAnalyzer.getQueryData();
-            final List<SelectItem<?>> selectItems = query.getSelectItems();
-            replaceOrderByAlias(query, selectItems);
-            selectItems.forEach(spec -> spec.accept(visitor, null));
+            // the fields are resolved against the describe of the org, so the analysis is shared per org
+            // until the describe is refreshed
+            ParsedStatement parsed = queryAnalyzer.getParsedStatement();
+            String orgId = shared && parsed != null ? queryAnalyzer.getOrgId() : null;
+            long describeVersion = orgId != null ? queryAnalyzer.getPartnerService().getDescribeVersion() : 0L;
+            ParsedStatement.FieldAnalysis analysis = orgId != null
+                ? parsed.getFieldAnalysis(orgId, describeVersion) : null;
+            if (analysis == null) {
+                analysis = analyseFields(describeVersion);
+                if (orgId != null) {
+                    analysis = parsed.putFieldAnalysis(orgId, analysis);
+                }
+            }
+            fieldDefinitions = analysis.fieldDefinitions();
+            soqlQuery = analysis.statement();
         }
         return fieldDefinitions;
     }
 
+    private ParsedStatement.FieldAnalysis analyseFields(long describeVersion) {
+        FieldDefTree fields = new FieldDefTree();
+        String rootEntityName = queryAnalyzer.getFromObjectName();
+        SelectSpecVisitor visitor = new SelectSpecVisitor(rootEntityName,
+            fields,
+            queryAnalyzer.getPartnerService());
+        // the visitor rewrites the statement, so it works on a copy of the shared one
+        PlainSelect query = (PlainSelect) queryAnalyzer.copyQueryData();
+        final List<SelectItem<?>> selectItems = query.getSelectItems();
+        replaceOrderByAlias(query, selectItems);
+        selectItems.forEach(spec -> spec.accept(visitor, null));
+        fields.addObjectName(rootEntityName);
+        visitor.visitFilter(query.getWhere());
+        return new ParsedStatement.FieldAnalysis(fields, query, describeVersion);
+    }
+
     private void replaceOrderByAlias(final PlainSelect query, final List<SelectItem<?>> selectItems) {
         if (query.getOrderByElements() != null) {
             query.getOrderByElements().forEach(orderByElement -> orderByElement.accept(new OrderByVisitorAdapter<>() {
@@ -0,0 +1,167 @@
+package it.rotaliano.jdbc.salesforce.statement.processor;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process-wide cache of parsed and analyzed SQL statements, so the parse and analysis of a statement run once
+ * however many times it is executed.
+ *
+ * <p>Entries are keyed by the statement text with the whitespace outside of literals and comments collapsed.
+ * A statement whose analysis depends on the org ({@code SELECT *} expanded from the object describe) is kept
+ * under a key scoped by the organization id, and not kept at all when the org is unknown.
+ *
+ * <p>The cache holds at most {@link DriverConfiguration#getStatementCacheSize()} statements, evicting the least
+ * recently used one.
+ */
+@Slf4j
+public final class StatementCache {
+
+    private static final StatementCache INSTANCE = new StatementCache(DriverConfiguration.getStatementCacheSize());
+
+    private final int maxSize;
+    private final Map<String, ParsedStatement> entries;
+
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedStatement> eldest) {
+                return size() > StatementCache.this.maxSize;
+            }
+        };
+    }
+
+    public static StatementCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the parsed statement for the SQL text, running the parser on a cache miss.
+     *
+     * <p>Concurrent misses on the same statement may both run the parser; the last result is kept. The org is
+     * only asked for when the statement may be scoped by it, i.e. when its text holds a {@code *}.
+     *
+     * @param sql the SQL text
+     * @param orgId supplies the organization the statement runs against, or {@code null} if unknown
+     * @param parser parses and analyzes the SQL text
+     * @return the parsed statement
+     */
+    ParsedStatement get(String sql, Supplier<String> orgId, Function<String, ParsedStatement> parser) {
+        if (sql == null || maxSize == 0) {
+            return parser.apply(sql);
+        }
+        String key = normalize(sql);
+        String scopedKey = null;
+        ParsedStatement parsed;
+        synchronized (entries) {
+            parsed = entries.get(key);
+        }
+        if (parsed == null && key.indexOf('*') >= 0) {
+            scopedKey = scopedKey(orgId.get(), key);
+            if (scopedKey != null) {
+                synchronized (entries) {
+                    parsed = entries.get(scopedKey);
+                }
+            }
+        }
+        if (parsed != null) {
+            return parsed;
+        }
+        parsed = parser.apply(sql);
+        if (!parsed.isExpandedStarSyntaxForFields()) {
+            put(key, parsed);
+        } else if (scopedKey != null) {
+            put(scopedKey, parsed);
+        }
+        return parsed;
+    }
+
+    private static String scopedKey(String orgId, String key) {
+        return orgId != null ? orgId + '\u0000' + key : null;
+    }
+
+    private void put(String key, ParsedStatement parsed) {
+        synchronized (entries) {
+            entries.put(key, parsed);
+        }
+    }
+
+    /**
+     * Returns the number of statements held.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Drops every statement, e.g. after the describe of the objects changed.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        log.debug("[StatementCache] cleared");
+    }
+
+    /**
+     * Collapses each run of whitespace outside of quoted literals and comments into a single space.
+     *
+     * @param sql the SQL text
+     * @return the normalized text
+     */
+    public static String normalize(String sql) {
+        StringBuilder result = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        boolean pendingSpace = false;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (pendingSpace && !result.isEmpty()) {
+                result.append(' ');
+            }
+            pendingSpace = false;
+            int end;
+            if (c == '\'' || c == '"' || c == '`') {
+                end = skipQuoted(sql, i, c);
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                end = sql.indexOf('\n', i);
+                end = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+            } else {
+                end = i + 1;
+            }
+            result.append(sql, i, end);
+            i = end;
+        }
+        return result.toString();
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+}
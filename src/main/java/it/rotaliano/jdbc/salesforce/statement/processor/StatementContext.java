@@ -1,6 +1,6 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
 import lombok.Builder;
 import lombok.Getter;
@@ -18,14 +18,14 @@ public class StatementContext {
     private final ForcePreparedStatement statement;
     private final String soqlQuery;
     private final List<Object> parameters;
-    private final PartnerService partnerService;
+    private final IPartnerService partnerService;
     private final QueryAnalyzer queryAnalyzer;
 
     /**
      * Creates a context from a ForcePreparedStatement.
      */
     public static StatementContext from(ForcePreparedStatement statement, String soqlQuery,
-            List<Object> parameters, PartnerService partnerService, QueryAnalyzer queryAnalyzer) {
+            List<Object> parameters, IPartnerService partnerService, QueryAnalyzer queryAnalyzer) {
         return StatementContext.builder()
                 .statement(statement)
                 .soqlQuery(soqlQuery)
@@ -1,6 +1,6 @@
 package it.rotaliano.jdbc.salesforce.statement.processor;
 
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
 import it.rotaliano.jdbc.salesforce.resultset.CommandLogCachedResultSet;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
@@ -14,29 +14,39 @@ import java.util.stream.Collectors;
 public class UpdateQueryProcessor {
 
     public static CachedResultSet processQuery(ForcePreparedStatement statement, List<Object> parameters,
-        PartnerService partnerService, UpdateQueryAnalyzer updateQueryAnalyzer) {
+        IPartnerService partnerService, UpdateQueryAnalyzer updateQueryAnalyzer) {
 
         String fromObjectName = updateQueryAnalyzer.getFromObjectName();
         int[] updateCount = {0};
+        boolean[] sent = {false};
 
-        CommandLogCachedResultSet resultSet = DmlResultHandler.execute(
-            "update " + fromObjectName + " entities",
-            rs -> {
-                List<Map<String, Object>> recordsToUpdate = updateQueryAnalyzer.getRecords(parameters);
-                ISaveResult[] records = partnerService.saveRecords(fromObjectName, recordsToUpdate);
-                for (ISaveResult result : records) {
-                    if (result.isSuccess()) {
-                        rs.setId(result.getId());
-                        updateCount[0]++;
-                    } else {
-                        rs.addWarning(fromObjectName + " failed to update with error="
-                            + Arrays.stream(result.getErrors()).map(IError::getMessage)
-                                .collect(Collectors.joining(",")));
+        CommandLogCachedResultSet resultSet;
+        try {
+            resultSet = DmlResultHandler.execute(
+                "update " + fromObjectName + " entities",
+                rs -> {
+                    List<Map<String, Object>> recordsToUpdate = updateQueryAnalyzer.getRecords(parameters);
+                    sent[0] = true;
+                    ISaveResult[] records = partnerService.saveRecords(fromObjectName, recordsToUpdate);
+                    for (ISaveResult result : records) {
+                        if (result.isSuccess()) {
+                            rs.setId(result.getId());
+                            updateCount[0]++;
+                        } else {
+                            rs.addWarning(fromObjectName + " failed to update with error="
+                                + Arrays.stream(result.getErrors()).map(IError::getMessage)
+                                    .collect(Collectors.joining(",")));
+                        }
                     }
-                }
-                statement.setUpdateCount(updateCount[0]);
-                statement.setResultSet(rs);
-            });
+                    statement.setUpdateCount(updateCount[0]);
+                    statement.setResultSet(rs);
+                });
+        } finally {
+            // a request that failed on the way back may still have changed records
+            if (sent[0]) {
+                DmlResultHandler.invalidateCache(partnerService, fromObjectName, false);
+            }
+        }
 
         return resultSet;
     }
@@ -3,13 +3,16 @@ package it.rotaliano.jdbc.salesforce.statement.processor.utils;
 import com.sforce.soap.partner.ChildRelationship;
 import com.sforce.soap.partner.DescribeSObjectResult;
 import com.sforce.soap.partner.Field;
-import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.statement.FieldDef;
-import it.rotaliano.jdbc.salesforce.statement.processor.QueryAnalyzer;
 import it.rotaliano.jdbc.salesforce.statement.processor.SoqlQueryAnalyzer;
 import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import net.sf.jsqlparser.expression.BinaryExpression;
 import net.sf.jsqlparser.expression.CaseExpression;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.NotExpression;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.expression.operators.relational.ParenthesedExpressionList;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.select.*;
@@ -24,10 +27,10 @@ public class SelectSpecVisitor implements SelectItemVisitor<Expression> {
     private final String rootEntityName;
     private final FieldDefTree fieldDefinitions;
     private final Map<String, Integer> positions = new HashMap<>();
-    private final PartnerService partnerService;
+    private final IPartnerService partnerService;
 
     public SelectSpecVisitor(String rootEntityName, FieldDefTree fieldDefinitions,
-        final PartnerService partnerService) {
+        final IPartnerService partnerService) {
         this.rootEntityName = rootEntityName;
         this.fieldDefinitions = fieldDefinitions;
         this.partnerService = partnerService;
@@ -120,8 +123,7 @@ public class SelectSpecVisitor implements SelectItemVisitor<Expression> {
         while (!fieldPrefixes.isEmpty()) {
             String referenceName = fieldPrefixes.get(0);
             prefix.append(referenceName).append(".");
-            Field reference = findField(referenceName, describeObject(fromObject), Field::getRelationshipName);
-            fromObject = reference.getReferenceTo()[0];
+            fromObject = resolveReference(fromObject, referenceName);
             fieldPrefixes.remove(0);
         }
         Field field = findField(name, describeObject(fromObject), Field::getName);
@@ -271,7 +273,7 @@ public class SelectSpecVisitor implements SelectItemVisitor<Expression> {
         String fromObject = relatedFrom.getChildSObject();
         select.setFromItem(new Table(fromObject));
 
-        SoqlQueryAnalyzer subQueryAnalyzer = new SoqlQueryAnalyzer(new QueryAnalyzer(select.toString(),null, partnerService));
+        SoqlQueryAnalyzer subQueryAnalyzer = SoqlQueryAnalyzer.forSubQuery(select.toString(), partnerService);
         FieldDefTree subQueryFieldDefs = subQueryAnalyzer.getFieldDefinitions();
         subQueryFieldDefs.setRelationshipName(relationshipName);
         fieldDefinitions.addTreeNode(subQueryFieldDefs);
@@ -282,6 +284,68 @@ public class SelectSpecVisitor implements SelectItemVisitor<Expression> {
         return subQuery;
     }
 
+    /**
+     * Returns the object a relationship of an object points to, recording every object it may point to.
+     */
+    private String resolveReference(String fromObject, String relationshipName) {
+        Field reference = findField(relationshipName, describeObject(fromObject), Field::getRelationshipName);
+        for (String referenceTo : reference.getReferenceTo()) {
+            fieldDefinitions.addObjectName(referenceTo);
+        }
+        return reference.getReferenceTo()[0];
+    }
+
+    /**
+     * Records the objects a filter reads besides the root entity: the objects reached by its relationship
+     * columns and the objects of its semi-join sub-queries.
+     *
+     * @param filter the WHERE expression of the query, may be {@code null}
+     */
+    public void visitFilter(Expression filter) {
+        List<Column> columns = new ArrayList<>();
+        SoqlQueryAnalyzer.findColumns(filter, columns);
+        for (Column column : columns) {
+            if (column.getTable() == null || column.getTable().getName() == null) {
+                continue;
+            }
+            List<String> prefixNames = new ArrayList<>(
+                List.of(StringUtils.split(column.getTable().getFullyQualifiedName(), '.')));
+            if (prefixNames.get(0).equalsIgnoreCase(rootEntityName)) {
+                prefixNames.remove(0);
+            }
+            String fromObject = rootEntityName;
+            try {
+                for (String referenceName : prefixNames) {
+                    fromObject = resolveReference(fromObject, referenceName);
+                }
+            } catch (IllegalArgumentException e) {
+                // left to Salesforce, which rejects the query
+            }
+        }
+        visitSemiJoins(filter);
+    }
+
+    private void visitSemiJoins(Expression filter) {
+        if (filter instanceof ParenthesedSelect semiJoin && semiJoin.getPlainSelect() != null) {
+            PlainSelect select = semiJoin.getPlainSelect();
+            if (select.getFromItem() instanceof Table table) {
+                fieldDefinitions.addObjectName(table.getName());
+            }
+            visitSemiJoins(select.getWhere());
+        } else if (filter instanceof InExpression in) {
+            visitSemiJoins(in.getRightExpression());
+        } else if (filter instanceof BinaryExpression binary) {
+            visitSemiJoins(binary.getLeftExpression());
+            visitSemiJoins(binary.getRightExpression());
+        } else if (filter instanceof NotExpression not) {
+            visitSemiJoins(not.getExpression());
+        } else if (filter instanceof ParenthesedExpressionList<?> parenthesis) {
+            for (Object inner : parenthesis) {
+                visitSemiJoins((Expression) inner);
+            }
+        }
+    }
+
     private Field findField(String name, DescribeSObjectResult objectDesc, Function<Field, String> nameFetcher) {
         return Arrays.stream(objectDesc.getFields())
             .filter(field -> name.equalsIgnoreCase(nameFetcher.apply(field)))
@@ -0,0 +1,107 @@
+package it.rotaliano.jdbc.salesforce.utils;
+
+import it.rotaliano.jdbc.salesforce.delegates.ForceResultField;
+import it.rotaliano.jdbc.salesforce.statement.FieldDef;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Compiled mapping from the positions of a flattened response row to the schema columns.
+ *
+ * <p>The Partner API returns the fields of every record in the same order, so the name matching
+ * is done once per row shape and later rows are aligned by array index. A row shape is the
+ * sequence of field names of a flattened row; a query usually has very few of them (e.g. one
+ * more when a lookup relationship is {@code null} and its fields are missing). Checking that a
+ * row has a known shape only compares names position by position, without hashing.
+ */
+class ColumnAlignmentPlan {
+
+    private static final int MAX_SHAPES = 16;
+
+    private final FieldDef[] columns;
+    private final BiPredicate<String, String> nameMatcher;
+    private volatile Shape[] shapes = new Shape[0];
+
+    ColumnAlignmentPlan(List<FieldDef> columns, BiPredicate<String, String> nameMatcher) {
+        this.columns = columns.toArray(new FieldDef[0]);
+        this.nameMatcher = nameMatcher;
+    }
+
+    /**
+     * Aligns a flattened row with the schema columns.
+     *
+     * @param row the flattened response row, possibly containing {@code null} placeholders
+     * @return one field per schema column, with {@code null} values for unmatched columns
+     */
+    List<ForceResultField> align(List<ForceResultField> row) {
+        Shape shape = findShape(row);
+        if (shape == null) {
+            shape = compile(row);
+        }
+        ForceResultField[] aligned = new ForceResultField[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            FieldDef field = columns[i];
+            int source = shape.sourceIndex[i];
+            Object value = source >= 0 ? row.get(source).getValue() : null;
+            aligned[i] = new ForceResultField(null, field.getType(), field.getFullName(), value);
+        }
+        return Arrays.asList(aligned);
+    }
+
+    private Shape findShape(List<ForceResultField> row) {
+        for (Shape shape : shapes) {
+            if (shape.matches(row)) {
+                return shape;
+            }
+        }
+        return null;
+    }
+
+    private Shape compile(List<ForceResultField> row) {
+        String[] rowNames = new String[row.size()];
+        for (int j = 0; j < rowNames.length; j++) {
+            ForceResultField rf = row.get(j);
+            rowNames[j] = rf != null ? rf.getFullName() : null;
+        }
+        int[] sourceIndex = new int[columns.length];
+        boolean[] matched = new boolean[rowNames.length];
+        for (int i = 0; i < columns.length; i++) {
+            sourceIndex[i] = -1;
+            for (int j = 0; j < rowNames.length; j++) {
+                if (!matched[j] && rowNames[j] != null && nameMatcher.test(columns[i].getFullName(), rowNames[j])) {
+                    sourceIndex[i] = j;
+                    matched[j] = true;
+                    break;
+                }
+            }
+        }
+        Shape shape = new Shape(rowNames, sourceIndex);
+        synchronized (this) {
+            Shape[] current = shapes;
+            if (current.length < MAX_SHAPES) {
+                Shape[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = shape;
+                shapes = updated;
+            }
+        }
+        return shape;
+    }
+
+    private record Shape(String[] rowNames, int[] sourceIndex) {
+
+        boolean matches(List<ForceResultField> row) {
+            if (row.size() != rowNames.length) {
+                return false;
+            }
+            for (int j = 0; j < rowNames.length; j++) {
+                ForceResultField rf = row.get(j);
+                String name = rf != null ? rf.getFullName() : null;
+                if (name == null ? rowNames[j] != null : !name.equals(rowNames[j])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
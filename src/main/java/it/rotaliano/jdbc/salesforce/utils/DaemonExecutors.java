@@ -0,0 +1,61 @@
+package it.rotaliano.jdbc.salesforce.utils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the background executors of the driver. Their threads are daemons named after the pool, so they never
+ * keep the JVM of the application alive, and they exit after a minute without work.
+ */
+public class DaemonExecutors {
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private DaemonExecutors() {
+        // Utility class
+    }
+
+    /**
+     * Creates an executor running up to {@code threads} tasks at a time and queueing the others.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter
+     * @param threads the maximum number of threads
+     */
+    public static ExecutorService newQueuingPool(String namePrefix, int threads) {
+        ThreadPoolExecutor executor = newPool(namePrefix, threads, threads, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates an executor running up to {@code threads} tasks at a time and rejecting the others with a
+     * {@link java.util.concurrent.RejectedExecutionException}, so the caller can run them itself.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter
+     * @param threads the maximum number of threads
+     */
+    public static ExecutorService newHandOffPool(String namePrefix, int threads) {
+        return newPool(namePrefix, 0, threads, new SynchronousQueue<>());
+    }
+
+    private static ThreadPoolExecutor newPool(String namePrefix, int coreThreads, int maxThreads,
+            BlockingQueue<Runnable> queue) {
+        return new ThreadPoolExecutor(coreThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue,
+                daemonThreadFactory(namePrefix));
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
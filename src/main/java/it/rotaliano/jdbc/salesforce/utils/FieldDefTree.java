@@ -4,32 +4,67 @@ import it.rotaliano.jdbc.salesforce.delegates.ForceResultField;
 import it.rotaliano.jdbc.salesforce.delegates.PartnerResultToCartesianTable;
 import it.rotaliano.jdbc.salesforce.statement.FieldDef;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class FieldDefTree extends TreeNode<FieldDef> {
 
     @Getter
-    @Setter
     private String relationshipName;
 
     private final List<FieldDef> sqlOrderFields = new ArrayList<>();
 
+    private final Set<String> objectNames = new LinkedHashSet<>();
+
+    private volatile ColumnAlignmentPlan alignmentPlan;
+
     /**
      * Records a field in SQL SELECT order. Called by SelectSpecVisitor as it
      * visits each SELECT item sequentially.
      */
     public void addSqlOrderField(FieldDef field) {
+        checkWritable();
         sqlOrderFields.add(field);
     }
 
+    public void setRelationshipName(String relationshipName) {
+        checkWritable();
+        this.relationshipName = relationshipName;
+    }
+
     public int getSqlOrderSize() {
         return sqlOrderFields.size();
     }
 
+    /**
+     * Records an object read by the query: its root entity, an object reached through a relationship or
+     * the object of a semi-join in its filter.
+     */
+    public void addObjectName(String objectName) {
+        checkWritable();
+        if (objectName != null) {
+            objectNames.add(objectName.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Returns the lower-cased names of the objects read by the query, those of its sub-queries included.
+     */
+    public Set<String> getObjectNames() {
+        Set<String> all = new LinkedHashSet<>(objectNames);
+        for (TreeNode<FieldDef> child : getChildren()) {
+            if (child instanceof FieldDefTree subQuery) {
+                all.addAll(subQuery.getObjectNames());
+            }
+        }
+        return all;
+    }
+
     @Override
     public List<FieldDef> flatten() {
         List<FieldDef> all = new ArrayList<>();
@@ -102,50 +137,43 @@ public class FieldDefTree extends TreeNode<FieldDef> {
             }
         }
         // If rowName is expr0, expr1, etc., it matches any function/aggregate field
-        if (rowName.toLowerCase().startsWith("expr")) {
-            String upperSchema = schemaName.toUpperCase();
-            if (upperSchema.contains("(") || FUNCTION_NAMES.contains(upperSchema)) {
+        return rowName.toLowerCase().startsWith("expr") && isFunctionField(schemaName);
+    }
+
+    /**
+     * Checks whether a schema field holds the result of a function or aggregate, which the
+     * Partner API returns under a generated {@code exprN} name when it has no alias.
+     */
+    public static boolean isFunctionField(String schemaName) {
+        String upperSchema = schemaName.toUpperCase();
+        if (upperSchema.contains("(") || FUNCTION_NAMES.contains(upperSchema)) {
+            return true;
+        }
+        for (String func : FUNCTION_NAMES) {
+            if (upperSchema.startsWith(func)) {
                 return true;
             }
-            for (String func : FUNCTION_NAMES) {
-                if (upperSchema.startsWith(func)) {
-                    return true;
-                }
-            }
         }
         return false;
     }
 
+    /**
+     * Returns the column alignment plan of this schema, compiled on first use and then shared by
+     * every page of the query.
+     */
+    private ColumnAlignmentPlan getAlignmentPlan() {
+        ColumnAlignmentPlan plan = alignmentPlan;
+        if (plan == null) {
+            plan = new ColumnAlignmentPlan(flatten(), FieldDefTree::isFieldNameMatch);
+            alignmentPlan = plan;
+        }
+        return plan;
+    }
+
     public static List<List<ForceResultField>> expand(List<TreeNode<ForceResultField>> rows, FieldDefTree schema) {
+        ColumnAlignmentPlan plan = schema.getAlignmentPlan();
         PartnerResultToCartesianTable<FieldDef, ForceResultField> expander = new PartnerResultToCartesianTable<>(schema,
-            (s, row) -> {
-                List<FieldDef> flatSchema = s.flatten();
-                int schemaSize = flatSchema.size();
-                java.util.List<ForceResultField> alignedRow = new java.util.ArrayList<>();
-                java.util.Set<Integer> matchedIndices = new java.util.HashSet<>();
-                for (FieldDef field : flatSchema) {
-                    ForceResultField matched = null;
-                    for (int j = 0; j < row.size(); j++) {
-                        if (matchedIndices.contains(j)) {
-                            continue;
-                        }
-                        ForceResultField rf = row.get(j);
-                        if (rf != null && isFieldNameMatch(field.getFullName(), rf.getFullName())) {
-                            matched = rf;
-                            matchedIndices.add(j);
-                            break;
-                        }
-                    }
-                    if (matched != null) {
-                        alignedRow.add(new ForceResultField(null, field.getType(), field.getFullName(), matched.getValue()));
-                    } else {
-                        alignedRow.add(new ForceResultField(null, field.getType(), field.getFullName(), null));
-                    }
-                }
-                row.clear();
-                row.addAll(alignedRow);
-                return row;
-            });
+            (s, row) -> plan.align(row));
         return expander.expandOn(rows);
     }
 
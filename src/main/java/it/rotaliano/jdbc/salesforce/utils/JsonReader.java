@@ -0,0 +1,306 @@
+package it.rotaliano.jdbc.salesforce.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Streaming pull parser of JSON documents.
+ *
+ * <p>Values are read one token at a time, so large responses are bound into the caller's structures without
+ * building an intermediate tree. Scalars are returned as their text: numbers keep their original
+ * representation and booleans are {@code "true"} or {@code "false"}.
+ */
+public final class JsonReader implements Closeable {
+
+    /**
+     * Kind of the next token.
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private enum Scope {
+        OBJECT, ARRAY
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+    /** Whether the next token in an object is a name rather than a value. */
+    private boolean expectName;
+    /** Whether a value was already read in the current scope, so that a comma must precede the next one. */
+    private boolean hasValue;
+    private Token peeked;
+
+    public JsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the kind of the next token without consuming it.
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int c = nextNonWhitespace();
+        Scope scope = scopes.peek();
+        if (scope != null && (c == '}' || c == ']')) {
+            if (c != (scope == Scope.OBJECT ? '}' : ']')) {
+                throw syntaxError("Unexpected '" + (char) c + "'");
+            }
+            peeked = scope == Scope.OBJECT ? Token.END_OBJECT : Token.END_ARRAY;
+            position--;
+            return peeked;
+        }
+        if (scope != null && hasValue && !(scope == Scope.OBJECT && !expectName)) {
+            if (c != ',') {
+                throw syntaxError("Expected ','");
+            }
+            c = nextNonWhitespace();
+        }
+        if (c == -1) {
+            if (scope != null) {
+                throw syntaxError("Unterminated document");
+            }
+            return peeked = Token.END_DOCUMENT;
+        }
+        if (scope == Scope.OBJECT && expectName) {
+            if (c != '"') {
+                throw syntaxError("Expected a name");
+            }
+            position--;
+            return peeked = Token.NAME;
+        }
+        if (scope == Scope.OBJECT) {
+            if (c != ':') {
+                throw syntaxError("Expected ':'");
+            }
+            c = nextNonWhitespace();
+        }
+        position--;
+        return peeked = switch (c) {
+            case '{' -> Token.BEGIN_OBJECT;
+            case '[' -> Token.BEGIN_ARRAY;
+            case '"' -> Token.STRING;
+            case 't', 'f' -> Token.BOOLEAN;
+            case 'n' -> Token.NULL;
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield Token.NUMBER;
+                }
+                throw syntaxError("Unexpected '" + (char) c + "'");
+            }
+        };
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        position++;
+        scopes.push(Scope.OBJECT);
+        expectName = true;
+        hasValue = false;
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        position++;
+        endScope();
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        position++;
+        scopes.push(Scope.ARRAY);
+        hasValue = false;
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        position++;
+        endScope();
+    }
+
+    /**
+     * Whether the current object or array has another element.
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        position++;
+        String name = readString();
+        expectName = false;
+        hasValue = true;
+        return name;
+    }
+
+    /**
+     * Reads a scalar value as text.
+     *
+     * @return the text of a string, number or boolean, or {@code null} for a JSON {@code null}
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        String value;
+        switch (token) {
+            case STRING -> {
+                position++;
+                value = readString();
+            }
+            case NUMBER, BOOLEAN -> value = readLiteral();
+            case NULL -> {
+                readLiteral();
+                value = null;
+            }
+            default -> throw syntaxError("Expected a scalar but was " + token);
+        }
+        valueRead();
+        return value;
+    }
+
+    /**
+     * Skips the next value, with all its nested values.
+     */
+    public void skipValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT -> {
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+            }
+            case BEGIN_ARRAY -> {
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+            }
+            default -> nextString();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void endScope() {
+        scopes.pop();
+        valueRead();
+    }
+
+    private void valueRead() {
+        peeked = null;
+        hasValue = true;
+        if (scopes.peek() == Scope.OBJECT) {
+            expectName = true;
+        }
+    }
+
+    private String readString() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw syntaxError("Invalid unicode escape");
+                            }
+                            code = (code << 4) | digit;
+                        }
+                        sb.append((char) code);
+                    }
+                    case -1 -> throw syntaxError("Unterminated string");
+                    default -> sb.append((char) c);
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        peeked = null;
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (position >= limit && !fill()) {
+                break;
+            }
+            char c = buffer[position];
+            if (c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            sb.append(c);
+            position++;
+        }
+        return sb.toString();
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            int c = read();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
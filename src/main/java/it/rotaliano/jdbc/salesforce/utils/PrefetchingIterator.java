@@ -0,0 +1,164 @@
+package it.rotaliano.jdbc.salesforce.utils;
+
+import it.rotaliano.jdbc.salesforce.exceptions.SalesforceRuntimeException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Iterator that reads ahead from a slow source on a background thread.
+ *
+ * <p>Up to {@code depth} elements are fetched from the source while the consumer is still processing
+ * the current one. The source is only ever touched by the background thread, so it does not need to be
+ * thread-safe. Failures of the source are rethrown to the consumer in order, after the elements that
+ * were fetched before the failure.
+ *
+ * <p>The background thread waits for the consumer to take a buffered element for at most the idle timeout.
+ * When a consumer abandons the iterator without closing it, the thread then stops; should the consumer come
+ * back, it gets the buffered elements followed by a failure.
+ *
+ * @param <T> the element type
+ */
+@Slf4j
+public class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Object END = new Object();
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final BlockingQueue<Object> queue;
+    private final long idleTimeoutMillis;
+    private final Future<?> producer;
+    private volatile boolean closed;
+    /** The last element of the producer, {@link #END} or a failure, once it stopped. */
+    private volatile Object terminal;
+    private Object lookahead;
+
+    /**
+     * Starts reading ahead from {@code source} on the given executor.
+     *
+     * @param source the iterator to read ahead from
+     * @param depth the maximum number of elements buffered ahead of the consumer, at least 1
+     * @param idleTimeoutMillis how long the background thread waits for the consumer to take an element
+     * @param executor the executor running the background fetch
+     * @throws java.util.concurrent.RejectedExecutionException if the executor cannot accept the task
+     */
+    public PrefetchingIterator(Iterator<T> source, int depth, long idleTimeoutMillis, ExecutorService executor) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, depth));
+        this.idleTimeoutMillis = Math.max(1L, idleTimeoutMillis);
+        this.producer = executor.submit(() -> produce(source));
+    }
+
+    /**
+     * Fetches the elements of the source until it ends, fails, the iterator is closed or the consumer is idle
+     * for too long. Whatever stops it, even an {@link Error}, is left for the consumer as the terminal element.
+     */
+    private void produce(Iterator<T> source) {
+        Object last = END;
+        try {
+            while (!closed && source.hasNext()) {
+                if (!enqueue(source.next())) {
+                    if (!closed) {
+                        log.debug("[Prefetch] no element taken for {} ms, stopping the read-ahead",
+                            idleTimeoutMillis);
+                        last = new Failure(new SalesforceRuntimeException("Read-ahead stopped: no batch taken for "
+                            + idleTimeoutMillis + " ms, the result set was not closed"));
+                    }
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            last = new Failure(new SalesforceRuntimeException("Interrupted while reading ahead", e));
+        } catch (Throwable e) {
+            last = new Failure(e);
+        } finally {
+            terminal = last;
+            queue.offer(last);
+        }
+    }
+
+    /**
+     * Waits for room in the queue for at most the idle timeout.
+     *
+     * @return {@code false} if the iterator was closed or the consumer did not take an element in time
+     */
+    private boolean enqueue(Object element) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        while (!closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            if (queue.offer(element, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MS)),
+                TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            while (lookahead == null) {
+                // read before polling: once the producer stopped, an empty queue means nothing is left to take
+                Object last = terminal;
+                lookahead = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (lookahead == null && last != null) {
+                    lookahead = last;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SalesforceRuntimeException("Interrupted while waiting for the next batch", e);
+        }
+        if (lookahead instanceof Failure failure) {
+            if (failure.cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (failure.cause instanceof Error error) {
+                throw error;
+            }
+            throw new SalesforceRuntimeException(failure.cause.getMessage(), failure.cause);
+        }
+        return lookahead != END;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T element = (T) lookahead;
+        lookahead = null;
+        return element;
+    }
+
+    /**
+     * Stops the background fetch and discards any buffered elements.
+     *
+     * <p>May be called from another thread; a consumer waiting for the next element is released.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            producer.cancel(true);
+            queue.clear();
+            queue.offer(END);
+            log.trace("[Prefetch] cancelled");
+        }
+    }
+
+    private record Failure(Throwable cause) {
+    }
+}
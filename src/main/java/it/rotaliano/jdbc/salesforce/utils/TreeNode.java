@@ -10,8 +10,8 @@ public class TreeNode<T> {
 
     @Getter
     private final T data;
-    @Getter
     private final List<TreeNode<T>> children;
+    private boolean readOnly;
 
     public TreeNode() {
         this((T)null);
@@ -32,6 +32,13 @@ public class TreeNode<T> {
         return node;
     }
 
+    /**
+     * Returns the children of this node, as a read-only view once the tree is read-only.
+     */
+    public List<TreeNode<T>> getChildren() {
+        return readOnly ? Collections.unmodifiableList(children) : children;
+    }
+
     public int getChildrenCount() {
         return children.size();
     }
@@ -45,25 +52,53 @@ public class TreeNode<T> {
     }
 
     public TreeNode<T> addChild(T child) {
+        checkWritable();
         TreeNode<T> childNode = new TreeNode<T>(child);
         this.children.add(childNode);
         return childNode;
     }
 
     public TreeNode<T> addChild(T child, int position) {
+        checkWritable();
         TreeNode<T> childNode = new TreeNode<T>(child);
         this.children.add(position, childNode);
         return childNode;
     }
 
     public TreeNode<T> removeChild(int position) {
+        checkWritable();
         return this.children.remove(position);
     }
 
     public void addTreeNode(TreeNode<T> tree) {
+        checkWritable();
         this.children.add(tree);
     }
 
+    /**
+     * Makes this node and all of its descendants read-only, e.g. before the tree is shared between threads:
+     * from then on every change throws an {@link UnsupportedOperationException}.
+     */
+    public void makeReadOnly() {
+        if (!readOnly) {
+            readOnly = true;
+            children.forEach(TreeNode::makeReadOnly);
+        }
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Throws an {@link UnsupportedOperationException} if the tree is read-only.
+     */
+    protected void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("The tree is read-only");
+        }
+    }
+
     public List<T> flatten() {
         ArrayList<T> all = new ArrayList<>();
         if (data != null) {
@@ -0,0 +1,161 @@
+package it.rotaliano.jdbc.salesforce;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.ws.ConnectorConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Local HTTP stand-in of the Salesforce REST and Bulk API 2.0 resources under a base path.
+ *
+ * <p>A request is identified by its method and its path below the base path, without trailing slash, followed
+ * by {@code ?} and the raw query string if any, e.g. {@code GET /750A/results?maxRecords=50000}. Stubbed
+ * requests get their response; the others get a 404. Requests without the bearer token of the accepted session
+ * get a 401 {@code INVALID_SESSION_ID}. Every request is recorded with its body.
+ */
+public class FakeSalesforceServer implements AutoCloseable {
+
+    public static final String ORG_ID = "00D000000000001";
+
+    private static final AtomicInteger orgIdCounter = new AtomicInteger();
+
+    /**
+     * A stubbed response.
+     *
+     * @param status the HTTP status
+     * @param body the response body
+     * @param headers additional response headers
+     */
+    public record Response(int status, String body, Map<String, String> headers) {
+
+        public static Response ok(String body) {
+            return new Response(200, body, Map.of());
+        }
+    }
+
+    private final HttpServer server;
+    private final String basePath;
+    private final Map<String, Supplier<Response>> responses = new ConcurrentHashMap<>();
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private volatile String acceptedSession = "session";
+
+    private FakeSalesforceServer(String basePath) throws IOException {
+        this.basePath = basePath;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(basePath, this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a server answering the requests below a base path, e.g. {@code /services/data/v64.0}.
+     */
+    public static FakeSalesforceServer start(String basePath) throws IOException {
+        return new FakeSalesforceServer(basePath);
+    }
+
+    /**
+     * Returns a new org id for each call, so that tests do not share the describe caches of an org.
+     */
+    public static String nextOrgId(String prefix) {
+        return prefix + "_" + orgIdCounter.incrementAndGet();
+    }
+
+    /**
+     * Returns the configuration of a SOAP connection of session {@code session} on this server.
+     */
+    public ConnectorConfig connectorConfig() {
+        ConnectorConfig config = new ConnectorConfig();
+        config.setServiceEndpoint("http://localhost:" + server.getAddress().getPort()
+            + "/services/Soap/u/64.0/" + ORG_ID);
+        config.setSessionId("session");
+        return config;
+    }
+
+    /**
+     * Returns a mock of a SOAP connection with the given configuration.
+     */
+    public static PartnerConnection mockPartnerConnection(ConnectorConfig config) {
+        PartnerConnection partnerConnection = mock(PartnerConnection.class);
+        when(partnerConnection.getConfig()).thenReturn(config);
+        return partnerConnection;
+    }
+
+    public void respond(String request, String body) {
+        respond(request, Response.ok(body));
+    }
+
+    public void respond(String request, Response response) {
+        responses.put(request, () -> response);
+    }
+
+    /**
+     * Answers a request with the response computed at each call, e.g. a job state changing between polls.
+     */
+    public void respond(String request, Supplier<Response> responder) {
+        responses.put(request, responder);
+    }
+
+    /**
+     * Accepts only the requests of the given session from now on.
+     */
+    public void acceptSession(String sessionId) {
+        acceptedSession = sessionId;
+    }
+
+    /**
+     * Returns the body of the last request received with the given method, path and query.
+     */
+    public String received(String request) {
+        return received.get(request);
+    }
+
+    /**
+     * Returns every request received, in arrival order.
+     */
+    public List<String> requests() {
+        return requests;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(basePath.length()).replaceAll("/$", "");
+        String query = exchange.getRequestURI().getRawQuery();
+        String request = exchange.getRequestMethod() + " " + path + (query != null ? "?" + query : "");
+        requests.add(request);
+        received.put(request, new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+        Supplier<Response> responder = responses.get(request);
+        Response response;
+        if (!("Bearer " + acceptedSession).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            response = new Response(401, "[{\"errorCode\":\"INVALID_SESSION_ID\"}]", Map.of());
+        } else if (responder == null) {
+            response = new Response(404, "[{\"errorCode\":\"NOT_FOUND\"}]", Map.of());
+        } else {
+            response = responder.get();
+        }
+        response.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
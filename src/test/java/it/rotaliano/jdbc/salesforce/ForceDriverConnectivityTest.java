@@ -12,6 +12,7 @@ import com.sforce.soap.partner.PartnerConnection;
 import com.sforce.ws.ConnectionException;
 import com.sforce.ws.ConnectorConfig;
 import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
 import java.io.FileInputStream;
@@ -86,7 +87,7 @@ class ForceDriverConnectivityTest {
     private void installRecordingPartnerService(Connection conn, String testName) {
         try {
             ForceConnection forceConn = (ForceConnection) conn;
-            PartnerService original = forceConn.getPartnerService();
+            IPartnerService original = forceConn.getPartnerService();
             PartnerService recording = new TestFixtureUtils.RecordingPartnerService(original, testName);
 
             Field psField = ForceConnection.class.getDeclaredField("partnerService");
@@ -131,6 +131,15 @@ class ForceDriverTest {
         assertEquals("SfdcInternalQA/...", actual.getProperty("client"));
     }
 
+    @Test
+    void testParseConnectionUrl_Transport() throws IOException {
+        String url = "jdbc:rotaliano:salesforce://test@test.ru:aaaa!aaa@login.salesforce.ru?api=64.0";
+
+        assertEquals("soap", ForceDriver.parseConnectionUrl(url).getTransport());
+        assertEquals("rest", ForceDriver.parseConnectionUrl(url + "&transport=REST").getTransport());
+        assertEquals("soap", ForceDriver.parseConnectionUrl(url + "&transport=grpc").getTransport());
+    }
+
     @Nested
     class SanitizeUrlTests {
 
@@ -7,7 +7,9 @@ import com.thoughtworks.xstream.security.NoTypePermission;
 import com.thoughtworks.xstream.security.NullPermission;
 import com.thoughtworks.xstream.security.PrimitiveTypePermission;
 import it.rotaliano.jdbc.salesforce.delegates.ForceResultField;
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
 import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.QueryCursor;
 import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
 import it.rotaliano.jdbc.salesforce.utils.TreeNode;
 import java.io.IOException;
@@ -142,6 +144,12 @@ public class TestFixtureUtils {
             return loadDescribe(testName, sObjectType);
         }
 
+        @Override
+        public long getDescribeVersion() {
+            // the fixtures never change during a test
+            return 0L;
+        }
+
         private List<List<ForceResultField>> getExpandedQueryResult(String soql, FieldDefTree expectedSchema) {
             List<List<ForceResultField>> rawRows = loadQueryResult(testName, soql);
             if (expectedSchema == null) {
@@ -165,13 +173,19 @@ public class TestFixtureUtils {
         }
 
         @Override
-        public Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql,
+        public void query(String soql, FieldDefTree expectedSchema,
+            java.util.function.Consumer<List<ForceResultField>> rowConsumer) throws ConnectionException {
+            getExpandedQueryResult(soql, expectedSchema).forEach(rowConsumer);
+        }
+
+        @Override
+        public Map.Entry<List<List<ForceResultField>>, QueryCursor> queryStart(String soql,
             FieldDefTree expectedSchema) throws ConnectionException {
             return new java.util.AbstractMap.SimpleEntry<>(getExpandedQueryResult(soql, expectedSchema), null);
         }
 
         @Override
-        public Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator,
+        public Map.Entry<List<List<ForceResultField>>, QueryCursor> queryMore(QueryCursor cursor,
             FieldDefTree expectedSchema) throws ConnectionException {
             return new java.util.AbstractMap.SimpleEntry<>(Collections.emptyList(), null);
         }
@@ -188,10 +202,10 @@ public class TestFixtureUtils {
      */
     public static class RecordingPartnerService extends PartnerService {
 
-        private final PartnerService delegate;
+        private final IPartnerService delegate;
         private final String testName;
 
-        public RecordingPartnerService(PartnerService delegate, String testName) {
+        public RecordingPartnerService(IPartnerService delegate, String testName) {
             super(null, "test-recording-" + testName);
             this.delegate = delegate;
             this.testName = testName;
@@ -207,6 +221,11 @@ public class TestFixtureUtils {
             return result;
         }
 
+        @Override
+        public long getDescribeVersion() {
+            return delegate.getDescribeVersion();
+        }
+
         @Override
         public List<List<ForceResultField>> query(String soql, FieldDefTree expectedSchema)
             throws ConnectionException {
@@ -217,7 +236,13 @@ public class TestFixtureUtils {
         }
 
         @Override
-        public Map.Entry<List<List<ForceResultField>>, String> queryStart(String soql,
+        public void query(String soql, FieldDefTree expectedSchema,
+            java.util.function.Consumer<List<ForceResultField>> rowConsumer) throws ConnectionException {
+            query(soql, expectedSchema).forEach(rowConsumer);
+        }
+
+        @Override
+        public Map.Entry<List<List<ForceResultField>>, QueryCursor> queryStart(String soql,
             FieldDefTree expectedSchema) throws ConnectionException {
             List<List<ForceResultField>> fullResult = delegate.query(soql, expectedSchema);
             saveQueryResult(testName, soql, fullResult);
@@ -226,9 +251,9 @@ public class TestFixtureUtils {
         }
 
         @Override
-        public Map.Entry<List<List<ForceResultField>>, String> queryMore(String queryLocator,
+        public Map.Entry<List<List<ForceResultField>>, QueryCursor> queryMore(QueryCursor cursor,
             FieldDefTree expectedSchema) throws ConnectionException {
-            return delegate.queryMore(queryLocator, expectedSchema);
+            return delegate.queryMore(cursor, expectedSchema);
         }
 
         @Override
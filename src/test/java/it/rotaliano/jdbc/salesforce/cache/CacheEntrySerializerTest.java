@@ -0,0 +1,168 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import org.ehcache.spi.serialization.SerializerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CacheEntrySerializerTest {
+
+    private final CacheEntrySerializer serializer = new CacheEntrySerializer(getClass().getClassLoader());
+
+    private static List<ColumnMap<String, Object>> accounts(int count) {
+        List<ColumnMap<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put("Id", "001" + i, TypeInfo.ID_TYPE_INFO);
+            row.put("Name", "Name", i % 3 == 0 ? null : "Account " + i, TypeInfo.STRING_TYPE_INFO);
+            row.put("Industry", i % 2 == 0 ? "Energy" : "Retail", TypeInfo.PICKLIST_TYPE_INFO);
+            row.put("NumberOfEmployees", Integer.toString(i * 10), TypeInfo.INT_TYPE_INFO);
+            row.put("AnnualRevenue", i % 2 == 0 ? "1500.5" : null, TypeInfo.CURRENCY_TYPE_INFO);
+            row.put("IsDeleted", i % 2 == 0, TypeInfo.BOOL_TYPE_INFO);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private CachedResultSet roundTrip(CachedResultSet resultSet) {
+        return serializer.read(serializer.serialize(CacheEntry.of(resultSet, 0, 0))).getResultSet();
+    }
+
+    @Test
+    @DisplayName("columnar results keep values, types and metadata")
+    void testColumnarRoundTrip() throws Exception {
+        List<ColumnMap<String, Object>> rows = accounts(10);
+        CachedResultSet copy = roundTrip(new CachedResultSet(rows, ForcePreparedStatement.createMetaData(rows.get(0))));
+
+        for (ColumnMap<String, Object> row : rows) {
+            assertTrue(copy.next());
+            for (int i = 1; i <= row.size(); i++) {
+                assertEquals(row.getByIndex(i), copy.getObject(i));
+            }
+        }
+        assertFalse(copy.next());
+
+        ResultSetMetaData metadata = copy.getMetaData();
+        assertEquals(6, metadata.getColumnCount());
+        assertEquals("Industry", metadata.getColumnName(3));
+        assertEquals(Types.INTEGER, metadata.getColumnType(4));
+    }
+
+    @Test
+    @DisplayName("rows with different columns and non-string values are kept as they are")
+    void testRowRoundTrip() throws Exception {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("Europe/Rome"));
+        calendar.setTimeInMillis(1_689_431_445_123L);
+        ColumnMap<String, Object> first = new ColumnMap<>();
+        first.put("tsColumn", calendar, TypeInfo.DATETIME_TYPE_INFO);
+        first.put("amount", new BigDecimal("12.50"), TypeInfo.DECIMAL_TYPE_INFO);
+        ColumnMap<String, Object> second = new ColumnMap<>();
+        second.put("count", 7L, TypeInfo.LONG_TYPE_INFO);
+
+        CachedResultSet copy = roundTrip(new CachedResultSet(List.of(first, second)));
+
+        assertTrue(copy.next());
+        assertEquals(calendar, copy.getObject("tsColumn"));
+        assertEquals(new BigDecimal("12.50"), copy.getObject(2));
+        assertTrue(copy.next());
+        assertEquals(7L, copy.getObject("count"));
+        assertEquals(0, copy.getMetaData().getColumnCount());
+    }
+
+    @Test
+    @DisplayName("empty results and warnings survive the round trip")
+    void testEmptyWithWarnings() throws Exception {
+        CachedResultSet resultSet = new CachedResultSet(Collections.emptyList(), null);
+        resultSet.addWarning("first");
+        resultSet.addWarning("second");
+
+        CachedResultSet copy = roundTrip(resultSet);
+
+        assertFalse(copy.next());
+        assertEquals("first", copy.getWarnings().getMessage());
+        assertEquals("second", copy.getWarnings().getNextWarning().getMessage());
+        assertEquals(0, copy.getMetaData().getColumnCount());
+    }
+
+    @Test
+    @DisplayName("load time and retention survive the round trip")
+    void testEntryHeader() {
+        CacheEntry entry = CacheEntry.of(new CachedResultSet(accounts(1)), 300_000L, 60_000L);
+
+        CacheEntry copy = serializer.read(serializer.serialize(entry));
+
+        assertEquals(entry.getLoadedAt(), copy.getLoadedAt());
+        assertEquals(360_000L, copy.getRetainMillis());
+    }
+
+    @Test
+    @DisplayName("object tags survive the round trip")
+    void testObjectNames() {
+        CacheEntry entry = CacheEntry.of(new CachedResultSet(accounts(1)), 0, 0, Set.of("account", "user"));
+
+        assertEquals(Set.of("account", "user"), serializer.read(serializer.serialize(entry)).getObjectNames());
+    }
+
+    @Test
+    @DisplayName("entries written before the format was versioned are rejected")
+    void testUnversionedEntryRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(1_000L);
+            out.writeLong(0L);
+            new CachedResultSet(accounts(2)).writeTo(out);
+            out.writeInt(1);
+            out.writeUTF("account");
+        }
+
+        assertThrows(SerializerException.class, () -> serializer.read(ByteBuffer.wrap(bytes.toByteArray())));
+    }
+
+    @Test
+    @DisplayName("entries of an unknown format version are rejected")
+    void testUnknownVersionRejected() {
+        ByteBuffer binary = serializer.serialize(CacheEntry.of(new CachedResultSet(accounts(2)), 0, 0));
+        binary.put(0, (byte) 99);
+
+        SerializerException e = assertThrows(SerializerException.class, () -> serializer.read(binary));
+        assertTrue(e.getMessage().contains("99"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("equals compares the binary form")
+    void testEquals() {
+        CacheEntry entry = CacheEntry.of(new CachedResultSet(accounts(3)), 0, 0);
+        ByteBuffer binary = serializer.serialize(entry);
+
+        assertTrue(serializer.equals(entry, binary));
+        assertFalse(serializer.equals(CacheEntry.of(new CachedResultSet(accounts(4)), 0, 0), binary));
+    }
+
+    @Test
+    @DisplayName("streaming result sets cannot be serialized")
+    void testStreamingRejected() {
+        CachedResultSet streaming = new CachedResultSet(Collections.<List<ColumnMap<String, Object>>>emptyIterator(), null);
+
+        assertThrows(SerializerException.class, () -> serializer.serialize(CacheEntry.of(streaming, 0, 0)));
+    }
+}
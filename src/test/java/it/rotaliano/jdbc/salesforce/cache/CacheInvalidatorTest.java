@@ -0,0 +1,64 @@
+package it.rotaliano.jdbc.salesforce.cache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import java.util.List;
+import java.util.Set;
+import org.ehcache.Cache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidatorTest {
+
+    @SuppressWarnings("unchecked")
+    private final Cache<String, CacheEntry> dataCache = mock(Cache.class);
+    private final CacheInvalidator invalidator = new CacheInvalidator(dataCache);
+
+    private static CacheEntry entry(String... objectNames) {
+        return CacheEntry.of(new CachedResultSet(List.of()), 0, 0, Set.of(objectNames));
+    }
+
+    @Test
+    @DisplayName("a change evicts the results reading the object, whatever the case of its name")
+    void testEvictsTaggedResults() {
+        invalidator.register("contacts", entry("contact", "account"));
+        invalidator.register("users", entry("user"));
+
+        invalidator.invalidate(List.of("Account"));
+
+        verify(dataCache).remove("contacts");
+        verify(dataCache, never()).remove("users");
+    }
+
+    @Test
+    @DisplayName("a result loaded before a change to one of its objects is no longer current")
+    void testLoadedBeforeChange() throws Exception {
+        CacheEntry contacts = entry("contact", "account");
+        CacheEntry users = entry("user");
+        Thread.sleep(2);
+
+        invalidator.invalidate(List.of("ACCOUNT"));
+        Thread.sleep(2);
+
+        assertFalse(invalidator.isCurrent(contacts));
+        assertTrue(invalidator.isCurrent(users));
+        assertTrue(invalidator.isCurrent(entry("contact", "account")));
+    }
+
+    @Test
+    @DisplayName("a change while a query runs is seen by the load")
+    void testChangedSince() throws Exception {
+        long startedAt = System.currentTimeMillis();
+        invalidator.invalidate(List.of("Account"));
+        Thread.sleep(2);
+
+        assertTrue(invalidator.changedSince(Set.of("contact", "account"), startedAt));
+        assertFalse(invalidator.changedSince(Set.of("contact"), startedAt));
+        assertFalse(invalidator.changedSince(Set.of("account"), System.currentTimeMillis()));
+    }
+}
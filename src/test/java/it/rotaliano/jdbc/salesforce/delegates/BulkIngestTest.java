@@ -0,0 +1,202 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sforce.soap.partner.DeleteResult;
+import com.sforce.soap.partner.DescribeGlobalResult;
+import com.sforce.soap.partner.DescribeGlobalSObjectResult;
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.soap.partner.SaveResult;
+import com.sforce.soap.partner.sobject.SObject;
+import com.sforce.ws.ConnectionException;
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.FakeSalesforceServer;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs DML against a local HTTP stand-in of the Bulk API 2.0 ingest resources.
+ */
+class BulkIngestTest {
+
+    private static final String JOB_PATH = "/services/data/v64.0/jobs/ingest";
+
+    private FakeSalesforceServer server;
+    private PartnerConnection partnerConnection;
+    private PartnerService partnerService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        System.setProperty(DriverConfiguration.PROP_BULK_POLL_INTERVAL, "10");
+        System.setProperty(DriverConfiguration.PROP_BULK_INGEST_THRESHOLD, "2");
+        server = FakeSalesforceServer.start(JOB_PATH);
+        partnerConnection = FakeSalesforceServer.mockPartnerConnection(server.connectorConfig());
+        partnerService = new PartnerService(partnerConnection, FakeSalesforceServer.nextOrgId("bulkIngestOrg"));
+
+        server.respond("POST ", "{\"id\":\"750I\",\"state\":\"Open\"}");
+        server.respond("PUT /750I/batches", "");
+        server.respond("POST /750I?_HttpMethod=PATCH", "{\"id\":\"750I\",\"state\":\"UploadComplete\"}");
+        server.respond("GET /750I", "{\"id\":\"750I\",\"state\":\"JobComplete\"}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        System.clearProperty(DriverConfiguration.PROP_BULK_POLL_INTERVAL);
+        System.clearProperty(DriverConfiguration.PROP_BULK_INGEST_THRESHOLD);
+    }
+
+    private static Map<String, Object> rec(Object... keyValues) {
+        Map<String, Object> rec = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            rec.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return rec;
+    }
+
+    @Test
+    @DisplayName("insert results are matched to the records by their echoed values, numbers compared by value")
+    void testInsert() throws ConnectionException {
+        server.respond("GET /750I/successfulResults",
+            "\"sf__Id\",\"sf__Created\",\"Name\",\"Amount\"\n\"006A\",\"true\",\"A\",\"1.0\"\n\"006C\",\"true\",\"C\",\"3.0\"\n");
+        server.respond("GET /750I/failedResults",
+            "\"sf__Id\",\"sf__Error\",\"Name\",\"Amount\"\n\"\",\"REQUIRED_FIELD_MISSING:Required fields are missing\",\"B\",\"\"\n");
+
+        SaveResult[] results = partnerService.createRecords("Opportunity",
+            List.of(rec("Name", "A", "Amount", 1L), rec("Name", "B", "Amount", null), rec("Name", "C", "Amount", 3L)));
+
+        assertEquals(3, results.length);
+        assertTrue(results[0].isSuccess());
+        assertEquals("006A", results[0].getId());
+        assertFalse(results[1].isSuccess());
+        assertEquals("REQUIRED_FIELD_MISSING:Required fields are missing", results[1].getErrors()[0].getMessage());
+        assertEquals("006C", results[2].getId());
+        assertEquals("\"Name\",\"Amount\"\n\"A\",\"1\"\n\"B\",\"\"\n\"C\",\"3\"\n", server.received("PUT /750I/batches"));
+        assertTrue(server.received("POST ").contains("\"object\":\"Opportunity\",\"operation\":\"insert\""));
+        assertEquals("{\"state\":\"UploadComplete\"}", server.received("POST /750I?_HttpMethod=PATCH"));
+        verify(partnerConnection, never()).create(any(SObject[].class));
+    }
+
+    @Test
+    @DisplayName("inserted records with the same values are reported by count, without ids")
+    void testInsertIdenticalRecords() throws ConnectionException {
+        server.respond("GET /750I/successfulResults",
+            "\"sf__Id\",\"sf__Created\",\"Name\"\n\"006B\",\"true\",\"B\"\n\"006A\",\"true\",\"A\"\n");
+        server.respond("GET /750I/failedResults",
+            "\"sf__Id\",\"sf__Error\",\"Name\"\n\"\",\"DUPLICATE_VALUE:duplicate value found\",\"A\"\n");
+
+        SaveResult[] results = partnerService.createRecords("Opportunity",
+            List.of(rec("Name", "A"), rec("Name", "A"), rec("Name", "B")));
+
+        assertTrue(results[0].isSuccess());
+        assertNull(results[0].getId());
+        assertFalse(results[1].isSuccess());
+        assertEquals("DUPLICATE_VALUE:duplicate value found", results[1].getErrors()[0].getMessage());
+        assertTrue(results[2].isSuccess());
+        assertEquals("006B", results[2].getId());
+    }
+
+    @Test
+    @DisplayName("records whose values no result echoes get an unknown outcome unless all unmatched results succeeded")
+    void testInsertUnmatchedResults() throws ConnectionException {
+        server.respond("GET /750I/successfulResults",
+            "\"sf__Id\",\"sf__Created\",\"Name\"\n\"006A\",\"true\",\"A\"\n\"006X\",\"true\",\"b \"\n");
+        server.respond("GET /750I/failedResults",
+            "\"sf__Id\",\"sf__Error\",\"Name\"\n\"\",\"FIELD_INTEGRITY_EXCEPTION:bad value\",\"c \"\n");
+
+        SaveResult[] results = partnerService.createRecords("Opportunity",
+            List.of(rec("Name", "A"), rec("Name", "B"), rec("Name", "C")));
+
+        assertEquals("006A", results[0].getId());
+        assertFalse(results[1].isSuccess());
+        assertTrue(results[1].getErrors()[0].getMessage().contains("1 of 2 unmatched results"));
+        assertFalse(results[2].isSuccess());
+    }
+
+    @Test
+    @DisplayName("null values clear fields in an update and unmatched records are reported as not processed")
+    void testUpdate() throws ConnectionException {
+        server.respond("GET /750I", "{\"id\":\"750I\",\"state\":\"Failed\",\"errorMessage\":\"ClientInputError\"}");
+        server.respond("GET /750I/successfulResults",
+            "\"sf__Id\",\"sf__Created\",\"Id\",\"Name\"\n\"006A\",\"false\",\"006A\",\"#N/A\"\n");
+        server.respond("GET /750I/failedResults", "\"sf__Id\",\"sf__Error\",\"Id\",\"Name\"\n");
+
+        SaveResult[] results = partnerService.saveRecords("Opportunity",
+            List.of(rec("Id", "006A", "Name", null), rec("Id", "006B", "Name", "x"), rec("Id", "006C", "Name", "y")));
+
+        assertTrue(results[0].isSuccess());
+        assertFalse(results[1].isSuccess());
+        assertTrue(results[2].getErrors()[0].getMessage().contains("not processed"));
+        assertTrue(server.received("PUT /750I/batches").startsWith("\"Id\",\"Name\"\n\"006A\",\"#N/A\"\n"));
+    }
+
+    @Test
+    @DisplayName("an update leaves the fields a record does not set unchanged and matches results by id")
+    void testUpdateDifferentFields() throws ConnectionException {
+        server.respond("GET /750I/successfulResults", "\"sf__Id\",\"sf__Created\",\"Id\",\"Name\",\"Amount\"\n"
+            + "\"006000000000002AAB\",\"false\",\"006000000000002\",\"\",\"2.0\"\n"
+            + "\"006000000000001AAA\",\"false\",\"006000000000001\",\"A\",\"\"\n");
+        server.respond("GET /750I/failedResults", "\"sf__Id\",\"sf__Error\",\"Id\",\"Name\",\"Amount\"\n"
+            + "\"\",\"FIELD_INTEGRITY_EXCEPTION:bad\",\"006000000000003\",\"#N/A\",\"\"\n");
+
+        SaveResult[] results = partnerService.saveRecords("Opportunity", List.of(
+            rec("Id", "006000000000001", "Name", "A"),
+            rec("Id", "006000000000002", "Amount", 2L),
+            rec("Id", "006000000000003", "Name", null)));
+
+        assertEquals("\"Id\",\"Name\",\"Amount\"\n\"006000000000001\",\"A\",\"\"\n"
+                + "\"006000000000002\",\"\",\"2\"\n\"006000000000003\",\"#N/A\",\"\"\n",
+            server.received("PUT /750I/batches"));
+        assertEquals("006000000000001AAA", results[0].getId());
+        assertEquals("006000000000002AAB", results[1].getId());
+        assertEquals("FIELD_INTEGRITY_EXCEPTION:bad", results[2].getErrors()[0].getMessage());
+    }
+
+    @Test
+    @DisplayName("ids are deleted by the SObject type of their key prefix")
+    void testDelete() throws ConnectionException {
+        DescribeGlobalSObjectResult account = new DescribeGlobalSObjectResult();
+        account.setName("Account");
+        account.setKeyPrefix("001");
+        account.setQueryable(true);
+        DescribeGlobalResult describeGlobal = new DescribeGlobalResult();
+        describeGlobal.setSobjects(new DescribeGlobalSObjectResult[]{account});
+        when(partnerConnection.describeGlobal()).thenReturn(describeGlobal);
+        server.respond("GET /750I/successfulResults",
+            "\"sf__Id\",\"sf__Created\",\"Id\"\n\"001A\",\"false\",\"001A\"\n\"001B\",\"false\",\"001B\"\n");
+        server.respond("GET /750I/failedResults", "\"sf__Id\",\"sf__Error\",\"Id\"\n");
+
+        DeleteResult[] results = partnerService.deleteRecords(List.of("001A", "zzzX", "001B"));
+
+        assertTrue(results[0].isSuccess());
+        assertFalse(results[1].isSuccess());
+        assertEquals("zzzX", results[1].getId());
+        assertTrue(results[2].isSuccess());
+        assertTrue(server.received("POST ").contains("\"object\":\"Account\",\"operation\":\"delete\""));
+        verify(partnerConnection, never()).delete(any(String[].class));
+    }
+
+    @Test
+    @DisplayName("below the threshold records go through SOAP")
+    void testBelowThreshold() throws ConnectionException {
+        when(partnerConnection.create(any(SObject[].class))).thenReturn(new SaveResult[0]);
+
+        partnerService.createRecords("Opportunity", List.of(rec("Name", "A")));
+
+        verify(partnerConnection).create(any(SObject[].class));
+        assertTrue(server.requests().isEmpty());
+    }
+}
@@ -0,0 +1,230 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.soap.partner.QueryResult;
+import com.sforce.soap.partner.sobject.SObject;
+import com.sforce.ws.ConnectionException;
+import com.sforce.ws.ConnectorConfig;
+import com.sforce.ws.SessionRenewer;
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.FakeSalesforceServer;
+import it.rotaliano.jdbc.salesforce.FakeSalesforceServer.Response;
+import it.rotaliano.jdbc.salesforce.statement.FieldDef;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs bulk queries against a local HTTP stand-in of the Bulk API 2.0 query resources.
+ */
+class BulkQueryTest {
+
+    private static final String JOB_PATH = "/services/data/v64.0/jobs/query";
+
+    private FakeSalesforceServer server;
+    private final AtomicInteger statusPolls = new AtomicInteger();
+    private volatile String jobState = "JobComplete";
+    private ConnectorConfig config;
+    private PartnerConnection partnerConnection;
+    private PartnerService partnerService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        System.setProperty(DriverConfiguration.PROP_BULK_POLL_INTERVAL, "10");
+        server = FakeSalesforceServer.start(JOB_PATH);
+        config = server.connectorConfig();
+        partnerConnection = FakeSalesforceServer.mockPartnerConnection(config);
+        partnerService = new PartnerService(partnerConnection, FakeSalesforceServer.ORG_ID);
+
+        server.respond("POST ", "{\"id\":\"750A\",\"state\":\"UploadComplete\"}");
+        server.respond("GET /750A", () -> Response.ok("{\"id\":\"750A\",\"state\":\""
+            + (statusPolls.incrementAndGet() == 1 ? "InProgress" : jobState) + "\",\"errorMessage\":\"INVALID_FIELD\"}"));
+        server.respond("GET /750A/results?maxRecords=50000", new Response(200, "\"Id\",\"Name\",\"Owner.Name\"\n"
+            + "\"001A\",\"Acme, Inc.\",\"John\"\n"
+            + "\"001B\",\"Say \"\"hi\"\"\nthere\",\"Bob\"\n", Map.of("Sforce-Locator", "L2")));
+        server.respond("GET /750A/results?maxRecords=50000&locator=L2", new Response(200,
+            "\"Id\",\"Name\",\"Owner.Name\"\n\"001C\",\"\",\"Jane\"\n", Map.of("Sforce-Locator", "null")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        System.clearProperty(DriverConfiguration.PROP_BULK_POLL_INTERVAL);
+        System.clearProperty(DriverConfiguration.PROP_BULK_MAX_WAIT);
+        System.clearProperty(DriverConfiguration.PROP_BULK_QUERY_THRESHOLD);
+    }
+
+    private static FieldDefTree schema() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Name", "Name", "Name", "string"));
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+        schema.addChild(new FieldDef("Name", "Owner.Name", "Owner.Name", "string"));
+        return schema;
+    }
+
+    private static List<Object> values(List<ForceResultField> row) {
+        List<Object> values = new ArrayList<>();
+        row.forEach(field -> values.add(field.getValue()));
+        return values;
+    }
+
+    @Nested
+    @DisplayName("BULK hint")
+    class Hint {
+
+        @Test
+        @DisplayName("all the CSV chunks are converted into rows aligned with the schema")
+        void testBulkQuery() throws ConnectionException {
+            List<List<ForceResultField>> rows = new ArrayList<>();
+
+            partnerService.bulkQuery("SELECT Name, Id, Owner.Name FROM Account", schema(), rows::add);
+
+            assertEquals(3, rows.size());
+            assertEquals(List.of("Acme, Inc.", "001A", "John"), values(rows.get(0)));
+            assertEquals(List.of("Say \"hi\"\nthere", "001B", "Bob"), values(rows.get(1)));
+            assertEquals("id", rows.get(1).get(1).getFieldType());
+            assertNull(rows.get(2).get(0).getValue());
+            assertEquals("Owner.Name", rows.get(2).get(2).getFullName());
+            assertEquals(List.of("POST ", "GET /750A", "GET /750A", "GET /750A/results?maxRecords=50000",
+                "GET /750A/results?maxRecords=50000&locator=L2"), server.requests());
+            verify(partnerConnection, never()).query("SELECT Name, Id, Owner.Name FROM Account");
+        }
+
+        @Test
+        @DisplayName("streaming continues the job through the query locator")
+        void testBulkQueryStart() throws ConnectionException {
+            Map.Entry<List<List<ForceResultField>>, QueryCursor> first =
+                partnerService.bulkQueryStart("SELECT Name, Id, Owner.Name FROM Account", schema());
+            assertEquals(2, first.getKey().size());
+            assertEquals(QueryCursor.ofBulkJob("750A", "L2"), first.getValue());
+
+            Map.Entry<List<List<ForceResultField>>, QueryCursor> second =
+                partnerService.queryMore(first.getValue(), schema());
+            assertEquals(List.of("001C"), List.of(second.getKey().get(0).get(1).getValue()));
+            assertNull(second.getValue());
+        }
+
+        @Test
+        @DisplayName("a failed job is reported with its error message")
+        void testFailedJob() {
+            jobState = "Failed";
+
+            ConnectionException e = assertThrows(ConnectionException.class,
+                () -> partnerService.bulkQuery("SELECT Id FROM Account", schema(), row -> { }));
+            assertTrue(e.getMessage().contains("INVALID_FIELD"), e.getMessage());
+        }
+
+        @Test
+        @DisplayName("a job still running after bulkMaxWait fails the query")
+        void testMaxWait() {
+            jobState = "InProgress";
+            System.setProperty(DriverConfiguration.PROP_BULK_MAX_WAIT, "50");
+
+            ConnectionException e = assertThrows(ConnectionException.class,
+                () -> partnerService.bulkQuery("SELECT Id FROM Account", schema(), row -> { }));
+            assertTrue(e.getMessage().contains("still InProgress"), e.getMessage());
+        }
+
+        @Test
+        @DisplayName("an expired session is renewed and the request retried")
+        void testSessionRenewal() throws ConnectionException {
+            server.acceptSession("renewed");
+            SessionRenewer renewer = mock(SessionRenewer.class);
+            when(renewer.renewSession(config)).thenAnswer(invocation -> {
+                config.setSessionId("renewed");
+                return null;
+            });
+            config.setSessionRenewer(renewer);
+            List<List<ForceResultField>> rows = new ArrayList<>();
+
+            partnerService.bulkQuery("SELECT Name, Id, Owner.Name FROM Account", schema(), rows::add);
+
+            assertEquals(3, rows.size());
+            verify(partnerConnection).setSessionHeader("renewed");
+        }
+    }
+
+    @Nested
+    @DisplayName("row-count threshold")
+    class Threshold {
+
+        private static final String SOQL = "SELECT Name, Id, Owner.Name FROM Account";
+
+        private void counted(int size) throws ConnectionException {
+            QueryResult count = new QueryResult();
+            count.setSize(size);
+            count.setDone(true);
+            count.setRecords(new SObject[0]);
+            when(partnerConnection.query("SELECT COUNT() FROM Account LIMIT 1001")).thenReturn(count);
+        }
+
+        @Test
+        @DisplayName("a result larger than the threshold runs only as a bulk job")
+        void testAboveThreshold() throws ConnectionException {
+            System.setProperty(DriverConfiguration.PROP_BULK_QUERY_THRESHOLD, "1000");
+            counted(1001);
+            List<List<ForceResultField>> rows = new ArrayList<>();
+
+            partnerService.query(SOQL, schema(), rows::add);
+
+            assertEquals(3, rows.size());
+            verify(partnerConnection, never()).query(SOQL);
+        }
+
+        @Test
+        @DisplayName("streaming starts a bulk job without running the SOAP query")
+        void testAboveThresholdStreaming() throws ConnectionException {
+            System.setProperty(DriverConfiguration.PROP_BULK_QUERY_THRESHOLD, "1000");
+            counted(1001);
+
+            Map.Entry<List<List<ForceResultField>>, QueryCursor> first = partnerService.queryStart(SOQL, schema());
+
+            assertEquals(2, first.getKey().size());
+            assertEquals(QueryCursor.ofBulkJob("750A", "L2"), first.getValue());
+            verify(partnerConnection, never()).query(SOQL);
+        }
+
+        @Test
+        @DisplayName("a result within the threshold stays on SOAP")
+        void testBelowThreshold() throws ConnectionException {
+            System.setProperty(DriverConfiguration.PROP_BULK_QUERY_THRESHOLD, "1000");
+            counted(1000);
+            QueryResult page = new QueryResult();
+            page.setDone(true);
+            page.setRecords(new SObject[0]);
+            when(partnerConnection.query(SOQL)).thenReturn(page);
+
+            partnerService.query(SOQL, schema(), row -> { });
+
+            assertTrue(server.requests().isEmpty());
+            verify(partnerConnection).query(SOQL);
+        }
+
+        @Test
+        @DisplayName("a query that cannot exceed the threshold is not counted")
+        void testNotCounted() {
+            assertNull(AbstractPartnerService.toCountQuery(SOQL + " LIMIT 1000", 1000));
+            assertNull(AbstractPartnerService.toCountQuery("SELECT COUNT(Id) FROM Account", 1000));
+            assertNull(AbstractPartnerService.toCountQuery("SELECT Name FROM Account GROUP BY Name", 1000));
+            assertEquals("SELECT COUNT() FROM Account WHERE Name LIKE 'A%' LIMIT 1001",
+                AbstractPartnerService.toCountQuery(SOQL + " WHERE Name LIKE 'A%' ORDER BY Name LIMIT 5000", 1000));
+        }
+    }
+}
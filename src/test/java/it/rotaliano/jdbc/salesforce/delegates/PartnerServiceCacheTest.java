@@ -1,20 +1,33 @@
 package it.rotaliano.jdbc.salesforce.delegates;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.sforce.soap.partner.DescribeGlobalResult;
+import com.sforce.soap.partner.DescribeGlobalSObjectResult;
 import com.sforce.soap.partner.DescribeSObjectResult;
 import com.sforce.soap.partner.Field;
 import com.sforce.soap.partner.FieldType;
 import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.soap.partner.fault.InvalidSObjectFault;
 import com.sforce.ws.ConnectionException;
 import com.sforce.ws.ConnectorConfig;
+import it.rotaliano.jdbc.salesforce.cache.FileDescribeCacheStore;
+import it.rotaliano.jdbc.salesforce.metadata.Table;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -144,6 +157,17 @@ class PartnerServiceCacheTest {
             partnerService.describeSObject("Account");
             verify(partnerConnection, times(2)).describeSObject("Account");
         }
+
+        @Test
+        @DisplayName("should change the describe version when the cache is cleared")
+        void testCleanupChangesDescribeVersion() {
+            long before = partnerService.getDescribeVersion();
+            assertEquals(before, partnerService.getDescribeVersion());
+
+            partnerService.cleanupGlobalCache();
+
+            assertNotEquals(before, partnerService.getDescribeVersion());
+        }
     }
 
     @Nested
@@ -236,6 +260,159 @@ class PartnerServiceCacheTest {
         }
     }
 
+    @Nested
+    @DisplayName("Persistent describe cache tests")
+    class PersistentCacheTests {
+
+        @TempDir
+        Path cacheDirectory;
+
+        @Test
+        @DisplayName("should read describe results persisted by a previous JVM")
+        void testDescribeSObjectSurvivesRestart() throws ConnectionException {
+            when(partnerConnection.describeSObject("Account")).thenReturn(createMockDescribeSObjectResult("Account"));
+            DescribeCache before = new DescribeCache(new FileDescribeCacheStore(cacheDirectory), 0);
+            new PartnerService(partnerConnection, testOrgId, before).describeSObject("Account");
+
+            // a new cache over the same directory stands for a restarted JVM
+            DescribeCache after = new DescribeCache(new FileDescribeCacheStore(cacheDirectory), 0);
+            DescribeSObjectResult result = new PartnerService(partnerConnection, testOrgId, after).describeSObject("account");
+
+            assertEquals("Account", result.getName());
+            assertEquals(2, result.getFields().length);
+            assertEquals("Name", result.getFields()[1].getName());
+            assertEquals(FieldType.string, result.getFields()[1].getType());
+            assertEquals(255, result.getFields()[1].getLength());
+            verify(partnerConnection, times(1)).describeSObject("Account");
+        }
+
+        @Test
+        @DisplayName("should isolate persisted describe results by API version")
+        void testPersistedCacheIsolatedByApiVersion() throws ConnectionException {
+            when(partnerConnection.describeSObject("Account")).thenReturn(createMockDescribeSObjectResult("Account"));
+            when(connectorConfig.getServiceEndpoint()).thenReturn("https://test.my.salesforce.com/services/Soap/u/63.0/00D");
+            new PartnerService(partnerConnection, testOrgId,
+                new DescribeCache(new FileDescribeCacheStore(cacheDirectory), 0)).describeSObject("Account");
+
+            when(connectorConfig.getServiceEndpoint()).thenReturn("https://test.my.salesforce.com/services/Soap/u/64.0/00D");
+            new PartnerService(partnerConnection, testOrgId,
+                new DescribeCache(new FileDescribeCacheStore(cacheDirectory), 0)).describeSObject("Account");
+
+            verify(partnerConnection, times(2)).describeSObject("Account");
+        }
+
+        @Test
+        @DisplayName("should serve expired describe results while refreshing them in the background")
+        void testExpiredEntryRefreshedInBackground() throws Exception {
+            when(partnerConnection.describeSObject("Account")).thenReturn(createMockDescribeSObjectResult("Account"));
+            CountDownLatch writes = new CountDownLatch(2);
+            FileDescribeCacheStore store = new FileDescribeCacheStore(cacheDirectory) {
+                @Override
+                public void write(String scope, String key, Entry entry) throws IOException {
+                    super.write(scope, key, entry);
+                    writes.countDown();
+                }
+            };
+            DescribeCache describeCache = new DescribeCache(store, 1);
+            PartnerService service = new PartnerService(partnerConnection, testOrgId, describeCache);
+            DescribeSObjectResult first = service.describeSObject("Account");
+
+            sleepPastTtl();
+            assertSame(first, service.describeSObject("Account"));
+
+            verify(partnerConnection, timeout(5000).times(2)).describeSObject("Account");
+            // the refresh persists its result after describing: let it finish before the directory is deleted
+            assertTrue(writes.await(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        @DisplayName("should drop persisted describe results on cleanupGlobalCache")
+        void testCleanupClearsPersistedCache() throws ConnectionException {
+            when(partnerConnection.describeSObject("Account")).thenReturn(createMockDescribeSObjectResult("Account"));
+            PartnerService service = new PartnerService(partnerConnection, testOrgId,
+                new DescribeCache(new FileDescribeCacheStore(cacheDirectory), 0));
+            service.describeSObject("Account");
+            service.cleanupGlobalCache();
+
+            new PartnerService(partnerConnection, testOrgId,
+                new DescribeCache(new FileDescribeCacheStore(cacheDirectory), 0)).describeSObject("Account");
+
+            verify(partnerConnection, times(2)).describeSObject("Account");
+        }
+
+        private void sleepPastTtl() {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("getTables describe fan-out tests")
+    class DescribeFanOutTests {
+
+        @Test
+        @DisplayName("should describe all the objects in concurrent batches")
+        void testAllBatchesDescribed() throws ConnectionException {
+            mockDescribeGlobal(250);
+            when(partnerConnection.describeSObjects(any(String[].class))).thenAnswer(invocation -> describe(invocation.getArgument(0)));
+
+            List<Table> tables = partnerService.getTables();
+
+            assertEquals(250, tables.size());
+            verify(partnerConnection, times(3)).describeSObjects(any(String[].class));
+        }
+
+        @Test
+        @DisplayName("should retry a batch failing with a connection error")
+        void testFailedBatchRetried() throws ConnectionException {
+            mockDescribeGlobal(10);
+            when(partnerConnection.describeSObjects(any(String[].class)))
+                .thenThrow(new ConnectionException("connection reset"))
+                .thenAnswer(invocation -> describe(invocation.getArgument(0)));
+
+            assertEquals(10, partnerService.getTables().size());
+            verify(partnerConnection, times(2)).describeSObjects(any(String[].class));
+        }
+
+        @Test
+        @DisplayName("should skip only the objects the API refuses to describe")
+        void testRejectedObjectSkipped() throws ConnectionException {
+            mockDescribeGlobal(4);
+            when(partnerConnection.describeSObjects(any(String[].class))).thenAnswer(invocation -> {
+                String[] names = invocation.getArgument(0);
+                if (Arrays.asList(names).contains("Object2")) {
+                    throw new InvalidSObjectFault();
+                }
+                return describe(names);
+            });
+
+            List<Table> tables = partnerService.getTables();
+
+            assertEquals(List.of("Object0", "Object1", "Object3"), tables.stream().map(Table::getName).sorted().toList());
+        }
+
+        private void mockDescribeGlobal(int count) throws ConnectionException {
+            DescribeGlobalSObjectResult[] sObjects = new DescribeGlobalSObjectResult[count];
+            for (int i = 0; i < count; i++) {
+                sObjects[i] = new DescribeGlobalSObjectResult();
+                sObjects[i].setName("Object" + i);
+                sObjects[i].setQueryable(true);
+            }
+            DescribeGlobalResult describeGlobal = new DescribeGlobalResult();
+            describeGlobal.setSobjects(sObjects);
+            when(partnerConnection.describeGlobal()).thenReturn(describeGlobal);
+        }
+
+        private DescribeSObjectResult[] describe(String[] names) {
+            return Arrays.stream(names)
+                .map(PartnerServiceCacheTest.this::createMockDescribeSObjectResult)
+                .toArray(DescribeSObjectResult[]::new);
+        }
+    }
+
     private DescribeSObjectResult createMockDescribeSObjectResult(String name) {
         DescribeSObjectResult result = new DescribeSObjectResult();
         result.setName(name);
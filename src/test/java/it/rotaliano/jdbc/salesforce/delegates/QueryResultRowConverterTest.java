@@ -0,0 +1,128 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import it.rotaliano.jdbc.salesforce.statement.FieldDef;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import com.sforce.ws.bind.XmlObject;
+import java.lang.reflect.Field;
+import java.util.List;
+import javax.xml.namespace.QName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class QueryResultRowConverterTest {
+
+    private static XmlObject record(String id) {
+        XmlObject rec = new XmlObject(new QName("records"));
+        rec.addField("type", "Account");
+        rec.addField("Id", id);
+        rec.addField("Id", id);
+        return rec;
+    }
+
+    private static XmlObject sObject(String name, String type, String id) throws ReflectiveOperationException {
+        XmlObject node = new XmlObject(new QName(name));
+        // the xsi:type is only set when a response is parsed
+        Field xmlType = XmlObject.class.getDeclaredField("xmlType");
+        xmlType.setAccessible(true);
+        xmlType.set(node, new QName("urn:sobject.partner.soap.sforce.com", "sObject"));
+        node.addField("type", type);
+        node.addField("Id", id);
+        return node;
+    }
+
+    @Test
+    @DisplayName("values are aligned with the schema order, not the response order")
+    void testAlignment() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Name", "Name", "Name", "string"));
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+
+        XmlObject rec = record("001A");
+        rec.addField("Name", "Acme");
+
+        List<ForceResultField> row = QueryResultRowConverter.forSchema(schema).convert(rec);
+
+        assertEquals(2, row.size());
+        assertEquals("Name", row.get(0).getFullName());
+        assertEquals("Acme", row.get(0).getValue());
+        assertEquals("string", row.get(0).getFieldType());
+        assertEquals("Id", row.get(1).getFullName());
+        assertEquals("001A", row.get(1).getValue());
+    }
+
+    @Test
+    @DisplayName("relationship fields are resolved by their dotted name")
+    void testRelationship() throws Exception {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+        schema.addChild(new FieldDef("Name", "Owner.Name", "Owner.Name", "string"));
+
+        XmlObject owner = sObject("Owner", "User", null);
+        owner.addField("Name", "John");
+        XmlObject rec = record("001A");
+        rec.addField("Owner", owner);
+
+        List<ForceResultField> row = QueryResultRowConverter.forSchema(schema).convert(rec);
+
+        assertEquals("001A", row.get(0).getValue());
+        assertEquals("Owner.Name", row.get(1).getFullName());
+        assertEquals("John", row.get(1).getValue());
+    }
+
+    @Test
+    @DisplayName("columns missing from the record are null")
+    void testMissingColumn() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+        schema.addChild(new FieldDef("Name", "Owner.Name", "Owner.Name", "string"));
+
+        XmlObject rec = record("001A");
+        rec.addField("Owner", null);
+
+        List<ForceResultField> row = QueryResultRowConverter.forSchema(schema).convert(rec);
+
+        assertEquals(2, row.size());
+        assertEquals("Owner.Name", row.get(1).getFullName());
+        assertNull(row.get(1).getValue());
+    }
+
+    @Test
+    @DisplayName("unaliased aggregates returned as exprN fill the function columns")
+    void testAggregate() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("count", "count", "count", "int"));
+
+        XmlObject rec = new XmlObject(new QName("records"));
+        rec.addField("type", "AggregateResult");
+        rec.addField("Id", null);
+        rec.addField("expr0", "42");
+
+        List<ForceResultField> row = QueryResultRowConverter.forSchema(schema).convert(rec);
+
+        assertEquals("42", row.get(0).getValue());
+    }
+
+    @Test
+    @DisplayName("schemas with sub-queries are left to FieldDefTree.expand")
+    void testSubquerySchemaNotSupported() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+        FieldDefTree subquery = new FieldDefTree();
+        subquery.setRelationshipName("Contacts");
+        subquery.addChild(new FieldDef("Name", "Name", "Name", "string"));
+        schema.addTreeNode(subquery);
+
+        assertNull(QueryResultRowConverter.forSchema(schema));
+        assertNotNull(QueryResultRowConverter.forSchema(flatSchema()));
+    }
+
+    private static FieldDefTree flatSchema() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+        return schema;
+    }
+}
@@ -0,0 +1,259 @@
+package it.rotaliano.jdbc.salesforce.delegates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sforce.soap.partner.DeleteResult;
+import com.sforce.soap.partner.DescribeSObjectResult;
+import com.sforce.soap.partner.Field;
+import com.sforce.soap.partner.FieldType;
+import com.sforce.soap.partner.SaveResult;
+import com.sforce.soap.partner.SoapType;
+import com.sforce.ws.ConnectionException;
+import it.rotaliano.jdbc.salesforce.FakeSalesforceServer;
+import it.rotaliano.jdbc.salesforce.metadata.Table;
+import it.rotaliano.jdbc.salesforce.statement.FieldDef;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the REST transport against a local HTTP stand-in of the Salesforce REST API.
+ */
+class RestPartnerServiceTest {
+
+    private static final String DATA_PATH = "/services/data/v64.0";
+
+    private FakeSalesforceServer server;
+    private RestPartnerService partnerService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = FakeSalesforceServer.start(DATA_PATH);
+        partnerService = new RestPartnerService(
+            FakeSalesforceServer.mockPartnerConnection(server.connectorConfig()),
+            FakeSalesforceServer.nextOrgId("restOrg"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static FieldDefTree schema() {
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+        schema.addChild(new FieldDef("Amount", "Amount", "Amount", "double"));
+        schema.addChild(new FieldDef("Name", "Owner.Name", "Owner.Name", "string"));
+        return schema;
+    }
+
+    private static List<Object> values(List<ForceResultField> row) {
+        return row.stream().map(ForceResultField::getValue).toList();
+    }
+
+    @Nested
+    class Query {
+
+        @BeforeEach
+        void setUp() {
+            server.respond("GET /query?q=SELECT+Id%2C+Amount%2C+Owner.Name+FROM+Opportunity",
+                "{\"totalSize\":3,\"done\":false,\"nextRecordsUrl\":\"" + DATA_PATH + "/query/01gA-2\",\"records\":["
+                    + "{\"attributes\":{\"type\":\"Opportunity\",\"url\":\"/x\"},\"Id\":\"006A\",\"Amount\":1500.5,"
+                    + "\"Owner\":{\"attributes\":{\"type\":\"User\"},\"Name\":\"John \\\"JJ\\\" \\u00e8\"}},"
+                    + "{\"attributes\":{\"type\":\"Opportunity\"},\"Id\":\"006B\",\"Amount\":null,\"Owner\":null}]}");
+            server.respond("GET /query/01gA-2",
+                "{\"totalSize\":3,\"done\":true,\"records\":[{\"attributes\":{\"type\":\"Opportunity\"},"
+                    + "\"Id\":\"006C\",\"Amount\":3,\"Owner\":{\"attributes\":{\"type\":\"User\"},\"Name\":\"Bob\"}}]}");
+        }
+
+        @Test
+        @DisplayName("pages are followed through nextRecordsUrl and fields bound by name")
+        void testQuery() throws ConnectionException {
+            List<List<ForceResultField>> rows = partnerService.query(
+                "SELECT Id, Amount, Owner.Name FROM Opportunity", schema());
+
+            assertEquals(3, rows.size());
+            assertEquals(List.of("006A", "1500.5", "John \"JJ\" \u00e8"), values(rows.get(0)));
+            assertEquals(java.util.Arrays.asList("006B", null, null), values(rows.get(1)));
+            assertEquals(List.of("006C", "3", "Bob"), values(rows.get(2)));
+            assertEquals("Owner.Name", rows.get(0).get(2).getName());
+        }
+
+        @Test
+        @DisplayName("the next records url is the query locator of queryMore")
+        void testQueryStartAndMore() throws ConnectionException {
+            Map.Entry<List<List<ForceResultField>>, QueryCursor> first = partnerService.queryStart(
+                "SELECT Id, Amount, Owner.Name FROM Opportunity", schema());
+            assertEquals(2, first.getKey().size());
+            assertEquals(QueryCursor.of(DATA_PATH + "/query/01gA-2"), first.getValue());
+
+            Map.Entry<List<List<ForceResultField>>, QueryCursor> next =
+                partnerService.queryMore(first.getValue(), schema());
+            assertEquals(1, next.getKey().size());
+            assertNull(next.getValue());
+        }
+
+        @Test
+        @DisplayName("sub-query records are expanded like the SOAP ones")
+        void testSubquery() throws ConnectionException {
+            server.respond("GET /query?q=SELECT+Id%2C+%28SELECT+Name+FROM+Contacts%29+FROM+Account",
+                "{\"totalSize\":1,\"done\":true,\"records\":[{\"attributes\":{\"type\":\"Account\"},\"Id\":\"001A\","
+                    + "\"Contacts\":{\"totalSize\":2,\"done\":true,\"records\":["
+                    + "{\"attributes\":{\"type\":\"Contact\"},\"Name\":\"Ann\"},"
+                    + "{\"attributes\":{\"type\":\"Contact\"},\"Name\":\"Ben\"}]}}]}");
+            FieldDefTree schema = new FieldDefTree();
+            schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+            FieldDefTree subquery = new FieldDefTree();
+            subquery.setRelationshipName("Contacts");
+            subquery.addChild(new FieldDef("Name", "Name", "Name", "string"));
+            schema.addTreeNode(subquery);
+
+            List<List<ForceResultField>> rows = partnerService.query(
+                "SELECT Id, (SELECT Name FROM Contacts) FROM Account", schema);
+
+            assertEquals(2, rows.size());
+            assertTrue(values(rows.get(0)).contains("Ann"));
+            assertTrue(values(rows.get(1)).contains("Ben"));
+        }
+    }
+
+    @Nested
+    class Describe {
+
+        @BeforeEach
+        void setUp() {
+            server.respond("GET /sobjects", "{\"sobjects\":["
+                + "{\"name\":\"Account\",\"keyPrefix\":\"001\",\"queryable\":true},"
+                + "{\"name\":\"User\",\"keyPrefix\":\"005\",\"queryable\":true},"
+                + "{\"name\":\"Setup\",\"keyPrefix\":null,\"queryable\":false}]}");
+            server.respond("GET /sobjects/Account/describe", account());
+            server.respond("POST /composite/batch", "{\"hasErrors\":true,\"results\":["
+                + "{\"statusCode\":200,\"result\":" + account() + "},"
+                + "{\"statusCode\":404,\"result\":[{\"errorCode\":\"NOT_FOUND\"}]}]}");
+        }
+
+        private static String account() {
+            return "{\"name\":\"Account\",\"keyPrefix\":\"001\",\"queryable\":true,\"fields\":["
+                + "{\"name\":\"Id\",\"type\":\"id\",\"length\":18,\"nillable\":false},"
+                + "{\"name\":\"AnnualRevenue\",\"type\":\"double\",\"precision\":18,\"scale\":2,\"nillable\":true},"
+                + "{\"name\":\"OwnerId\",\"type\":\"reference\",\"referenceTo\":[\"User\"],"
+                + "\"relationshipName\":\"Owner\"},"
+                + "{\"name\":\"Industry\",\"type\":\"picklist\",\"soapType\":\"xsd:string\",\"length\":255,"
+                + "\"byteLength\":765,\"filterable\":true,\"sortable\":true,\"groupable\":true,"
+                + "\"inlineHelpText\":\"Sector\",\"defaultValue\":null,\"picklistValues\":["
+                + "{\"active\":true,\"defaultValue\":false,\"label\":\"Energy\",\"value\":\"Energy\"}]},"
+                + "{\"name\":\"IsActive__c\",\"type\":\"boolean\",\"soapType\":\"xsd:boolean\","
+                + "\"defaultedOnCreate\":true,\"defaultValue\":true,\"custom\":true}],"
+                + "\"childRelationships\":[{\"childSObject\":\"Contact\",\"field\":\"AccountId\","
+                + "\"relationshipName\":\"Contacts\"}]}";
+        }
+
+        @Test
+        @DisplayName("describe results are mapped onto the Partner API types")
+        void testDescribeSObject() {
+            DescribeSObjectResult account = partnerService.describeSObject("Account");
+
+            assertEquals("Account", account.getName());
+            assertEquals(FieldType._double, account.getFields()[1].getType());
+            assertEquals(FieldType.reference, account.getFields()[2].getType());
+            assertEquals("User", account.getFields()[2].getReferenceTo()[0]);
+            assertEquals("Owner", account.getFields()[2].getRelationshipName());
+            assertEquals("Contacts", account.getChildRelationships()[0].getRelationshipName());
+            assertNull(partnerService.describeSObject("Missing"));
+        }
+
+        @Test
+        @DisplayName("the field properties of the SOAP describe are filled and survive the describe cache codec")
+        void testFieldProperties() throws IOException {
+            DescribeSObjectResult account = DescribeCodec.decode(
+                DescribeCodec.encode(partnerService.describeSObject("Account")), new DescribeSObjectResult());
+
+            Field industry = account.getFields()[3];
+            assertEquals(SoapType.string, industry.getSoapType());
+            assertEquals(765, industry.getByteLength());
+            assertTrue(industry.isFilterable() && industry.isSortable() && industry.isGroupable());
+            assertEquals("Sector", industry.getInlineHelpText());
+            assertEquals("Energy", industry.getPicklistValues()[0].getValue());
+            assertTrue(industry.getPicklistValues()[0].isActive());
+            Field active = account.getFields()[4];
+            assertEquals(SoapType._boolean, active.getSoapType());
+            assertTrue(active.isDefaultedOnCreate());
+            assertEquals(Boolean.TRUE, partnerService.describeSObject("Account").getFields()[4].getDefaultValue());
+        }
+
+        @Test
+        @DisplayName("tables are described with composite batch requests, skipping failed describes")
+        void testGetTables() throws ConnectionException {
+            List<Table> tables = partnerService.getTables();
+
+            assertEquals(1, tables.size());
+            assertEquals("decimal", tables.get(0).getColumns().get(1).getType());
+            assertEquals("User", tables.get(0).getColumns().get(2).getReferencedTable());
+            assertTrue(server.received("POST /composite/batch").contains("\"url\":\"v64.0/sobjects/User/describe\""));
+        }
+    }
+
+    @Nested
+    class Dml {
+
+        @Test
+        @DisplayName("inserts are sent as sObject collections with per-record results")
+        void testCreateRecords() throws ConnectionException {
+            server.respond("POST /composite/sobjects", "[{\"id\":\"006A\",\"success\":true,\"errors\":[]},"
+                + "{\"success\":false,\"errors\":[{\"statusCode\":\"REQUIRED_FIELD_MISSING\","
+                + "\"message\":\"Required fields are missing\",\"fields\":[\"Name\"]}]}]");
+            Map<String, Object> valid = new LinkedHashMap<>();
+            valid.put("Name", "A \"quoted\" name");
+            valid.put("Amount", 10);
+            valid.put("CloseDate", java.sql.Date.valueOf("2024-03-01"));
+            Map<String, Object> invalid = new LinkedHashMap<>();
+            invalid.put("Name", null);
+
+            SaveResult[] results = partnerService.createRecords("Opportunity", List.of(valid, invalid));
+
+            assertTrue(results[0].isSuccess());
+            assertEquals("006A", results[0].getId());
+            assertFalse(results[1].isSuccess());
+            assertEquals("REQUIRED_FIELD_MISSING:Required fields are missing", results[1].getErrors()[0].getMessage());
+            assertEquals("{\"allOrNone\":false,\"records\":["
+                    + "{\"attributes\":{\"type\":\"Opportunity\"},\"Name\":\"A \\\"quoted\\\" name\",\"Amount\":10,"
+                    + "\"CloseDate\":\"2024-03-01\"},{\"attributes\":{\"type\":\"Opportunity\"},\"Name\":null}]}",
+                server.received("POST /composite/sobjects"));
+        }
+
+        @Test
+        @DisplayName("updates override the method to PATCH")
+        void testSaveRecords() throws ConnectionException {
+            server.respond("POST /composite/sobjects?_HttpMethod=PATCH", "[{\"id\":\"006A\",\"success\":true}]");
+
+            SaveResult[] results = partnerService.saveRecords("Opportunity", List.of(Map.of("Id", "006A")));
+
+            assertTrue(results[0].isSuccess());
+        }
+
+        @Test
+        @DisplayName("deletes pass the ids in the query string")
+        void testDeleteRecords() throws ConnectionException {
+            server.respond("DELETE /composite/sobjects?allOrNone=false&ids=001A%2C001B",
+                "[{\"id\":\"001A\",\"success\":true,\"errors\":[]},"
+                    + "{\"id\":\"001B\",\"success\":false,\"errors\":[{\"statusCode\":\"ENTITY_IS_DELETED\","
+                    + "\"message\":\"entity is deleted\"}]}]");
+
+            DeleteResult[] results = partnerService.deleteRecords(List.of("001A", "001B"));
+
+            assertTrue(results[0].isSuccess());
+            assertFalse(results[1].isSuccess());
+            assertEquals("001B", results[1].getId());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package it.rotaliano.jdbc.salesforce.expression;
 
 import org.junit.jupiter.api.Test;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -240,4 +241,44 @@ public class ExpressionEngineTest {
         };
         assertEquals(true, customExpr.evaluate(ctx));
     }
+
+    @Test
+    public void testCompiledExpressions() throws Exception {
+        List<String> columns = List.of("Name", "Age", "NullCol");
+        List<Object> values = Arrays.asList("  acme  ", 30, null);
+        RowContext ctx = col -> columns.contains(col) ? values.get(columns.indexOf(col)) : null;
+
+        List<String> conditions = List.of(
+                "UPPER(TRIM(Name)) = 'ACME'",
+                "Age > 25 AND Age <= 30.0",
+                "35 > Age",
+                "Age = '30'",
+                "Name < 'b'",
+                "NullCol IS NULL OR Age = 0",
+                "NOT NullCol = 1",
+                "Missing IS NOT NULL",
+                "(Age IN (10, 20, 30)) AND SUBSTRING(Name, 3, 4) = 'acme'",
+                "Age BETWEEN 31 AND 40");
+        for (String condition : conditions) {
+            Expression expr = AstBuilder.build(net.sf.jsqlparser.parser.CCJSqlParserUtil.parseExpression(condition));
+            CompiledExpression compiled = expr.compile(columns::indexOf);
+
+            assertEquals(expr.evaluate(ctx), compiled.evaluate(values), condition);
+            assertEquals(LogicalExpression.isTruthy(expr.evaluate(ctx)), compiled.test(values), condition);
+        }
+    }
+
+    @Test
+    public void testCompiledThreeValuedLogic() {
+        Expression nullExpr = new ColumnExpression("NullCol");
+        CompiledExpression and = new LogicalExpression(new LiteralExpression(true), nullExpr, LogicalExpression.Operator.AND)
+                .compile(col -> 0);
+        CompiledExpression not = new NotExpression(nullExpr).compile(col -> 0);
+        List<Object> values = Arrays.asList((Object) null);
+
+        assertNull(and.evaluate(values));
+        assertFalse(and.test(values));
+        assertNull(not.evaluate(values));
+        assertFalse(not.test(values));
+    }
 }
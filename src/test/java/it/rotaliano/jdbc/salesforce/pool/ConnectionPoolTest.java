@@ -0,0 +1,121 @@
+package it.rotaliano.jdbc.salesforce.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sforce.soap.partner.PartnerConnection;
+import com.sforce.ws.ConnectorConfig;
+import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
+import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+
+    private final AtomicInteger logins = new AtomicInteger();
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(this::login, 2, 50);
+    }
+
+    private ForceConnection login() {
+        logins.incrementAndGet();
+        ConnectorConfig config = new ConnectorConfig();
+        config.setAuthEndpoint("https://login.salesforce.com/services/Soap/u/64.0");
+        config.setServiceEndpoint("https://test.my.salesforce.com/services/Soap/u/64.0/00D000000000001");
+        config.setSessionId("00D000000000001!session");
+        PartnerConnection partnerConnection = mock(PartnerConnection.class);
+        when(partnerConnection.getConfig()).thenReturn(config);
+        return new ForceConnection(partnerConnection, new PartnerService(partnerConnection, "00D000000000001"));
+    }
+
+    @Nested
+    @DisplayName("acquire and release")
+    class AcquireRelease {
+
+        @Test
+        @DisplayName("a closed connection is handed out again")
+        void testReleasedConnectionReused() throws SQLException {
+            Connection first = pool.acquire();
+            ForceConnection physical = first.unwrap(ForceConnection.class);
+            first.close();
+
+            Connection second = pool.acquire();
+
+            assertSame(physical, second.unwrap(ForceConnection.class));
+            PoolStats stats = pool.getStats();
+            assertEquals(2, stats.acquired());
+            assertEquals(1, stats.released());
+            assertEquals(1, stats.created());
+            assertEquals(1, stats.active());
+        }
+
+        @Test
+        @DisplayName("only the first connection logs in, the others share its session")
+        void testSessionShared() throws SQLException {
+            Connection first = pool.acquire();
+            Connection second = pool.acquire();
+
+            ForceConnection firstPhysical = first.unwrap(ForceConnection.class);
+            ForceConnection secondPhysical = second.unwrap(ForceConnection.class);
+            assertNotSame(firstPhysical, secondPhysical);
+            assertEquals(1, logins.get());
+            assertEquals("00D000000000001!session",
+                secondPhysical.getPartnerConnection().getConfig().getSessionId());
+            assertEquals(firstPhysical.getPartnerConnection().getConfig().getServiceEndpoint(),
+                secondPhysical.getPartnerConnection().getConfig().getServiceEndpoint());
+            assertEquals("00D000000000001", secondPhysical.getPartnerService().getOrgId());
+
+            PoolStats stats = pool.getStats();
+            assertEquals(2, stats.size());
+            assertEquals(2, stats.created());
+            assertEquals(1, stats.logins());
+        }
+
+        @Test
+        @DisplayName("a closed handle cannot be used any more")
+        void testClosedHandle() throws SQLException {
+            Connection connection = pool.acquire();
+            connection.close();
+            connection.close();
+
+            assertTrue(connection.isClosed());
+            assertThrows(SQLException.class, connection::createStatement);
+            assertEquals(1, pool.getStats().released());
+        }
+
+        @Test
+        @DisplayName("acquire times out when all the connections are in use")
+        void testAcquireTimeout() throws SQLException {
+            pool.acquire();
+            pool.acquire();
+
+            assertThrows(SQLTransientConnectionException.class, pool::acquire);
+            assertEquals(2, pool.getStats().active());
+        }
+
+        @Test
+        @DisplayName("no connection is handed out after close")
+        void testClose() throws SQLException {
+            Connection connection = pool.acquire();
+            pool.close();
+            connection.close();
+
+            assertThrows(SQLException.class, pool::acquire);
+            assertEquals(0, pool.getStats().size());
+        }
+    }
+}
@@ -2,17 +2,26 @@ package it.rotaliano.jdbc.salesforce.resultset;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import it.rotaliano.jdbc.salesforce.expression.AstBuilder;
 import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.RowSchema;
 import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import java.util.TimeZone;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -1163,4 +1172,251 @@ class CachedResultSetTest {
             assertEquals("1", rs.getString("id"));
         }
     }
+
+    @Nested
+    @DisplayName("Client-side WHERE filter tests")
+    class WhereFilterTests {
+
+        private ColumnMap<String, Object> row(String id, Object amount) {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put("Opportunity.Id", "Id", id, TypeInfo.STRING_TYPE_INFO);
+            row.put("Opportunity.Amount", "Amount", amount, TypeInfo.DOUBLE_TYPE_INFO);
+            return row;
+        }
+
+        @Test
+        @DisplayName("filters materialized rows by qualified column")
+        void testFiltersRows() throws Exception {
+            CachedResultSet rs = new CachedResultSet(List.of(row("1", 5d), row("2", 50d), row("3", null)), null,
+                AstBuilder.build(CCJSqlParserUtil.parseExpression("Amount > 10")));
+
+            assertTrue(rs.next());
+            assertEquals("2", rs.getString("Id"));
+            assertFalse(rs.next());
+        }
+
+        @Test
+        @DisplayName("filters each streamed batch, rebinding on a new column layout")
+        void testFiltersStreamedBatches() throws Exception {
+            ColumnMap<String, Object> shifted = new ColumnMap<>();
+            shifted.put("Opportunity.Name", "Name", "big", TypeInfo.STRING_TYPE_INFO);
+            shifted.put("Opportunity.Id", "Id", "4", TypeInfo.STRING_TYPE_INFO);
+            shifted.put("Opportunity.Amount", "Amount", 500d, TypeInfo.DOUBLE_TYPE_INFO);
+            List<List<ColumnMap<String, Object>>> batches = List.of(
+                List.of(row("1", 5d), row("2", 50d)),
+                List.of(row("3", 1d)),
+                List.of(shifted));
+
+            CachedResultSet rs = new CachedResultSet(batches.iterator(), null,
+                AstBuilder.build(CCJSqlParserUtil.parseExpression("Amount >= 50")));
+
+            assertTrue(rs.next());
+            assertEquals("2", rs.getString("Id"));
+            assertTrue(rs.next());
+            assertEquals("4", rs.getString("Id"));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Nested
+    @DisplayName("Column lookup")
+    class ColumnLookupTests {
+
+        private ColumnMap<String, Object> row(RowSchema<String> schema, String id, String name) {
+            ColumnMap<String, Object> row = new ColumnMap<>(schema);
+            row.put("Account.Id", "Id", id, TypeInfo.ID_TYPE_INFO);
+            row.put("Account.Name", "accountName", name, TypeInfo.STRING_TYPE_INFO);
+            return row;
+        }
+
+        @Test
+        @DisplayName("rows with the same columns share one schema")
+        void testRowsShareSchema() {
+            ColumnMap<String, Object> first = row(null, "1", "Acme");
+            RowSchema<String> schema = first.getSchema();
+            ColumnMap<String, Object> second = row(schema, "2", "Globex");
+
+            assertSame(schema, second.getSchema());
+            assertEquals("Globex", second.get("accountName"));
+        }
+
+        @Test
+        @DisplayName("a row with other columns stops sharing the schema")
+        void testRowLeavesSchema() {
+            RowSchema<String> schema = row(null, "1", "Acme").getSchema();
+            ColumnMap<String, Object> other = new ColumnMap<>(schema);
+            other.put("Account.Id", "Id", "2", TypeInfo.ID_TYPE_INFO);
+            other.put("Account.Phone", "Phone", "555", TypeInfo.STRING_TYPE_INFO);
+
+            assertNotSame(schema, other.getSchema());
+            assertEquals(List.of("Account.Id", "Account.Phone"), other.getColumnNames());
+            assertEquals("555", other.get("Phone"));
+            assertNull(other.get("accountName"));
+        }
+
+        @Test
+        @DisplayName("resolves names before labels, then ignoring case")
+        void testLookupOrder() throws SQLException {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put("Name", "Label", "first", TypeInfo.STRING_TYPE_INFO);
+            row.put("Other", "Name", "second", TypeInfo.STRING_TYPE_INFO);
+            row.put("Label", "Third", "third", TypeInfo.STRING_TYPE_INFO);
+            CachedResultSet rs = new CachedResultSet(List.of(row));
+            rs.next();
+
+            assertEquals("first", rs.getObject("Name"));
+            assertEquals("third", rs.getObject("Label"));
+            assertEquals("second", rs.getObject("OTHER"));
+            assertEquals(3, rs.findColumn("third"));
+        }
+
+        @Test
+        @DisplayName("findColumn() resolves labels before the first row and throws for unknown columns")
+        void testFindColumn() throws SQLException {
+            CachedResultSet rs = new CachedResultSet(List.of(row(null, "1", "Acme"), row(null, "2", "Globex")));
+
+            assertEquals(2, rs.findColumn("ACCOUNTNAME"));
+            assertEquals(1, rs.findColumn("Account.Id"));
+            assertThrows(SQLException.class, () -> rs.findColumn("Phone"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Memoized conversions")
+    class MemoizedConversionTests {
+
+        private CachedResultSet resultSet() {
+            List<ColumnMap<String, Object>> rows = new ArrayList<>();
+            for (String day : List.of("2023-07-15", "2023-07-16")) {
+                ColumnMap<String, Object> row = new ColumnMap<>();
+                row.put("Amount", "amount", day.substring(8) + ".25", TypeInfo.DECIMAL_TYPE_INFO);
+                row.put("CreatedDate", day + "T14:30:45.123Z", TypeInfo.DATETIME_TYPE_INFO);
+                rows.add(row);
+            }
+            return new CachedResultSet(rows);
+        }
+
+        @Test
+        @DisplayName("converts a cell once for repeated getter calls")
+        void testConvertsOnce() {
+            CachedResultSet rs = resultSet();
+            rs.next();
+
+            BigDecimal amount = rs.getBigDecimal("amount");
+            assertEquals(new BigDecimal("15.25"), amount);
+            assertSame(amount, rs.getBigDecimal(1));
+            assertFalse(rs.wasNull());
+
+            rs.next();
+            assertEquals(new BigDecimal("16.25"), rs.getBigDecimal("AMOUNT"));
+        }
+
+        @Test
+        @DisplayName("returns a new mutable value per call")
+        void testNewTimestampPerCall() {
+            CachedResultSet rs = resultSet();
+            rs.next();
+
+            Timestamp first = rs.getTimestamp("CreatedDate");
+            Timestamp second = rs.getTimestamp(2);
+
+            assertNotSame(first, second);
+            assertEquals(first, second);
+            assertEquals(Instant.parse("2023-07-15T14:30:45.123Z").toEpochMilli(), first.getTime());
+        }
+
+        @Test
+        @DisplayName("keeps the conversions of a cell apart")
+        void testConversionsOfSameCell() {
+            CachedResultSet rs = resultSet();
+            rs.next();
+
+            assertNull(rs.getDate("CreatedDate"));
+            assertNotNull(rs.getTimestamp("CreatedDate"));
+            assertEquals("2023-07-15T14:30:45.123Z", rs.getString("CreatedDate"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Shared cursors")
+    class SharedCursorTests {
+
+        private List<ColumnMap<String, Object>> rows(int count, boolean uniform) {
+            List<ColumnMap<String, Object>> rows = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ColumnMap<String, Object> row = new ColumnMap<>();
+                row.put("Id", Integer.toString(i), TypeInfo.STRING_TYPE_INFO);
+                row.put(uniform || i % 2 == 0 ? "Name" : "Label", i % 3 == 0 ? null : "Name " + i,
+                    TypeInfo.STRING_TYPE_INFO);
+                rows.add(row);
+            }
+            return rows;
+        }
+
+        @ParameterizedTest
+        @ValueSource(booleans = {true, false})
+        @DisplayName("cursors keep their own position and wasNull state")
+        void testIndependentCursors(boolean uniform) {
+            CachedResultSet shared = new CachedResultSet(rows(3, uniform)).share();
+            CachedResultSet first = shared.cursor();
+            CachedResultSet second = shared.cursor();
+
+            assertTrue(first.next());
+            assertNull(first.getString(2));
+            assertTrue(second.next());
+            assertTrue(second.next());
+            assertEquals("Name 1", second.getString(2));
+
+            assertTrue(first.wasNull());
+            assertFalse(second.wasNull());
+            assertEquals("0", first.getString("Id"));
+            assertEquals("1", second.getString("Id"));
+        }
+
+        @Test
+        @DisplayName("rows added to a cursor are not seen by the other cursors")
+        void testCursorDoesNotModifySharedRows() {
+            CachedResultSet shared = new CachedResultSet(rows(2, false)).share();
+            CachedResultSet cursor = shared.cursor();
+
+            assertThrows(UnsupportedOperationException.class, () -> cursor.addRow(rows(1, true).get(0)));
+            assertEquals(2, countRows(shared.cursor()));
+        }
+
+        @Test
+        @DisplayName("several threads read the same rows at once")
+        void testConcurrentCursors() throws Exception {
+            CachedResultSet shared = new CachedResultSet(rows(500, false)).share();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> counts = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    counts.add(executor.submit(() -> countRows(shared.cursor())));
+                }
+                for (Future<Integer> count : counts) {
+                    assertEquals(500, count.get());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("a streaming result set is not shared")
+        void testStreamingNotShared() {
+            CachedResultSet streaming = new CachedResultSet(List.of(rows(1, true)).iterator(), null);
+
+            assertSame(streaming, streaming.share());
+            assertThrows(IllegalStateException.class, streaming::cursor);
+        }
+
+        private int countRows(CachedResultSet rs) {
+            int count = 0;
+            while (rs.next()) {
+                assertEquals(Integer.toString(count), rs.getString("Id"));
+                count++;
+            }
+            return count;
+        }
+    }
 }
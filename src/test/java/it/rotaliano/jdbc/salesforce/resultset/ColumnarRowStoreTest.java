@@ -0,0 +1,185 @@
+package it.rotaliano.jdbc.salesforce.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ColumnarRowStoreTest {
+
+    private static List<ColumnMap<String, Object>> rows(String column, TypeInfo type, Object... values) {
+        List<ColumnMap<String, Object>> rows = new ArrayList<>();
+        for (Object value : values) {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put(column, value, type);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void assertRoundTrip(List<ColumnMap<String, Object>> rows, ColumnarRowStore store) {
+        assertEquals(rows.size(), store.size());
+        for (int r = 0; r < rows.size(); r++) {
+            for (int c = 0; c < rows.get(r).size(); c++) {
+                assertEquals(rows.get(r).getValues().get(c), store.get(r, c));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("of() tests")
+    class OfTests {
+
+        @Test
+        @DisplayName("should return null for no rows")
+        void testEmpty() {
+            assertNull(ColumnarRowStore.of(new ArrayList<>()));
+            assertNull(ColumnarRowStore.of(null));
+        }
+
+        @Test
+        @DisplayName("should return null for rows with different columns")
+        void testNonUniform() {
+            List<ColumnMap<String, Object>> rows = rows("Id", TypeInfo.ID_TYPE_INFO, "001A");
+            ColumnMap<String, Object> other = new ColumnMap<>();
+            other.put("Name", "Acme", TypeInfo.STRING_TYPE_INFO);
+            rows.add(other);
+
+            assertNull(ColumnarRowStore.of(rows));
+        }
+
+        @Test
+        @DisplayName("should resolve columns by name, then by label")
+        void testIndexOf() {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put("Id", "Id", "001A", TypeInfo.ID_TYPE_INFO);
+            row.put("Account.Name", "AccountName", "Acme", TypeInfo.STRING_TYPE_INFO);
+            ColumnarRowStore store = ColumnarRowStore.of(List.of(row));
+
+            assertNotNull(store);
+            assertEquals(0, store.indexOf("Id"));
+            assertEquals(1, store.indexOf("Account.Name"));
+            assertEquals(1, store.indexOf("AccountName"));
+            assertEquals(-1, store.indexOf("Missing"));
+            assertEquals(TypeInfo.STRING_TYPE_INFO, store.getTypeInfo(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("column vector tests")
+    class VectorTests {
+
+        @Test
+        @DisplayName("integer strings are stored as longs and rendered back unchanged")
+        void testLongStrings() {
+            List<ColumnMap<String, Object>> rows = rows("n", TypeInfo.INT_TYPE_INFO, "1", null, "-42", "9223372036854775807");
+            ColumnarRowStore store = ColumnarRowStore.of(rows);
+
+            assertTrue(store.isLongColumn(0));
+            assertEquals(-42L, store.getLong(2, 0));
+            assertTrue(store.isNull(1, 0));
+            assertRoundTrip(rows, store);
+        }
+
+        @Test
+        @DisplayName("decimal strings are stored as doubles and rendered back unchanged")
+        void testDoubleStrings() {
+            List<ColumnMap<String, Object>> rows = rows("d", TypeInfo.DOUBLE_TYPE_INFO, "1.5", "100", null, "-0.25");
+            ColumnarRowStore store = ColumnarRowStore.of(rows);
+
+            assertFalse(store.isLongColumn(0));
+            assertTrue(store.isNumericColumn(0));
+            assertEquals(100d, store.getDouble(1, 0));
+            assertRoundTrip(rows, store);
+        }
+
+        @Test
+        @DisplayName("numbers that would not render back unchanged are not stored as primitives")
+        void testNonCanonicalNumbers() {
+            List<ColumnMap<String, Object>> rows = rows("d", TypeInfo.DOUBLE_TYPE_INFO, "007", "1.50", "1e3");
+            ColumnarRowStore store = ColumnarRowStore.of(rows);
+
+            assertFalse(store.isNumericColumn(0));
+            assertRoundTrip(rows, store);
+        }
+
+        @Test
+        @DisplayName("boxed values keep their type")
+        void testBoxedValues() {
+            List<ColumnMap<String, Object>> longs = rows("n", TypeInfo.LONG_TYPE_INFO, 5L, null);
+            List<ColumnMap<String, Object>> booleans = rows("b", TypeInfo.BOOL_TYPE_INFO, true, false, null);
+            List<ColumnMap<String, Object>> doubles = rows("d", TypeInfo.DOUBLE_TYPE_INFO, 2.5d, 3d);
+
+            assertRoundTrip(longs, ColumnarRowStore.of(longs));
+            assertRoundTrip(booleans, ColumnarRowStore.of(booleans));
+            assertRoundTrip(doubles, ColumnarRowStore.of(doubles));
+            assertTrue(ColumnarRowStore.of(doubles).isNumericColumn(0));
+        }
+
+        @Test
+        @DisplayName("repeated strings share dictionary entries, unique strings are kept as they are")
+        void testStrings() {
+            List<ColumnMap<String, Object>> picklist = rows("Stage", TypeInfo.PICKLIST_TYPE_INFO,
+                "Open", "Closed", "Open", null, "Open", "Closed");
+            List<ColumnMap<String, Object>> ids = rows("Id", TypeInfo.ID_TYPE_INFO, "001A", "001B", "001C");
+
+            ColumnarRowStore picklistStore = ColumnarRowStore.of(picklist);
+            assertRoundTrip(picklist, picklistStore);
+            assertSame(picklistStore.get(0, 0), picklistStore.get(2, 0));
+            assertRoundTrip(ids, ColumnarRowStore.of(ids));
+        }
+
+        @Test
+        @DisplayName("columns of mixed value types keep the original objects")
+        void testMixed() {
+            List<ColumnMap<String, Object>> rows = rows("x", TypeInfo.OTHER_TYPE_INFO, "a", 1, true);
+
+            assertRoundTrip(rows, ColumnarRowStore.of(rows));
+        }
+    }
+
+    @Test
+    @DisplayName("toRows() and serialization preserve names, labels, types and values")
+    void testToRowsAndSerialization() throws Exception {
+        List<ColumnMap<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put("Id", "Id", "001" + i, TypeInfo.ID_TYPE_INFO);
+            row.put("Amount", "Total", i % 2 == 0 ? "10.5" : null, TypeInfo.DOUBLE_TYPE_INFO);
+            rows.add(row);
+        }
+        ColumnarRowStore store = ColumnarRowStore.of(rows);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(store);
+        }
+        ColumnarRowStore copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ColumnarRowStore) in.readObject();
+        }
+
+        List<ColumnMap<String, Object>> rebuilt = copy.toRows();
+        assertEquals(rows.size(), rebuilt.size());
+        for (int r = 0; r < rows.size(); r++) {
+            assertEquals(rows.get(r).getColumnNames(), rebuilt.get(r).getColumnNames());
+            assertEquals(rows.get(r).getColumnLabels(), rebuilt.get(r).getColumnLabels());
+            assertEquals(rows.get(r).getTypes(), rebuilt.get(r).getTypes());
+            assertEquals(rows.get(r).getValues(), rebuilt.get(r).getValues());
+        }
+    }
+}
@@ -2,12 +2,17 @@ package it.rotaliano.jdbc.salesforce.statement;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sforce.soap.partner.DescribeSObjectResult;
@@ -15,17 +20,34 @@ import com.sforce.ws.ConnectionException;
 import it.rotaliano.jdbc.salesforce.connection.ForceConnection;
 import it.rotaliano.jdbc.salesforce.delegates.ForceResultField;
 import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
 import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.delegates.QueryCursor;
 import it.rotaliano.jdbc.salesforce.exceptions.SalesforceRuntimeException;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement.CacheMode;
+import it.rotaliano.jdbc.salesforce.utils.FieldDefTree;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.rowset.RowSetMetaDataImpl;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class ForcePreparedStatementTest {
 
@@ -87,6 +109,53 @@ public class ForcePreparedStatementTest {
         assertEquals("SELECT Something FROM Anything WERE name = 'one' AND age > 123", actual);
     }
 
+    @Test
+    public void testSetParamsSkipsPlaceholdersInLiterals() throws SQLException {
+        ForcePreparedStatement statement = new ForcePreparedStatement(connection, "");
+        String query = "SELECT Id FROM Account WHERE Name = 'why?' AND Description = ? AND NumberOfEmployees > ?";
+        statement.addParameter(1, "it's \\ $1");
+        statement.addParameter(2, 10L);
+
+        String actual = statement.setParams(query);
+
+        assertEquals("SELECT Id FROM Account WHERE Name = 'why?' AND Description = 'it\\'s \\\\ $1'"
+            + " AND NumberOfEmployees > 10", actual);
+    }
+
+    @Test
+    public void testTemplateRendersDate() {
+        String actual = renderInTimeZone("Europe/Rome", "SELECT Id FROM Account WHERE CreatedDate > ?",
+            java.util.Date.from(Instant.parse("2017-03-06T11:34:56Z")));
+
+        assertEquals("SELECT Id FROM Account WHERE CreatedDate > 2017-03-06T12:34:56+00:00", actual);
+    }
+
+    @Test
+    public void testTemplateRendersTimestamp() {
+        String actual = renderInTimeZone("Europe/Rome", "SELECT Id FROM Account WHERE CreatedDate > ?",
+            Timestamp.from(Instant.parse("2021-10-12T00:00:12.345Z")));
+
+        assertEquals("SELECT Id FROM Account WHERE CreatedDate > 2021-10-12T02:00:12+00:00", actual);
+    }
+
+    @Test
+    public void testTemplateRendersTimestampEscape() {
+        String actual = renderInTimeZone("America/New_York", "SELECT Id FROM Account WHERE CreatedDate > ?",
+            "{ts '2021-10-12T00:00:12Z'}");
+
+        assertEquals("SELECT Id FROM Account WHERE CreatedDate > 2021-10-12T00:00:12+00:00", actual);
+    }
+
+    private static String renderInTimeZone(String timeZone, String soql, Object parameter) {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+        try {
+            return SoqlTemplate.parse(soql).render(List.of(parameter));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
 
     @Test
     public void testGetCacheMode() throws Exception {
@@ -107,6 +176,34 @@ public class ForcePreparedStatementTest {
         assertNotEquals("  select name from Account", getSqlAfterRemoveCacheHints(statement, " Cache other select name from Account"));
     }
 
+    @Test
+    public void testCacheTtlHint() throws Exception {
+        ForcePreparedStatement statement = new ForcePreparedStatement(connection, "");
+
+        assertEquals(ForcePreparedStatement.CacheMode.GLOBAL, getCacheMode(statement, "CACHE GLOBAL TTL 300s select name from Account"));
+        assertEquals(300_000L, getLongField(statement, "cacheTtlMillis"));
+        assertEquals(0L, getLongField(statement, "cacheStaleMillis"));
+        assertEquals(" select name from Account", getSqlAfterRemoveCacheHints(statement, "CACHE GLOBAL TTL 300s select name from Account"));
+
+        getCacheMode(statement, "cache session ttl 5 stale 2m select name from Account");
+        assertEquals(5_000L, getLongField(statement, "cacheTtlMillis"));
+        assertEquals(120_000L, getLongField(statement, "cacheStaleMillis"));
+
+        getCacheMode(statement, "CACHE GLOBAL TTL 250ms STALE 1h select name from Account");
+        assertEquals(250L, getLongField(statement, "cacheTtlMillis"));
+        assertEquals(3_600_000L, getLongField(statement, "cacheStaleMillis"));
+
+        getCacheMode(statement, "CACHE GLOBAL select name from Account");
+        assertEquals(0L, getLongField(statement, "cacheTtlMillis"));
+        assertEquals(0L, getLongField(statement, "cacheStaleMillis"));
+    }
+
+    private static long getLongField(ForcePreparedStatement statement, String name) throws Exception {
+        java.lang.reflect.Field field = ForcePreparedStatement.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.getLong(statement);
+    }
+
     private static CacheMode getCacheMode(ForcePreparedStatement statement, String query) throws Exception {
         final Class<? extends ForcePreparedStatement> stClass = statement.getClass();
         final Method setCacheMode = stClass.getDeclaredMethod("setCacheMode", String.class);
@@ -172,6 +269,132 @@ public class ForcePreparedStatementTest {
             "Error message should contain 'Query execution failed': " + errorMessage);
     }
 
+    @Test
+    public void testReExecutionReusesCompiledPlan() throws Exception {
+        ForceConnection mockConnection = mock(ForceConnection.class);
+        PartnerService mockPartnerService = mock(PartnerService.class);
+        when(mockConnection.getPartnerService()).thenReturn(mockPartnerService);
+
+        DescribeSObjectResult mockDescribe = mock(DescribeSObjectResult.class);
+        com.sforce.soap.partner.Field idField = new com.sforce.soap.partner.Field();
+        idField.setName("Id");
+        idField.setType(com.sforce.soap.partner.FieldType.id);
+        com.sforce.soap.partner.Field nameField = new com.sforce.soap.partner.Field();
+        nameField.setName("Name");
+        nameField.setType(com.sforce.soap.partner.FieldType.string);
+        when(mockDescribe.getFields()).thenReturn(new com.sforce.soap.partner.Field[]{idField, nameField});
+        when(mockPartnerService.describeSObject(anyString())).thenReturn(mockDescribe);
+        when(mockPartnerService.queryStart(anyString(), any()))
+            .thenReturn(new AbstractMap.SimpleEntry<List<List<ForceResultField>>, QueryCursor>(List.of(), null));
+
+        ForcePreparedStatement statement = new ForcePreparedStatement(mockConnection,
+            "SELECT Id, Name FROM Account WHERE Name = ?");
+        java.lang.reflect.Field planField = ForcePreparedStatement.class.getDeclaredField("plan");
+        planField.setAccessible(true);
+
+        statement.setString(1, "first");
+        statement.executeQuery().next();
+        Object plan = planField.get(statement);
+        Object fieldDefinitions = statement.getRootEntityFieldDefinitions();
+        Object metaData = statement.getMetaData();
+
+        statement.setString(1, "second");
+        statement.executeQuery().next();
+
+        assertSame(plan, planField.get(statement));
+        assertSame(fieldDefinitions, statement.getRootEntityFieldDefinitions());
+        assertSame(metaData, statement.getMetaData());
+        ArgumentCaptor<String> soql = ArgumentCaptor.forClass(String.class);
+        verify(mockPartnerService, times(2)).queryStart(soql.capture(), any());
+        assertTrue(soql.getAllValues().get(0).endsWith("Name = 'first'"), soql.getAllValues().get(0));
+        assertTrue(soql.getAllValues().get(1).endsWith("Name = 'second'"), soql.getAllValues().get(1));
+    }
+
+    @Test
+    public void testConcurrentExecutionsOfTheSameSqlKeepTheirParameters() throws Exception {
+        ForceConnection mockConnection = mock(ForceConnection.class);
+        PartnerService mockPartnerService = mock(PartnerService.class);
+        when(mockConnection.getPartnerService()).thenReturn(mockPartnerService);
+        when(mockPartnerService.getOrgId()).thenReturn("00D00000000CONC");
+
+        DescribeSObjectResult mockDescribe = mock(DescribeSObjectResult.class);
+        com.sforce.soap.partner.Field idField = new com.sforce.soap.partner.Field();
+        idField.setName("Id");
+        idField.setType(com.sforce.soap.partner.FieldType.id);
+        com.sforce.soap.partner.Field nameField = new com.sforce.soap.partner.Field();
+        nameField.setName("Name");
+        nameField.setType(com.sforce.soap.partner.FieldType.string);
+        when(mockDescribe.getFields()).thenReturn(new com.sforce.soap.partner.Field[]{idField, nameField});
+        when(mockPartnerService.describeSObject(anyString())).thenReturn(mockDescribe);
+        Pattern nameFilter = Pattern.compile("Name = '([^']*)'");
+        when(mockPartnerService.queryStart(anyString(), any())).thenAnswer(invocation -> {
+            Matcher matcher = nameFilter.matcher(invocation.<String>getArgument(0));
+            assertTrue(matcher.find());
+            List<List<ForceResultField>> rows = List.of(List.of(
+                new ForceResultField("Account", "id", "Id", "001"),
+                new ForceResultField("Account", "string", "Name", matcher.group(1))));
+            return new AbstractMap.SimpleEntry<List<List<ForceResultField>>, QueryCursor>(rows, null);
+        });
+
+        String sql = "SELECT Id, Name FROM Account WHERE Name = ? AND Type != 'concurrent'";
+        FieldDefTree shared = new ForcePreparedStatement(mockConnection, sql).getRootEntityFieldDefinitions();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CyclicBarrier start = new CyclicBarrier(2);
+        try {
+            List<Future<FieldDefTree>> runs = new ArrayList<>();
+            for (String name : List.of("first", "second")) {
+                runs.add(executor.submit(() -> {
+                    ForcePreparedStatement statement = new ForcePreparedStatement(mockConnection, sql);
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        statement.setString(1, name + i);
+                        ResultSet rs = statement.executeQuery();
+                        assertTrue(rs.next());
+                        assertEquals(name + i, rs.getString("Name"));
+                    }
+                    return statement.getRootEntityFieldDefinitions();
+                }));
+            }
+            assertSame(shared, runs.get(0).get(10, TimeUnit.SECONDS));
+            assertSame(shared, runs.get(1).get(10, TimeUnit.SECONDS));
+            assertTrue(shared.isReadOnly());
+            assertThrows(UnsupportedOperationException.class, () -> shared.addObjectName("Contact"));
+            assertThrows(UnsupportedOperationException.class, () -> shared.getChildren().clear());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReExecutionDoesNotMoveThePagingOfAPreviousResult() throws Exception {
+        ForceConnection mockConnection = mock(ForceConnection.class);
+        PartnerService mockPartnerService = mock(PartnerService.class);
+        when(mockConnection.getPartnerService()).thenReturn(mockPartnerService);
+
+        DescribeSObjectResult mockDescribe = mock(DescribeSObjectResult.class);
+        com.sforce.soap.partner.Field idField = new com.sforce.soap.partner.Field();
+        idField.setName("Id");
+        idField.setType(com.sforce.soap.partner.FieldType.id);
+        when(mockDescribe.getFields()).thenReturn(new com.sforce.soap.partner.Field[]{idField});
+        when(mockPartnerService.describeSObject(anyString())).thenReturn(mockDescribe);
+        List<List<ForceResultField>> page = List.of(List.of(new ForceResultField("Account", "id", "Id", "001")));
+        when(mockPartnerService.queryStart(anyString(), any()))
+            .thenReturn(new AbstractMap.SimpleEntry<>(page, QueryCursor.of("first-locator")))
+            .thenReturn(new AbstractMap.SimpleEntry<>(page, QueryCursor.of("second-locator")));
+        when(mockPartnerService.queryMore(any(), any()))
+            .thenReturn(new AbstractMap.SimpleEntry<List<List<ForceResultField>>, QueryCursor>(List.of(), null));
+
+        ForcePreparedStatement statement = new ForcePreparedStatement(mockConnection, "SELECT Id FROM Account");
+        ResultSet first = statement.executeQuery();
+        assertTrue(first.next());
+        ResultSet second = statement.executeQuery();
+        assertTrue(second.next());
+
+        first.next();
+
+        verify(mockPartnerService).queryMore(eq(QueryCursor.of("first-locator")), any());
+    }
+
     @Test
     public void testCoalesceEvaluation() throws SQLException {
         String sql = "SELECT COALESCE(Phone, Fax, 'N/A') AS contact_info FROM Account";
@@ -205,6 +428,95 @@ public class ForcePreparedStatementTest {
         assertEquals("N/A", map3.get("contact_info"));
     }
 
+    @Test
+    public void testCoalesceOfComputedParameter() {
+        String sql = "SELECT COALESCE(CASE WHEN Phone = '1' THEN 'one' END, Fax, 'none') AS contact FROM Account";
+        ForcePreparedStatement statement = new ForcePreparedStatement(connection, sql);
+
+        ColumnMap<String, Object> matched = statement.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Phone", "1"),
+            new ForceResultField("Account", "string", "Fax", "67890"),
+            new ForceResultField("Account", "string", "contact", null)
+        ));
+        ColumnMap<String, Object> unmatched = statement.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Phone", "2"),
+            new ForceResultField("Account", "string", "Fax", "67890"),
+            new ForceResultField("Account", "string", "contact", null)
+        ));
+
+        assertEquals("one", matched.get("contact"));
+        assertEquals("67890", unmatched.get("contact"));
+    }
+
+    @Test
+    public void testClientSideProjectionIsReusedAcrossRows() {
+        String sql = "SELECT Name, UPPER(Name) AS upperName, COALESCE(Phone, 'none') AS contact FROM Account";
+        ForcePreparedStatement statement = new ForcePreparedStatement(connection, sql);
+
+        ColumnMap<String, Object> first = statement.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Name", "acme"),
+            new ForceResultField("Account", "string", "Phone", null),
+            new ForceResultField("Account", "string", "upperName", null),
+            new ForceResultField("Account", "string", "contact", null)
+        ));
+        ColumnMap<String, Object> second = statement.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Name", "globex"),
+            new ForceResultField("Account", "string", "Phone", "555"),
+            new ForceResultField("Account", "string", "upperName", null),
+            new ForceResultField("Account", "string", "contact", null)
+        ));
+
+        assertEquals("ACME", first.get("upperName"));
+        assertEquals("none", first.get("contact"));
+        assertEquals("GLOBEX", second.get("upperName"));
+        assertEquals("555", second.get("contact"));
+    }
+
+    @Test
+    public void testRowsShareTheSchemaOfTheirStatement() {
+        String sql = "SELECT Name, Phone FROM Account";
+        ForcePreparedStatement statement = new ForcePreparedStatement(connection, sql);
+        ForcePreparedStatement other = new ForcePreparedStatement(connection, sql);
+
+        ColumnMap<String, Object> first = statement.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Name", "acme"),
+            new ForceResultField("Account", "string", "Phone", null)
+        ));
+        ColumnMap<String, Object> second = statement.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Name", "globex"),
+            new ForceResultField("Account", "string", "Phone", "555")
+        ));
+        ColumnMap<String, Object> unrelated = other.convertToColumnMap(List.of(
+            new ForceResultField("Account", "string", "Name", "initech"),
+            new ForceResultField("Account", "string", "Phone", "777")
+        ));
+
+        assertSame(first.getSchema(), second.getSchema());
+        assertNotSame(first.getSchema(), unrelated.getSchema());
+        assertEquals("555", second.get("Phone"));
+    }
+
+    @Test
+    public void testColumnSlotsResolveLabelAndType() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(2);
+        metaData.setColumnName(1, "Name");
+        metaData.setColumnLabel(1, "accountName");
+        metaData.setColumnTypeName(1, "string");
+        metaData.setColumnName(2, "Owner.CreatedDate");
+        metaData.setColumnLabel(2, "ownerCreated");
+        metaData.setColumnTypeName(2, "datetime");
+
+        ColumnSlots slots = ColumnSlots.of(metaData);
+
+        assertEquals("accountName", slots.labelOf("NAME"));
+        assertEquals("string", slots.typeOf("name").getTypeName());
+        assertEquals("datetime", slots.typeOf("Account.Owner.CreatedDate").getTypeName());
+        assertEquals("Phone", slots.labelOf("Phone"));
+        assertSame(TypeInfo.OTHER_TYPE_INFO, slots.typeOf("Phone"));
+        assertSame(TypeInfo.OTHER_TYPE_INFO, ColumnSlots.NONE.typeOf("Name"));
+    }
+
     @Test
     public void testCoalesceQueryRewriting() throws SQLException {
         String sql = "SELECT Name, COALESCE(Phone, Fax, 'N/A') AS contact_info, Surname FROM Account";
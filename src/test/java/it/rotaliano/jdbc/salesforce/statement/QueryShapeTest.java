@@ -0,0 +1,201 @@
+package it.rotaliano.jdbc.salesforce.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.rotaliano.jdbc.salesforce.metadata.ColumnMap;
+import it.rotaliano.jdbc.salesforce.metadata.TypeInfo;
+import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class QueryShapeTest {
+
+    private static String canonical(String soql) {
+        return QueryShape.parse(soql).getCanonicalSoql();
+    }
+
+    @Nested
+    @DisplayName("Canonical form")
+    class CanonicalFormTests {
+
+        @Test
+        @DisplayName("ignores whitespace, keyword case and the case of filtered columns")
+        void testNormalizesSpellings() {
+            String expected = canonical("SELECT Id, Name FROM Account WHERE Amount > 100 ORDER BY Name");
+
+            assertEquals(expected, canonical("select  Id,\n Name from Account\twhere amount > 100 order by NAME"));
+            assertEquals(expected, canonical("SELECT Id, Name FROM Account WHERE AMOUNT > 100 ORDER BY name"));
+        }
+
+        @Test
+        @DisplayName("ignores the order of the conditions of a top-level AND")
+        void testSortsConditions() {
+            assertEquals(canonical("SELECT Id FROM Account WHERE Amount > 100 AND IsDeleted = false"),
+                canonical("SELECT Id FROM Account WHERE IsDeleted = false AND Amount > 100"));
+        }
+
+        @Test
+        @DisplayName("keeps literals, select items and their order")
+        void testKeepsMeaningfulDifferences() {
+            assertNotEquals(canonical("SELECT Id FROM Account WHERE Name = 'Acme'"),
+                canonical("SELECT Id FROM Account WHERE Name = 'ACME'"));
+            assertNotEquals(canonical("SELECT Id, Name FROM Account"), canonical("SELECT Name, Id FROM Account"));
+            assertNotEquals(canonical("SELECT Name FROM Account"), canonical("SELECT NAME FROM Account"));
+        }
+
+        @Test
+        @DisplayName("keeps the OR of a condition together")
+        void testKeepsOr() {
+            assertNotEquals(canonical("SELECT Id FROM Account WHERE (Amount > 1 OR Amount < 0) AND Rating = 'Hot'"),
+                canonical("SELECT Id FROM Account WHERE Amount > 1 OR Amount < 0 AND Rating = 'Hot'"));
+        }
+
+        @Test
+        @DisplayName("falls back to the whitespace-normalized text when the query does not parse")
+        void testUnparsedQuery() {
+            QueryShape shape = QueryShape.parse("SELECT  Id FROM Account\n WHERE ((Name = 'a  b'");
+
+            assertEquals("SELECT Id FROM Account WHERE ((Name = 'a  b'", shape.getCanonicalSoql());
+            assertFalse(shape.isPlain());
+        }
+
+        @Test
+        @DisplayName("parses a query once")
+        void testMemoized() {
+            String soql = "SELECT Id FROM Account WHERE Amount > 42";
+
+            assertSame(QueryShape.of(soql), QueryShape.of(soql));
+        }
+    }
+
+    @Nested
+    @DisplayName("Plain queries")
+    class PlainQueryTests {
+
+        @Test
+        @DisplayName("plain columns of one object, filtered and ordered, are plain")
+        void testPlain() {
+            assertTrue(QueryShape.parse("SELECT Id, Name FROM Account").isPlain());
+            assertTrue(QueryShape.parse("SELECT Id, Owner.Name FROM Account WHERE Amount > 1 ORDER BY Name").isPlain());
+        }
+
+        @Test
+        @DisplayName("limits, aggregates, aliases and client-side items are not plain")
+        void testNotPlain() {
+            assertFalse(QueryShape.parse("SELECT Id FROM Account LIMIT 10").isPlain());
+            assertFalse(QueryShape.parse("SELECT Id FROM Account LIMIT 10 OFFSET 5").isPlain());
+            assertFalse(QueryShape.parse("SELECT COUNT(Id) FROM Account").isPlain());
+            assertFalse(QueryShape.parse("SELECT Rating FROM Account GROUP BY Rating").isPlain());
+            assertFalse(QueryShape.parse("SELECT Name n FROM Account").isPlain());
+            assertFalse(QueryShape.parse("SELECT COALESCE(Name, 'x') FROM Account").isPlain());
+            assertFalse(QueryShape.parse("UPDATE Account SET Name = 'x' WHERE Id = '1'").isPlain());
+        }
+
+        @Test
+        @DisplayName("a narrower query has the conditions the broader one lacks as residual")
+        void testResidual() {
+            QueryShape broader = QueryShape.parse("SELECT Id, Name, Amount FROM Account WHERE IsDeleted = false");
+            QueryShape narrower = QueryShape.parse(
+                "SELECT name FROM Account WHERE Amount > 100 AND IsDeleted = false");
+
+            assertEquals(1, narrower.residual(broader).size());
+            assertEquals(0, QueryShape.parse("SELECT Id FROM Account WHERE IsDeleted = false").residual(broader).size());
+        }
+
+        @Test
+        @DisplayName("a query is not subsumed by a query with other conditions, columns, object or order")
+        void testNotSubsumed() {
+            QueryShape broader = QueryShape.parse("SELECT Id, Name FROM Account WHERE Amount > 100");
+
+            assertNull(QueryShape.parse("SELECT Id FROM Account").residual(broader));
+            assertNull(QueryShape.parse("SELECT Id, Rating FROM Account WHERE Amount > 100").residual(broader));
+            assertNull(QueryShape.parse("SELECT Id FROM Contact WHERE Amount > 100").residual(broader));
+            assertNull(QueryShape.parse("SELECT Id FROM Account WHERE Amount > 100 ORDER BY Name").residual(broader));
+        }
+    }
+
+    @Nested
+    @DisplayName("answerFrom()")
+    class AnswerTests {
+
+        private final QueryShape broader = QueryShape.parse("SELECT Id, Name, Amount, IsActive FROM Account");
+
+        private CachedResultSet cached() {
+            List<ColumnMap<String, Object>> rows = new ArrayList<>();
+            rows.add(account("1", "Acme", "50", "true"));
+            rows.add(account("2", "Globex", "150.5", "false"));
+            rows.add(account("3", "Initech", "1000", "true"));
+            rows.add(account("4", "Hooli", null, "true"));
+            return new CachedResultSet(rows).share();
+        }
+
+        private ColumnMap<String, Object> account(String id, String name, String amount, String active) {
+            ColumnMap<String, Object> row = new ColumnMap<>();
+            row.put("Id", id, TypeInfo.ID_TYPE_INFO);
+            row.put("Name", name, TypeInfo.STRING_TYPE_INFO);
+            row.put("Amount", amount, TypeInfo.CURRENCY_TYPE_INFO);
+            row.put("IsActive", active, TypeInfo.BOOL_TYPE_INFO);
+            return row;
+        }
+
+        private List<String> names(CachedResultSet result) {
+            List<String> names = new ArrayList<>();
+            while (result.next()) {
+                names.add(result.getString("Name"));
+            }
+            return names;
+        }
+
+        @Test
+        @DisplayName("filters numeric columns as numbers, not as strings")
+        void testNumericCondition() {
+            CachedResultSet answer = QueryShape.parse("SELECT Name FROM Account WHERE Amount > 100")
+                .answerFrom(broader, cached(), null);
+
+            assertNotNull(answer);
+            assertEquals(List.of("Globex", "Initech"), names(answer));
+        }
+
+        @Test
+        @DisplayName("combines boolean and null conditions and projects the selected columns")
+        void testProjection() throws Exception {
+            CachedResultSet answer = QueryShape.parse(
+                    "SELECT Name, Id FROM Account WHERE IsActive = true AND Amount != null")
+                .answerFrom(broader, cached(), null);
+
+            assertNotNull(answer);
+            assertTrue(answer.next());
+            assertEquals("Acme", answer.getString(1));
+            assertEquals("1", answer.getString(2));
+            assertEquals(2, answer.findColumn("Id"));
+            assertTrue(answer.next());
+            assertEquals("Initech", answer.getString(1));
+            assertFalse(answer.next());
+        }
+
+        @Test
+        @DisplayName("leaves string conditions to Salesforce, which compares them ignoring case")
+        void testStringConditionNotAnswered() {
+            assertNull(QueryShape.parse("SELECT Name FROM Account WHERE Name = 'acme'")
+                .answerFrom(broader, cached(), null));
+        }
+
+        @Test
+        @DisplayName("does not move the cursor of the cached result")
+        void testCachedResultUntouched() {
+            CachedResultSet shared = cached();
+            QueryShape.parse("SELECT Name FROM Account WHERE Amount > 100").answerFrom(broader, shared, null);
+
+            assertTrue(shared.isBeforeFirst());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package it.rotaliano.jdbc.salesforce.statement.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import it.rotaliano.jdbc.salesforce.DriverConfiguration;
+import it.rotaliano.jdbc.salesforce.cache.CacheInvalidator;
+import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
+import it.rotaliano.jdbc.salesforce.statement.processor.BatchDmlProcessor.BatchEntry;
+import com.sforce.soap.partner.DeleteResult;
+import com.sforce.soap.partner.Error;
+import com.sforce.soap.partner.SaveResult;
+import com.sforce.ws.ConnectionException;
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BatchDmlProcessorTest {
+
+    private static final String INSERT = "INSERT INTO Account(Name) VALUES (?)";
+    private static final String DELETE = "DELETE FROM Contact WHERE Id = ?";
+
+    @Mock private PartnerService partnerService;
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty(DriverConfiguration.PROP_DML_BATCH_SIZE);
+    }
+
+    private static List<BatchEntry> entries(String soql, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new BatchEntry(soql, List.<Object>of("value" + i)))
+            .toList();
+    }
+
+    private static SaveResult[] saveResults(boolean... success) {
+        SaveResult[] results = new SaveResult[success.length];
+        for (int i = 0; i < success.length; i++) {
+            results[i] = mock(SaveResult.class);
+            when(results[i].isSuccess()).thenReturn(success[i]);
+            if (!success[i]) {
+                Error error = mock(Error.class);
+                when(error.getMessage()).thenReturn("SF error detail");
+                when(results[i].getErrors()).thenReturn(new Error[]{error});
+            }
+        }
+        return results;
+    }
+
+    @Test
+    @DisplayName("inserts are chunked by dmlBatchSize and every entry reports one row")
+    void testInsertChunking() throws Exception {
+        System.setProperty(DriverConfiguration.PROP_DML_BATCH_SIZE, "2");
+        SaveResult[] firstChunk = saveResults(true, true);
+        SaveResult[] secondChunk = saveResults(true);
+        when(partnerService.createRecords(eq("Account"), any())).thenReturn(firstChunk).thenReturn(secondChunk);
+
+        int[] counts = BatchDmlProcessor.processBatch(entries(INSERT, 3), partnerService, null);
+
+        assertArrayEquals(new int[]{1, 1, 1}, counts);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Map<String, Object>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(partnerService, times(2)).createRecords(eq("Account"), captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).size());
+        assertEquals("value2", captor.getAllValues().get(1).get(0).get("Name"));
+    }
+
+    @Test
+    @DisplayName("a rejected record marks only its entry as failed")
+    void testPartialFailure() throws Exception {
+        SaveResult[] results = saveResults(true, false, true);
+        when(partnerService.createRecords(eq("Account"), any())).thenReturn(results);
+
+        BatchUpdateException e = assertThrows(BatchUpdateException.class,
+            () -> BatchDmlProcessor.processBatch(entries(INSERT, 3), partnerService, null));
+
+        assertArrayEquals(new int[]{1, Statement.EXECUTE_FAILED, 1}, e.getUpdateCounts());
+        assertTrue(e.getMessage().contains("SF error detail"));
+    }
+
+    @Test
+    @DisplayName("a ConnectionException fails every entry of the chunk")
+    void testConnectionException() throws Exception {
+        when(partnerService.createRecords(any(), any())).thenThrow(new ConnectionException("network error"));
+
+        BatchUpdateException e = assertThrows(BatchUpdateException.class,
+            () -> BatchDmlProcessor.processBatch(entries(INSERT, 2), partnerService, null));
+
+        assertArrayEquals(new int[]{Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED}, e.getUpdateCounts());
+        assertTrue(e.getMessage().contains("network error"));
+    }
+
+    @Test
+    @DisplayName("a chunk failing with a ConnectionException still invalidates cached results")
+    void testConnectionExceptionInvalidates() throws Exception {
+        when(partnerService.createRecords(any(), any())).thenThrow(new ConnectionException("read timed out"));
+        long startedAt = System.currentTimeMillis();
+
+        assertThrows(BatchUpdateException.class,
+            () -> BatchDmlProcessor.processBatch(entries(INSERT, 2), partnerService, null));
+
+        assertTrue(CacheInvalidator.getInstance().changedSince(Set.of("account"), startedAt));
+    }
+
+    @Test
+    @DisplayName("deletes by Id are sent in a single call")
+    void testDeleteById() throws Exception {
+        DeleteResult ok = mock(DeleteResult.class);
+        when(ok.isSuccess()).thenReturn(true);
+        when(partnerService.deleteRecords(any())).thenReturn(new DeleteResult[]{ok, ok});
+
+        int[] counts = BatchDmlProcessor.processBatch(entries(DELETE, 2), partnerService, null);
+
+        assertArrayEquals(new int[]{1, 1}, counts);
+        verify(partnerService).deleteRecords(List.of("value0", "value1"));
+    }
+
+    @Test
+    @DisplayName("only consecutive statements with the same operation and SObject are grouped")
+    void testGrouping() throws Exception {
+        DeleteResult ok = mock(DeleteResult.class);
+        when(ok.isSuccess()).thenReturn(true);
+        when(partnerService.deleteRecords(any())).thenReturn(new DeleteResult[]{ok});
+        SaveResult[] firstRun = saveResults(true, true);
+        SaveResult[] secondRun = saveResults(true);
+        when(partnerService.createRecords(eq("Account"), any())).thenReturn(firstRun).thenReturn(secondRun);
+
+        List<BatchEntry> batch = List.of(
+            new BatchEntry(INSERT, List.of("a")),
+            new BatchEntry(INSERT, List.of("b")),
+            new BatchEntry(DELETE, List.of("003xx")),
+            new BatchEntry(INSERT, List.of("c")));
+        int[] counts = BatchDmlProcessor.processBatch(batch, partnerService, null);
+
+        assertArrayEquals(new int[]{1, 1, 1, 1}, counts);
+        InOrder inOrder = inOrder(partnerService);
+        inOrder.verify(partnerService).createRecords(eq("Account"), argThat(records -> records.size() == 2));
+        inOrder.verify(partnerService).deleteRecords(List.of("003xx"));
+        inOrder.verify(partnerService).createRecords(eq("Account"), argThat(records -> records.size() == 1));
+    }
+
+    @Test
+    @DisplayName("the records of an entry are resolved after the entries before it were sent")
+    void testInterleavedEntriesSeeEarlierChanges() throws Exception {
+        List<String> calls = new ArrayList<>();
+        SaveResult[] created = saveResults(true);
+        when(partnerService.createRecords(eq("Account"), any())).thenAnswer(invocation -> {
+            calls.add("create");
+            return created;
+        });
+        DeleteResult ok = mock(DeleteResult.class);
+        when(ok.isSuccess()).thenReturn(true);
+        when(partnerService.deleteRecords(any())).thenAnswer(invocation -> {
+            calls.add("delete");
+            return new DeleteResult[]{ok};
+        });
+        BiFunction<String, List<Object>, List<Map<String, Object>>> resolver = (soql, parameters) -> {
+            calls.add("resolve");
+            return List.of(Map.of("Id", "001xx"));
+        };
+
+        List<BatchEntry> batch = List.of(
+            new BatchEntry(INSERT, List.of("a")),
+            new BatchEntry("DELETE FROM Account WHERE Name = ?", List.of("a")),
+            new BatchEntry(INSERT, List.of("a")));
+        int[] counts = BatchDmlProcessor.processBatch(batch, partnerService, resolver);
+
+        assertArrayEquals(new int[]{1, 1, 1}, counts);
+        assertEquals(List.of("create", "resolve", "delete", "create"), calls);
+        verify(partnerService).deleteRecords(List.of("001xx"));
+    }
+
+    @Test
+    @DisplayName("a record whose id is already in the chunk starts a new chunk")
+    void testDuplicateIdsSplitChunks() throws Exception {
+        DeleteResult ok = mock(DeleteResult.class);
+        when(ok.isSuccess()).thenReturn(true);
+        when(partnerService.deleteRecords(any()))
+            .thenReturn(new DeleteResult[]{ok, ok}).thenReturn(new DeleteResult[]{ok});
+
+        List<BatchEntry> batch = List.of(
+            new BatchEntry(DELETE, List.of("003a")),
+            new BatchEntry(DELETE, List.of("003b")),
+            new BatchEntry(DELETE, List.of("003a")));
+        int[] counts = BatchDmlProcessor.processBatch(batch, partnerService, null);
+
+        assertArrayEquals(new int[]{1, 1, 1}, counts);
+        InOrder inOrder = inOrder(partnerService);
+        inOrder.verify(partnerService).deleteRecords(List.of("003a", "003b"));
+        inOrder.verify(partnerService).deleteRecords(List.of("003a"));
+    }
+
+    @Test
+    @DisplayName("a SELECT in the batch is rejected before any call")
+    void testSelectRejected() throws Exception {
+        List<BatchEntry> batch = List.of(new BatchEntry("SELECT Id FROM Account", List.of()));
+
+        assertThrows(BatchUpdateException.class,
+            () -> BatchDmlProcessor.processBatch(batch, partnerService, null));
+        verifyNoInteractions(partnerService);
+    }
+
+    @Test
+    @DisplayName("dmlBatchSize is clamped to the API limit")
+    void testDmlBatchSizeClamped() {
+        System.setProperty(DriverConfiguration.PROP_DML_BATCH_SIZE, "5000");
+        assertEquals(200, DriverConfiguration.getDmlBatchSize());
+        System.setProperty(DriverConfiguration.PROP_DML_BATCH_SIZE, "0");
+        assertEquals(1, DriverConfiguration.getDmlBatchSize());
+    }
+}
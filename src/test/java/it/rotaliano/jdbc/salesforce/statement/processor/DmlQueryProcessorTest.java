@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import it.rotaliano.jdbc.salesforce.cache.CacheInvalidator;
 import it.rotaliano.jdbc.salesforce.delegates.PartnerService;
 import it.rotaliano.jdbc.salesforce.resultset.CachedResultSet;
 import it.rotaliano.jdbc.salesforce.statement.ForcePreparedStatement;
@@ -13,6 +14,7 @@ import com.sforce.soap.partner.SaveResult;
 import com.sforce.ws.ConnectionException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -229,5 +231,18 @@ class DmlQueryProcessorTest {
             assertNotNull(rs.getWarnings());
             assertTrue(rs.getWarnings().getMessage().contains("service unavailable"));
         }
+
+        @Test
+        @DisplayName("a request failing with a ConnectionException still invalidates cached results")
+        void testDeleteConnectionExceptionInvalidates() throws Exception {
+            when(deleteAnalyzer.getFromObjectName()).thenReturn("Lead");
+            when(deleteAnalyzer.getRecords(any())).thenReturn(List.of("005xx"));
+            when(partnerService.deleteRecords(any())).thenThrow(new ConnectionException("read timed out"));
+            long startedAt = System.currentTimeMillis();
+
+            DeleteQueryProcessor.processQuery(List.of(), partnerService, deleteAnalyzer);
+
+            assertTrue(CacheInvalidator.getInstance().changedSince(Set.of("lead"), startedAt));
+        }
     }
 }
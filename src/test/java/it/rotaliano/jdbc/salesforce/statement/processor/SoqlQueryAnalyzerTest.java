@@ -18,6 +18,7 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import it.rotaliano.jdbc.salesforce.expression.AstBuilder;
@@ -262,6 +263,30 @@ public class SoqlQueryAnalyzerTest {
         assertEquals("id", fieldDef.getType());
     }
 
+    @Test
+    public void testObjectNames_References() {
+        String soql = "SELECT Id, Account.Name, Owner.Name FROM Contact";
+        SoqlQueryAnalyzer analyzer = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+
+        assertEquals(Set.of("contact", "account", "user"), analyzer.getFieldDefinitions().getObjectNames());
+    }
+
+    @Test
+    public void testObjectNames_IncludedSelect() {
+        String soql = "SELECT Name, (SELECT Id, Owner.Name FROM Contacts) FROM Account";
+        SoqlQueryAnalyzer analyzer = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+
+        assertEquals(Set.of("account", "contact", "user"), analyzer.getFieldDefinitions().getObjectNames());
+    }
+
+    @Test
+    public void testObjectNames_Filter() {
+        String soql = "SELECT Id FROM Contact WHERE Account.Name = 'Acme' AND OwnerId IN (SELECT Id FROM User)";
+        SoqlQueryAnalyzer analyzer = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+
+        assertEquals(Set.of("contact", "account", "user"), analyzer.getFieldDefinitions().getObjectNames());
+    }
+
     @Test
     public void testFetchFieldDefinitions_Star() {
         String soql = "SELECT * FROM Account";
@@ -0,0 +1,227 @@
+package it.rotaliano.jdbc.salesforce.statement.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import it.rotaliano.jdbc.salesforce.delegates.IPartnerService;
+import com.sforce.soap.partner.DescribeSObjectResult;
+import com.sforce.soap.partner.Field;
+import com.sforce.soap.partner.FieldType;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class StatementCacheTest {
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    private Function<String, ParsedStatement> parser(boolean expandedStar) {
+        return sql -> {
+            parses.incrementAndGet();
+            return new ParsedStatement(sql, null, expandedStar);
+        };
+    }
+
+    @Nested
+    @DisplayName("normalize()")
+    class NormalizeTests {
+
+        @Test
+        @DisplayName("collapses whitespace outside of literals")
+        void testCollapsesWhitespace() {
+            assertEquals("SELECT Id FROM Account WHERE Name = 'a  b'",
+                StatementCache.normalize("  SELECT  Id\r\n FROM\tAccount WHERE Name = 'a  b' "));
+        }
+
+        @Test
+        @DisplayName("keeps escaped quotes inside literals")
+        void testEscapedQuotes() {
+            assertEquals("SELECT Id FROM Account WHERE Name = 'it\\'s  here'",
+                StatementCache.normalize("SELECT Id FROM Account WHERE Name = 'it\\'s  here'"));
+        }
+
+        @Test
+        @DisplayName("does not fold a line comment into the following line")
+        void testLineComment() {
+            assertNotEquals(StatementCache.normalize("SELECT Id -- note FROM Account"),
+                StatementCache.normalize("SELECT Id -- note\nFROM Account"));
+        }
+    }
+
+    @Nested
+    @DisplayName("get()")
+    class GetTests {
+
+        @Test
+        @DisplayName("parses a statement once whatever its spacing")
+        void testParsesOnce() {
+            StatementCache cache = new StatementCache(10);
+
+            ParsedStatement first = cache.get("SELECT Id FROM Account", () -> null, parser(false));
+            ParsedStatement second = cache.get(" SELECT Id\n FROM  Account ", () -> null, parser(false));
+
+            assertSame(first, second);
+            assertEquals(1, parses.get());
+        }
+
+        @Test
+        @DisplayName("evicts the least recently used statement")
+        void testEvictsLeastRecentlyUsed() {
+            StatementCache cache = new StatementCache(2);
+            cache.get("SELECT Id FROM Account", () -> null, parser(false));
+            cache.get("SELECT Id FROM Contact", () -> null, parser(false));
+            cache.get("SELECT Id FROM Account", () -> null, parser(false));
+            cache.get("SELECT Id FROM User", () -> null, parser(false));
+
+            assertEquals(2, cache.size());
+            assertEquals(3, parses.get());
+            cache.get("SELECT Id FROM Account", () -> null, parser(false));
+            assertEquals(3, parses.get());
+            cache.get("SELECT Id FROM Contact", () -> null, parser(false));
+            assertEquals(4, parses.get());
+        }
+
+        @Test
+        @DisplayName("keeps expanded SELECT * statements per org only")
+        void testExpandedStarScopedByOrg() {
+            StatementCache cache = new StatementCache(10);
+            String sql = "SELECT * FROM Account";
+
+            cache.get(sql, () -> null, parser(true));
+            cache.get(sql, () -> null, parser(true));
+            assertEquals(2, parses.get());
+
+            ParsedStatement first = cache.get(sql, () -> "00D000000000001", parser(true));
+            assertSame(first, cache.get(sql, () -> "00D000000000001", parser(true)));
+            assertEquals(3, parses.get());
+
+            cache.get(sql, () -> "00D000000000002", parser(true));
+            assertEquals(4, parses.get());
+        }
+
+        @Test
+        @DisplayName("the org is only asked for statements that may be scoped by it")
+        void testOrgAskedForStarOnly() {
+            StatementCache cache = new StatementCache(10);
+            AtomicInteger orgLookups = new AtomicInteger();
+            Supplier<String> orgId = () -> {
+                orgLookups.incrementAndGet();
+                return "00D000000000001";
+            };
+
+            cache.get("SELECT Id FROM Account", orgId, parser(false));
+            assertEquals(0, orgLookups.get());
+
+            cache.get("SELECT * FROM Account", orgId, parser(true));
+            assertEquals(1, orgLookups.get());
+        }
+
+        @Test
+        @DisplayName("a size of 0 disables the cache")
+        void testDisabled() {
+            StatementCache cache = new StatementCache(0);
+            cache.get("SELECT Id FROM Account", () -> null, parser(false));
+            cache.get("SELECT Id FROM Account", () -> null, parser(false));
+
+            assertEquals(2, parses.get());
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Shared analysis")
+    class SharedAnalysisTests {
+
+        private final IPartnerService partnerService = mock(IPartnerService.class);
+
+        SharedAnalysisTests() {
+            when(partnerService.getOrgId()).thenReturn("00D000000000042");
+            when(partnerService.describeSObject(anyString())).thenReturn(describeAccount());
+        }
+
+        @Test
+        @DisplayName("analyzers of the same SQL share the parsed statement")
+        void testSharedStatement() {
+            String soql = "SELECT Id, Name FROM Account WHERE Name = 'shared parse'";
+
+            QueryAnalyzer first = new QueryAnalyzer(soql, null, partnerService);
+            QueryAnalyzer second = new QueryAnalyzer(soql, null, partnerService);
+
+            assertSame(first.getQueryData(), second.getQueryData());
+        }
+
+        @Test
+        @DisplayName("field analysis works on a copy and is shared within the org")
+        void testFieldAnalysisCopyOnRewrite() {
+            String soql = "SELECT Id, Name accountName FROM Account WHERE Name = 'shared fields'";
+            QueryAnalyzer queryAnalyzer = new QueryAnalyzer(soql, null, partnerService);
+            SoqlQueryAnalyzer first = new SoqlQueryAnalyzer(queryAnalyzer);
+            SoqlQueryAnalyzer second = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+
+            assertNotNull(first.getFieldDefinitions());
+
+            assertTrue(queryAnalyzer.getQueryData().toString().contains("accountName"));
+            assertFalse(first.getSoqlQuery().toString().contains("accountName"));
+            assertSame(first.getFieldDefinitions(), second.getFieldDefinitions());
+            assertTrue(first.getFieldDefinitions().isReadOnly());
+            assertThrows(UnsupportedOperationException.class,
+                () -> first.getFieldDefinitions().setRelationshipName("Accounts"));
+        }
+
+        @Test
+        @DisplayName("field analysis is redone once the describe is refreshed")
+        void testFieldAnalysisFollowsDescribeVersion() {
+            String soql = "SELECT Id, Name FROM Account WHERE Name = 'describe version'";
+            when(partnerService.getDescribeVersion()).thenReturn(1L);
+            SoqlQueryAnalyzer first = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+            SoqlQueryAnalyzer same = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+            assertSame(first.getFieldDefinitions(), same.getFieldDefinitions());
+
+            when(partnerService.getDescribeVersion()).thenReturn(2L);
+            SoqlQueryAnalyzer refreshed = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+
+            assertNotSame(first.getFieldDefinitions(), refreshed.getFieldDefinitions());
+        }
+
+        @Test
+        @DisplayName("parameter-independent rewrites are shared")
+        void testSharedRewrite() {
+            String soql = "SELECT Id FROM Account WHERE UPPER(Name) = 'SHARED REWRITE'";
+            SoqlQueryAnalyzer first = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+            SoqlQueryAnalyzer second = new SoqlQueryAnalyzer(new QueryAnalyzer(soql, null, partnerService));
+
+            String rewritten = first.getSoqlQueryString(List.of());
+
+            assertEquals(rewritten, second.getSoqlQueryString(List.of()));
+            assertNotNull(first.getClientSideWhereExpression());
+            assertSame(first.getClientSideWhereExpression(), second.getClientSideWhereExpression());
+        }
+
+        private DescribeSObjectResult describeAccount() {
+            DescribeSObjectResult result = new DescribeSObjectResult();
+            result.setName("Account");
+            result.setFields(new Field[]{field("Id", FieldType.id), field("Name", FieldType.string)});
+            return result;
+        }
+
+        private Field field(String name, FieldType type) {
+            Field field = new Field();
+            field.setName(name);
+            field.setType(type);
+            return field;
+        }
+    }
+}
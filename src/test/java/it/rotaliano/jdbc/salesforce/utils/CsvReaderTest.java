@@ -0,0 +1,42 @@
+package it.rotaliano.jdbc.salesforce.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+    @Test
+    @DisplayName("quoted and unquoted fields are split on the delimiter")
+    void testFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"Id\",Name,,\"\"\n001A,\"Acme, Inc.\",x,y\n"));
+
+        assertEquals(List.of("Id", "Name", "", ""), reader.readRecord());
+        assertEquals(List.of("001A", "Acme, Inc.", "x", "y"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    @DisplayName("doubled quotes and line breaks inside quoted fields are kept")
+    void testQuotedContent() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"say \"\"hi\"\"\",\"two\r\nlines\"\r\nlast"));
+
+        assertEquals(List.of("say \"hi\"", "two\r\nlines"), reader.readRecord());
+        assertEquals(List.of("last"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    @DisplayName("an unterminated quoted field is an error")
+    void testUnterminated() {
+        CsvReader reader = new CsvReader(new StringReader("\"open,field\n"));
+
+        assertThrows(IOException.class, reader::readRecord);
+    }
+}
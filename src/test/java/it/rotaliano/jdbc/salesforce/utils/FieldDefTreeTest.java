@@ -55,4 +55,38 @@ public class FieldDefTreeTest {
         assertEquals("CombinedAttachments.Title", flatRow.get(1).getFullName());
         assertEquals("Attachment1.pdf", flatRow.get(1).getValue());
     }
+
+    @Test
+    public void testExpandAlignsRowsWithDifferentShapes() {
+        // SELECT Owner.Name, Id FROM Account
+        FieldDefTree schema = new FieldDefTree();
+        schema.addChild(new FieldDef("Name", "Owner.Name", "Owner.Name", "string"));
+        schema.addChild(new FieldDef("Id", "Id", "Id", "id"));
+
+        TreeNode<ForceResultField> withOwner = new TreeNode<>();
+        withOwner.addChild(new ForceResultField(null, "id", "Id", "001A"));
+        withOwner.addChild(new ForceResultField(null, "string", "Owner.Name", "John"));
+
+        // Lookup is null: the relationship fields are missing from the response
+        TreeNode<ForceResultField> withoutOwner = new TreeNode<>();
+        withoutOwner.addChild(new ForceResultField(null, "id", "Id", "001B"));
+
+        TreeNode<ForceResultField> withOwnerAgain = new TreeNode<>();
+        withOwnerAgain.addChild(new ForceResultField(null, "id", "Id", "001C"));
+        withOwnerAgain.addChild(new ForceResultField(null, "string", "Owner.Name", "Jane"));
+
+        List<List<ForceResultField>> result = FieldDefTree.expand(List.of(withOwner, withoutOwner), schema);
+        // A later page reuses the plan compiled for the first one
+        result = new ArrayList<>(result);
+        result.addAll(FieldDefTree.expand(List.of(withOwnerAgain), schema));
+
+        assertEquals(3, result.size());
+        assertEquals("John", result.get(0).get(0).getValue());
+        assertEquals("001A", result.get(0).get(1).getValue());
+        assertEquals("Owner.Name", result.get(1).get(0).getFullName());
+        assertEquals(null, result.get(1).get(0).getValue());
+        assertEquals("001B", result.get(1).get(1).getValue());
+        assertEquals("Jane", result.get(2).get(0).getValue());
+        assertEquals("001C", result.get(2).get(1).getValue());
+    }
 }
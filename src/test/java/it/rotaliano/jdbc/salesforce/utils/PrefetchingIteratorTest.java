@@ -0,0 +1,174 @@
+package it.rotaliano.jdbc.salesforce.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.rotaliano.jdbc.salesforce.exceptions.SalesforceRuntimeException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PrefetchingIteratorTest {
+
+    private static final long IDLE_TIMEOUT_MS = 10_000L;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("returns all elements of the source in order")
+    void testOrder() {
+        PrefetchingIterator<Integer> iterator =
+            new PrefetchingIterator<>(List.of(1, 2, 3, 4).iterator(), 2, IDLE_TIMEOUT_MS, executor);
+
+        assertEquals(List.of(1, 2, 3, 4), IteratorUtils.toList(iterator));
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    @DisplayName("reads ahead no more than the configured depth")
+    void testDepth() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+        CountDownLatch blocked = new CountDownLatch(1);
+        Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                int value = fetched.incrementAndGet();
+                if (value == 3) {
+                    blocked.countDown();
+                }
+                return value;
+            }
+        };
+
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 2, IDLE_TIMEOUT_MS, executor);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        // two buffered elements plus one waiting to be enqueued
+        assertEquals(3, fetched.get());
+        assertEquals(1, iterator.next());
+        iterator.close();
+    }
+
+    @Test
+    @DisplayName("source failures are rethrown after the elements fetched before them")
+    void testFailure() {
+        Iterator<Integer> source = new Iterator<>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (count == 1) {
+                    throw new IllegalStateException("queryMore failed");
+                }
+                return ++count;
+            }
+        };
+
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 4, IDLE_TIMEOUT_MS, executor);
+
+        assertEquals(1, iterator.next());
+        IllegalStateException e = assertThrows(IllegalStateException.class, iterator::hasNext);
+        assertEquals("queryMore failed", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("close stops the background fetch")
+    void testClose() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+        Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return fetched.incrementAndGet();
+            }
+        };
+
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 1, IDLE_TIMEOUT_MS, executor);
+        assertEquals(1, iterator.next());
+        iterator.close();
+        Thread.sleep(300);
+        int afterClose = fetched.get();
+        Thread.sleep(300);
+
+        assertFalse(iterator.hasNext());
+        assertEquals(afterClose, fetched.get());
+    }
+
+    @Test
+    @DisplayName("an Error of the source reaches the consumer instead of leaving it waiting")
+    void testError() {
+        Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                throw new OutOfMemoryError("no heap left");
+            }
+        };
+
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 2, IDLE_TIMEOUT_MS, executor);
+
+        OutOfMemoryError e = assertThrows(OutOfMemoryError.class, iterator::hasNext);
+        assertEquals("no heap left", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("the background fetch stops when the consumer is idle, which then gets a failure after the buffer")
+    void testIdleTimeout() throws Exception {
+        AtomicInteger fetched = new AtomicInteger();
+        Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return fetched.incrementAndGet();
+            }
+        };
+
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 1, 100, executor);
+        Thread.sleep(400);
+        int afterTimeout = fetched.get();
+        Thread.sleep(300);
+
+        assertEquals(afterTimeout, fetched.get());
+        assertEquals(1, iterator.next());
+        assertThrows(SalesforceRuntimeException.class, iterator::hasNext);
+    }
+}